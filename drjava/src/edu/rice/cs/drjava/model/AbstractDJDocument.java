@@ -47,6 +47,7 @@ import edu.rice.cs.drjava.model.definitions.reducedmodel.ReducedModelControl;
 import edu.rice.cs.drjava.model.definitions.reducedmodel.HighlightStatus;
 import edu.rice.cs.drjava.model.definitions.reducedmodel.ReducedModelState;
 
+import edu.rice.cs.plt.collect.IntObjectSortedMap;
 import edu.rice.cs.util.OperationCanceledException;
 import edu.rice.cs.util.StringOps;
 import edu.rice.cs.util.UnexpectedException;
@@ -54,15 +55,15 @@ import edu.rice.cs.util.swing.Utilities;
 import edu.rice.cs.util.text.SwingDocument;
 
 import java.awt.EventQueue;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.SortedMap;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
 import javax.swing.ProgressMonitor;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.AttributeSet;
@@ -131,7 +132,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   private volatile HashMap<Query, Object> _queryCache;
   
   /** Records the set of queries (as a list) for each offset. */
-  private volatile SortedMap<Integer, List<Query>> _offsetToQueries;
+  private volatile IntObjectSortedMap<List<Query>> _offsetToQueries;
   
   /** The instance of the indent decision tree used by Definitions documents. */
   private volatile Indenter _indenter;
@@ -140,6 +141,9 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   private volatile OptionListener<Integer> _listener1;
   private volatile OptionListener<Boolean> _listener2;
   
+  /** The text deleted by the most recent removal.  DocumentListeners are notified after the text is gone. */
+  private volatile String _removedText = "";
+  
   /*-------- CONSTRUCTORS --------*/
   
   /** Constructor used in super calls from DefinitionsDocument and InteractionsDJDocument. */
@@ -585,7 +589,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     int i;  // index of for loop below
     int braceBalance = 0;
     
-    String text = getText(0, pos);
+    final CharSequence text = getTextSequence(0, pos);  // a view, not a copy
     
     final int origPos = _currentLocation;
     // Move reduced model to location pos
@@ -662,7 +666,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     int i;  // index of for loop below
     int braceBalance = 0;
     
-    String text = getText();
+    final CharSequence text = getTextSequence();  // a view, not a copy
     
     final int origPos = _currentLocation;
     // Move reduced model to location pos
@@ -872,8 +876,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     
     int reducedPos = pos;
     int i = pos - 1;
-    String text;
-    text = getText(0, pos); 
+    final CharSequence text = getTextSequence(0, pos);  // a view, not a copy
     
     final int oldPos = _currentLocation;
     // Move reduced model to location reducedPpos
@@ -960,12 +963,12 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       _offsetToQueries.clear();
       return;
     }
-    // The Integer[] copy of the key set is required to avoid ConcurrentModifiationExceptions.  Ugh!
-    Integer[] deadOffsets = _offsetToQueries.tailMap(offset).keySet().toArray(new Integer[0]);
-    for (int i: deadOffsets) {
-      for (Query query: _offsetToQueries.get(i)) _queryCache.remove(query);  // remove query entry from cache
-      _offsetToQueries.remove(i);   // remove query bucket for i from offsetToQueries table
+    // Offsets are sorted, so the dead buckets form a suffix of _offsetToQueries; scan it, then truncate it
+    final int size = _offsetToQueries.size();
+    for (int i = _offsetToQueries.ceilingIndex(offset); i < size; i++) {
+      for (Query query: _offsetToQueries.valueAt(i)) _queryCache.remove(query);  // remove query entry from cache
     }
+    _offsetToQueries.removeFrom(offset);   // remove query buckets at or beyond offset from offsetToQueries table
   }
   
   /** Add {@literal <query,offset>} pair to _offsetToQueries map. 
@@ -976,7 +979,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
   private void _addToOffsetsToQueries(final Query query, final int offset) {
     List<Query> selectedQueries = _offsetToQueries.get(offset);
     if (selectedQueries == null) {
-      selectedQueries = new LinkedList<Query>();
+      selectedQueries = new ArrayList<Query>(4);
       _offsetToQueries.put(offset, selectedQueries);
     }
     selectedQueries.add(query);
@@ -1051,7 +1054,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     
     // Set up the query cache;
     _queryCache = new HashMap<Query, Object>(INIT_CACHE_SIZE);
-    _offsetToQueries = new TreeMap<Integer, List<Query>>();
+    _offsetToQueries = new IntObjectSortedMap<List<Query>>();
     
     // Keep marker at the end. This Position will be the correct endpoint no matter how we change 
     // the doc doing the indentLine calls.
@@ -1452,13 +1455,11 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
    * @param pos the position within text to check
    * @return true if the current character is the start of a comment; false otherwise
    */
-  protected static boolean _isStartOfComment(String text, int pos) {
+  protected static boolean _isStartOfComment(CharSequence text, int pos) {
     char currChar = text.charAt(pos);
-    if (currChar == '/') {
-      try {
-        char afterCurrChar = text.charAt(pos + 1);
-        if ((afterCurrChar == '/') || (afterCurrChar == '*'))  return true;
-      } catch (StringIndexOutOfBoundsException e) { }
+    if (currChar == '/' && pos + 1 < text.length()) {
+      char afterCurrChar = text.charAt(pos + 1);
+      if ((afterCurrChar == '/') || (afterCurrChar == '*'))  return true;
     }
     return false;
   }
@@ -1835,6 +1836,7 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
       final int length = chng.getLength();
       
       final String removedText = getText(offset, length);
+      _removedText = removedText;
       super.removeUpdate(chng);
       
       if (length > 0) _clearCache(offset);  // Selectively clear the query cache
@@ -1850,8 +1852,17 @@ public abstract class AbstractDJDocument extends SwingDocument implements DJDocu
     catch (BadLocationException e) { throw new UnexpectedException(e); }
   }
   
-  /** @return the byte image (as written to a file) of this document. */
-  public byte[] getBytes() { return getText().getBytes(); }
+  /** @return the text deleted by the most recent removal; DocumentListeners can call this from removeUpdate to get
+    * the text described by their event. */
+  public String getRemovedText() { return _removedText; }
+  
+  /** @return the byte image (as written to a file) of this document, encoded straight from the document's storage. */
+  public byte[] getBytes() {
+    ByteBuffer bytes = Charset.defaultCharset().encode(CharBuffer.wrap(getTextSequence()));
+    byte[] result = new byte[bytes.remaining()];
+    bytes.get(result);
+    return result;
+  }
   
   public void clear() {
     try { remove(0, getLength()); }
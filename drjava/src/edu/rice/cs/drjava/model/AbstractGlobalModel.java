@@ -69,6 +69,12 @@ import java.util.List;
 import java.util.Vector;
 import java.util.WeakHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.*;
 import javax.swing.event.DocumentListener;
@@ -228,13 +234,13 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   public GlobalEventNotifier getNotifier() { return _notifier; }
   
   /** Manager for breakpoint regions. */
-  protected final ConcreteRegionManager<Breakpoint> _breakpointManager;
+  protected final IntervalRegionManager<Breakpoint> _breakpointManager;
   
   /** @return manager for breakpoint regions. */
   public RegionManager<Breakpoint> getBreakpointManager() { return _breakpointManager; }
   
   /** Manager for bookmark regions. */
-  protected final ConcreteRegionManager<MovingDocumentRegion> _bookmarkManager;
+  protected final IntervalRegionManager<MovingDocumentRegion> _bookmarkManager;
   
   /** @return manager for bookmark regions. */
   public RegionManager<MovingDocumentRegion> getBookmarkManager() { return _bookmarkManager; }
@@ -249,8 +255,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   
   /** @return new manager for find result regions. */
   public RegionManager<MovingDocumentRegion> createFindResultsManager() {
-    ConcreteRegionManager<MovingDocumentRegion> rm = 
-      new ConcreteRegionManager<MovingDocumentRegion>();
+    IntervalRegionManager<MovingDocumentRegion> rm = 
+      new IntervalRegionManager<MovingDocumentRegion>();
     /* 
      * If the underlying document changes, notify the region manager so that 
      * regions no longer matching the search string can be discarded. 
@@ -289,11 +295,11 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     _consoleDocAdapter = new InteractionsDJDocument(_notifier);
     _consoleDoc = new ConsoleDocument(_consoleDocAdapter);
     
-    _bookmarkManager = new ConcreteRegionManager<MovingDocumentRegion>();
+    _bookmarkManager = new IntervalRegionManager<MovingDocumentRegion>();
     _findResultsManagers = new LinkedList<RegionManager<MovingDocumentRegion>>();
     _browserHistoryManager = new BrowserHistoryManager();
     
-    _breakpointManager = new ConcreteRegionManager<Breakpoint>();
+    _breakpointManager = new IntervalRegionManager<Breakpoint>();
     
     _registerOptionListeners();
     
@@ -572,7 +578,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   
   public void cleanBuildDirectory()  { _state.cleanBuildDirectory(); }
   
-  public List<File> getClassFiles() { return _state.getClassFiles(); }
+  /** Called after the build directory has been cleaned.  Degenerate version overridden in DefaultGlobalModel. */
+  protected void buildDirectoryCleaned() { }
   
   /** Helper method used in subsequent anonymous inner class 
    * @param classname the name of the class for which to get the package name
@@ -605,6 +612,10 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     
     HashSet<String> _projFilePaths = new HashSet<String>();
     
+    /** Canonical paths of _auxFiles and _exclFiles; rebuilt lazily after the lists change.  Guarded by the lists. */
+    private HashSet<String> _auxFilePaths = null;
+    private HashSet<String> _exclFilePaths = null;
+    
     /** Degenerate constructor for a new project; only the file project name is known. 
      * @param project the file project
      */
@@ -730,6 +741,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     /** Adds File f to end of _auxFiles vector. */
     public void addAuxFile(File f) {
       synchronized(_auxFiles) {
+        _auxFilePaths = null;
         if (_auxFiles.add(f)) setProjectChanged(true);
       }
     }
@@ -737,6 +749,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     /** Removes File file from _auxFiles list. */
     public void remAuxFile(File file) {
       synchronized(_auxFiles) { 
+        _auxFilePaths = null;
         if (_auxFiles.remove(file)) setProjectChanged(true);
       }
     }
@@ -745,12 +758,14 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       if (f == null) return;
       if (isAlreadyOpen(f)) return;  // can't add files to the black list that are currently open
       synchronized(_exclFiles) {
+        _exclFilePaths = null;
         if (_exclFiles.add(f)) setProjectChanged(true);
       }
     }
     
     public void removeExcludedFile(File f) {
       synchronized(_exclFiles) {
+        _exclFilePaths = null;
         for(int i = 0;i < _exclFiles.size();i++) {
           try {
             if (_exclFiles.get(i).getCanonicalPath().equals(f.getCanonicalPath())) {
@@ -768,6 +783,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     public void setExcludedFiles(File[] fs) {
       if (fs == null) return;
       synchronized(_exclFiles) {
+        _exclFilePaths = null;
         _exclFiles.clear();
         for(File f: fs) { addExcludedFile(f); }
         setProjectChanged(true);
@@ -803,11 +819,8 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       catch(IOException ioe) { return false; }
       
       synchronized(_auxFiles) {
-        for (File file : _auxFiles) {
-          try { if (file.getCanonicalPath().equals(path)) return true; }
-          catch(IOException ioe) { /* ignore file */ }
-        }
-        return false;
+        if (_auxFilePaths == null) _auxFilePaths = _canonicalPaths(_auxFiles);
+        return _auxFilePaths.contains(path);
       }
     }
     
@@ -819,14 +832,21 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       catch(IOException ioe) { return false; }
       
       synchronized(_exclFiles) {
-        for (File file : _exclFiles) {
-          try { if (file.getCanonicalPath().equals(path)) return true; }
-          catch(IOException ioe) { /* ignore file */ }
-        }
-        return false;
+        if (_exclFilePaths == null) _exclFilePaths = _canonicalPaths(_exclFiles);
+        return _exclFilePaths.contains(path);
       }
     }
     
+    /** @return the canonical paths of the given files; files that cannot be canonicalized are ignored. */
+    private HashSet<String> _canonicalPaths(List<File> files) {
+      HashSet<String> paths = new HashSet<String>();
+      for (File file : files) {
+        try { paths.add(file.getCanonicalPath()); }
+        catch(IOException ioe) { /* ignore file */ }
+      }
+      return paths;
+    }
+    
     public boolean getAutoRefreshStatus() { return _autoRefreshStatus; }
     public void setAutoRefreshStatus(boolean status) { _autoRefreshStatus = status; }
     
@@ -903,36 +923,13 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       }
       public void complete(AsyncCompletionArgs<List<File>> args) {
         // TODO: user feedback. Maybe add a method to the notifier to set the status bar text
+        buildDirectoryCleaned();
       }
       public String getDiscriptionMessage() {
         return "Deleting files...";
       }
     };
     
-    public List<File> getClassFiles() {
-      File dir = this.getBuildDirectory ();
-      LinkedList<File> acc = new LinkedList<File>();
-      getClassFilesHelper(dir, acc);
-      if (! dir.exists()) dir.mkdirs();  // TODO: what if mkdirs() fails
-      return acc;
-    }
-    
-    private void getClassFilesHelper(File f, LinkedList<File> acc) {
-      if (f.isDirectory()) {
-        
-        File fs[] = f.listFiles(new FilenameFilter() {
-          public boolean accept(File parent, String name) {
-            return new File(parent, name).isDirectory() || name.endsWith(".class");
-          }
-        });
-        
-        if (fs != null) { // listFiles may return null if there's an IO error
-          for (File kid: fs) { getClassFilesHelper(kid, acc); }
-        }
-        
-      } else if (f.getName().endsWith(".class")) acc.add(f);
-    }    
-    
     // ----- FIND ALL DEFINED CLASSES IN FOLDER ---
     
     public Iterable<AbsRelFile> getExtraClassPath() { return _projExtraClassPath; }
@@ -1066,8 +1063,6 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
 
     public void cleanBuildDirectory() { }
     
-    public List<File> getClassFiles() { return new LinkedList<File>(); }
-    
     public String getCustomManifest() { return null; }
     public void setCustomManifest(String manifest) { }
   }
@@ -1184,9 +1179,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       for (MovingDocumentRegion cr: conflictingRegions) bm.removeRegion(cr);
     }
     else {
-      MovingDocumentRegion newR = 
-        new MovingDocumentRegion(doc, startSel, endSel, doc._getLineStartPos(startSel), doc._getLineEndPos(endSel));
-      bm.addRegion(newR);
+      bm.addRegion(new MovingDocumentRegion(doc, startSel, endSel));
     }
   }
   
@@ -1403,8 +1396,13 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     LinkedList<OpenDefinitionsDocument> filesOpened = new LinkedList<OpenDefinitionsDocument>();
     for (final File f: files) {
       if (f == null) throw new IOException("File name returned from FileSelector is null");
+    }
+    // canonicalize and stat all files up front, concurrently; creating the documents then requires no file access
+    ParallelFileStat.Stat[] stats = ParallelFileStat.stat(files);
+    for (int i = 0; i < files.length; ++i) {
+      final File f = files[i];
       try {
-        OpenDefinitionsDocument d = _rawOpenFile(IOUtil.attemptCanonicalFile(f));
+        OpenDefinitionsDocument d = _rawOpenFile(stats[i].canonicalFile, stats[i].exists, stats[i].lastModified);
         //always return last opened Doc
         retDocs.add(d);
         filesOpened.add(d);
@@ -1553,6 +1551,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     boolean isProjActive = isProjectActive();
     
     List<OpenDefinitionsDocument> docsToWrite = getOpenDefinitionsDocuments();
+    _saveInParallel(docsToWrite);
     while (docsToWrite.size() > 0) {
       ArrayList<OpenDefinitionsDocument> readOnlyDocs = new ArrayList<OpenDefinitionsDocument>();
       for (final OpenDefinitionsDocument doc: docsToWrite) {  // getOpen... makes a copy
@@ -1600,6 +1599,92 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     }
   }
   
+  /** Writes the modified documents in docs that already have a writable file on parallel threads, then updates their
+    * state in the event thread.  Documents that need attention from the user (untitled documents, moved or read-only
+    * files) and documents whose save fails are left modified for the sequential loop in saveAllFilesHelper, which
+    * prompts the user and reports errors.  The event thread waits for the writers, so the documents do not change
+    * while they are written.  Only runs in the event thread.
+    * @param docs the documents to save
+    * @throws IOException if the canonical path of a saved file cannot be determined
+    */
+  private void _saveInParallel(List<OpenDefinitionsDocument> docs) throws IOException {
+    final List<ConcreteOpenDefDoc> batch = new ArrayList<ConcreteOpenDefDoc>();
+    final List<File> files = new ArrayList<File>();
+    for (OpenDefinitionsDocument odd: docs) {
+      if (! (odd instanceof ConcreteOpenDefDoc) || odd.isUntitled() || ! odd.isModifiedSinceSave()) continue;
+      try {
+        File file = odd.getFile().getCanonicalFile();
+        if (file.exists() && file.canWrite() && file.getAbsolutePath().indexOf("#") == -1 &&
+            _getOpenDocument(file) == odd) {
+          batch.add((ConcreteOpenDefDoc) odd);
+          files.add(file);
+        }
+      }
+      catch(FileMovedException fme) { /* the user is asked about it later */ }
+    }
+    if (batch.size() < 2) return;
+    
+    List<Future<Void>> saves = new ArrayList<Future<Void>>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      ConcreteOpenDefDoc doc = batch.get(i);
+      doc._packageName = doc.getDocument().getPackageName();
+      _correctFileNameCase(files.get(i));
+      final FileOps.FileSaver saver = doc._newFileSaver(files.get(i));
+      saves.add(_saveAllExecutor().submit(new Callable<Void>() {
+        public Void call() throws IOException {
+          FileOps.saveFile(saver);
+          return null;
+        }
+      }));
+    }
+    boolean interrupted = false;
+    for (int i = 0; i < batch.size(); i++) {
+      ConcreteOpenDefDoc doc = batch.get(i);
+      File oldFile = doc.getRawFile();
+      boolean saved = false;
+      while (true) {
+        try {
+          saves.get(i).get();
+          saved = true;
+          break;
+        }
+        catch (ExecutionException e) {
+          _log.log("Save All failed to write " + files.get(i), e.getCause());
+          break;
+        }
+        catch (InterruptedException e) { interrupted = true; /* the document must not change before it is written */ }
+      }
+      if (saved) doc._fileSavedAs(oldFile, files.get(i));
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+  }
+  
+  /** Corrects the case of the name of an existing file to match file (in Windows), before it is overwritten.
+    * TODO: what if rename fails?
+    * @param file the file about to be written
+    * @throws IOException if the canonical file cannot be determined
+    */
+  private static void _correctFileNameCase(File file) throws IOException {
+    if (! file.getCanonicalFile().getName().equals(file.getName())) file.renameTo(file);
+  }
+  
+  /** Executor for the file writes of Save All; its threads are daemon threads so they never keep DrJava alive. */
+  private static ExecutorService _saveAllExecutor = null;
+  
+  private static synchronized ExecutorService _saveAllExecutor() {
+    if (_saveAllExecutor == null) {
+      int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+      _saveAllExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Save All");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return _saveAllExecutor;
+  }
+  
   /** Creates a new FileGroupingState for specificed project file and default values for other properties.
     * @param projFile the new project file (which does not yet exist in the file system)
     */
@@ -1892,22 +1977,17 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     
     // Collection of documents that have been modified outside of DrJava
     ArrayList<DocFile> modifiedFiles = new ArrayList<DocFile>();
-    for (DocFile f: srcFiles) {
-      if (f.lastModified() > f.getSavedModDate()) {
-        modifiedFiles.add(f);
-        f.setSavedModDate (f.lastModified());
-      }
-      
-      if (f.isActive()) { active = f; }
-      projFiles.add(f);
-    }
-    for (DocFile f: auxFiles) {
-      if (f.lastModified() > f.getSavedModDate()) {
+    for (DocFile f: srcFiles) { projFiles.add(f); }
+    for (DocFile f: auxFiles) { projFiles.add(f); }
+    ParallelFileStat.Stat[] stats = ParallelFileStat.stat(projFiles.toArray(new File[projFiles.size()]));
+    for (int i = 0; i < stats.length; ++i) {
+      DocFile f = projFiles.get(i);
+      long modified = stats[i].lastModified;
+      if (modified > f.getSavedModDate()) {
         modifiedFiles.add(f);
-        f.setSavedModDate (f.lastModified());
+        f.setSavedModDate(modified);
       }
       if (f.isActive()) { active = f; }
-      projFiles.add(f);
     }
     
 //    Utilities.showDebug("Project files are: " + projFiles);
@@ -1968,11 +2048,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         int end = bm.getEndOffset();
         if (getOpenDefinitionsDocuments().contains(odd) && 
             _bookmarkManager.getRegionsOverlapping(odd, start, end).size() == 0) { // bookmark is valid
-          try { 
-            int lineStart = odd._getLineStartPos(start);
-            int lineEnd = odd._getLineEndPos(end);
-            _bookmarkManager.addRegion(new MovingDocumentRegion(odd, start, end, lineStart, lineEnd)); 
-          }
+          try { _bookmarkManager.addRegion(new MovingDocumentRegion(odd, start, end)); }
           catch(Exception e) { DrJavaErrorHandler.record(e); }  // should never happen
         }
         // should remove stale bookmark
@@ -2069,7 +2145,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   public boolean closeFiles(List<OpenDefinitionsDocument> docs) {
     if (docs.size() == 0) return true;
     
-    _log.log("closeFiles(" + docs + ") called");
+    _log.logf("closeFiles(%s) called", docs);
     /* Force the user to save or discard all modified files in docs */
     for (OpenDefinitionsDocument doc : docs) { 
       if (! doc.canAbandonFile()) return false; }
@@ -2108,13 +2184,13 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   public boolean closeFileWithoutPrompt(final OpenDefinitionsDocument doc) {
     //    new Exception("Closed document " + doc).printStackTrace();
     
-    _log.log("closeFileWithoutPrompt(" + doc + ") called; getRawFile() = " + doc.getRawFile());
-    _log.log("_documentsRepos = " + _documentsRepos);
+    _log.logf("closeFileWithoutPrompt(%s) called; getRawFile() = %s", doc, doc.getRawFile());
+    _log.logf("_documentsRepos = %s", _documentsRepos);
     boolean found;
     synchronized(_documentsRepos) { found = (_documentsRepos.remove(doc.getRawFile()) != null); }
     
     if (! found) {
-      _log.log("Cannot close " + doc + "; not found!");
+      _log.logf("Cannot close %s; not found!", doc);
       return false;
     }
     
@@ -2677,7 +2753,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
   /** Add the current location (point region) to browser history.  Only runs in event thread. Assumes doc is not null.
     * @param before true if the location should be inserted before the current region */
   public void addToBrowserHistory(boolean before) {
-     _log.log("AbstractGlobalModel.addToBrowserHistory(" + before + ") called");
+     _log.logf("AbstractGlobalModel.addToBrowserHistory(%s) called", before);
     _notifier.updateCurrentLocationInDoc();
     final OpenDefinitionsDocument doc = getActiveDocument();
     assert (doc != null && EventQueue.isDispatchThread()) || Utilities.TEST_MODE;
@@ -2768,7 +2844,10 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
     /** Standard constructor for a document read from a file.  Initializes this ODD's DD.  Assumes that f exists.
       * @param f file describing DefinitionsDocument to manage; should be in canonical form
       */
-    ConcreteOpenDefDoc(File f) { this(f, f.getParentFile(), f.lastModified()); }
+    ConcreteOpenDefDoc(File f) { this(f, f.lastModified()); }
+    
+    /* Constructor for a document read from a file whose modification date stamp is already known. */
+    ConcreteOpenDefDoc(File f, long stamp) { this(f, f.getParentFile(), stamp); }
     
     /* Standard constructor for a new document (associated file is NullFile which does not exit in file system). */
     ConcreteOpenDefDoc(NullFile f) { this(f, null, 0L); }
@@ -3114,7 +3193,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
           _editorKit.read(new StringReader(image), newDefDoc, 0);
           //  Set document property to write out document using newLine conventions of the host platform.
           newDefDoc.putProperty(DefaultEditorKit.EndOfLineStringProperty, StringOps.EOL);
-          _log.log("Reading from image for " + _file + " containing " + _image.length() + " chars");    
+          _log.logf("Reading from image for %s containing %s chars", _file, _image.length());    
           
           _loc = Math.min(_loc, image.length()); // make sure not past end
           _loc = Math.max(_loc, 0); // make sure not less than 0
@@ -3230,7 +3309,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         final OpenDefinitionsDocument openDoc = this;
         final File file = com.getFile().getCanonicalFile();
         
-        _log.log("saveFileAs called on " + file);
+        _log.logf("saveFileAs called on %s", file);
         OpenDefinitionsDocument otherDoc = _getOpenDocument(file);
         
         // Check if file is already open in another document
@@ -3248,8 +3327,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
           
 //          System.err.println("Writing file " + file);
           
-          // Correct the case of the filename (in Windows)  TODO: what if rename fails?
-          if (! file.getCanonicalFile().getName().equals(file.getName())) file.renameTo(file);
+          _correctFileNameCase(file);
           
           // Check for # in the path of the file because if there
           // is one, then the file cannot be used in the Interactions Pane
@@ -3266,60 +3344,9 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
           
           // have FileOps save the file
 //          System.err.println("Calling FileOps.saveFile to save it");
-          FileOps.saveFile(new FileOps.DefaultFileSaver(file) {
-            /** Only runs in event thread so no read lock is necessary. */
-            public void saveTo(OutputStream os) throws IOException {
-              DefinitionsDocument dd = getDocument();
-              try {
-                _editorKit.write(os, dd, 0, dd.getLength());
-//                Utilities.show ("Wrote file containing:\n" + doc.getText());
-              }
-              catch (BadLocationException docFailed) { throw new UnexpectedException(docFailed); }
-            }
-          });
+          FileOps.saveFile(_newFileSaver(file));
           
-          if (com.shouldUpdateDocumentState()) {
-            resetModification();
-            if (! oldFile.equals(file)) {
-              /* remove regions for this document */
-              removeFromDebugger();
-              _breakpointManager.removeRegions(this);
-              _bookmarkManager.removeRegions(this);
-              for (RegionManager<MovingDocumentRegion> rm: getFindResultsManagers()) rm.removeRegions(this);
-              clearBrowserRegions();
-            }
-            synchronized(_documentsRepos) {
-              File f = getRawFile();
-//            OpenDefinitionsDocument d = _documentsRepos.get(f);
-              // d == this except in some unit tests where documents are not entered in _documentsRepos
-//            assert d == this;
-              _documentsRepos.remove(f);
-              _documentsRepos.put(file, this);
-            }
-            setFile(file);
-            
-            // this.getPackageName does not return "" if this is untitled and contains a legal package declaration     
-//          try {
-//            // This calls getDocument().getPackageName() because this may be untitled and this.getPackageName()
-//            // returns "" if it's untitled.  Right here we are interested in parsing the DefinitionsDocument's text
-//            _packageName = getDocument().getPackageName();
-//          }
-//          catch(InvalidPackageException e) { _packageName = null; }
-            setCachedClassFile(FileOps.NULL_FILE);
-            checkIfClassFileInSync();
-            
-//          Utilities.showDebug("ready to fire fileSaved for " + this);
-            _notifier.fileSaved(openDoc);
-            
-            // Make sure this file is on the appropriate classpaths (does nothing in AbstractGlobalModel)
-            addDocToClassPath(this);
-            
-            /* update the navigator */
-            _documentNavigator.refreshDocument(this, fixPathForNavigator(file.getCanonicalPath()));
-            
-            /* set project changed flag */
-            setProjectChanged(true);          
-          }
+          if (com.shouldUpdateDocumentState()) _fileSavedAs(oldFile, file);
         }
         return true;
       }
@@ -3330,6 +3357,74 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       }
     }
     
+    /** Creates a FileSaver that writes this document to file through the editor kit.  The document is fetched from the
+      * cache when the saver is created, so saveTo may run on another thread as long as the event thread does not modify
+      * the document until the save is done.  Only runs in the event thread.
+      * @param file the (canonical) file to write
+      * @return the saver
+      */
+    FileOps.FileSaver _newFileSaver(File file) {
+      final DefinitionsDocument dd = getDocument();
+      return new FileOps.DefaultFileSaver(file) {
+        public void saveTo(OutputStream os) throws IOException {
+          try {
+            _editorKit.write(os, dd, 0, dd.getLength());
+//            Utilities.show ("Wrote file containing:\n" + doc.getText());
+          }
+          catch (BadLocationException docFailed) { throw new UnexpectedException(docFailed); }
+        }
+      };
+    }
+    
+    /** Updates the state of this document and the model after it has been written to file.  Only runs in the event
+      * thread.
+      * @param oldFile the file of this document before the save
+      * @param file the file the document was written to
+      * @throws IOException if the canonical path of file cannot be determined
+      */
+    void _fileSavedAs(File oldFile, File file) throws IOException {
+      resetModification();
+      if (! oldFile.equals(file)) {
+        /* remove regions for this document */
+        removeFromDebugger();
+        _breakpointManager.removeRegions(this);
+        _bookmarkManager.removeRegions(this);
+        for (RegionManager<MovingDocumentRegion> rm: getFindResultsManagers()) rm.removeRegions(this);
+        clearBrowserRegions();
+      }
+      synchronized(_documentsRepos) {
+        File f = getRawFile();
+//      OpenDefinitionsDocument d = _documentsRepos.get(f);
+        // d == this except in some unit tests where documents are not entered in _documentsRepos
+//      assert d == this;
+        _documentsRepos.remove(f);
+        _documentsRepos.put(file, this);
+      }
+      setFile(file);
+      
+      // this.getPackageName does not return "" if this is untitled and contains a legal package declaration     
+//      try {
+//      // This calls getDocument().getPackageName() because this may be untitled and this.getPackageName()
+//      // returns "" if it's untitled.  Right here we are interested in parsing the DefinitionsDocument's text
+//      _packageName = getDocument().getPackageName();
+//      }
+//      catch(InvalidPackageException e) { _packageName = null; }
+      setCachedClassFile(FileOps.NULL_FILE);
+      checkIfClassFileInSync();
+      
+//      Utilities.showDebug("ready to fire fileSaved for " + this);
+      _notifier.fileSaved(this);
+      
+      // Make sure this file is on the appropriate classpaths (does nothing in AbstractGlobalModel)
+      addDocToClassPath(this);
+      
+      /* update the navigator */
+      _documentNavigator.refreshDocument(this, fixPathForNavigator(file.getCanonicalPath()));
+      
+      /* set project changed flag */
+      setProjectChanged(true);
+    }
+    
     /** This method tells the document to prepare all the DrJavaBook and PagePrinter objects. */
     public void preparePrintJob() throws BadLocationException, FileMovedException {
       String fileName = "(Untitled)";
@@ -3416,7 +3511,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       * the class file to that of the source file.  An empty untitled document is consider to be "in sync".
       */
     public boolean checkIfClassFileInSync() {
-      _log.log("checkIfClassFileInSync() called for " + this);
+      _log.logf("checkIfClassFileInSync() called for %s", this);
       if (isEmpty()) return true;
       
       // If modified, then definitely out of sync
@@ -3429,11 +3524,11 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       
       // Look for cached class file
       File classFile = getCachedClassFile();
-      _log.log("In checkIfClassFileInSync cacched value of classFile = " + classFile);
+      _log.logf("In checkIfClassFileInSync cacched value of classFile = %s", classFile);
       if (classFile == FileOps.NULL_FILE) {
         // Not cached, so locate the file
         classFile = _locateClassFile();
-        _log.log(this + ": in checkIfClassFileInSync _locateClassFile() = " + classFile);
+        _log.logf("%s: in checkIfClassFileInSync _locateClassFile() = %s", this, classFile);
         setCachedClassFile(classFile);
         if ((classFile == FileOps.NULL_FILE) || (! classFile.exists())) {
           // couldn't find the class file
@@ -3452,7 +3547,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         _log.log(this + ": File moved");
         return false;
       }
-      if (sourceFile != null) { 
+      if (sourceFile != null && _log.isEnabled()) { 
         _log.log(sourceFile + " has timestamp " + sourceFile.lastModified());
         _log.log(classFile + " has timestamp " + classFile.lastModified());
       }
@@ -3479,7 +3574,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       String className;
       try { className = getDocument().getQualifiedClassName(); }
       catch (ClassNameNotFoundException cnnfe) {
-        _log.log("_locateClassFile() failed for " + this + " because getQualifedClassName returned ClassNotFound");
+        _log.logf("_locateClassFile() failed for %s because getQualifedClassName returned ClassNotFound", this);
         return FileOps.NULL_FILE;  /* No source class name */ 
       }
 //      _log.log("In _locateClassFile, className = " + className);
@@ -3515,7 +3610,7 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
         catch(NullPointerException e) { throw new UnexpectedException(e); }
         catch(FileMovedException fme) {
           // Moved, but we'll add the old file to the set anyway
-          _log.log("File for " + this + "has moved; adding parent directory to list of roots");
+          _log.logf("File for %shas moved; adding parent directory to list of roots", this);
           File root = fme.getFile().getParentFile();
           if (root != FileOps.NULL_FILE) roots.add(root);
         }
@@ -3748,6 +3843,12 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
       return _cacheAdapter.getText(offset, length);
     }
     
+    /** Gets a view of the specified substring of this without copying it.  Avoids reloading the document if it is 
+      * kicked out of the cache. */
+    public CharSequence getTextSequence(int offset, int length) throws BadLocationException {
+      return _cacheAdapter.getTextSequence(offset, length);
+    }
+    
     public void getText(int offset, int length, Segment txt) throws BadLocationException {
       getDocument().getText(offset, length, txt);
     }
@@ -4070,7 +4171,16 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
    */
   protected ConcreteOpenDefDoc _createOpenDefinitionsDocument(File f) throws IOException {
     if (! f.exists()) throw new FileNotFoundException("file " + f + " cannot be found");
-    return new ConcreteOpenDefDoc(f);
+    return _createOpenDefinitionsDocument(f, f.lastModified());
+  }
+  
+  /** Creates a ConcreteOpenDefDoc for an existing file f whose modification date is already known.
+   * @param f the file for which to create a document
+   * @param stamp the modification date of f
+   * @return OpenDefinitionsDocument object for f
+   */
+  protected ConcreteOpenDefDoc _createOpenDefinitionsDocument(File f, long stamp) {
+    return new ConcreteOpenDefDoc(f, stamp);
   }
   
   /** Returns the OpenDefinitionsDocument corresponding to the given File, or null if that file is not open.
@@ -4135,9 +4245,23 @@ public class AbstractGlobalModel implements SingleDisplayModel, OptionConstants,
    * @throws AlreadyOpenException if the file is already open
    */
   private OpenDefinitionsDocument _rawOpenFile(File file) throws IOException, AlreadyOpenException{
+    return _rawOpenFile(file, file.exists(), file.lastModified());
+  }
+  
+  /** Creates an OpenDefinitionsDocument for a file that has already been stat'ed; see {@link #_rawOpenFile(File)}.
+   * @param file the file to open
+   * @param exists whether the file exists
+   * @param stamp the modification date of the file
+   * @return the newly-opened document
+   * @throws IOException if an IO operation fails
+   * @throws AlreadyOpenException if the file is already open
+   */
+  private OpenDefinitionsDocument _rawOpenFile(File file, boolean exists, long stamp) 
+    throws IOException, AlreadyOpenException {
     OpenDefinitionsDocument openDoc = _getOpenDocument(file);
     if (openDoc != null) throw new AlreadyOpenException(openDoc); // handled in MainFrame.openFile(...)
-    final ConcreteOpenDefDoc doc = _createOpenDefinitionsDocument(file);
+    if (! exists) throw new FileNotFoundException("file " + file + " cannot be found");
+    final ConcreteOpenDefDoc doc = _createOpenDefinitionsDocument(file, stamp);
     if (file instanceof DocFile) {
       DocFile df = (DocFile)file;
       Pair<Integer,Integer> scroll = df.getScroll();
@@ -359,6 +359,11 @@ public class ConcreteRegionManager<R extends OrderedDocumentRegion> extends
     }
   }
   
+  /** Invoke {@link #addRegion} on all of the given regions. */
+  public void addRegions(Iterable<? extends R> regions) {
+    for (R r: regions) addRegion(r);
+  }
+  
   /** Remove the given IDocumentRegion from the manager.  If any document's 
    * regions are emptied, remove the document from the keys in _regions.  
    * Notification removes the panel node for the region.
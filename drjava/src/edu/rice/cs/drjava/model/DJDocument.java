@@ -338,6 +338,15 @@ public interface DJDocument extends SwingDocumentInterface {
     */
   public String getText();
   
+  /** Gets a view of a block of text that shares the document's storage instead of copying it, for scanning, searching
+    * and writing large documents.  The view is only valid until the document is next modified.
+    * @param offset the offset of the block
+    * @param length the length of the block
+    * @return a view of the block
+    * @throws BadLocationException if the block is not inside the document
+    */
+  public CharSequence getTextSequence(int offset, int length) throws BadLocationException;
+  
   /** Clears the entire text of the document.  Without this operation, a client must use locking to perform this
     * task safely.
     */
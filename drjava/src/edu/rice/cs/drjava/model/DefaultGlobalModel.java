@@ -41,10 +41,13 @@ import java.awt.EventQueue;
 
 import java.io.*;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Vector;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import edu.rice.cs.drjava.DrJava;
@@ -122,6 +125,11 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
   /** Interface between the InteractionsDocument and the JavaInterpreter, which runs in a separate JVM. */
   protected final DefaultInteractionsModel _interactionsModel;
   
+  /** Source roots of open documents already added to the interpreter's project files and external files class paths
+    * since the interpreter was last (re)started. */
+  private final Set<File> _projectFilesClassPathRoots = Collections.synchronizedSet(new HashSet<File>());
+  private final Set<File> _externalFilesClassPathRoots = Collections.synchronizedSet(new HashSet<File>());
+  
   /** Core listener attached to interactions model */
   protected InteractionsListener _interactionsListener = new InteractionsListener() {
     public void interactionStarted() { }
@@ -403,6 +411,7 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
       //      System.out.println("adding: " + f.getAbsolutePath());
       _jvm.addBuildDirectoryClassPath(IOUtil.attemptAbsoluteFile(f));
     }
+    _compilerModel.getClassFileIndex().scheduleClear();  // indexes the old build directory
     
     _notifier.projectBuildDirChanged();
     setProjectChanged(true);
@@ -422,6 +431,9 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
   /** Gets the CompilerModel, which provides all methods relating to compilers. */
   public CompilerModel getCompilerModel() { return _compilerModel; }
   
+  /** Resynchronizes the class file index with the cleaned build directory. */
+  protected void buildDirectoryCleaned() { _compilerModel.getClassFileIndex().scheduleRefresh(); }
+  
   /** Gets the JUnitModel, which provides all methods relating to JUnit testing. */
   public JUnitModel getJUnitModel() { return _junitModel; }
   
@@ -567,8 +579,14 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     /** Standard constructor for a document read from a file.  Initializes this ODD's DD.
       * @param f file describing DefinitionsDocument to manage
       */
-    ConcreteOpenDefDoc(File f) {
-      super(f);
+    ConcreteOpenDefDoc(File f) { this(f, f.lastModified()); }
+    
+    /** Constructor for a document read from a file whose modification date stamp is already known.
+      * @param f file describing DefinitionsDocument to manage
+      * @param stamp the modification date of f
+      */
+    ConcreteOpenDefDoc(File f, long stamp) {
+      super(f, stamp);
       
       // update the syntax highlighting for this document
       // can't be done in AbstractGlobalModel.ConcreteOpenDefDoc because getCompilerModel is not supported
@@ -754,12 +772,11 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     */
   protected ConcreteOpenDefDoc _createOpenDefinitionsDocument(NullFile f) { return new ConcreteOpenDefDoc(f); }
   
-  /** Creates a ConcreteOpenDefDoc for a given file f
+  /** Creates a ConcreteOpenDefDoc for a given file f whose modification date is already known.
     * @return OpenDefinitionsDocument object for f
     */
-  protected ConcreteOpenDefDoc _createOpenDefinitionsDocument(File f) throws IOException { 
-    if (! f.exists()) throw new FileNotFoundException("file " + f + " cannot be found");
-    return new ConcreteOpenDefDoc(f); 
+  protected ConcreteOpenDefDoc _createOpenDefinitionsDocument(File f, long stamp) { 
+    return new ConcreteOpenDefDoc(f, stamp); 
   }
   
   /** Adds the source root for doc to the interactions classpath; this function is a helper to _openFiles.
@@ -768,8 +785,13 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
   protected void addDocToClassPath(OpenDefinitionsDocument doc) {
     try {
       File sourceRoot = doc.getSourceRoot();
-      if (doc.isAuxiliaryFile()) { _interactionsModel.addProjectFilesClassPath(sourceRoot); }
-      else { _interactionsModel.addExternalFilesClassPath(sourceRoot); }
+      // most documents share a few source roots; only tell the interpreter JVM about each root once
+      if (doc.isAuxiliaryFile()) {
+        if (_projectFilesClassPathRoots.add(sourceRoot)) _interactionsModel.addProjectFilesClassPath(sourceRoot);
+      }
+      else {
+        if (_externalFilesClassPathRoots.add(sourceRoot)) _interactionsModel.addExternalFilesClassPath(sourceRoot);
+      }
       setClassPathChanged(true);
     }
     catch (InvalidPackageException e) {
@@ -807,6 +829,7 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     _debugger.addListener(new DebugListener() {
       public void watchSet(final DebugWatchData w) { setProjectChanged(true); }
       public void watchRemoved(final DebugWatchData w) { setProjectChanged(true); }    
+      public void watchesUpdated(List<DebugWatchData> watches) { }
       
       public void regionAdded(final Breakpoint bp) { }
       public void regionChanged(final Breakpoint bp) { }
@@ -870,6 +893,8 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     */
   public void resetInteractionsClassPath() {
 //    System.err.println("Resetting interactions class path");
+    _projectFilesClassPathRoots.clear();
+    _externalFilesClassPathRoots.clear();
     Iterable<AbsRelFile> projectExtras = getExtraClassPath();
     //System.out.println("Adding project classpath vector to interactions classpath: " + projectExtras);
     if (projectExtras != null)  for (File cpE : projectExtras) { _interactionsModel.addProjectClassPath(cpE); }
@@ -881,7 +906,10 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
     
     for (OpenDefinitionsDocument odd: getAuxiliaryDocuments()) {
       // this forwards directly to InterpreterJVM.addClassPath(String)
-      try { _interactionsModel.addProjectFilesClassPath(odd.getSourceRoot()); }
+      try {
+        File sourceRoot = odd.getSourceRoot();
+        if (_projectFilesClassPathRoots.add(sourceRoot)) _interactionsModel.addProjectFilesClassPath(sourceRoot);
+      }
       catch(InvalidPackageException e) {  /* ignore it */ }
     }
     
@@ -889,7 +917,9 @@ public class DefaultGlobalModel extends AbstractGlobalModel {
       // this forwards directly to InterpreterJVM.addClassPath(String)
       try {
         File sourceRoot = odd.getSourceRoot();
-        if (sourceRoot != null) _interactionsModel.addExternalFilesClassPath(sourceRoot); 
+        if (sourceRoot != null && _externalFilesClassPathRoots.add(sourceRoot)) {
+          _interactionsModel.addExternalFilesClassPath(sourceRoot);
+        }
       }
       catch(InvalidPackageException e) { /* ignore it */ }
     }
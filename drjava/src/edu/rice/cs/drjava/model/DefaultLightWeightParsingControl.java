@@ -36,104 +36,58 @@
 
 package edu.rice.cs.drjava.model;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.HashMap;
+import javax.swing.Timer;
 import javax.swing.text.*;
 
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.drjava.config.OptionConstants;
 import edu.rice.cs.drjava.model.definitions.*;
-import edu.rice.cs.drjava.ui.DrJavaErrorHandler;
 import edu.rice.cs.util.Log;
 import edu.rice.cs.util.swing.Utilities;
 
-/** Default light-weight parsing control.  This class is declared final because it cannot be robustly subclassed because
-  * the constructor starts a thread.
+/** Default light-weight parsing control.  Instead of polling, updates are driven by {@link #delay}, which is called on
+  * every edit and caret movement: once the active document has been left alone for the configured delay, its enclosing
+  * class name is looked up in the document outline, which is kept current in the background and answers in
+  * logarithmic time.
   * @version $Id$
   */
 public final class DefaultLightWeightParsingControl implements LightWeightParsingControl {
   /** The model. */
   private AbstractGlobalModel _model;
   
-  /** The time at which updates may be performed. */
-  private long _beginUpdates;
-  
-  /** The time at which the last delay operation was performed. */
-  private long _lastDelay = System.currentTimeMillis();
-  
-  /** Last updates for the documents. */
-  private HashMap<OpenDefinitionsDocument, Long> _lastUpdates = new HashMap<OpenDefinitionsDocument, Long>();
-
   /** Enclosing class names for the documents. */
   private HashMap<OpenDefinitionsDocument, String> _enclosingClassNames = new HashMap<OpenDefinitionsDocument, String>();
   
   /** Flag to stop automatic updates. */
   private volatile boolean _running = false;
   
-  /** Monitor to restart automatic updates. */
-  private Object _restart = new Object();
-  
   /** List of listeners. */
   private LinkedList<LightWeightParsingListener> _listeners = new LinkedList<LightWeightParsingListener>();
   
   /** Log file. */
   private static final Log _log = new Log("LightWeightParsing", false);
   
-  /** Thread group for the updater. */
-  private ThreadGroup _updaterThreadGroup = new ThreadGroup("Light-weight parsing updater thread group") {
-    public void uncaughtException(Thread t, Throwable e) {
-      _log.log("Uncaught exception in updater; disabled for rest of session", e);
-      DrJavaErrorHandler.record(e);
-    }
-  };
-  
-  /** Thread to perform automatic updates. */
-  private Thread _updater = new Thread(_updaterThreadGroup, new Runnable() {
-    public void run() {
-      while(true) { // this is ok, it's a daemon thread and will die when all other threads have died
-        while (!_running) {
-          _log.log("Waiting...");
-          try { synchronized(_restart) { if (! _running)  _restart.wait(); } }
-          catch(InterruptedException e) { }
-        }
-        long current = System.currentTimeMillis();
-        long delta = (_beginUpdates-current);
-        // _log.logTime("Begin updates at " + _beginUpdates + " (delta=" + delta + ")");
-        if (current>=_beginUpdates) {
-          OpenDefinitionsDocument doc = _model.getActiveDocument();
-          Long last = _lastUpdates.get(doc);
-          if ((last == null) || (last < _lastDelay)) {
-            update(doc);
-            // _log.logTime("Update done.");
-          }
-          else {
-            // _log.logTime("Not updating, last update was at " + last);
-          }
-          delta = DrJava.getConfig().getSetting(OptionConstants.DIALOG_LIGHTWEIGHT_PARSING_DELAY).intValue();
-        }
-        // _log.logTime("Not updating, sleeping for " + delta);
-        try {
-          Thread.sleep(delta);
-        }
-        catch (InterruptedException e) { /* ignore, just wake up earlier and retry */ }
-      }
-    }
+  /** Timer that updates the active document once the delay has passed; restarted by every call to delay(). */
+  private final Timer _updater = new Timer(0, new ActionListener() {
+    public void actionPerformed(ActionEvent e) { if (_running) update(_model.getActiveDocument()); }
   });
   
-  /** Create the default light-weight parsing control.  Starts a new thread.
+  /** Create the default light-weight parsing control.
     * @param model the model */
   public DefaultLightWeightParsingControl(AbstractGlobalModel model) {
     _model = model;
-    _updater.setDaemon(true);
-    _updater.start();
+    _updater.setRepeats(false);
   }
   
   /** Perform light-weight parsing. */
   public synchronized void update(final OpenDefinitionsDocument doc) {
-    _log.log("Update for " + doc);
+    _log.logf("Update for %s", doc);
     try {
-      _lastUpdates.put(doc, System.currentTimeMillis());
       final String old = _enclosingClassNames.get(doc);
       final String updated = doc.getEnclosingClassName(doc.getCurrentLocation(), true);
       if ((old == null) || (!old.equals(updated))) {
@@ -154,20 +108,17 @@ public final class DefaultLightWeightParsingControl implements LightWeightParsin
     * @param b  {@code true} to start or {@code false} to stop automatic updates
     */
   public void setAutomaticUpdates(boolean b) {
-    _log.log("setAutomaticUpdates(" + b + ")");
+    _log.logf("setAutomaticUpdates(%s)", b);
     _running = b;
-    if (b) {
-      delay();
-      synchronized(_restart) {
-        _restart.notify();
-      }
-    }
+    if (b) delay();
+    else _updater.stop();
   }
   
   /** Delay the next update. */
   public void delay() {
-    _lastDelay = System.currentTimeMillis();
-    _beginUpdates = _lastDelay + (DrJava.getConfig().getSetting(OptionConstants.DIALOG_LIGHTWEIGHT_PARSING_DELAY).intValue());
+    if (! _running) return;
+    _updater.setInitialDelay(DrJava.getConfig().getSetting(OptionConstants.DIALOG_LIGHTWEIGHT_PARSING_DELAY).intValue());
+    _updater.restart();
   }
   
   /** Reset light-weight parsing. Forget everything. */
@@ -182,12 +133,10 @@ public final class DefaultLightWeightParsingControl implements LightWeightParsin
       });
     }
     _enclosingClassNames.clear();
-    _lastUpdates.clear();
   }
   
   /** Return the last enclosing class name for the specified document, "" if not inside a class, or
     * null if unknown.
-    * WARNING: In long source files and when contained in anonymous inner classes, this function might take a LONG time.
     * @param doc the document for which we want the information
     * @return the enclosing class name
     */
@@ -84,12 +84,22 @@ public class DocumentRegionTest extends DrJavaTestCase {
     "        }\n" +
     "}";
 
-  /** Tests RegionManager. 
+  /** Tests ConcreteRegionManager. 
    * @throws BadLocationException if attempts to reference an invalid location
    */
   public void testRegionManager() throws BadLocationException {
+    _checkRegionManager(new ConcreteRegionManager<StaticDocumentRegion>());
+  }
+  
+  /** Tests IntervalRegionManager. 
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public void testIntervalRegionManager() throws BadLocationException {
+    _checkRegionManager(new IntervalRegionManager<StaticDocumentRegion>());
+  }
+  
+  private void _checkRegionManager(RegionManager<StaticDocumentRegion> rm) throws BadLocationException {
     _doc.insertString(0, DOCUMENT_TEXT, null);
-    RegionManager<StaticDocumentRegion> rm = new ConcreteRegionManager<StaticDocumentRegion>();
     assertNull(rm.getRegionAt(_doc, 5));
     assertNull(rm.getRegionAt(_doc, 3));
     assertNull(rm.getRegionAt(_doc, 7));
@@ -432,6 +432,9 @@ public class DummyOpenDefDoc implements OpenDefinitionsDocument {
   public int getInitialSelectionStart() { throw new UnsupportedOperationException("Dummy method"); }
   public int getInitialSelectionEnd() { throw new UnsupportedOperationException("Dummy method"); }
   public String getText() { throw new UnsupportedOperationException("Dummy method"); }
+  public CharSequence getTextSequence(int offset, int length) throws BadLocationException {
+    throw new UnsupportedOperationException("Dummy method");
+  }
   public void clear() { throw new UnsupportedOperationException("Dummy method"); }
   
   public ReducedModelControl getReduced() { throw new UnsupportedOperationException("Dummy method"); }
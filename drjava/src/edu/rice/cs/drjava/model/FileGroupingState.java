@@ -167,9 +167,6 @@ public interface FileGroupingState {
   /** Cleans the build directory. */
   public void cleanBuildDirectory();
   
-  /** @return a list of class files. */
-  public List<File> getClassFiles();
-  
   /** Returns a collection of classpath entries specific to the current project.
     * @return the project's extra classpath
     */
@@ -211,18 +211,11 @@ public class FindReplaceMachine {
     
     if (off < 0) return false;
     
-    String matchSpace;
     try {
       if (off + wordLen > _doc.getLength()) return false;
-      matchSpace = _doc.getText(off, wordLen);
+      return StringOps.regionMatches(_doc.getTextSequence(off, wordLen), 0, findWord, _matchCase);
     }
     catch (BadLocationException e) { throw new UnexpectedException(e); }
-    
-    if (!_matchCase) {
-      matchSpace = matchSpace.toLowerCase();
-      findWord = findWord.toLowerCase();
-    }
-    return matchSpace.equals(findWord);
   }
   
   /** If we're on a match for the find word, replace it with the replace word.  Only executes in event thread. 
@@ -419,8 +412,7 @@ public class FindReplaceMachine {
     assert EventQueue.isDispatchThread();
 
     if (! _searchSelectionOnly) {
-      _selectionRegion = new MovingDocumentRegion(_doc, 0, _doc.getLength(), _doc._getLineStartPos(0),
-                                                  _doc._getLineEndPos(_doc.getLength()));
+      _selectionRegion = new MovingDocumentRegion(_doc, 0, _doc.getLength());
     }
     if (_isForward) setPosition(_selectionRegion.getStartOffset());
     else setPosition(_selectionRegion.getEndOffset());
@@ -599,19 +591,13 @@ public class FindReplaceMachine {
       
       if (start + len > docLen) len = docLen - start;
       
-      String text;             // The text segment to be searched
-      final String findWord;   // copy of word being searched (so it can converted to lower case if necessary
+      final CharSequence text;  // The text segment to be searched; a view of the document, not a copy
+      final String findWord = _findWord;
       
       try { 
         
 //      if (wrapped && allWrapped) Utilities.show(start  + ", " + len + ", " + docLen + ", doc = '" + doc.getText() + "'");
-        text = doc.getText(start, len);
-        
-        if (! _matchCase) {
-          text = text.toLowerCase();
-          findWord = _findWord.toLowerCase();  // does not affect wordLen
-        }
-        else findWord = _findWord;
+        text = doc.getTextSequence(start, len);
 //       if (wrapped && allWrapped) Utilities.show("Executing loop with findWord = " + findWord + "; text = " + text +
 //          "; len = " + len);     
         
@@ -628,7 +614,8 @@ public class FindReplaceMachine {
         while (rem >= wordLen) {
           
           // Find next match in text
-          foundOffset = _isForward ? text.indexOf(findWord, foundOffset) : text.lastIndexOf(findWord, foundOffset);
+          foundOffset = _isForward ? StringOps.indexOf(text, findWord, foundOffset, _matchCase) 
+            : StringOps.lastIndexOf(text, findWord, foundOffset, _matchCase);
 //        _log.log("foundOffset = " + foundOffset);
           if (foundOffset < 0) break;  // no valid match in this document
           int foundLocation = start + foundOffset;
@@ -976,6 +976,39 @@ public final class GlobalModelIOTest extends GlobalModelTestCase implements Opti
     _log.log("testSaveAllSaveCorrectFiles completed");
   }
   
+  /** Ensures that Save All writes the documents open in existing files (which it does in parallel), leaves them
+    * unmodified, and does not touch the file of an unmodified document.
+    * @throws BadLocationException if attempts to reference an invalid location
+    * @throws IOException if an IO operation fails
+    * @throws OperationCanceledException if the open is canceled
+    * @throws AlreadyOpenException if a file is already open
+    */
+  public void testSaveAllWritesOpenFiles() throws BadLocationException, IOException, OperationCanceledException,
+    AlreadyOpenException {
+    final int count = 4;
+    File[] files = new File[count];
+    OpenDefinitionsDocument[] docs = new OpenDefinitionsDocument[count];
+    for (int i = 0; i < count; i++) {
+      files[i] = writeToNewTempFile(FOO_TEXT);
+      docs[i] = _model.openFile(new FileSelector(files[i]));
+    }
+    for (int i = 1; i < count; i++) changeDocumentText("class Saved" + i + " { }", docs[i]);
+    long unmodifiedTime = files[0].lastModified();
+    
+    saveAllFiles(_model, new FileSelector(files[0]));
+    
+    assertEquals("unmodified document not written", FOO_TEXT, IOUtil.toString(files[0]));
+    assertEquals("unmodified file untouched", unmodifiedTime, files[0].lastModified());
+    assertModified(false, docs[0]);
+    for (int i = 1; i < count; i++) {
+      assertEquals("contents of saved file " + i, "class Saved" + i + " { }", IOUtil.toString(files[i]));
+      assertModified(false, docs[i]);
+      assertEquals("document still in file " + i, files[i].getCanonicalFile(), docs[i].getFile());
+    }
+    
+    _log.log("testSaveAllWritesOpenFiles completed");
+  }
+  
   /** Forces a file to be opened with getDocumentforFile. 
    * @throws BadLocationException if attempts to reference an invalid location
    * @throws IOException if an IO operation fails
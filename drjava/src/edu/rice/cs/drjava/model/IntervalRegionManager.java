@@ -0,0 +1,460 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ *
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ *
+ * END_COPYRIGHT_BLOCK*/
+package edu.rice.cs.drjava.model;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+import edu.rice.cs.plt.lambda.Lambda;
+import edu.rice.cs.plt.tuple.Pair;
+import edu.rice.cs.util.swing.Utilities;
+import edu.rice.cs.util.UnexpectedException;
+
+/** Region manager that stores the regions of each document in a {@link RegionIntervalTree}.  Point and overlap queries
+  * take O(log n + k) time, work directly on offsets rather than on probe regions, and remain correct if regions nest.
+  * Batches of regions are added and removed by merging them into the tree.  Used for bookmarks, breakpoints, and find
+  * results, which can number in the tens of thousands.  Like ConcreteRegionManager, it follows the readers/writers
+  * locking protocol of EventNotifier and its queries only run in the event thread.
+  */
+public class IntervalRegionManager<R extends OrderedDocumentRegion> extends
+  EventNotifier<RegionManagerListener<R>> implements RegionManager<R> {
+
+  /** Whether listeners are told when a document edit touches one of its regions; see {@link #requireNotification}. */
+  private volatile boolean _notifyOnSetChange = false;
+
+  /** Mapping of documents to the trees holding their regions.  A document is a key iff it has at least one region. */
+  private final IdentityHashMap<OpenDefinitionsDocument, RegionIntervalTree<R>> _regions =
+    new IdentityHashMap<OpenDefinitionsDocument, RegionIntervalTree<R>>();
+
+  /** The listener attached to each document in _regions. */
+  private final IdentityHashMap<OpenDefinitionsDocument, DocumentListener> _docListeners =
+    new IdentityHashMap<OpenDefinitionsDocument, DocumentListener>();
+
+  /** The domain of _regions. */
+  private final Set<OpenDefinitionsDocument> _documents =
+    Collections.newSetFromMap(new IdentityHashMap<OpenDefinitionsDocument,Boolean>());
+
+  private static final SortedSet<Object> EMPTY_SET = Collections.unmodifiableSortedSet(new TreeSet<Object>());
+
+  /*  Convinces the type checker to accept EMPTY_SET as a set of R. */
+  @SuppressWarnings("unchecked")
+  private <T> T emptySet() { return (T) EMPTY_SET; }
+
+  /** @return the set of documents containing regions. */
+  public Set<OpenDefinitionsDocument> getDocuments() { return _documents; }
+
+  /** @param r the upper bound on the regions
+    * @return a view of the regions in r's document that are less than r
+    */
+  public SortedSet<R> getHeadSet(R r) {
+    RegionIntervalTree<R> tree = _regions.get(r.getDocument());
+    if (tree == null) return emptySet();
+    return tree.headSet(r);
+  }
+
+  /** @param r the lower bound on the regions
+    * @return a view of the regions in r's document that are greater than or equal to r
+    */
+  public SortedSet<R> getTailSet(R r) {
+    RegionIntervalTree<R> tree = _regions.get(r.getDocument());
+    if (tree == null) return emptySet();
+    return tree.tailSet(r);
+  }
+
+  /** Returns the first region [start, end) containing offset.  Regions are normally disjoint, so there is at most one
+    * such region.  Only runs in the event thread.
+    * @param odd the document
+    * @param offset the offset in the document
+    * @return the region containing the given offset, or null if it does not exist.
+    */
+  public R getRegionAt(OpenDefinitionsDocument odd, int offset) {
+    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return null;
+    return tree.firstOverlapping(offset, offset + 1);
+  }
+
+  /** Finds the interval of regions in odd such that the line label (excerpt) for the region contains offset.  Only the
+    * regions that meet the lines around offset are examined, so no bound on the length of an excerpt is assumed.
+    */
+  public Pair<R, R> getRegionInterval(OpenDefinitionsDocument odd, int offset) {
+    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return null;
+
+    /* A region whose line bounds contain offset must reach the line containing offset, or start on the following line
+     * when offset is at a line end (lineStart - 1 <= offset below). */
+    int lineStart = odd._getLineStartPos(offset);
+    int lineEnd = odd._getLineEndPos(Math.min(offset + 1, odd.getLength()));
+    ArrayList<R> candidates = new ArrayList<R>();
+    tree.collectOverlapping(lineStart - 1, lineEnd + 1, candidates);
+
+    R first = null;
+    R last = null;
+    int i = 0;
+    for (; i < candidates.size(); i++) {
+      R r = candidates.get(i);
+      int rLineStart = r.getLineStartOffset();
+      if (rLineStart > offset) break;
+      if (rLineStart - 1 <= offset && r.getLineEndOffset() >= offset) {  // - 1 handles inserting wing comment chars
+        first = r;
+        break;
+      }
+    }
+    if (first == null) return null;
+
+    last = first;
+    for (i++; i < candidates.size(); i++) {
+      R r = candidates.get(i);
+      int rLineStart = r.getLineStartOffset();
+      if (rLineStart > offset) break;
+      if (r.getLineEndOffset() >= offset) last = r;
+    }
+    return new Pair<R, R>(first, last);
+  }
+
+  /** Returns the regions in the given document that overlap [startOffset, endOffset), including degenerate regions
+    * [offset, offset) where [offset, offset] is a subset of (startOffset, endOffset).  Only runs in the event thread.
+    * @param odd the document
+    * @param startOffset  the left end of the specified interval
+    * @param endOffset  the right end of the specified interval
+    * @return the regions overlapping the interval in sorted order
+    */
+  public Collection<R> getRegionsOverlapping(OpenDefinitionsDocument odd, int startOffset, int endOffset) {
+    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+    ArrayList<R> result = new ArrayList<R>();
+    if (startOffset == endOffset) return result;
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree != null) tree.collectOverlapping(startOffset, endOffset, result);
+    return result;
+  }
+
+  /** Returns the tree for odd, creating it and attaching a document listener if necessary. */
+  private RegionIntervalTree<R> _getOrCreateTree(OpenDefinitionsDocument odd) {
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) {
+      tree = new RegionIntervalTree<R>();
+      _regions.put(odd, tree);
+      _documents.add(odd);
+      DocumentListener l = _makeDocumentListener(odd);
+      _docListeners.put(odd, l);
+      odd.addDocumentListener(l);
+    }
+    return tree;
+  }
+
+  /** Forgets odd and detaches its document listener. */
+  private void _dropDocument(OpenDefinitionsDocument odd) {
+    _regions.remove(odd);
+    _documents.remove(odd);
+    DocumentListener l = _docListeners.remove(odd);
+    if (l != null) odd.removeDocumentListener(l);
+  }
+
+  /** Creates the listener that keeps the tree for odd ordered and, if requested, reports edited regions.  Usually
+    * only the regions on the lines touched by an edit can change their text or stop matching a search, so only those
+    * regions are reported, instead of every region in the document.  An edit that can change which text is in a
+    * comment or string beyond those lines (such as opening a block comment) reports every region in the document.
+    */
+  private DocumentListener _makeDocumentListener(final OpenDefinitionsDocument odd) {
+    return new DocumentListener() {
+      public void insertUpdate(DocumentEvent e) {
+        /* Insertion can't cause positions to flip. */
+        if (_notifyOnSetChange) {
+          int offset = e.getOffset();
+          int end = offset + e.getLength();
+          Document doc = e.getDocument();
+          String inserted = _getText(doc, offset, e.getLength());
+          if (_canChangeCommentState(_getText(doc, offset - 1, 1), inserted, _getText(doc, end, 1))) _notifyAll(odd);
+          else _notifyEdited(odd, offset, end);
+        }
+      }
+
+      public void removeUpdate(final DocumentEvent e) {
+        /* The removed text is only available during notification. */
+        final Document doc = e.getDocument();
+        final String removed = (doc instanceof AbstractDJDocument) ? ((AbstractDJDocument) doc).getRemovedText() : null;
+        Utilities.invokeLater(new Runnable() {
+          public void run() {
+            RegionIntervalTree<R> tree = _regions.get(odd);
+            if (tree == null) return;
+            int offset = Math.min(e.getOffset(), odd.getLength());
+
+            /* Removal can flip the order of regions only if it coalesced positions inside or at the bounds of some
+             * region; every such region now touches offset. */
+            if (tree.firstOverlapping(offset - 1, offset + 1) != null) tree.rebuild();
+            if (_notifyOnSetChange) {
+              if (removed == null || _canChangeCommentState(_getText(doc, offset - 1, 1), removed,
+                                                            _getText(doc, offset, 1))) {
+                _notifyAll(odd);
+              }
+              else _notifyEdited(odd, offset, offset);
+            }
+          }
+        });
+      }
+
+      public void changedUpdate(DocumentEvent e) { /* Apparently not used for documents. */ }
+    };
+  }
+
+  /** Returns the text of doc in [offset, offset + length), or the empty string if that is outside the document. */
+  private static String _getText(Document doc, int offset, int length) {
+    if (offset < 0 || offset + length > doc.getLength()) return "";
+    try { return doc.getText(offset, length); }
+    catch (BadLocationException e) { throw new UnexpectedException(e); }
+  }
+
+  /** Returns whether inserting or removing text between the characters before and after can change which text is
+    * in a comment or string beyond the edited lines.  Only block comments span lines, but their delimiters can be
+    * created or split at the edit, or hidden by a quote, escape, or line comment on their line (which a newline ends).
+    * @param before the character before the edit, or the empty string
+    * @param text the inserted or removed text
+    * @param after the character after the edit, or the empty string
+    */
+  static boolean _canChangeCommentState(String before, String text, String after) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\'' || c == '\\' || c == '\n') return true;
+    }
+    return _hasCommentDelimiter(before + text + after) || _hasCommentDelimiter(before + after);
+  }
+
+  private static boolean _hasCommentDelimiter(String s) {
+    return s.contains("/*") || s.contains("*/") || s.contains("//");
+  }
+
+  /** Notifies listeners of a change to each region in odd. */
+  private void _notifyAll(OpenDefinitionsDocument odd) {
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return;
+    for (R r: new ArrayList<R>(tree)) notifyChangedRegion(r);
+  }
+
+  /** Notifies listeners of a change to each region in odd on the lines spanned by [start, end]. */
+  private void _notifyEdited(OpenDefinitionsDocument odd, int start, int end) {
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return;
+    int lineStart = odd._getLineStartPos(start);
+    int lineEnd = odd._getLineEndPos(end);
+    ArrayList<R> edited = new ArrayList<R>();
+    tree.collectOverlapping(lineStart - 1, lineEnd + 1, edited);
+    for (R r: edited) notifyChangedRegion(r);
+  }
+
+  /** Add the supplied region to the manager unless an equal region is already present.
+    * @param region the region to be inserted into the manager
+    */
+  public void addRegion(final R region) {
+    if (_getOrCreateTree(region.getDocument()).add(region)) _notifyRegionAdded(region);
+  }
+
+  /** Add the supplied regions to the manager, merging each document's batch into its tree at once.  Regions equal to
+    * ones already present are skipped.
+    * @param regions the regions to be inserted into the manager
+    */
+  public void addRegions(Iterable<? extends R> regions) {
+    IdentityHashMap<OpenDefinitionsDocument, ArrayList<R>> batches =
+      new IdentityHashMap<OpenDefinitionsDocument, ArrayList<R>>();
+    List<OpenDefinitionsDocument> docs = new ArrayList<OpenDefinitionsDocument>();
+    for (R r: regions) {
+      ArrayList<R> batch = batches.get(r.getDocument());
+      if (batch == null) {
+        batch = new ArrayList<R>();
+        batches.put(r.getDocument(), batch);
+        docs.add(r.getDocument());
+      }
+      batch.add(r);
+    }
+    for (OpenDefinitionsDocument odd: docs) {
+      ArrayList<R> added = new ArrayList<R>();
+      _getOrCreateTree(odd).addAll(batches.get(odd), added);
+      for (R r: added) _notifyRegionAdded(r);
+    }
+  }
+
+  /** Remove the region equal to the given region from the manager.  If the document's regions are emptied, the
+    * document is removed from the manager.  Notification removes the panel node for the region.
+    * @param region the region to be removed.
+    */
+  public void removeRegion(final R region) {
+    OpenDefinitionsDocument odd = region.getDocument();
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return;
+    R removed = tree.extract(region);
+    if (tree.isEmpty()) _dropDocument(odd);
+    if (removed != null) _notifyRegionRemoved(removed);
+  }
+
+  /** Remove the given regions from the manager, removing each document's batch from its tree at once. */
+  public void removeRegions(Iterable<? extends R> regions) {
+    IdentityHashMap<OpenDefinitionsDocument, ArrayList<R>> batches =
+      new IdentityHashMap<OpenDefinitionsDocument, ArrayList<R>>();
+    for (R r: regions) {
+      if (! _regions.containsKey(r.getDocument())) continue;
+      ArrayList<R> batch = batches.get(r.getDocument());
+      if (batch == null) {
+        batch = new ArrayList<R>();
+        batches.put(r.getDocument(), batch);
+      }
+      batch.add(r);
+    }
+    for (OpenDefinitionsDocument odd: batches.keySet()) {
+      RegionIntervalTree<R> tree = _regions.get(odd);
+      ArrayList<R> removed = new ArrayList<R>();
+      tree.removeAll(batches.get(odd), removed);
+      if (tree.isEmpty()) _dropDocument(odd);
+      for (R r: removed) _notifyRegionRemoved(r);
+    }
+  }
+
+  /** Remove the specified document and all of its regions from the manager. */
+  public void removeRegions(final OpenDefinitionsDocument odd) {
+    assert odd != null;
+    RegionIntervalTree<R> tree = _regions.get(odd);
+    if (tree == null) return;
+    _dropDocument(odd);
+    for (R r: tree) _notifyRegionRemoved(r);
+  }
+
+  private void _notifyRegionAdded(final R region) {
+    _lock.startRead();
+    try { for (RegionManagerListener<R> l: _listeners) { l.regionAdded(region); } }
+    finally { _lock.endRead(); }
+  }
+
+  private void _notifyRegionRemoved(final R region) {
+    _lock.startRead();
+    try { for (RegionManagerListener<R> l: _listeners) { l.regionRemoved(region); } }
+    finally { _lock.endRead(); }
+  }
+
+  /** @param odd the document
+    * @return the sorted regions of document odd in this manager, or null if there are none
+    */
+  public SortedSet<R> getRegions(OpenDefinitionsDocument odd) { return _regions.get(odd); }
+
+  public int getRegionCount() {
+    int regions = 0;
+    for (RegionIntervalTree<R> tree: _regions.values()) regions += tree.size();
+    return regions;
+  }
+
+  public ArrayList<R> getRegions() {
+    ArrayList<R> regions = new ArrayList<R>(getRegionCount());
+    for (OpenDefinitionsDocument odd: _documents) regions.addAll(_regions.get(odd));
+    return regions;
+  }
+
+  /** @return all regions, in the form of DocumentFileRegions */
+  public ArrayList<IRegion> getFileRegions() {
+    ArrayList<IRegion> regions = new ArrayList<IRegion>();
+    for (OpenDefinitionsDocument odd: _documents) {
+      File f = odd.getRawFile();
+      for (R r: _regions.get(odd)) {
+        try {
+          regions.add(new DocumentFileRegion(f,
+                                             odd.createPosition(r.getStartOffset()),
+                                             odd.createPosition(r.getEndOffset())));
+        } catch (BadLocationException e) {
+          /* Should never get here */
+          throw new UnexpectedException(e);
+        }
+      }
+    }
+    return regions;
+  }
+
+  public boolean contains(R region) {
+    RegionIntervalTree<R> tree = _regions.get(region.getDocument());
+    return tree != null && tree.contains(region);
+  }
+
+  /** Tells the manager to remove all regions. */
+  public void clearRegions() {
+    for (OpenDefinitionsDocument odd: new ArrayList<OpenDefinitionsDocument>(_documents)) removeRegions(odd);
+  }
+
+  /** Apply the given command to the specified region to change it.
+    * @param region the region to find and change
+    * @param cmd command that mutates the region.
+    */
+  public void changeRegion(final R region, Lambda<R,Object> cmd) {
+    cmd.value(region);
+    notifyChangedRegion(region);
+  }
+
+  /** Tell all listeners that the given region has changed.
+    * @param region the region that changed
+    */
+  public void notifyChangedRegion(final R region) {
+    _lock.startRead();
+    try { for (RegionManagerListener<R> l: _listeners) { l.regionChanged(region); } }
+    finally { _lock.endRead(); }
+  }
+
+  /** Removes the empty regions in the interval [firstRegion, lastRegion] using the total ordering on regions.
+    * firstRegion and lastRegion are not necessarily regions in this manager.
+    */
+  public void updateLines(R firstRegion, R lastRegion) {
+    assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
+
+    List<R> toBeRemoved = new ArrayList<R>();
+    for (R region: getTailSet(firstRegion)) {
+      if (region.compareTo(lastRegion) > 0) break;
+      if (region.getStartOffset() == region.getEndOffset()) toBeRemoved.add(region);
+    }
+    removeRegions(toBeRemoved);
+  }
+
+  /** Requests that listeners be told when a document edit touches one of the regions in this manager, so find results
+    * that no longer match can be discarded.
+    */
+  public void requireNotification() { _notifyOnSetChange = true; }
+}
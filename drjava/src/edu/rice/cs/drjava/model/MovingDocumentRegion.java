@@ -33,145 +33,79 @@
  * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
  * 
  * END_COPYRIGHT_BLOCK*/
-
 package edu.rice.cs.drjava.model;
 
-import java.util.List;
-import java.util.ArrayList;
-
-import javax.swing.text.Position;
 import javax.swing.text.BadLocationException;
 
 import edu.rice.cs.util.StringOps;
-import edu.rice.cs.util.UnexpectedException;
-import edu.rice.cs.plt.lambda.Thunk;
 
 /** Class for a document region that moves with changes in the document; it also includes a lazy tool-tip and line
-  * boundaries.
+  * boundaries.  Only the start and end Positions inherited from StaticDocumentRegion are stored; the line boundaries
+  * and the label excerpt are computed from the document when requested, so a region costs two document Positions.
+  * Find All can create hundreds of thousands of these regions.  Line boundaries are therefore only available in the
+  * event thread.
   * @version $Id$Regiong
   */
 public class MovingDocumentRegion extends StaticDocumentRegion {
   
-//  /** Offset of end of last line of this region as recorded in last call on updateLines (or <init>). */
-//  protected volatile int _cachedLineEnd;
-  protected final Position _startPos;
-  protected final Position _endPos;
-  protected volatile Position _lineStartPos;
-  protected volatile Position _lineEndPos;
-
-  /** Suspension that generates the JTree label excerpt for this region. */
-  protected final Thunk<String> _stringSuspension;
-  
-  /** Update _lineStartPos and _lineEndPos after line has been edited. */
-  public void update() {
-
-    try {  // _doc is inherited from StaticDocumentRegion
-      _lineStartPos = _doc.createPosition(_doc._getLineStartPos(getStartOffset()));
-      _lineEndPos = _doc.createPosition(_doc._getLineEndPos(getEndOffset()));
-    } 
-
-    catch (BadLocationException ble) { 
-      throw new UnexpectedException(ble); 
-    }  // should never happen
-
-  }
-    
   /** Create a new moving document region. 
    * @param doc the document within which to create the new region
    * @param start the start offset
    * @param end the end offset
-   * @param lineStart the line start
-   * @param lineEnd the line end
    */
-  public MovingDocumentRegion(final OpenDefinitionsDocument doc, int start, int end, int lineStart, int lineEnd) {
-
+  public MovingDocumentRegion(final OpenDefinitionsDocument doc, int start, int end) {
     super(doc, start, end);
-
-    assert doc != null;
-
-    try {
-      _startPos = doc.createPosition(start);
-      _endPos = doc.createPosition(end);
-      _lineStartPos = doc.createPosition(lineStart);
-      _lineEndPos = doc.createPosition(lineEnd);
-    }
-    catch (BadLocationException ble) { throw new UnexpectedException(ble); }  // should never happen
-    
-    _stringSuspension = new Thunk<String>() {
-      public String value() {
-        try {
-          update();
-          int endSel = getEndOffset();
-          int startSel = getStartOffset();
-          int selLength = endSel - startSel;
-          
-          int excerptEnd = getLineEndOffset();
-          int excerptStart = getLineStartOffset();
-          
-          // the offsets within the excerpted string of the selection (figuratively in "Red")
-          int startRed = startSel - excerptStart;
-          int endRed = endSel - excerptStart;
-          
-          int excerptLength = Math.min(120, excerptEnd - excerptStart);
-          String text = doc.getText(excerptStart, excerptLength);
-          
-          // Construct the matching string and compressed selection prefix and suffix strings within text
-          String prefix, match, suffix;
-          // Added the predicate "startRed < 0" because "text.substring(startRed, endRed)" threw an 
-          // IndexOutOfBoundsException with startRed == -18. Perhaps editing text in question created this situation.
-          if (excerptLength < startRed || startRed < 0) { // selection not included in excerpt
-            prefix = StringOps.compress(text.substring(0, excerptLength));
-            match = " ...";
-            suffix = "";
-          }
-          else {
-            prefix = StringOps.compress(text.substring(0, startRed));
-            if (excerptLength < startRed + selLength) { // selection extends beyond excerpt
-              match = text.substring(startRed) + " ...";
-              suffix = "";
-            }
-            else {
-              match = text.substring(startRed, endRed);
-              suffix = StringOps.compress(text.substring(endRed, excerptLength));
-            }
-          }
-          
-          // COMMENT: We need a global invariant concerning non-displayable characters.  
-          
-          // create the excerpt string
-          StringBuilder sb = new StringBuilder(edu.rice.cs.plt.text.TextUtil.htmlEscape(prefix));
-          sb.append("<font color=#ff0000>");
-//                sb.append(LEFT);
-          sb.append(edu.rice.cs.plt.text.TextUtil.htmlEscape(match));
-          sb.append("</font>");
-//                sb.append(RIGHT);
-          sb.append(edu.rice.cs.plt.text.TextUtil.htmlEscape(suffix));
-//                sb.append("</html>");
-//                sb.append(StringOps.getBlankString(120 - sLength));  // move getBank to StringOps
-          return sb.toString();
-        }
-        catch(BadLocationException e) { return "";  /* Ignore the exception. */ }
-      }
-    };
   }
   
-  /** @return the document, or null if it hasn't been established yet */
-  public OpenDefinitionsDocument getDocument() { return _doc; }
-  
-  /** @return region start. */
-  public int getStartOffset() { return _startPos.getOffset(); }
-  
-  /** @return region end. */
-  public int getEndOffset() { return _endPos.getOffset(); }
-  
-  /** @return line start preeding region. */
-  public int getLineStartOffset() { return _lineStartPos.getOffset(); }
+  /** @return line start preceding region. */
+  public int getLineStartOffset() { return _doc._getLineStartPos(getStartOffset()); }
   
   /** @return line end following region. */
-  public int getLineEndOffset() { return _lineEndPos.getOffset(); }
+  public int getLineEndOffset() { return _doc._getLineEndPos(getEndOffset()); }
   
-  /** @return the string it was assigned */
-  public String getString() { return _stringSuspension.value(); }
+  /** @return the JTree label excerpt for this region: up to 120 characters of its line(s), with the region in red */
+  public String getString() {
+    try {
+      int endSel = getEndOffset();
+      int startSel = getStartOffset();
+      int selLength = endSel - startSel;
+      
+      int excerptEnd = getLineEndOffset();
+      int excerptStart = getLineStartOffset();
+      
+      int startRed = startSel - excerptStart;
+      int endRed = endSel - excerptStart;
+      
+      int excerptLength = Math.min(120, excerptEnd - excerptStart);
+      String text = _doc.getText(excerptStart, excerptLength);
+      
+      String prefix, match, suffix;
+      if (excerptLength < startRed || startRed < 0) { // selection not included in excerpt
+        prefix = StringOps.compress(text.substring(0, excerptLength));
+        match = " ...";
+        suffix = "";
+      }
+      else {
+        prefix = StringOps.compress(text.substring(0, startRed));
+        if (excerptLength < startRed + selLength) { // selection extends beyond excerpt
+          match = text.substring(startRed) + " ...";
+          suffix = "";
+        }
+        else {
+          match = text.substring(startRed, endRed);
+          suffix = StringOps.compress(text.substring(endRed, excerptLength));
+        }
+      }
+      
+      StringBuilder sb = new StringBuilder(edu.rice.cs.plt.text.TextUtil.htmlEscape(prefix));
+      sb.append("<font color=#ff0000>");
+      sb.append(edu.rice.cs.plt.text.TextUtil.htmlEscape(match));
+      sb.append("</font>");
+      sb.append(edu.rice.cs.plt.text.TextUtil.htmlEscape(suffix));
+      return sb.toString();
+    }
+    catch(BadLocationException e) { return "";  /* Ignore the exception. */ }
+  }
   
   /** @param a first object to compare
     * @param b second object to compare
@@ -321,11 +321,10 @@ public interface OpenDefinitionsDocument extends DJDocument, Finalizable<Definit
    */
   public void setPackage(String s);
   
-  /** Searching backwards finds the name of the enclosing named class or interface. NB: ignores comments.
-   * WARNING: In long source files and when contained in anonymous inner classes, this function might take a LONG time.
+  /** Finds the name of the class enclosing pos using the document outline. NB: ignores comments.
    * @param pos Position to start from
    * @param qual true to find the fully qualified class name
-   * @return name of the enclosing named class or interface
+   * @return name of the enclosing class, or "" if pos is not inside a class body
    * @throws BadLocationException if attempts to reference an invalid location
    * @throws ClassNameNotFoundException if the class name could not be found
    */
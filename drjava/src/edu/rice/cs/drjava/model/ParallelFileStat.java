@@ -0,0 +1,124 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.util.UnexpectedException;
+
+/** Canonicalizes and stats batches of files on a pool of background threads.  Opening a large project touches
+  * the file system several times per document; on network or cold file systems these round trips dominate, and
+  * issuing them concurrently hides most of the latency.
+  */
+final class ParallelFileStat {
+  /** Batches smaller than this are processed in the calling thread. */
+  static final int PARALLEL_THRESHOLD = 32;
+  
+  /** The number of threads in the pool.  Stat calls are I/O-bound, so this exceeds the number of processors. */
+  private static final int THREADS = Math.min(16, 2 * Runtime.getRuntime().availableProcessors());
+  
+  /** Pool shared by all batches; created on demand. */
+  private static ExecutorService _executor = null;
+  
+  private ParallelFileStat() { }
+  
+  /** The file system information about a file. */
+  static final class Stat {
+    /** The canonical file (or the absolute file if it cannot be canonicalized). */
+    final File canonicalFile;
+    final boolean exists;
+    /** The modification date, or 0 if the file does not exist. */
+    final long lastModified;
+    
+    Stat(File f) {
+      canonicalFile = IOUtil.attemptCanonicalFile(f);
+      lastModified = canonicalFile.lastModified();
+      exists = (lastModified != 0L) || canonicalFile.exists();
+    }
+  }
+  
+  /** Stats the given files.  Null elements of {@code files} have null results.
+    * @param files the files to stat
+    * @return the results, in the same order as {@code files}
+    */
+  static Stat[] stat(final File[] files) {
+    final Stat[] result = new Stat[files.length];
+    if (files.length < PARALLEL_THRESHOLD) {
+      _stat(files, result, 0, files.length);
+      return result;
+    }
+    int chunk = (files.length + THREADS - 1) / THREADS;
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int start = 0; start < files.length; start += chunk) {
+      final int from = start;
+      final int to = Math.min(files.length, start + chunk);
+      futures.add(_executor().submit(new Callable<Void>() {
+        public Void call() { _stat(files, result, from, to); return null; }
+      }));
+    }
+    try { for (Future<?> f : futures) { f.get(); } }
+    catch(InterruptedException e) { throw new UnexpectedException(e); }
+    catch(ExecutionException e) { throw new UnexpectedException(e.getCause()); }
+    return result;
+  }
+  
+  private static void _stat(File[] files, Stat[] result, int from, int to) {
+    for (int i = from; i < to; ++i) { if (files[i] != null) result[i] = new Stat(files[i]); }
+  }
+  
+  private static synchronized ExecutorService _executor() {
+    if (_executor == null) {
+      _executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "File Stat");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return _executor;
+  }
+}
@@ -0,0 +1,73 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.rice.cs.plt.debug.Stopwatch;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Compares stat'ing a project-sized batch of files serially and with ParallelFileStat.  This is a timing benchmark,
+  * not a unit test; run it with {@code java edu.rice.cs.drjava.model.ParallelFileStatBenchmark [file count]}.
+  */
+public class ParallelFileStatBenchmark {
+  
+  public static void main(String... args) throws IOException {
+    int n = (args.length > 0) ? Integer.parseInt(args[0]) : 1500;
+    File dir = IOUtil.createAndMarkTempDirectory("DrJava-benchmark", "");
+    try {
+      File[] files = new File[n];
+      for (int i = 0; i < n; ++i) {
+        files[i] = new File(dir, "File" + i + ".java");
+        IOUtil.writeStringToFile(files[i], "class File" + i + " { }");
+      }
+      ParallelFileStat.stat(files); // warm up the pool
+      for (int run = 0; run < 3; ++run) {
+        Stopwatch serial = new Stopwatch(true);
+        for (File f : files) { new ParallelFileStat.Stat(f); }
+        long serialMs = serial.stop();
+        Stopwatch parallel = new Stopwatch(true);
+        ParallelFileStat.stat(files);
+        long parallelMs = parallel.stop();
+        System.out.println("files: " + n + ", serial: " + serialMs + " ms, parallel: " + parallelMs + " ms");
+      }
+    }
+    finally { IOUtil.deleteRecursively(dir); }
+  }
+  
+}
@@ -0,0 +1,96 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.io.File;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests ParallelFileStat.
+  * @version $Id$
+  */
+public final class ParallelFileStatTest extends DrJavaTestCase {
+  private volatile File _tempDir;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    _tempDir = null;
+    super.tearDown();
+  }
+  
+  private File[] _makeFiles(int n) throws Exception {
+    File[] files = new File[n];
+    for (int i = 0; i < n; ++i) {
+      // every third file is missing; paths are non-canonical
+      files[i] = new File(new File(_tempDir, "sub"), "../File" + i + ".java");
+      if (i % 3 != 0) IOUtil.writeStringToFile(new File(_tempDir, "File" + i + ".java"), "class File" + i + " { }");
+    }
+    new File(_tempDir, "sub").mkdir();
+    return files;
+  }
+  
+  private void _assertStats(File[] files, ParallelFileStat.Stat[] stats) {
+    assertEquals(files.length, stats.length);
+    for (int i = 0; i < files.length; ++i) {
+      if (files[i] == null) { assertNull(stats[i]); continue; }
+      File canonical = IOUtil.attemptCanonicalFile(files[i]);
+      assertEquals("canonical file", canonical, stats[i].canonicalFile);
+      assertEquals("exists", canonical.exists(), stats[i].exists);
+      assertEquals("modification date", canonical.lastModified(), stats[i].lastModified);
+    }
+  }
+  
+  public void testSmallBatch() throws Exception {
+    File[] files = _makeFiles(ParallelFileStat.PARALLEL_THRESHOLD - 1);
+    files[4] = null;
+    _assertStats(files, ParallelFileStat.stat(files));
+    assertEquals(0, ParallelFileStat.stat(new File[0]).length);
+  }
+  
+  public void testLargeBatch() throws Exception {
+    File[] files = _makeFiles(10 * ParallelFileStat.PARALLEL_THRESHOLD + 7);
+    files[100] = null;
+    _assertStats(files, ParallelFileStat.stat(files));
+  }
+}
@@ -212,42 +212,4 @@ public interface Query {
   public static class PosInBlockComment extends Pos {
     public PosInBlockComment(int pos) { super(pos); }
   }
-  
-  public static class AnonymousInnerClass implements Query {
-    private final int _pos;
-    private final int _openCurlyPos;
-    
-    public AnonymousInnerClass(int pos, int openCurlyPos) {
-      _pos = pos;
-      _openCurlyPos = openCurlyPos;
-    }
-    
-    public boolean equals(Object other) {
-      if (other == null || other.getClass() != getClass()) return false;
-      AnonymousInnerClass o = (AnonymousInnerClass) other;
-      return o._pos == _pos && o._openCurlyPos == _openCurlyPos;
-    }
-    
-    public int hashCode() { return hash(getClass().hashCode(), _pos, _openCurlyPos); }
-  }
-  
-  public static class AnonymousInnerClassIndex extends Pos {
-    public AnonymousInnerClassIndex(int pos) { super(pos); }
-  }
-  
-  public static class EnclosingClassName implements Query {
-    private int _pos;
-    private boolean _qual;
-    public EnclosingClassName(int pos, boolean qual) {
-      _pos = pos;
-      _qual = qual;
-    }
-    public boolean equals(Object other) {
-      if (other == null || other.getClass() != getClass()) return false;
-      EnclosingClassName o = (EnclosingClassName) other;
-      return o._pos == _pos && o._qual == _qual;
-    }
-    
-    public int hashCode() { return hash(getClass().hashCode(), _pos, (_qual ? 1 : 0)); }
-  }
 }
\ No newline at end of file
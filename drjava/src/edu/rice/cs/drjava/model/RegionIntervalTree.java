@@ -0,0 +1,503 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ *
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ *
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/** A sorted set of the regions in one document, ordered by {@link OrderedDocumentRegion#compareTo} (end offset, then
+  * start offset).  The set is an AVL tree in which each node also records the region with the least start offset in
+  * its subtree, so the regions overlapping an interval are found in O(log n + k) time even if regions nest.  The tree
+  * records regions rather than offsets because offsets move with the document; an edit never reverses the order of two
+  * start positions, so the recorded minima stay valid.  A deletion can coalesce the positions of nested regions and
+  * flip their relative order (see {@link OrderedDocumentRegion}); the owner must call {@link #rebuild} when that may
+  * have happened.  Like the region managers that use it, this class is not thread safe and is only accessed in the
+  * event thread.
+  */
+public class RegionIntervalTree<R extends OrderedDocumentRegion> extends AbstractSet<R> implements SortedSet<R> {
+
+  private static final class Node<R extends OrderedDocumentRegion> {
+    private final R _region;
+    private Node<R> _left;
+    private Node<R> _right;
+    private int _height;
+    /** The region with the least start offset in the subtree rooted at this node. */
+    private R _minStart;
+
+    private Node(R region) {
+      _region = region;
+      _height = 1;
+      _minStart = region;
+    }
+  }
+
+  private Node<R> _root = null;
+  private int _size = 0;
+
+  /** Region removed by the last call on _remove, or null if none matched. */
+  private R _removed;
+
+  public int size() { return _size; }
+
+  public boolean isEmpty() { return _size == 0; }
+
+  public void clear() {
+    _root = null;
+    _size = 0;
+  }
+
+  /** Regions are ordered by their natural ordering. */
+  public Comparator<? super R> comparator() { return null; }
+
+  public Iterator<R> iterator() { return new RegionIterator(null, null); }
+
+  public boolean contains(Object o) {
+    if (! (o instanceof OrderedDocumentRegion)) return false;
+    return _find((OrderedDocumentRegion) o) != null;
+  }
+
+  /** Adds region unless an equal region is already present.
+    * @param region the region to add
+    * @return true if region was added
+    */
+  public boolean add(R region) {
+    int oldSize = _size;
+    _root = _insert(_root, region);
+    return _size != oldSize;
+  }
+
+  public boolean remove(Object o) {
+    if (! (o instanceof OrderedDocumentRegion)) return false;
+    return extract((OrderedDocumentRegion) o) != null;
+  }
+
+  /** Removes the stored region equal to r.
+    * @param r the region to remove
+    * @return the region that was removed, which need not be identical to r, or null if there was none
+    */
+  public R extract(OrderedDocumentRegion r) {
+    _removed = null;
+    _root = _remove(_root, r);
+    R removed = _removed;
+    _removed = null;
+    if (removed != null) _size--;
+    return removed;
+  }
+
+  public boolean addAll(Collection<? extends R> regions) {
+    int oldSize = _size;
+    addAll(regions, null);
+    return _size != oldSize;
+  }
+
+  /** Adds each of the given regions that is not equal to a region already in the set.  A batch that is large relative
+    * to the set is sorted, merged with the existing regions, and rebuilt into a balanced tree in linear time instead of
+    * being inserted one region at a time.
+    * @param regions the regions to add
+    * @param added if non-null, receives the regions that were actually added
+    */
+  public void addAll(Collection<? extends R> regions, Collection<? super R> added) {
+    if (4 * regions.size() < _size) {
+      for (R r: regions) {
+        if (add(r) && added != null) added.add(r);
+      }
+      return;
+    }
+
+    ArrayList<R> batch = new ArrayList<R>(regions);
+    Collections.sort(batch);
+    ArrayList<R> merged = new ArrayList<R>(_size + batch.size());
+    Iterator<R> old = iterator();
+    R o = old.hasNext() ? old.next() : null;
+    for (R r: batch) {
+      while (o != null && o.compareTo(r) < 0) {
+        merged.add(o);
+        o = old.hasNext() ? old.next() : null;
+      }
+      if (o != null && o.compareTo(r) == 0) continue;  // already present
+      if (! merged.isEmpty() && merged.get(merged.size() - 1).compareTo(r) == 0) continue;  // duplicate within batch
+      merged.add(r);
+      if (added != null) added.add(r);
+    }
+    while (o != null) {
+      merged.add(o);
+      o = old.hasNext() ? old.next() : null;
+    }
+    _root = _build(merged, 0, merged.size());
+    _size = merged.size();
+  }
+
+  /** Removes the stored region equal to each of the given regions.  Like {@link #addAll(Collection, Collection)}, a
+    * large batch is handled by filtering the ordered regions and rebuilding the tree.
+    * @param regions the regions to remove
+    * @param removed if non-null, receives the stored regions that were actually removed
+    */
+  public void removeAll(Collection<? extends R> regions, Collection<? super R> removed) {
+    if (4 * regions.size() < _size) {
+      for (R r: regions) {
+        R s = extract(r);
+        if (s != null && removed != null) removed.add(s);
+      }
+      return;
+    }
+
+    ArrayList<R> batch = new ArrayList<R>(regions);
+    Collections.sort(batch);
+    ArrayList<R> kept = new ArrayList<R>(_size);
+    int i = 0;
+    for (R o: this) {
+      while (i < batch.size() && batch.get(i).compareTo(o) < 0) i++;
+      if (i < batch.size() && batch.get(i).compareTo(o) == 0) {
+        i++;
+        if (removed != null) removed.add(o);
+      }
+      else kept.add(o);
+    }
+    _root = _build(kept, 0, kept.size());
+    _size = kept.size();
+  }
+
+  /** Restores the ordering invariant after a document change may have flipped the order of some regions.  Runs in
+    * linear time when the regions are already nearly in order, since the sort is a merge sort.
+    */
+  public void rebuild() {
+    ArrayList<R> regions = new ArrayList<R>(this);
+    Collections.sort(regions);
+    _root = _build(regions, 0, regions.size());
+  }
+
+  /** Adds to out, in order, each region r such that r.getEndOffset() > start and r.getStartOffset() < end.  For
+    * {@code start < end}, these are the regions that overlap [start, end) together with the empty regions strictly
+    * inside it.  Runs in O(log n + k) time for k matching regions when regions do not nest.
+    * @param start the left end of the interval
+    * @param end the right end of the interval
+    * @param out the collection receiving the overlapping regions
+    */
+  public void collectOverlapping(int start, int end, Collection<? super R> out) {
+    _collect(_root, start, end, out);
+  }
+
+  /** @param start the left end of the interval
+    * @param end the right end of the interval
+    * @return the first region that {@link #collectOverlapping} would report, or null if there is none
+    */
+  public R firstOverlapping(int start, int end) { return _first(_root, start, end); }
+
+  public R first() {
+    if (_root == null) throw new NoSuchElementException();
+    Node<R> n = _root;
+    while (n._left != null) n = n._left;
+    return n._region;
+  }
+
+  public R last() {
+    if (_root == null) throw new NoSuchElementException();
+    Node<R> n = _root;
+    while (n._right != null) n = n._right;
+    return n._region;
+  }
+
+  /** @return a view of the regions less than toElement */
+  public SortedSet<R> headSet(R toElement) { return new Range(null, toElement); }
+
+  /** @return a view of the regions greater than or equal to fromElement */
+  public SortedSet<R> tailSet(R fromElement) { return new Range(fromElement, null); }
+
+  /** @return a view of the regions in [fromElement, toElement) */
+  public SortedSet<R> subSet(R fromElement, R toElement) { return new Range(fromElement, toElement); }
+
+  private static <R extends OrderedDocumentRegion> int _height(Node<R> n) { return n == null ? 0 : n._height; }
+
+  /** Recomputes the height and minimum start region of n from its children. */
+  private static <R extends OrderedDocumentRegion> void _update(Node<R> n) {
+    n._height = 1 + Math.max(_height(n._left), _height(n._right));
+    R min = n._region;
+    if (n._left != null && n._left._minStart.getStartOffset() < min.getStartOffset()) min = n._left._minStart;
+    if (n._right != null && n._right._minStart.getStartOffset() < min.getStartOffset()) min = n._right._minStart;
+    n._minStart = min;
+  }
+
+  private static <R extends OrderedDocumentRegion> Node<R> _rotateRight(Node<R> n) {
+    Node<R> l = n._left;
+    n._left = l._right;
+    l._right = n;
+    _update(n);
+    _update(l);
+    return l;
+  }
+
+  private static <R extends OrderedDocumentRegion> Node<R> _rotateLeft(Node<R> n) {
+    Node<R> r = n._right;
+    n._right = r._left;
+    r._left = n;
+    _update(n);
+    _update(r);
+    return r;
+  }
+
+  /** Updates n and restores the AVL balance condition at n.
+    * @return the root of the rebalanced subtree
+    */
+  private static <R extends OrderedDocumentRegion> Node<R> _balance(Node<R> n) {
+    _update(n);
+    int diff = _height(n._left) - _height(n._right);
+    if (diff > 1) {
+      if (_height(n._left._left) < _height(n._left._right)) n._left = _rotateLeft(n._left);
+      return _rotateRight(n);
+    }
+    if (diff < -1) {
+      if (_height(n._right._right) < _height(n._right._left)) n._right = _rotateRight(n._right);
+      return _rotateLeft(n);
+    }
+    return n;
+  }
+
+  private Node<R> _insert(Node<R> n, R region) {
+    if (n == null) {
+      _size++;
+      return new Node<R>(region);
+    }
+    int c = region.compareTo(n._region);
+    if (c == 0) return n;
+    if (c < 0) n._left = _insert(n._left, region);
+    else n._right = _insert(n._right, region);
+    return _balance(n);
+  }
+
+  private Node<R> _remove(Node<R> n, OrderedDocumentRegion region) {
+    if (n == null) return null;
+    int c = region.compareTo(n._region);
+    if (c < 0) n._left = _remove(n._left, region);
+    else if (c > 0) n._right = _remove(n._right, region);
+    else {
+      _removed = n._region;
+      if (n._left == null) return n._right;
+      if (n._right == null) return n._left;
+      Node<R> successor = n._right;
+      while (successor._left != null) successor = successor._left;
+      successor._right = _removeLeftmost(n._right);
+      successor._left = n._left;
+      return _balance(successor);
+    }
+    return _balance(n);
+  }
+
+  private static <R extends OrderedDocumentRegion> Node<R> _removeLeftmost(Node<R> n) {
+    if (n._left == null) return n._right;
+    n._left = _removeLeftmost(n._left);
+    return _balance(n);
+  }
+
+  private Node<R> _find(OrderedDocumentRegion region) {
+    Node<R> n = _root;
+    while (n != null) {
+      int c = region.compareTo(n._region);
+      if (c == 0) return n;
+      n = c < 0 ? n._left : n._right;
+    }
+    return null;
+  }
+
+  /** Builds a balanced tree from regions[lo, hi), which must be sorted. */
+  private static <R extends OrderedDocumentRegion> Node<R> _build(ArrayList<R> regions, int lo, int hi) {
+    if (lo >= hi) return null;
+    int mid = (lo + hi) >>> 1;
+    Node<R> n = new Node<R>(regions.get(mid));
+    n._left = _build(regions, lo, mid);
+    n._right = _build(regions, mid + 1, hi);
+    _update(n);
+    return n;
+  }
+
+  /* Every region in the left subtree of n ends no later than n._region, so once n._region ends at or before start,
+   * only the right subtree can contain a match.  A subtree is skipped entirely if none of its regions starts before end.
+   */
+  private static <R extends OrderedDocumentRegion> void _collect(Node<R> n, int start, int end,
+                                                                 Collection<? super R> out) {
+    if (n == null || n._minStart.getStartOffset() >= end) return;
+    if (n._region.getEndOffset() > start) {
+      _collect(n._left, start, end, out);
+      if (n._region.getStartOffset() < end) out.add(n._region);
+    }
+    _collect(n._right, start, end, out);
+  }
+
+  private static <R extends OrderedDocumentRegion> R _first(Node<R> n, int start, int end) {
+    if (n == null || n._minStart.getStartOffset() >= end) return null;
+    if (n._region.getEndOffset() > start) {
+      R r = _first(n._left, start, end);
+      if (r != null) return r;
+      if (n._region.getStartOffset() < end) return n._region;
+    }
+    return _first(n._right, start, end);
+  }
+
+  /** @return the greatest region less than bound (or the greatest region if bound is null), or null if none */
+  private R _lower(OrderedDocumentRegion bound) {
+    Node<R> n = _root;
+    R result = null;
+    while (n != null) {
+      if (bound == null || n._region.compareTo(bound) < 0) {
+        result = n._region;
+        n = n._right;
+      }
+      else n = n._left;
+    }
+    return result;
+  }
+
+  /** In-order iterator over the regions in [lo, hi); a null bound is unbounded. */
+  private class RegionIterator implements Iterator<R> {
+    private final ArrayList<Node<R>> _stack = new ArrayList<Node<R>>();
+    private final OrderedDocumentRegion _hi;
+    private R _last = null;
+
+    RegionIterator(OrderedDocumentRegion lo, OrderedDocumentRegion hi) {
+      _hi = hi;
+      Node<R> n = _root;
+      while (n != null) {
+        if (lo == null || n._region.compareTo(lo) >= 0) {
+          _stack.add(n);
+          n = n._left;
+        }
+        else n = n._right;
+      }
+    }
+
+    public boolean hasNext() {
+      if (_stack.isEmpty()) return false;
+      return _hi == null || _stack.get(_stack.size() - 1)._region.compareTo(_hi) < 0;
+    }
+
+    public R next() {
+      if (! hasNext()) throw new NoSuchElementException();
+      Node<R> n = _stack.remove(_stack.size() - 1);
+      for (Node<R> m = n._right; m != null; m = m._left) _stack.add(m);
+      _last = n._region;
+      return _last;
+    }
+
+    /** Removes the last region returned and repositions the iterator after it, since removal restructures the tree. */
+    public void remove() {
+      if (_last == null) throw new IllegalStateException();
+      RegionIntervalTree.this.remove(_last);
+      _stack.clear();
+      Node<R> n = _root;
+      while (n != null) {
+        if (n._region.compareTo(_last) > 0) {
+          _stack.add(n);
+          n = n._left;
+        }
+        else n = n._right;
+      }
+      _last = null;
+    }
+  }
+
+  /** View of the regions in [lo, hi) backed by this tree; a null bound is unbounded. */
+  private class Range extends AbstractSet<R> implements SortedSet<R> {
+    private final R _lo;
+    private final R _hi;
+
+    Range(R lo, R hi) {
+      _lo = lo;
+      _hi = hi;
+    }
+
+    private boolean _inRange(OrderedDocumentRegion r) {
+      return (_lo == null || r.compareTo(_lo) >= 0) && (_hi == null || r.compareTo(_hi) < 0);
+    }
+
+    public Iterator<R> iterator() { return new RegionIterator(_lo, _hi); }
+
+    /** Counts the regions in this view; takes time linear in the size of the view. */
+    public int size() {
+      int count = 0;
+      for (Iterator<R> it = iterator(); it.hasNext(); it.next()) count++;
+      return count;
+    }
+
+    public boolean isEmpty() { return ! iterator().hasNext(); }
+
+    public boolean contains(Object o) {
+      return o instanceof OrderedDocumentRegion && _inRange((OrderedDocumentRegion) o) &&
+        RegionIntervalTree.this.contains(o);
+    }
+
+    public boolean add(R region) {
+      if (! _inRange(region)) throw new IllegalArgumentException("region out of range");
+      return RegionIntervalTree.this.add(region);
+    }
+
+    public boolean remove(Object o) {
+      return o instanceof OrderedDocumentRegion && _inRange((OrderedDocumentRegion) o) &&
+        RegionIntervalTree.this.remove(o);
+    }
+
+    public Comparator<? super R> comparator() { return null; }
+
+    public R first() {
+      Iterator<R> it = iterator();
+      if (! it.hasNext()) throw new NoSuchElementException();
+      return it.next();
+    }
+
+    public R last() {
+      R r = _lower(_hi);
+      if (r == null || (_lo != null && r.compareTo(_lo) < 0)) throw new NoSuchElementException();
+      return r;
+    }
+
+    public SortedSet<R> headSet(R toElement) { return new Range(_lo, _min(_hi, toElement)); }
+
+    public SortedSet<R> tailSet(R fromElement) { return new Range(_max(_lo, fromElement), _hi); }
+
+    public SortedSet<R> subSet(R fromElement, R toElement) {
+      return new Range(_max(_lo, fromElement), _min(_hi, toElement));
+    }
+
+    private R _min(R a, R b) { return (a == null || b.compareTo(a) < 0) ? b : a; }
+
+    private R _max(R a, R b) { return (a == null || b.compareTo(a) > 0) ? b : a; }
+  }
+}
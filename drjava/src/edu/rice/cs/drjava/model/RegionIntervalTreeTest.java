@@ -0,0 +1,236 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ *
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ *
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.util.swing.Utilities;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+
+/** Tests RegionIntervalTree and IntervalRegionManager against brute-force answers. */
+public class RegionIntervalTreeTest extends DrJavaTestCase {
+
+  /** A dummy document that can be compared with itself, as StaticDocumentRegion.compareTo requires. */
+  private static class ComparableDoc extends DummyOpenDefDoc {
+    public int compareTo(OpenDefinitionsDocument d) { return this == d ? 0 : 1; }
+  }
+
+  private ComparableDoc _doc;
+
+  public void setUp() throws Exception {
+    super.setUp();
+    _doc = new ComparableDoc();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) sb.append('x');
+    _doc.append(sb.toString());
+  }
+
+  private List<StaticDocumentRegion> _randomRegions(Random rand, int count) {
+    List<StaticDocumentRegion> regions = new ArrayList<StaticDocumentRegion>();
+    for (int i = 0; i < count; i++) {
+      int start = rand.nextInt(990);
+      regions.add(new StaticDocumentRegion(_doc, start, start + rand.nextInt(10)));
+    }
+    return regions;
+  }
+
+  private static List<StaticDocumentRegion> _bruteOverlapping(Iterable<StaticDocumentRegion> regions, int start,
+                                                              int end) {
+    List<StaticDocumentRegion> result = new ArrayList<StaticDocumentRegion>();
+    for (StaticDocumentRegion r: regions) {
+      if (r.getEndOffset() > start && r.getStartOffset() < end) result.add(r);
+    }
+    return result;
+  }
+
+  private static void _assertOrdered(Iterable<StaticDocumentRegion> regions) {
+    StaticDocumentRegion prev = null;
+    for (StaticDocumentRegion r: regions) {
+      if (prev != null) assertTrue("ordered", prev.compareTo(r) < 0);
+      prev = r;
+    }
+  }
+
+  /** Tests overlap queries on nested and overlapping regions, inserted singly and in bulk. */
+  public void testOverlapping() {
+    Random rand = new Random(17);
+    RegionIntervalTree<StaticDocumentRegion> single = new RegionIntervalTree<StaticDocumentRegion>();
+    RegionIntervalTree<StaticDocumentRegion> bulk = new RegionIntervalTree<StaticDocumentRegion>();
+    List<StaticDocumentRegion> regions = _randomRegions(rand, 500);
+    for (StaticDocumentRegion r: regions) single.add(r);
+    ArrayList<StaticDocumentRegion> added = new ArrayList<StaticDocumentRegion>();
+    bulk.addAll(regions, added);
+
+    assertEquals("same size", single.size(), bulk.size());
+    assertEquals("added reports each new region", bulk.size(), added.size());
+    assertEquals("same regions", new ArrayList<StaticDocumentRegion>(single),
+                 new ArrayList<StaticDocumentRegion>(bulk));
+    _assertOrdered(bulk);
+
+    for (int i = 0; i < 200; i++) {
+      int start = rand.nextInt(1000);
+      int end = start + rand.nextInt(20);
+      List<StaticDocumentRegion> expected = _bruteOverlapping(single, start, end);
+      List<StaticDocumentRegion> actual = new ArrayList<StaticDocumentRegion>();
+      bulk.collectOverlapping(start, end, actual);
+      assertEquals("overlapping [" + start + ", " + end + ")", expected, actual);
+      assertEquals("first overlapping", expected.isEmpty() ? null : expected.get(0),
+                   bulk.firstOverlapping(start, end));
+    }
+  }
+
+  /** Tests single and bulk removal and removal through an iterator. */
+  public void testRemove() {
+    Random rand = new Random(42);
+    RegionIntervalTree<StaticDocumentRegion> tree = new RegionIntervalTree<StaticDocumentRegion>();
+    tree.addAll(_randomRegions(rand, 400));
+    ArrayList<StaticDocumentRegion> all = new ArrayList<StaticDocumentRegion>(tree);
+
+    // remove by equality, not identity
+    StaticDocumentRegion r0 = all.get(0);
+    StaticDocumentRegion copy = new StaticDocumentRegion(_doc, r0.getStartOffset(), r0.getEndOffset());
+    assertSame("extract returns the stored region", r0, tree.extract(copy));
+    assertNull("already removed", tree.extract(copy));
+
+    ArrayList<StaticDocumentRegion> batch = new ArrayList<StaticDocumentRegion>();
+    for (int i = 1; i < all.size(); i += 2) batch.add(all.get(i));
+    ArrayList<StaticDocumentRegion> removed = new ArrayList<StaticDocumentRegion>();
+    tree.removeAll(batch, removed);
+    assertEquals("bulk removal", batch, removed);
+    assertEquals("remaining size", all.size() - 1 - batch.size(), tree.size());
+    for (StaticDocumentRegion r: batch) assertFalse("removed", tree.contains(r));
+    _assertOrdered(tree);
+
+    for (Iterator<StaticDocumentRegion> it = tree.iterator(); it.hasNext(); ) {
+      it.next();
+      if (it.hasNext()) {
+        it.next();
+        it.remove();
+      }
+    }
+    _assertOrdered(tree);
+    List<StaticDocumentRegion> expected = _bruteOverlapping(tree, 0, 1000);
+    assertEquals("every other region removed", (all.size() - 1 - batch.size() + 1) / 2, expected.size());
+    List<StaticDocumentRegion> actual = new ArrayList<StaticDocumentRegion>();
+    tree.collectOverlapping(0, 1000, actual);
+    assertEquals("overlap query after removals", expected, actual);
+  }
+
+  /** Tests head, tail, and sub set views. */
+  public void testViews() {
+    RegionIntervalTree<StaticDocumentRegion> tree = new RegionIntervalTree<StaticDocumentRegion>();
+    StaticDocumentRegion r1 = new StaticDocumentRegion(_doc, 0, 5);
+    StaticDocumentRegion r2 = new StaticDocumentRegion(_doc, 10, 15);
+    StaticDocumentRegion r3 = new StaticDocumentRegion(_doc, 20, 25);
+    tree.add(r3);
+    tree.add(r1);
+    tree.add(r2);
+    assertFalse("duplicate ignored", tree.add(new StaticDocumentRegion(_doc, 10, 15)));
+    assertSame(r1, tree.first());
+    assertSame(r3, tree.last());
+
+    SortedSet<StaticDocumentRegion> tail = tree.tailSet(new StaticDocumentRegion(_doc, 0, 11));
+    assertEquals(2, tail.size());
+    assertSame(r2, tail.first());
+    assertSame(r3, tail.last());
+    SortedSet<StaticDocumentRegion> head = tree.headSet(r2);
+    assertEquals(1, head.size());
+    assertSame(r1, head.last());
+    assertTrue(tree.subSet(r2, r3).contains(r2));
+    assertFalse(tree.subSet(r2, r3).contains(r3));
+    assertTrue(tree.tailSet(new StaticDocumentRegion(_doc, 30, 30)).isEmpty());
+  }
+
+  /** Tests that a deletion which flips the order of nested regions is repaired by the manager. */
+  public void testManagerRebuildsAfterRemoval() throws Exception {
+    final IntervalRegionManager<StaticDocumentRegion> rm = new IntervalRegionManager<StaticDocumentRegion>();
+    final StaticDocumentRegion outer = new StaticDocumentRegion(_doc, 2, 12);
+    final StaticDocumentRegion inner = new StaticDocumentRegion(_doc, 5, 10);
+    final StaticDocumentRegion later = new StaticDocumentRegion(_doc, 50, 60);
+    final int[] counts = new int[2];
+    rm.addListener(new RegionManagerListener<StaticDocumentRegion>() {
+      public void regionAdded(StaticDocumentRegion r) { counts[0]++; }
+      public void regionChanged(StaticDocumentRegion r) { }
+      public void regionRemoved(StaticDocumentRegion r) { counts[1]++; }
+    });
+    List<StaticDocumentRegion> regions = new ArrayList<StaticDocumentRegion>();
+    regions.add(later);
+    regions.add(outer);
+    regions.add(inner);
+    rm.addRegions(regions);
+    assertEquals("added notifications", 3, counts[0]);
+    assertEquals(3, rm.getRegionCount());
+    assertSame(inner, rm.getRegionAt(_doc, 7));
+    assertSame(outer, rm.getRegionAt(_doc, 11));
+    assertEquals(2, rm.getRegionsOverlapping(_doc, 3, 6).size());
+
+    // outer becomes [2, 9) and inner [5, 9), so outer now precedes inner
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try { _doc.remove(9, 3); }
+        catch (Exception e) { throw new RuntimeException(e); }
+      }
+    });
+    Utilities.clearEventQueue();
+    _assertOrdered(rm.getRegions(_doc));
+    assertTrue("outer found after reordering", rm.contains(outer));
+    assertTrue("inner found after reordering", rm.contains(inner));
+    assertSame(outer, rm.getRegionAt(_doc, 3));
+
+    rm.removeRegions(regions);
+    assertEquals("removed notifications", 3, counts[1]);
+    assertTrue("document dropped", rm.getDocuments().isEmpty());
+    assertNull(rm.getRegions(_doc));
+  }
+
+  /** Tests which edits IntervalRegionManager treats as possibly changing comments beyond the edited lines. */
+  public void testCanChangeCommentState() {
+    assertFalse("plain text", IntervalRegionManager._canChangeCommentState("a", "bc", "d"));
+    assertFalse("a lone slash", IntervalRegionManager._canChangeCommentState("a", "/", "b"));
+    assertTrue("typing the star of /*", IntervalRegionManager._canChangeCommentState("/", "*", "x"));
+    assertTrue("typing the slash of */", IntervalRegionManager._canChangeCommentState("*", "/", ""));
+    assertTrue("inserting a whole delimiter", IntervalRegionManager._canChangeCommentState("a", "x /* y", "b"));
+    assertTrue("splitting /* apart", IntervalRegionManager._canChangeCommentState("/", "x", "*"));
+    assertTrue("removing a line comment", IntervalRegionManager._canChangeCommentState(" ", "// c", ""));
+    assertTrue("a quote can hide a delimiter", IntervalRegionManager._canChangeCommentState("a", "\"", "b"));
+    assertTrue("a newline ends a line comment", IntervalRegionManager._canChangeCommentState("a", "\n", "b"));
+  }
+}
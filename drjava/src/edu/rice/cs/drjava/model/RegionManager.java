@@ -59,7 +59,7 @@ public interface RegionManager<R extends IDocumentRegion> {
   public R getRegionAt(OpenDefinitionsDocument odd, int offset);
   
   /** Returns the first and last region r where {@code r.getLineStart() <= offset < r.getLineEnd()}.  Assumes that 
-    * document regions are disjoint and that lineStart precedes the start offset by at most 119 characters.
+    * document regions are disjoint.
     * @param odd the document
     * @param offset the offset in the document
     * @return the unique StaticDocumentRegion containing the given offset, or null if it does not exist.
@@ -86,6 +86,12 @@ public interface RegionManager<R extends IDocumentRegion> {
    */
   public void addRegion(R region);
 
+  /** Add the supplied DocumentRegions to the manager.  Implementations may insert the whole batch more efficiently than
+   *  one region at a time.
+   *  @param regions the DocumentRegions to be inserted into the manager
+   */
+  public void addRegions(Iterable<? extends R> regions);
+
   /** Remove the given StaticDocumentRegion from the manager.
    *  @param region the StaticDocumentRegion to be removed.
    */
@@ -107,10 +113,10 @@ public interface RegionManager<R extends IDocumentRegion> {
   public void changeRegion(R region, Lambda<R,Object> cmd);
   
   /** @param odd the document for which to get regions
-   * @return a {@code Vector<R>} containing the StaticDocumentRegion objects for 
+   * @return a {@code SortedSet<R>} containing the StaticDocumentRegion objects for 
    *         document odd in this manager. 
    */
-  public RegionSet<R> getRegions(OpenDefinitionsDocument odd);
+  public SortedSet<R> getRegions(OpenDefinitionsDocument odd);
   
   /** @return a {@code Vector<R>} containing all the StaticDocumentRegion objects in this mangager. */
   public ArrayList<R> getRegions();
@@ -70,6 +70,14 @@ public interface DCacheAdapter {
    */
   public String getText(int offset, int length) throws BadLocationException;
   
+  /** @return a view of the specified substring of this document that does not copy the text; only valid until the
+   * document is next modified.
+   * @param offset the offset at which the text starts
+   * @param length the length of the text
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public CharSequence getTextSequence(int offset, int length) throws BadLocationException;
+  
   /** Checks whether the document is ready to be returned.  If false, then the document would have to be
     * loaded from disk when getDocument() is called.  
     * @return if the document is already loaded
@@ -40,6 +40,7 @@ import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
 import java.util.*;
 import java.io.IOException;
+import java.nio.CharBuffer;
 
 import edu.rice.cs.drjava.model.definitions.DefinitionsDocument;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
@@ -245,6 +246,17 @@ public class DocumentCache {
       return doc.getText(offset, len); 
     }
     
+    /* Gets a view of the specified substring of this document without copying it, wrapping the saved image if the
+     * document is not resident; throws BadLocationException if the specification is ill-formed. */
+    public CharSequence getTextSequence(int offset, int len) throws BadLocationException { 
+      final DefinitionsDocument doc = _doc; // create a snapshot of _doc
+      if (doc == null) {
+        try { return CharBuffer.wrap(_rec.getText(), offset, offset + len); }
+        catch(IndexOutOfBoundsException e) { throw new BadLocationException(e.getMessage(), offset); }  
+      }
+      return doc.getTextSequence(offset, len); 
+    }
+    
     /** Checks whether the document is resident (in the cache or modified). 
       * @return if the document is resident.
       */
@@ -0,0 +1,353 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.util.Log;
+import edu.rice.cs.util.StringOps;
+
+/** A persistent index of the classes in a build directory, used for auto-completion and "Go to File".  The index is
+  * built once by scanning the whole build directory; after that, it is maintained incrementally by {@link #refresh},
+  * which compares the modification time of every indexed directory with the one recorded when it was last listed and
+  * only lists the directories that changed.  This picks up every class file the compiler wrote, including those of
+  * sources it compiled implicitly, as well as directories that were removed by cleaning the build directory.  Classes
+  * are kept in sorted maps keyed by lower-case simple name and by camel-case initials, so prefix and camel-case
+  * queries do not need to rebuild or scan the index.  Anonymous and local classes are not indexed.
+  * 
+  * All methods are thread safe.  The {@code schedule} methods perform their work on a single low-priority background
+  * thread, in the order they were requested; listeners are notified on that thread.
+  * @version $Id$
+  */
+public class ClassFileIndex {
+  
+  /** for logging debug info */
+  private static final Log _log = new Log("ClassFileIndex.txt", false);
+  
+  /** Accepts subdirectories and class files. */
+  private static final FileFilter CLASS_FILE_OR_DIRECTORY_FILTER = new FileFilter() {
+    public boolean accept(File f) { return f.getName().endsWith(".class") || f.isDirectory(); }
+  };
+  
+  /** Directories modified less than this many milliseconds before they were listed are listed again by the next
+    * refresh, since a later change within the file system's timestamp granularity (two seconds on FAT) would not
+    * change their modification time.
+    */
+  private static final long TIMESTAMP_GRANULARITY = 2000L;
+  
+  /** Listener notified whenever classes are added to or removed from the index. */
+  public interface Listener {
+    /** Called after a scan or update.
+      * @param added the binary names of the classes that were added
+      * @param removed the binary names of the classes that were removed
+      */
+    public void classesChanged(Set<String> added, Set<String> removed);
+  }
+  
+  /** The indexed build directory, or null if the index is inactive. */
+  private File _root = null;
+  
+  /** The listed contents of each directory in the build directory. */
+  private final Map<File, Directory> _directories = new HashMap<File, Directory>();
+  
+  /** Binary names of the indexed classes, keyed by lower-case simple name. */
+  private final TreeMap<String, SortedSet<String>> _bySimpleName = new TreeMap<String, SortedSet<String>>();
+  
+  /** Binary names of the indexed classes, keyed by the upper-case letters of the simple name. */
+  private final TreeMap<String, SortedSet<String>> _byInitials = new TreeMap<String, SortedSet<String>>();
+  
+  private final List<Listener> _listeners = new ArrayList<Listener>();
+  
+  /** Background thread performing scheduled scans and updates; created on demand. */
+  private ExecutorService _executor = null;
+  
+  public synchronized void addListener(Listener l) { _listeners.add(l); }
+  
+  public synchronized void removeListener(Listener l) { _listeners.remove(l); }
+  
+  /** @return the indexed build directory, or null if the index is inactive */
+  public synchronized File getRoot() { return _root; }
+  
+  /** Empties the index and makes it inactive until the next call to {@link #rescan}. */
+  public void clear() {
+    Set<String> removed;
+    synchronized(this) {
+      removed = getAllClasses();
+      _root = null;
+      _directories.clear();
+      _bySimpleName.clear();
+      _byInitials.clear();
+    }
+    _notifyListeners(Collections.<String>emptySet(), removed);
+  }
+  
+  /** Replaces the contents of the index with the classes found by recursively scanning {@code root}.
+    * @param root the build directory to index
+    */
+  public void rescan(File root) {
+    _log.logf("rescan(%s)", root);
+    root = IOUtil.attemptCanonicalFile(root);
+    Map<File, Directory> found = new HashMap<File, Directory>();
+    _sync(root, "", Collections.<File, Directory>emptyMap(), found, System.currentTimeMillis());
+    Set<String> added = new HashSet<String>();
+    Set<String> removed;
+    synchronized(this) {
+      removed = getAllClasses();
+      _root = root;
+      _directories.clear();
+      _bySimpleName.clear();
+      _byInitials.clear();
+      _directories.putAll(found);
+      for (Directory d : found.values()) {
+        for (String c : d.classes) { _addToNameMaps(c); }
+      }
+      added.addAll(getAllClasses());
+    }
+    Set<String> unchanged = new HashSet<String>(added);
+    unchanged.retainAll(removed);
+    added.removeAll(unchanged);
+    removed.removeAll(unchanged);
+    _notifyListeners(added, removed);
+  }
+  
+  /** Resynchronizes the index with the build directory, typically after the compiler has written to it or it has
+    * been cleaned.  Only the directories whose modification time changed since they were last listed are listed
+    * again; directories that no longer exist are dropped.  Has no effect unless the index is active.
+    */
+  public void refresh() {
+    File root;
+    Map<File, Directory> previous;
+    synchronized(this) {
+      if (_root == null) { return; }
+      root = _root;
+      previous = new HashMap<File, Directory>(_directories);
+    }
+    Map<File, Directory> current = new HashMap<File, Directory>();
+    _sync(root, "", previous, current, System.currentTimeMillis());
+    Set<String> added = new HashSet<String>();
+    Set<String> removed = new HashSet<String>();
+    synchronized(this) {
+      if (! root.equals(_root)) { return; } // cleared or rescanned in the meantime
+      for (Map.Entry<File, Directory> e : _directories.entrySet()) {
+        Directory d = current.get(e.getKey());
+        if (d == e.getValue()) { continue; }
+        for (String c : e.getValue().classes) { if (d == null || ! d.classes.contains(c)) { removed.add(c); } }
+      }
+      for (Map.Entry<File, Directory> e : current.entrySet()) {
+        Directory d = _directories.get(e.getKey());
+        if (d == e.getValue()) { continue; }
+        for (String c : e.getValue().classes) { if (d == null || ! d.classes.contains(c)) { added.add(c); } }
+      }
+      for (String c : removed) { _removeFromNameMaps(c); }
+      for (String c : added) { _addToNameMaps(c); }
+      _directories.clear();
+      _directories.putAll(current);
+    }
+    _log.logf("refresh(): added %s, removed %s", added, removed);
+    if (! added.isEmpty() || ! removed.isEmpty()) { _notifyListeners(added, removed); }
+  }
+  
+  /** Schedules {@link #rescan} on the background thread. 
+    * @param root the build directory to index
+    */
+  public void scheduleRescan(final File root) {
+    _schedule(new Runnable() { public void run() { rescan(root); } });
+  }
+  
+  /** Schedules {@link #refresh} on the background thread. */
+  public void scheduleRefresh() {
+    _schedule(new Runnable() { public void run() { refresh(); } });
+  }
+  
+  /** Schedules {@link #clear} on the background thread, after any scans that are already scheduled. */
+  public void scheduleClear() {
+    _schedule(new Runnable() { public void run() { clear(); } });
+  }
+  
+  /** @return a sorted snapshot of the binary names of all indexed classes */
+  public synchronized SortedSet<String> getAllClasses() {
+    SortedSet<String> result = new TreeSet<String>();
+    for (SortedSet<String> s : _bySimpleName.values()) { result.addAll(s); }
+    return result;
+  }
+  
+  /** @param simpleName a simple class name
+    * @return true if some indexed class has exactly the given simple name
+    */
+  public synchronized boolean containsSimpleName(String simpleName) {
+    SortedSet<String> s = _bySimpleName.get(simpleName.toLowerCase());
+    if (s != null) { for (String c : s) { if (getSimpleName(c).equals(simpleName)) { return true; } } }
+    return false;
+  }
+  
+  /** @param prefix the beginning of a simple class name; case is ignored
+    * @return the binary names of the classes whose simple name starts with {@code prefix}, sorted by simple name
+    */
+  public synchronized List<String> findByPrefix(String prefix) {
+    String key = prefix.toLowerCase();
+    List<String> result = new ArrayList<String>();
+    for (SortedSet<String> s : _bySimpleName.subMap(key, key + Character.MAX_VALUE).values()) { result.addAll(s); }
+    return result;
+  }
+  
+  /** Finds classes by camel-case abbreviation: each capitalized part of the pattern must be a prefix of consecutive
+    * capitalized parts of the simple name, so "ArrLi" and "AL" both match "ArrayList".
+    * @param pattern the camel-case abbreviation
+    * @return the binary names of the matching classes, sorted by initials
+    */
+  public synchronized List<String> findByCamelCase(String pattern) {
+    String key = StringOps.getCamelCaseInitials(pattern);
+    List<String> result = new ArrayList<String>();
+    if (key.length() == 0) { return result; }
+    for (SortedSet<String> s : _byInitials.subMap(key, key + Character.MAX_VALUE).values()) {
+      for (String c : s) { if (StringOps.matchesCamelCase(getSimpleName(c), pattern)) { result.add(c); } }
+    }
+    return result;
+  }
+  
+  /** @param binaryName the binary name of a class, e.g. "java.util.Map$Entry"
+    * @return the simple name of the class, e.g. "Entry"
+    */
+  public static String getSimpleName(String binaryName) {
+    return binaryName.substring(Math.max(binaryName.lastIndexOf('.'), binaryName.lastIndexOf('$')) + 1);
+  }
+  
+  /** @param fileName the name of a class file, e.g. "Map$Entry.class"
+    * @return true if the class is anonymous or local, i.e. a part of its name begins with a digit
+    */
+  private static boolean _isAnonymousOrLocal(String fileName) {
+    int pos = 0;
+    while ((pos = fileName.indexOf('$', pos)) >= 0) {
+      if (fileName.length() <= pos + 1 || Character.isDigit(fileName.charAt(pos + 1))) { return true; }
+      ++pos;
+    }
+    return false;
+  }
+  
+  private static void _addClassFile(String fileName, String prefix, Set<String> acc) {
+    if (! _isAnonymousOrLocal(fileName)) { acc.add(prefix + fileName.substring(0, fileName.length() - 6)); }
+  }
+  
+  /** Records {@code dir} and its subdirectories in {@code acc}, reusing the entries of {@code previous} for the
+    * directories that have not been modified since they were listed.
+    * @param dir the directory to synchronize
+    * @param packageName the package of the classes in {@code dir}, or "" for the default package
+    * @param previous the directories as last listed
+    * @param acc the map to which the current directories are added
+    * @param now the time at which the synchronization started
+    */
+  private static void _sync(File dir, String packageName, Map<File, Directory> previous, Map<File, Directory> acc,
+                            long now) {
+    long modified = dir.lastModified(); // read before listing, so a concurrent change is seen by the next refresh
+    Directory d = previous.get(dir);
+    if (d == null || d.lastModified == 0L || d.lastModified != modified) {
+      File[] files = dir.listFiles(CLASS_FILE_OR_DIRECTORY_FILTER);
+      if (files == null) { return; } // deleted, or listFiles may return null if there's an IO error
+      String prefix = (packageName.length() == 0) ? "" : packageName + ".";
+      d = new Directory((modified < now - TIMESTAMP_GRANULARITY) ? modified : 0L);
+      for (File f : files) {
+        String name = f.getName();
+        if (name.endsWith(".class") && f.isFile()) { _addClassFile(name, prefix, d.classes); }
+        else if (f.isDirectory()) { d.subdirectories.add(name); }
+      }
+    }
+    acc.put(dir, d);
+    for (String name : d.subdirectories) {
+      _sync(new File(dir, name), (packageName.length() == 0) ? name : packageName + "." + name, previous, acc, now);
+    }
+  }
+  
+  private void _addToNameMaps(String binaryName) {
+    String simpleName = getSimpleName(binaryName);
+    _addTo(_bySimpleName, simpleName.toLowerCase(), binaryName);
+    _addTo(_byInitials, StringOps.getCamelCaseInitials(simpleName), binaryName);
+  }
+  
+  private void _removeFromNameMaps(String binaryName) {
+    String simpleName = getSimpleName(binaryName);
+    _removeFrom(_bySimpleName, simpleName.toLowerCase(), binaryName);
+    _removeFrom(_byInitials, StringOps.getCamelCaseInitials(simpleName), binaryName);
+  }
+  
+  private static void _addTo(Map<String, SortedSet<String>> map, String key, String value) {
+    SortedSet<String> s = map.get(key);
+    if (s == null) { s = new TreeSet<String>(); map.put(key, s); }
+    s.add(value);
+  }
+  
+  private static void _removeFrom(Map<String, SortedSet<String>> map, String key, String value) {
+    SortedSet<String> s = map.get(key);
+    if (s != null && s.remove(value) && s.isEmpty()) { map.remove(key); }
+  }
+  
+  private void _notifyListeners(Set<String> added, Set<String> removed) {
+    List<Listener> listeners;
+    synchronized(this) { listeners = new ArrayList<Listener>(_listeners); }
+    for (Listener l : listeners) { l.classesChanged(added, removed); }
+  }
+  
+  private synchronized void _schedule(Runnable r) {
+    if (_executor == null) {
+      _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Class File Index");
+          t.setDaemon(true);
+          t.setPriority(Thread.MIN_PRIORITY);
+          return t;
+        }
+      });
+    }
+    _executor.submit(r);
+  }
+  
+  /** The contents of a directory when it was last listed. */
+  private static final class Directory {
+    /** The modification time of the directory when it was listed, or 0 if it must be listed again. */
+    public final long lastModified;
+    /** The names of the subdirectories. */
+    public final List<String> subdirectories = new ArrayList<String>();
+    /** The binary names of the indexable classes whose class files are in the directory. */
+    public final Set<String> classes = new HashSet<String>();
+    public Directory(long lastModified) { this.lastModified = lastModified; }
+  }
+}
@@ -0,0 +1,183 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.compiler;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the ClassFileIndex.
+  * @version $Id$
+  */
+public final class ClassFileIndexTest extends DrJavaTestCase {
+  private volatile File _buildDir;
+  private volatile ClassFileIndex _index;
+  private final Set<String> _added = new HashSet<String>();
+  private final Set<String> _removed = new HashSet<String>();
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _buildDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+    _index = new ClassFileIndex();
+    _index.addListener(new ClassFileIndex.Listener() {
+      public void classesChanged(Set<String> added, Set<String> removed) {
+        _added.addAll(added);
+        _removed.addAll(removed);
+      }
+    });
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_buildDir);
+    _buildDir = null;
+    _index = null;
+    super.tearDown();
+  }
+  
+  private File _touch(String path) throws Exception {
+    File f = new File(_buildDir, path);
+    f.getParentFile().mkdirs();
+    IOUtil.writeStringToFile(f, "");
+    return f;
+  }
+  
+  /** Tests that a full scan finds named classes and skips anonymous and local ones. */
+  public void testRescan() throws Exception {
+    _touch("Top.class");
+    _touch("pkg/ArrayList.class");
+    _touch("pkg/ArrayList$Itr.class");
+    _touch("pkg/ArrayList$1.class");
+    _touch("pkg/ArrayList$1Local.class");
+    _touch("pkg/sub/AbstractList.class");
+    _touch("pkg/sub/Notes.txt");
+    _index.rescan(_buildDir);
+    assertEquals(Arrays.asList("Top", "pkg.ArrayList", "pkg.ArrayList$Itr", "pkg.sub.AbstractList"),
+                 Arrays.asList(_index.getAllClasses().toArray()));
+    assertEquals(_index.getAllClasses(), _added);
+    assertTrue(_index.containsSimpleName("Itr"));
+    assertFalse(_index.containsSimpleName("itr"));
+  }
+  
+  /** Sets the modification time of the given directory, relative to the build directory, to midnight on 1/1/2000. */
+  private void _age(String path) {
+    File dir = (path.length() == 0) ? _buildDir : new File(_buildDir, path);
+    assertTrue(dir.setLastModified(946684800000L));
+  }
+  
+  /** Tests that a refresh only reports the classes that changed, including those in new and removed directories. */
+  public void testRefresh() throws Exception {
+    _touch("pkg/A.class");
+    File b = _touch("pkg/B.class");
+    _touch("other/C.class");
+    _touch("gone/sub/F.class");
+    _index.rescan(_buildDir);
+    _added.clear();
+    
+    assertTrue(b.delete());
+    _touch("pkg/D.class");
+    _touch("other/E.class");  // e.g. a class compiled implicitly
+    _touch("implicit/G.class");
+    assertTrue(IOUtil.deleteRecursively(new File(_buildDir, "gone")));
+    _index.refresh();
+    assertEquals(new HashSet<String>(Arrays.asList("pkg.D", "other.E", "implicit.G")), _added);
+    assertEquals(new HashSet<String>(Arrays.asList("pkg.B", "gone.sub.F")), _removed);
+    assertEquals(Arrays.asList("implicit.G", "other.C", "other.E", "pkg.A", "pkg.D"),
+                 Arrays.asList(_index.getAllClasses().toArray()));
+    
+    _added.clear();
+    _removed.clear();
+    _index.refresh();
+    assertEquals(0, _added.size());
+    assertEquals(0, _removed.size());
+    
+    // cleaning the build directory removes everything, and the index stays active for the next compile
+    assertTrue(IOUtil.deleteRecursively(_buildDir));
+    _index.refresh();
+    assertEquals(0, _index.getAllClasses().size());
+    assertEquals(5, _removed.size());
+    _touch("H.class");
+    _index.refresh();
+    assertEquals(Arrays.asList("H"), Arrays.asList(_index.getAllClasses().toArray()));
+    
+    _index.clear();
+    assertNull(_index.getRoot());
+    assertEquals(0, _index.getAllClasses().size());
+    _index.refresh();
+    assertEquals(0, _index.getAllClasses().size());
+  }
+  
+  /** Tests that a refresh does not list directories whose modification time has not changed. */
+  public void testRefreshSkipsUnmodifiedDirectories() throws Exception {
+    _touch("pkg/A.class");
+    _age("pkg");
+    _age("");
+    _index.rescan(_buildDir);
+    
+    _touch("pkg/B.class");
+    _age("pkg");  // hides the new class file from the index
+    _index.refresh();
+    assertEquals(Arrays.asList("pkg.A"), Arrays.asList(_index.getAllClasses().toArray()));
+    
+    _touch("pkg/C.class");
+    _index.refresh();
+    assertEquals(Arrays.asList("pkg.A", "pkg.B", "pkg.C"), Arrays.asList(_index.getAllClasses().toArray()));
+  }
+  
+  /** Tests prefix and camel-case queries. */
+  public void testQueries() throws Exception {
+    _touch("a/ArrayList.class");
+    _touch("b/ArrayList.class");
+    _touch("a/ArrayListener.class");
+    _touch("a/AbstractList.class");
+    _touch("a/ActionListener.class");
+    _touch("a/Arrays.class");
+    _index.rescan(_buildDir);
+    assertEquals(Arrays.asList("a.ArrayList", "b.ArrayList", "a.ArrayListener", "a.Arrays"), 
+                 _index.findByPrefix("array"));
+    assertEquals(Arrays.asList("a.AbstractList", "a.ActionListener", "a.ArrayList", "a.ArrayListener", 
+                               "b.ArrayList"),
+                 _index.findByCamelCase("AL"));
+    assertEquals(Arrays.asList("a.ArrayList", "a.ArrayListener", "b.ArrayList"), _index.findByCamelCase("ArLis"));
+    assertEquals(Arrays.asList("a.ActionListener", "a.ArrayListener"), _index.findByCamelCase("AListe"));
+    assertEquals(0, _index.findByCamelCase("lower").size());
+  }
+}
@@ -130,4 +130,7 @@ public interface CompilerModel {
   
   /** @return the LanguageLevelStackTraceMapper from the model */
   public LanguageLevelStackTraceMapper getLLSTM();
+  
+  /** @return the index of the classes in the build directory, which is updated after each compilation */
+  public ClassFileIndex getClassFileIndex();
 }
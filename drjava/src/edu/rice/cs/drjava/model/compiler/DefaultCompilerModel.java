@@ -99,6 +99,9 @@ public class DefaultCompilerModel implements CompilerModel {
     * numbers to .dj* line numbers when an error is thrown */
   public LanguageLevelStackTraceMapper _LLSTM;
   
+  /** The index of the classes in the build directory, updated after each compilation. */
+  private final ClassFileIndex _classFileIndex = new ClassFileIndex();
+  
   /** Main constructor.  
     * @param m the GlobalModel that is the source of documents for this CompilerModel
     * @param compilers  The compilers to use.  The first will be made active; all are assumed
@@ -270,6 +273,7 @@ public class DefaultCompilerModel implements CompilerModel {
           throw new IOException("Could not create build directory: " + buildDir);
         
         _compileFiles(filesToCompile, buildDir);
+        _updateClassFileIndex(buildDir);
       }
       catch (Throwable t) {
         DJError err = new DJError(t.toString(), false);
@@ -287,6 +291,19 @@ public class DefaultCompilerModel implements CompilerModel {
   
   //-------------------------------- Helpers --------------------------------//
   
+  /** Schedules resynchronization of the class file index with the build directory, which has just been written to.
+    * The whole build directory is resynchronized, since the compiler may also have written the class files of sources
+    * it compiled implicitly.  If the build directory is no longer the indexed one, it is scanned in full instead.
+    * @param buildDir the build directory, or null or {@link FileOps#NULL_FILE} if class files are written next to
+    *        their sources
+    */
+  private void _updateClassFileIndex(File buildDir) {
+    File root = _classFileIndex.getRoot();
+    if (buildDir == null || buildDir == FileOps.NULL_FILE || root == null) return;
+    if (root.equals(IOUtil.attemptCanonicalFile(buildDir))) _classFileIndex.scheduleRefresh();
+    else _classFileIndex.scheduleRescan(buildDir);
+  }
+  
   /** Converts JExprParseExceptions thrown by the JExprParser in language levels to CompilerErrors. 
    * @param pes list of exceptions to be converted
    * @return list of converted exceptions
@@ -721,4 +738,7 @@ public class DefaultCompilerModel implements CompilerModel {
     * @return the LanguageLevelStackTraceMapper
     * */
   public LanguageLevelStackTraceMapper getLLSTM() { return _LLSTM; } 
+  
+  /** @return the index of the classes in the build directory */
+  public ClassFileIndex getClassFileIndex() { return _classFileIndex; }
 }
@@ -42,19 +42,20 @@ import java.io.FileReader;
 
 import java.util.List;
 import java.util.HashMap;
-import java.util.TreeMap;
+
+import edu.rice.cs.plt.collect.IntIntMap;
 
 import edu.rice.cs.drjava.model.GlobalModel;
 import edu.rice.cs.drjava.model.DrJavaFileUtils;
 
-/** Class used to get TreeMaps with dj* to java line number (and vise versa) conversions */
+/** Class used to get IntIntMaps with dj* to java line number (and vise versa) conversions */
 public class LanguageLevelStackTraceMapper {
   
   /** logging information */
   public static final edu.rice.cs.util.Log LOG = new edu.rice.cs.util.Log("llstm.txt",false);
   
-  /** cache to store the tree maps */
-  private volatile HashMap<String,TreeMap<Integer,Integer>> cache;
+  /** cache to store the line number maps */
+  private volatile HashMap<String,IntIntMap> cache;
   
   /** model used to get the OpenDefinitionsDocuments from files */
   private volatile GlobalModel aGModel;
@@ -62,13 +63,12 @@ public class LanguageLevelStackTraceMapper {
   /* constructor */
   public LanguageLevelStackTraceMapper(GlobalModel aGM){
     aGModel = aGM;
-    cache = new HashMap<String,TreeMap<Integer,Integer>>();
+    cache = new HashMap<String,IntIntMap>();
   }
   
-  public StackTraceElement replaceStackTraceElement(StackTraceElement s, File d, TreeMap<Integer,Integer> m) {
+  public StackTraceElement replaceStackTraceElement(StackTraceElement s, File d, IntIntMap m) {
     
-    int jl = s.getLineNumber();
-    int lll = m.containsKey(jl) ? m.get(jl) : -1;
+    int lll = m.get(s.getLineNumber(), -1);
       
     return new StackTraceElement(s.getClassName(), s.getMethodName(), d.getName(), lll);
   }
@@ -82,8 +82,8 @@ public class LanguageLevelStackTraceMapper {
   public StackTraceElement replaceStackTraceElement(StackTraceElement s, File d) {
       
 // If the file name in s matches d, check if n already exists in the cache.
-// If it does, call the above replaceStackTraceElement with the cached TreeMap
-// Otherwise load the TreeMap from the *.java file, store it in the cache, and then
+// If it does, call the above replaceStackTraceElement with the cached IntIntMap
+// Otherwise load the IntIntMap from the *.java file, store it in the cache, and then
 // call the above replaceStackTraceElement.
 // If the file name does not match, just return s
     
@@ -95,7 +95,7 @@ public class LanguageLevelStackTraceMapper {
     dn = dn.substring(0, dn.lastIndexOf('.')) + edu.rice.cs.drjava.config.OptionConstants.JAVA_FILE_EXTENSION;
     File javaFile = new File(d.getParentFile(), dn);
     
-    TreeMap<Integer, Integer> djToJavaMap = readLLLineBlock(javaFile);
+    IntIntMap djToJavaMap = readLLLineBlock(javaFile);
     
     cache.put(fileName, djToJavaMap);  
     
@@ -131,9 +131,9 @@ public class LanguageLevelStackTraceMapper {
 // elements in the array.
   
   
-  /** Clears the TreeMap cache */
+  /** Clears the line number map cache */
   public void clearCache() {
-    cache = new HashMap<String,TreeMap<Integer,Integer>>();
+    cache = new HashMap<String,IntIntMap>();
   }
   
   /** Ensures the given file and StackTraceElement match.  The extension on 
@@ -176,14 +176,14 @@ public class LanguageLevelStackTraceMapper {
     return javaFn.endsWith(s.getFileName());  // names in trace elements are relative
   }
   
-  private TreeMap<Integer, Integer> createOneToOneMap(BufferedReader bufReader) {
+  private IntIntMap createOneToOneMap(BufferedReader bufReader) {
     // legacy support for old .dj2 language level files:
     // see DrJava feature request 2990660
     // As of revisions 5225-5227, .dj2 files aren't converted by the LanguageLevelConverter anymore,
     // they are just copied. That means the debugger and JUnit test errors cannot translate their line
     // numbers in .java files back to the .dj2 line numbers. Since the .dj2 file and the .java file
     // are identical, we just create a 1-to-1 map that maps a line number to itself.
-    TreeMap<Integer, Integer> oneToOne = new TreeMap<Integer, Integer>();
+    IntIntMap oneToOne = new IntIntMap();
     int lineNo = 1;
     oneToOne.put(lineNo,lineNo);
     try {
@@ -200,7 +200,7 @@ public class LanguageLevelStackTraceMapper {
    * @param LLFile the language-level file to be read
    * @return {@literal <java line, dj* line>}
    */
-  public TreeMap<Integer, Integer> readLLLineBlock(File LLFile){
+  public IntIntMap readLLLineBlock(File LLFile){
     
     BufferedReader bufReader = null;
     String rdLine = "";
@@ -217,21 +217,21 @@ public class LanguageLevelStackTraceMapper {
     // Process header line of block
     LOG.log("rdLine = '" + rdLine + "'");
     LOG.log("\tlastIndex = " + rdLine.lastIndexOf(" "));
-    Integer mapSize = new Integer (rdLine.substring(rdLine.lastIndexOf(" ") + 1));
+    int mapSize = Integer.parseInt(rdLine.substring(rdLine.lastIndexOf(" ") + 1));
     
     try { rdLine = bufReader.readLine();  }  catch(java.io.IOException e){ }
     
     if (rdLine.indexOf("//") != 0) mapSize = 0;  // Kills the for loop if read line is not of correct format
    
     // Create the LL map
-    TreeMap<Integer,Integer> javaDJMap = new TreeMap<Integer,Integer>();
+    IntIntMap javaDJMap = new IntIntMap(Math.max(mapSize, 0));
     
     // Process block lines containing map entries; rdLine is first such line
     // Invariant for text: text has no leading whitespace and trailing whitespace consisting of a single blank
     String text = rdLine.substring(2).trim() + " ";
     
-    Integer djNum;
-    Integer javaNum;
+    int djNum;
+    int javaNum;
     
 //    Utilities.show("read " + mapSize + " entries from bufReader");
     for (int i = 0; i < mapSize; i++) {
@@ -242,8 +242,8 @@ public class LanguageLevelStackTraceMapper {
       String numRnum = text.substring(0, firstBlankPos);
       text = text.substring(firstBlankPos).trim() + " ";  // Only need to trim leading blanks here; String API is clumsy
       
-      djNum = new Integer(numRnum.substring(0, numRnum.indexOf("->")));
-      javaNum = new Integer(numRnum.substring(numRnum.indexOf("->") + 2));
+      djNum = Integer.parseInt(numRnum.substring(0, numRnum.indexOf("->")));
+      javaNum = Integer.parseInt(numRnum.substring(numRnum.indexOf("->") + 2));
       
       javaDJMap.put(javaNum,djNum);
     }
@@ -256,7 +256,7 @@ public class LanguageLevelStackTraceMapper {
    * @param LLFile the language-level file to be read
    * @return {@literal <dj* line, java line>}
    */
-  public TreeMap<Integer, Integer> readLLBlock(File LLFile) {
+  public IntIntMap readLLBlock(File LLFile) {
     
     BufferedReader bufReader = null;
     String rdLine = "";
@@ -272,13 +272,13 @@ public class LanguageLevelStackTraceMapper {
     
     LOG.log("rdLine = '" + rdLine + "'");
     LOG.log("\tlastIndex = " + rdLine.lastIndexOf(" "));
-    Integer mapSize = new Integer (rdLine.substring(rdLine.lastIndexOf(" ") + 1));
+    int mapSize = Integer.parseInt(rdLine.substring(rdLine.lastIndexOf(" ") + 1));
     
     try { rdLine = bufReader.readLine(); } catch(java.io.IOException e){ }
     
     if (rdLine.indexOf("//") != 0) mapSize = 0;  // Kills the for loop if read line is not of correct format
 
-    TreeMap<Integer,Integer> map = new TreeMap<Integer,Integer>();
+    IntIntMap map = new IntIntMap(Math.max(mapSize, 0));
     
     String text = rdLine.substring(2).trim() + " ";  // invariant: temp has no leading spaces and a single trailing space
     String numRnum = "";
@@ -0,0 +1,118 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.coverage;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.jacoco.core.runtime.AbstractRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/** A JaCoCo runtime whose access key does not change from one JVM to the next.  Like JaCoCo's LoggerRuntime, the
+  * instrumented classes obtain their probe arrays by logging a record with the key as its message to a 
+  * {@link java.util.logging.Logger}, and the runtime answers every record carrying its key.  The stock LoggerRuntime
+  * derives its key from its identity hash code and bakes that key into every class it instruments, so instrumented
+  * bytecode is only usable with the runtime instance that produced it.  With the fixed {@link #KEY}, the
+  * instrumented classes cached by {@link JacocoClassLoader} remain valid across test runs and interpreter restarts.
+  * Only one runtime may be started in a JVM at a time; JUnitTestManager shuts each runtime down before the next 
+  * test run.
+  */
+public class CoverageRuntime extends AbstractRuntime {
+  
+  /** The logger channel over which instrumented classes request their probe arrays. */
+  private static final String CHANNEL = "edu.rice.cs.drjava.coverage";
+  
+  /** The access key baked into every instrumented class.  Instrumented classes cached under one key are not valid
+    * under another, so JacocoClassLoader includes it in the name of its cache directory. */
+  static final String KEY = "drjava1";
+  
+  private final Logger _logger;
+  
+  private final Handler _handler = new Handler() {
+    public void publish(LogRecord record) {
+      if (KEY.equals(record.getMessage())) { data.getProbes(record.getParameters()); }
+    }
+    public void flush() { }
+    /** The logging framework closes all handlers on JVM shutdown; classes instrumented later would then fail to
+      * initialize, so the handler re-registers itself, as LoggerRuntime's does. */
+    public void close() { _logger.addHandler(this); }
+  };
+  
+  public CoverageRuntime() {
+    _logger = Logger.getLogger(CHANNEL);
+    _logger.setUseParentHandlers(false);
+    _logger.setLevel(Level.ALL);
+  }
+  
+  /** Generates the code that fetches the probe array: the equivalent of
+    * {@code Object[] args = {classId, className, probeCount}; Logger.getLogger(CHANNEL).log(Level.INFO, KEY, args);}
+    * leaving {@code (boolean[]) args[0]} on the stack.
+    */
+  public int generateDataAccessor(long classId, String className, int probeCount, MethodVisitor mv) {
+    RuntimeData.generateArgumentArray(classId, className, probeCount, mv);
+    // Stack: args
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitLdcInsn(CHANNEL);
+    mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/logging/Logger", "getLogger",
+                       "(Ljava/lang/String;)Ljava/util/logging/Logger;", false);
+    // Stack: logger, args, args
+    mv.visitInsn(Opcodes.SWAP);
+    mv.visitFieldInsn(Opcodes.GETSTATIC, "java/util/logging/Level", "INFO", "Ljava/util/logging/Level;");
+    mv.visitInsn(Opcodes.SWAP);
+    mv.visitLdcInsn(KEY);
+    mv.visitInsn(Opcodes.SWAP);
+    // Stack: args, KEY, INFO, logger, args
+    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/util/logging/Logger", "log",
+                       "(Ljava/util/logging/Level;Ljava/lang/String;[Ljava/lang/Object;)V", false);
+    // Stack: args
+    mv.visitInsn(Opcodes.ICONST_0);
+    mv.visitInsn(Opcodes.AALOAD);
+    mv.visitTypeInsn(Opcodes.CHECKCAST, "[Z");
+    return 5;
+  }
+  
+  public void startup(RuntimeData data) throws Exception {
+    super.startup(data);
+    _logger.addHandler(_handler);
+  }
+  
+  public void shutdown() { _logger.removeHandler(_handler); }
+}
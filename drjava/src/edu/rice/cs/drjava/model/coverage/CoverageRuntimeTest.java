@@ -0,0 +1,68 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.coverage;
+
+import java.io.File;
+import java.util.Arrays;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+import org.jacoco.core.instr.Instrumenter;
+
+/** Tests the CoverageRuntime.
+  * @version $Id$
+  */
+public final class CoverageRuntimeTest extends DrJavaTestCase {
+  
+  /** @return the class file of JacocoClassLoaderTest.Sample, instrumented for a new CoverageRuntime */
+  private static byte[] _instrumentSample() throws Exception {
+    String name = JacocoClassLoaderTest.Sample.class.getName();
+    File f = new File(JacocoClassLoaderTest.binaryDirectory(), name.replace('.', File.separatorChar) + ".class");
+    return new Instrumenter(new CoverageRuntime()).instrument(IOUtil.toByteArray(f), name);
+  }
+  
+  /** Tests that every runtime instruments a class identically, with the key that names the cache directory, so the 
+    * classes cached by JacocoClassLoader stay valid.  Fails if the key is no longer what the instrumented code uses.
+    */
+  public void testInstrumentationUsesFixedKey() throws Exception {
+    byte[] first = _instrumentSample();
+    assertTrue("instrumentation is independent of the runtime instance", Arrays.equals(first, _instrumentSample()));
+    assertTrue("instrumented code carries the key", new String(first, "ISO-8859-1").contains(CoverageRuntime.KEY));
+    assertTrue(JacocoClassLoader.cacheDirectoryName().endsWith("-" + CoverageRuntime.KEY));
+  }
+}
@@ -52,7 +52,16 @@ package edu.rice.cs.drjava.model.coverage;
 
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import java.lang.ClassLoader;
 
@@ -62,27 +71,100 @@ import edu.rice.cs.util.FileOps;
 import edu.rice.cs.util.IterableOps;
 import edu.rice.cs.util.UnexpectedException;
 
+import org.jacoco.core.JaCoCo;
 import org.jacoco.core.instr.Instrumenter;
 
-/** A class loader that instruments classes for code coverage.
+/** A class loader that instruments classes for code coverage.  If given a cache directory, instrumented bytecode is
+  * stored there under a digest of the original class file, so unchanged classes are instrumented only once across
+  * test runs.  The cache is only sound if the instrumenter's runtime produces the same bytecode in every JVM (see
+  * {@link CoverageRuntime}).  The least recently used entries are evicted once a cache directory holds more than
+  * MAX_CACHED_CLASSES files.
   * @version $Id$
   */
 public class JacocoClassLoader extends ClassLoader {
   
   private static final Log _log = new Log("JUnitTestManager.txt", false);
   
+  /** The prefix shared by the names of all cache directories of the current user. */
+  private static final String CACHE_PREFIX = "drjava-coverage-" + System.getProperty("user.name") + "-";
+  
+  /** The number of files a cache directory may hold before its least recently used entries are deleted. */
+  public static final int MAX_CACHED_CLASSES = 5000;
+  
   private final File[] _binaryDirectories; 
   private final Instrumenter _instrumenter; 
+  /** Directory holding previously instrumented classes; null if caching is disabled. */
+  private final File _cacheDirectory;
   
   public JacocoClassLoader(Iterable<File> binaryDirectories, Instrumenter instrumenter, ClassLoader parent) { 
+    this(binaryDirectories, instrumenter, null, parent);
+  }
+  
+  public JacocoClassLoader(Iterable<File> binaryDirectories, Instrumenter instrumenter, File cacheDirectory,
+                           ClassLoader parent) { 
     super(parent); 
     
     _binaryDirectories = IterableOps.toArray(binaryDirectories, File.class); 
     _instrumenter = instrumenter; 
+    _cacheDirectory = 
+      (cacheDirectory != null && (cacheDirectory.isDirectory() || IOUtil.attemptMkdirs(cacheDirectory))) ? 
+      cacheDirectory : null;
+    if (_cacheDirectory != null) pruneCache(_cacheDirectory, MAX_CACHED_CLASSES);
     
     _log.log("JaCoCoClassLoader has been created"); 
   } 
   
+  /** Returns a cache directory for instrumented classes specific to the running JaCoCo version and runtime key.  The
+    * current user's cache directories for other versions or keys are deleted.
+    * @return the cache directory, which may not exist yet
+    */
+  public static File defaultCacheDirectory() {
+    File parent = new File(System.getProperty("java.io.tmpdir"));
+    File dir = new File(parent, cacheDirectoryName());
+    pruneCacheDirectories(parent, dir);
+    return dir;
+  }
+  
+  /** @return the name of the cache directory for the running JaCoCo version and CoverageRuntime key */
+  static String cacheDirectoryName() {
+    return CACHE_PREFIX + JaCoCo.VERSION + "-" + CoverageRuntime.KEY;
+  }
+  
+  /** Deletes the current user's cache directories in parent other than current.  Their classes were instrumented by
+    * another JaCoCo version or for another runtime key, so they can never be used again.
+    * @param parent the directory holding the cache directories
+    * @param current the cache directory to keep
+    */
+  static void pruneCacheDirectories(File parent, File current) {
+    for (File f : IOUtil.attemptListFilesAsIterable(parent)) {
+      if (f.getName().startsWith(CACHE_PREFIX) && f.isDirectory() && ! f.equals(current)) {
+        _log.log("Deleting stale coverage cache " + f);
+        IOUtil.deleteRecursively(f);
+      }
+    }
+  }
+  
+  /** Deletes the least recently used files in the given cache directory until at most max remain.  A cache hit 
+    * updates the modification time of its entry, so the modification time records the last use.
+    * @param dir the cache directory
+    * @param max the number of files to keep
+    */
+  static void pruneCache(File dir, int max) {
+    File[] files = IOUtil.attemptListFiles(dir);
+    if (files == null || files.length <= max) return;
+    final long[] lastUsed = new long[files.length];
+    Integer[] order = new Integer[files.length];
+    for (int i = 0; i < files.length; i++) {
+      lastUsed[i] = files[i].lastModified();
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer i, Integer j) { return Long.compare(lastUsed[i], lastUsed[j]); }
+    });
+    _log.log("Evicting " + (files.length - max) + " entries from coverage cache " + dir);
+    for (int k = 0; k < files.length - max; k++) IOUtil.attemptDelete(files[order[k]]);
+  }
+  
   @Override 
   protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException { 
     
@@ -90,7 +172,7 @@ public class JacocoClassLoader extends ClassLoader {
     
     if (javaClass != null) { 
       // class was already loaded (and instrumented if bytecode was found) 
-      _log.log("The class " + className + " was already loaded"); 
+      _log.logf("The class %s was already loaded", className);
       return javaClass; 
     } 
     
@@ -98,16 +180,16 @@ public class JacocoClassLoader extends ClassLoader {
       // first try to load from one of the binary directories and instrument the class
       File classFile = findBinaryFile(className);
       if (classFile != null) {
-        _log.log("Found the class file " + classFile + " for the class " + className);
-        _log.log("Instrumenting and defining class: " + className); 
-        final byte[] instrumentedBytes = _instrumenter.instrument(IOUtil.toByteArray(classFile), className); 
+        _log.logf("Found the class file %s for the class %s", classFile, className);
+        _log.logf("Instrumenting and defining class: %s", className);
+        final byte[] instrumentedBytes = instrument(IOUtil.toByteArray(classFile), className); 
         final Class<?> definedClass = defineClass(className, instrumentedBytes, 0, instrumentedBytes.length);
-        _log.log("Returning instrumented class " + className);
+        _log.logf("Returning instrumented class %s", className);
         return definedClass;
       }  
       else { 
         // was not found, try to load with the parent, but it will not be instrumented 
-        _log.log("Calling super.loadClass() for class " + className + " (corresponding file was not found by jacoco)"); 
+        _log.logf("Calling super.loadClass() for class %s (corresponding file was not found by jacoco)", className);
         return super.loadClass(className, resolve); 
       } 
     } catch (IOException ex) { 
@@ -116,6 +198,58 @@ public class JacocoClassLoader extends ClassLoader {
     } 
   } 
   
+  /** Instruments the given class, reusing the cached result of an earlier instrumentation of identical bytes. 
+    * @param bytes the original class file
+    * @param className the name of the class
+    * @return the instrumented class file
+    * @throws IOException if instrumentation fails
+    */
+  private byte[] instrument(byte[] bytes, String className) throws IOException {
+    if (_cacheDirectory == null) return _instrumenter.instrument(bytes, className);
+    
+    final File cached = new File(_cacheDirectory, digest(bytes, className) + ".class");
+    if (cached.isFile()) {
+      try {
+        byte[] result = IOUtil.toByteArray(cached);
+        IOUtil.attemptSetLastModified(cached, System.currentTimeMillis());  // mark the entry as recently used
+        return result;
+      }
+      catch (IOException e) { _log.log("Could not read cached instrumentation " + cached, e); }
+    }
+    
+    final byte[] instrumented = _instrumenter.instrument(bytes, className);
+    // Write to a temporary file first so that a concurrent reader never sees a partial class file
+    File temp = null;
+    try {
+      temp = File.createTempFile("instr", ".tmp", _cacheDirectory);
+      OutputStream out = new FileOutputStream(temp);
+      try { out.write(instrumented); }
+      finally { out.close(); }
+      if (! IOUtil.attemptRenameTo(temp, cached)) IOUtil.attemptDelete(temp);
+    }
+    catch (IOException e) {
+      _log.log("Could not cache instrumentation of " + className, e);
+      if (temp != null) IOUtil.attemptDelete(temp);
+    }
+    return instrumented;
+  }
+  
+  /** @return a hex digest identifying the given class file contents and class name */
+  private static String digest(byte[] bytes, String className) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("MD5");
+      md.update(bytes);
+      md.update(className.getBytes("UTF-8"));
+      StringBuilder sb = new StringBuilder();
+      for (byte b : md.digest()) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    }
+    catch (NoSuchAlgorithmException e) { throw new UnexpectedException(e, "MD5 algorithm not available"); }
+    catch (UnsupportedEncodingException e) { throw new UnexpectedException(e); }
+  }
+  
   public Class<?> tryLoadClass(String name) { 
     try { return loadClass(name); } 
     catch (ClassNotFoundException ex) { return null; } 
@@ -0,0 +1,158 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.coverage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.io.IOUtil;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/** Tests the instrumentation cache of JacocoClassLoader.
+  * @version $Id$
+  */
+public final class JacocoClassLoaderTest extends DrJavaTestCase {
+  
+  /** A class that the tests load instrumented. */
+  public static class Sample implements Runnable {
+    public void run() { System.getProperty("user.dir"); }
+  }
+  
+  private static final String SAMPLE = Sample.class.getName();
+  
+  private volatile File _tempDir;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    _tempDir = IOUtil.createAndMarkTempDirectory("coverage", "");
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    super.tearDown();
+  }
+  
+  /** @return the directory from which the test classes were loaded */
+  static File binaryDirectory() throws Exception {
+    return new File(JacocoClassLoaderTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+  }
+  
+  /** Loads Sample instrumented from a new loader using the given cache, runs it, and returns whether it was covered. */
+  private boolean _runSample(File cacheDir) throws Exception {
+    CoverageRuntime runtime = new CoverageRuntime();
+    RuntimeData data = new RuntimeData();
+    runtime.startup(data);
+    try {
+      JacocoClassLoader loader = new JacocoClassLoader(Arrays.asList(binaryDirectory()), new Instrumenter(runtime),
+                                                       cacheDir, getClass().getClassLoader());
+      Class<?> c = loader.loadClass(SAMPLE);
+      assertNotSame("Sample is loaded by the coverage loader", Sample.class, c);
+      ((Runnable) c.newInstance()).run();
+      ExecutionDataStore store = new ExecutionDataStore();
+      data.collect(store, new SessionInfoStore(), false);
+      for (ExecutionData d : store.getContents()) {
+        if (d.getName().equals(SAMPLE.replace('.', '/'))) {
+          for (boolean p : d.getProbes()) { if (p) return true; }
+        }
+      }
+      return false;
+    }
+    finally { runtime.shutdown(); }
+  }
+  
+  /** Tests that a class instrumented in one run is taken from the cache in the next and still records coverage. */
+  public void testCachedClassRecordsCoverage() throws Exception {
+    File cacheDir = new File(_tempDir, "cache");
+    assertTrue("coverage recorded on first load", _runSample(cacheDir));
+    File[] cached = cacheDir.listFiles();
+    assertEquals("one class cached", 1, cached.length);
+    assertTrue(cached[0].getName().endsWith(".class"));
+    IOUtil.attemptSetLastModified(cached[0], 1000L);
+    
+    assertTrue("coverage recorded from the cache", _runSample(cacheDir));
+    assertEquals("cache entry reused", Arrays.asList(cached), Arrays.asList(cacheDir.listFiles()));
+    assertTrue("cache hit marks the entry as used", cached[0].lastModified() > 1000L);
+  }
+  
+  /** Tests that the cache directory name distinguishes JaCoCo versions and runtime keys. */
+  public void testCacheDirectoryName() {
+    String name = JacocoClassLoader.cacheDirectoryName();
+    assertTrue(name, name.contains(JaCoCo.VERSION));
+    assertTrue(name, name.endsWith("-" + CoverageRuntime.KEY));
+    assertEquals(name, JacocoClassLoader.defaultCacheDirectory().getName());
+  }
+  
+  /** Tests that only the user's other cache directories are deleted. */
+  public void testPruneCacheDirectories() throws IOException {
+    String name = JacocoClassLoader.cacheDirectoryName();
+    File current = new File(_tempDir, name);
+    File stale = new File(_tempDir, name.substring(0, name.lastIndexOf('-')) + "-1234");
+    File unrelated = new File(_tempDir, "drjava-other");
+    for (File d : new File[] { current, stale, unrelated }) {
+      assertTrue(d.mkdir());
+      IOUtil.writeStringToFile(new File(d, "A.class"), "x");
+    }
+    JacocoClassLoader.pruneCacheDirectories(_tempDir, current);
+    assertTrue("current cache kept", new File(current, "A.class").exists());
+    assertFalse("stale cache deleted", stale.exists());
+    assertTrue("unrelated directory kept", unrelated.exists());
+  }
+  
+  /** Tests that pruning keeps the most recently used entries. */
+  public void testPruneCache() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      File f = new File(_tempDir, i + ".class");
+      IOUtil.writeStringToFile(f, "x");
+      assertTrue(f.setLastModified(1000000L * (i == 1 ? 10 : i)));
+    }
+    JacocoClassLoader.pruneCache(_tempDir, 5);
+    assertEquals("nothing evicted under the limit", 5, _tempDir.listFiles().length);
+    JacocoClassLoader.pruneCache(_tempDir, 3);
+    HashSet<String> left = new HashSet<String>();
+    for (File f : _tempDir.listFiles()) left.add(f.getName());
+    assertEquals(new HashSet<String>(Arrays.asList("1.class", "3.class", "4.class")), left);
+  }
+}
@@ -13,9 +13,9 @@ import java.io.File;
 import java.io.IOException;
 
 import java.util.Map;
-import java.util.List;
 import java.util.HashMap;
-import java.util.ArrayList;
+
+import edu.rice.cs.plt.collect.IntList;
 
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
@@ -38,6 +38,9 @@ public class ReportGenerator {
   /* For building the coverage report */
   private  CoverageBuilder coverageBuilder;
   
+  /* The class coverages of coverageBuilder, indexed by class name; built on first use */
+  private Map<String, IClassCoverage> classesByName = null;
+  
   /* The output directory in which to place the report */
   private final String reportDirectoryPath;
   
@@ -86,7 +89,7 @@ public class ReportGenerator {
     * @param status the status of the line (how well it was covered)
     * @return a color corresponding to the amount of coverage
     */
-  private String getColor(final int status) {
+  public static String getColor(final int status) {
     
     switch (status) {
       case ICounter.NOT_COVERED: return "red";
@@ -97,18 +100,22 @@ public class ReportGenerator {
   }
   
   /** Help function which takes coverage data for a particular class and returns a corresponding list of line colors.
+    * Colors are kept as JaCoCo line statuses ({@link ICounter#EMPTY}, {@link ICounter#NOT_COVERED}, 
+    * {@link ICounter#PARTLY_COVERED}, {@link ICounter#FULLY_COVERED}); see {@link #getColor}.
     * @param cc the IClassCoverage object from which to get line colors
     * @return a list of colors, where the i-th element in the list corresponds to the i-th line of code
     */
-  private ArrayList<String> getLineColorsForClassHelper(IClassCoverage cc) {
+  private IntList getLineColorsForClassHelper(IClassCoverage cc) {
     
-    ArrayList<String> lineColors = new ArrayList<String>();
+    final int firstLine = cc.getFirstLine();
+    final int lastLine = cc.getLastLine();
+    IntList lineColors = new IntList(Math.max(lastLine + 1, 0));
     
     /* Begin by assigning no color to all of the lines before the first actual line of code.  */
-    for (int i = 0; i < cc.getFirstLine(); i++) lineColors.add("");               
+    lineColors.fill(ICounter.EMPTY, Math.max(firstLine, 0));
     
     /* Next, get the color of the lines after the first code line. */
-    for (int i = cc.getFirstLine(); i <= cc.getLastLine(); i++) lineColors.add(getColor(cc.getLine(i).getStatus()));
+    for (int i = firstLine; i <= lastLine; i++) lineColors.add(cc.getLine(i).getStatus());
     
     return lineColors;
   }
@@ -117,30 +124,28 @@ public class ReportGenerator {
     * @param className the class (/file) for which to get line colors
     * @return a list of colors, where the i-th element in the list corresponds to the i-th line of code
     */
-  public ArrayList<String> getLineColorsForClass(String className) {
+  public IntList getLineColorsForClass(String className) {
     
-    /* Initialize it to empty, in case the className is invalid */ 
-    ArrayList<String> lineColors = new ArrayList<String>();
-    
-    /* Search for the requested class */
-    for (final IClassCoverage cc : this.coverageBuilder.getClasses()) {
-      
-      /* Found the class! Get the color of each line. */
-      if (cc.getName().equals(className)) {
-        lineColors = getLineColorsForClassHelper(cc);
-        break;
-      }
+    if (classesByName == null) {
+      classesByName = new HashMap<String, IClassCoverage>();
+      for (final IClassCoverage cc : this.coverageBuilder.getClasses()) classesByName.put(cc.getName(), cc);
     }
     
-    return lineColors;
+    final IClassCoverage cc = classesByName.get(className);
+    
+    /* Empty, since the className is invalid */ 
+    if (cc == null) return new IntList();
+    
+    /* Found the class! Get the color of each line. */
+    return getLineColorsForClassHelper(cc);
   }
   
   /** Given a list of classes, determines the color of each line in each class (based on coverage results).
     * @return a mapping of class names to the line colors for that class
     */
-  public Map<String, List<String>> getAllLineColors() {
+  public Map<String, IntList> getAllLineColors() {
     
-    Map<String, List<String>> allLineColors = new HashMap<String, List<String>>();
+    Map<String, IntList> allLineColors = new HashMap<String, IntList>();
     
     for (final IClassCoverage cc : this.coverageBuilder.getClasses()) {
       allLineColors.put(cc.getName(), this.getLineColorsForClassHelper(cc));
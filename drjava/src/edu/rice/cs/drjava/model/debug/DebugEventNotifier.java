@@ -40,6 +40,7 @@ import edu.rice.cs.drjava.model.EventNotifier;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 
 import java.awt.EventQueue;
+import java.util.List;
 
 /** Keeps track of all listeners to a Debugger, and has the ability  to notify them of some event.
  *  <p>
@@ -177,6 +178,19 @@ public class DebugEventNotifier extends EventNotifier<DebugListener> implements
     }
     finally { _lock.endRead(); }
   }
+  
+  /** Called when the values or types of some watches have changed.  Must be executed in event thread.
+    * @param watches the watches whose display changed
+    */
+  public void watchesUpdated(List<DebugWatchData> watches) {
+    assert EventQueue.isDispatchThread();
+    _lock.startRead();
+    try {
+      int size = _listeners.size();
+      for (int i = 0; i < size; i++) { _listeners.get(i).watchesUpdated(watches); }
+    }
+    finally { _lock.endRead(); }
+  }
 
   /** Called when a breakpoint is removed from a document.  Must be executed in event thread.
     * @param bp the breakpoint
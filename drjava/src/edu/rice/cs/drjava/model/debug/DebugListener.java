@@ -39,6 +39,8 @@ package edu.rice.cs.drjava.model.debug;
 import edu.rice.cs.drjava.model.RegionManagerListener;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 
+import java.util.List;
+
 /** Any class which wants to listen to events fired by the Debugger should implement this interface and use Debugger's
   * addDebugListener() method.
   * @version $Id$
@@ -74,6 +76,12 @@ public interface DebugListener extends RegionManagerListener<Breakpoint> {
     */
   public void watchRemoved(DebugWatchData w);
   
+  /** Called when the values or types of some watches have been re-evaluated and differ from what was shown before.
+    * Must be executed in event thread.
+    * @param watches the watches whose display changed
+    */
+  public void watchesUpdated(List<DebugWatchData> watches);
+  
   /** Called when a step is requested on the current thread.  Must be executed in event thread. */
   public void stepRequested();
   
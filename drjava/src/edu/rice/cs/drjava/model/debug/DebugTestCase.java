@@ -42,6 +42,7 @@ import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.Utilities;
 
 import java.io.*;
+import java.util.List;
 
 /** This class contains the basic fields and methods that are necessary for any test file that needs to use the
   * JPDADebugger.
@@ -537,6 +538,9 @@ public abstract class DebugTestCase extends GlobalModelTestCase {
     
     public void watchRemoved(DebugWatchData w) { fail("watchRemoved fired unexpectedly"); }
     
+    /* Watches are re-evaluated asynchronously after every suspension, so this event is not counted. */
+    public void watchesUpdated(List<DebugWatchData> watches) { }
+    
     public void stepRequested() { fail("stepRequested fired unexpectedly"); }
     
     public void currThreadSuspended() { fail("currThreadSuspended fired unexpectedly"); }
@@ -50,6 +50,12 @@ public abstract class DebugThreadData {
     _uniqueID = uniqueID;
   }
   
+  /** For subclasses that determine the name and status on demand by overriding {@link #getName} and
+    * {@link #getStatus}.
+    * @param uniqueID the unique ID of the thread
+    */
+  protected DebugThreadData(long uniqueID) { this(null, null, uniqueID); }
+  
   /** @return the name of this thread. */
   public String getName() {
     return _name;
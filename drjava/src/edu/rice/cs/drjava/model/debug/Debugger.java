@@ -37,6 +37,7 @@
 package edu.rice.cs.drjava.model.debug;
 
 import java.util.ArrayList;
+import java.util.List;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 
 /** Interface for any debugger implementation to be used by DrJava.
@@ -163,15 +164,17 @@ public interface Debugger {
     */
   public ArrayList<DebugWatchData> getWatches() throws DebugException;
   
-  /** @return a Vector of ThreadData.
+  /** @return a list of ThreadData.  Implementations may fetch the details of each thread lazily, when it is
+    *         first displayed, so the list should be discarded once the debuggee's state changes.
     * @throws DebugException if an error occurs
     */ 
-  public ArrayList<DebugThreadData> getCurrentThreadData() throws DebugException;
+  public List<DebugThreadData> getCurrentThreadData() throws DebugException;
   
-  /** @return a Vector of StackData for the current thread.
+  /** @return a list of StackData for the current thread.  Implementations may fetch the frames lazily, a page
+    *         at a time as they are accessed, so the list should be discarded once the thread resumes.
     * @throws DebugException if an error occurs 
     */
-  public ArrayList<DebugStackData> getCurrentStackFrameData() throws DebugException;
+  public List<DebugStackData> getCurrentStackFrameData() throws DebugException;
   
   /** @return true if there are any threads in the program currently being
     * debugged which have been suspended (by the user or by hitting a breakpoint).
@@ -37,6 +37,7 @@
 package edu.rice.cs.drjava.model.debug;
 
 import java.util.ArrayList;
+import java.util.List;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 
 /** * Placeholder class indicating that no debugger is available to DrJava.
@@ -146,10 +147,10 @@ public class NoDebuggerAvailable implements Debugger {
   public ArrayList<DebugWatchData> getWatches() { return new ArrayList<DebugWatchData>(); }
   
   /** @return a Vector of ThreadData or null if the vm is null. */
-  public ArrayList<DebugThreadData> getCurrentThreadData() { return new ArrayList<DebugThreadData>(); }
+  public List<DebugThreadData> getCurrentThreadData() { return new ArrayList<DebugThreadData>(); }
   
   /** @return a Vector of StackData for the current thread or null if the current thread is null. */
-  public ArrayList<DebugStackData> getCurrentStackFrameData() { return new ArrayList<DebugStackData>(); }
+  public List<DebugStackData> getCurrentStackFrameData() { return new ArrayList<DebugStackData>(); }
   
   /** Adds a listener to this Debugger. 
    * @param listener the listener to add
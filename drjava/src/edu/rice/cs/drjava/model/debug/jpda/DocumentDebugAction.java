@@ -60,9 +60,6 @@ public abstract class DocumentDebugAction<T extends EventRequest> extends DebugA
   protected volatile OpenDefinitionsDocument _doc;
   protected int _offset;
   
-  public final int SHORT_DOC_MAX_LENGTH = 20000;
-  
-  
   /** Creates a new DocumentDebugAction.  Automatically tries to create the 
    * EventRequest if a ReferenceType can be found, or else adds this object to 
    * the PendingRequestManager. Any subclass should automatically call
@@ -77,11 +74,9 @@ public abstract class DocumentDebugAction<T extends EventRequest> extends DebugA
     _exactClassName = null;
     try {
       if (offset >= 0) {
-        if (doc.getLength() < SHORT_DOC_MAX_LENGTH) {
-          // only do this on short files
-          // in long files, getEnclosingClassName might take too long
-          _exactClassName = doc.getEnclosingClassName(offset, true);
-        }
+        // answered by the document outline, so this is cheap even in long files
+        String exactClassName = doc.getEnclosingClassName(offset, true);
+        if (exactClassName.length() > 0) _exactClassName = exactClassName;
       }
     }
     catch(ClassNameNotFoundException cnnfe) { /* ignore, we don't need the exact class name */ }
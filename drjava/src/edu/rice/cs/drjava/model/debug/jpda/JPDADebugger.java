@@ -38,6 +38,7 @@ package edu.rice.cs.drjava.model.debug.jpda;
 
 import java.awt.EventQueue;
 import java.io.*;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -48,6 +49,9 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 // DrJava stuff
 import edu.rice.cs.util.UnexpectedException;
@@ -57,10 +61,12 @@ import edu.rice.cs.drjava.model.DrJavaFileUtils;
 import edu.rice.cs.drjava.model.repl.DefaultInteractionsModel;
 import edu.rice.cs.drjava.model.repl.DummyInteractionsListener;
 import edu.rice.cs.drjava.model.repl.InteractionsListener;
+import edu.rice.cs.drjava.model.repl.newjvm.DebugVariableCodec;
 import edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM;
 import edu.rice.cs.drjava.model.compiler.LanguageLevelStackTraceMapper;
 import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import edu.rice.cs.util.Log;
+import edu.rice.cs.plt.collect.IntIntMap;
 import edu.rice.cs.plt.lambda.Lambda;
 import edu.rice.cs.drjava.model.debug.*;
 import edu.rice.cs.drjava.DrJava;
@@ -97,13 +103,13 @@ public class JPDADebugger implements Debugger {
     */
   private static final String ADD_INTERPRETER_SIG =
     "(Ljava/lang/String;Ljava/lang/Object;Ljava/lang/Class;" +
-    "[Ljava/lang/Object;[Ljava/lang/String;[Ljava/lang/Class;)V";
+    "[Ljava/lang/Object;Ljava/lang/String;[Ljava/lang/Class;Ljava/lang/String;)V";
   
-  /** Signature of the InterpreterJVM.getVariableValue method.
-    * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getVariableValue
+  /** Signature of the InterpreterJVM.getVariableValues method.
+    * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getVariableValues
     * @see #_copyVariablesFromInterpreter
     */
-  private static final String GET_VARIABLE_VALUE_SIG = "(Ljava/lang/String;)[Ljava/lang/Object;";
+  private static final String GET_VARIABLE_VALUES_SIG = "(Ljava/lang/String;I)[Ljava/lang/Object;";
   
   private static final String NEW_INSTANCE_SIG = "(Ljava/lang/Class;I)Ljava/lang/Object;";
   
@@ -119,6 +125,26 @@ public class JPDADebugger implements Debugger {
   /** Vector of all current Watches. */
   private final ArrayList<DebugWatchData> _watches = new ArrayList<DebugWatchData>();
   
+  /** Number of watch evaluations started; used to discard stale results.  Only accessed in the event thread. */
+  private int _watchGeneration = 0;
+  
+  /** Background thread evaluating watches; created on demand. */
+  private ExecutorService _watchExecutor = null;
+  
+  /** Number of times threads have been suspended, resumed, started or have died; the thread and stack frame
+    * caches below are only valid for the generation in which they were built.  Only modified in the event thread.
+    */
+  private volatile int _suspensionGeneration = 0;
+  
+  /** Threads listed in the current suspension generation, or null. */
+  private volatile List<DebugThreadData> _threadDataCache = null;
+  
+  /** Stack frames of the current thread in the current suspension generation, or null. */
+  private volatile StackFrameList _stackFrameCache = null;
+  
+  /** Number of stack frames fetched from the debuggee at a time. */
+  private static final int STACK_FRAME_PAGE_SIZE = 32;
+  
   /** Keeps track of any DebugActions whose classes have not yet been loaded, so that EventRequests can be created when the correct
     * ClassPrepareEvent occurs.
     */
@@ -282,6 +308,7 @@ public class JPDADebugger implements Debugger {
         _suspendedThreads = new RandomAccessStack();
         _eventManager = null;
         _runningThread = null;
+        _nextSuspensionGeneration();
         _updateWatches();
       }
     }
@@ -646,8 +673,8 @@ public class JPDADebugger implements Debugger {
     
     if (DrJavaFileUtils.isLLFile(f)) {
       f = DrJavaFileUtils.getJavaForLLFile(f);
-      TreeMap<Integer, Integer> tM = getLLSTM().readLLBlock(f);
-      line = tM.get(breakpoint.getLineNumber());
+      IntIntMap tM = getLLSTM().readLLBlock(f);
+      line = tM.get(line, line);
     }
     return line;
   }
@@ -724,12 +751,15 @@ public class JPDADebugger implements Debugger {
   }
   
   /** @return a list of all threads being tracked by the debugger. Does not 
-   *         return any threads known to be dead.
+   *         return any threads known to be dead.  The name and status of each thread are
+   *         only fetched when displayed, and the list is reused until the next suspension generation.
    * @throws DebugException if something goes wrong
    */
-  public /* synchronized */ ArrayList<DebugThreadData> getCurrentThreadData() throws DebugException {
+  public /* synchronized */ List<DebugThreadData> getCurrentThreadData() throws DebugException {
     assert EventQueue.isDispatchThread();
     if (! isReady()) { return new ArrayList<DebugThreadData>(); }
+    List<DebugThreadData> cached = _threadDataCache;
+    if (cached != null) { return cached; }
     Iterable<ThreadReference> listThreads;
     try { listThreads = _vm.allThreads(); }
     catch (VMDisconnectedException vmde) {
@@ -744,15 +774,17 @@ public class JPDADebugger implements Debugger {
         // this thread just died, we don't want to list it anyway
       }
     }
+    _threadDataCache = threads;
     return threads;
   }
   
-  /** Returns a Vector of DebugStackData for the current suspended thread.
+  /** Returns a list of DebugStackData for the current suspended thread.  The frames are fetched from the
+   * debuggee a page at a time as they are accessed, and the list is reused until the next suspension generation.
    * @throws DebugException if the current thread is running or there
    * are no suspended threads
    * TO DO: Config option for hiding DrJava subset of stack trace
    */
-  public ArrayList<DebugStackData> getCurrentStackFrameData() throws DebugException {
+  public List<DebugStackData> getCurrentStackFrameData() throws DebugException {
     assert EventQueue.isDispatchThread();
     if (! isReady()) return new ArrayList<DebugStackData>();
     
@@ -760,18 +792,12 @@ public class JPDADebugger implements Debugger {
       throw new DebugException("No suspended thread to obtain stack frames.");
     }
     
+    ThreadReference thread = _suspendedThreads.peek();
+    StackFrameList cached = _stackFrameCache;
+    if (cached != null && cached._thread.equals(thread)) { return cached; }
     try {
-      ThreadReference thread = _suspendedThreads.peek();
-      ArrayList<DebugStackData> frames = new ArrayList<DebugStackData>();
-      // get a list of language level files whose line numbers need to be translated 
-      final List<File> files = new ArrayList<File>();
-      for (OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { files.add(odd.getRawFile()); }
-      for (StackFrame f : thread.frames()) {
-        // map Java line numbers to LL line numbers
-        String method = JPDAStackData.methodName(f);
-        StackTraceElement ste = getLLStackTraceElement(f.location(), files);
-        frames.add(new JPDAStackData(method, ste.getLineNumber()));
-      }
+      StackFrameList frames = new StackFrameList(thread);
+      _stackFrameCache = frames;
       return frames;
     }
     catch (IncompatibleThreadStateException itse) {
@@ -782,9 +808,58 @@ public class JPDADebugger implements Debugger {
       error.log("VMDisconnected when getting the current stack frame data.", vmde);
       return new ArrayList<DebugStackData>();
     }
-    catch (InvalidStackFrameException isfe) {
-      error.log("The stack frame requested is invalid.", isfe);
-      return new ArrayList<DebugStackData>();
+  }
+  
+  /** Starts a new suspension generation, discarding the cached thread and stack frame data. */
+  private void _nextSuspensionGeneration() {
+    _suspensionGeneration++;
+    _threadDataCache = null;
+    _stackFrameCache = null;
+  }
+  
+  /** The stack frames of a suspended thread, fetched with {@code ThreadReference.frames(start, length)} a page at
+    * a time when first accessed.  Once the suspension generation in which it was created has ended, the frames can
+    * no longer be fetched, and frames not yet fetched are reported as unavailable.
+    */
+  private final class StackFrameList extends AbstractList<DebugStackData> {
+    private final ThreadReference _thread;
+    private final int _generation;
+    private final DebugStackData[] _frames;
+    /** Language level files whose line numbers need to be translated. */
+    private final List<File> _files = new ArrayList<File>();
+    
+    public StackFrameList(ThreadReference thread) throws IncompatibleThreadStateException {
+      _thread = thread;
+      _generation = _suspensionGeneration;
+      _frames = new DebugStackData[thread.frameCount()];
+      for (OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { _files.add(odd.getRawFile()); }
+    }
+    
+    public int size() { return _frames.length; }
+    
+    public DebugStackData get(int i) {
+      if (i < 0 || i >= _frames.length) { throw new IndexOutOfBoundsException("Index: " + i); }
+      if (_frames[i] == null && _generation == _suspensionGeneration) { _fetchPage(i - i % STACK_FRAME_PAGE_SIZE); }
+      return (_frames[i] == null) ? new JPDAStackData("(unavailable)", -1) : _frames[i];
+    }
+    
+    private void _fetchPage(int start) {
+      int length = Math.min(STACK_FRAME_PAGE_SIZE, _frames.length - start);
+      try {
+        int i = start;
+        for (StackFrame f : _thread.frames(start, length)) {
+          // map Java line numbers to LL line numbers
+          String method = JPDAStackData.methodName(f);
+          StackTraceElement ste = getLLStackTraceElement(f.location(), _files);
+          _frames[i++] = new JPDAStackData(method, ste.getLineNumber());
+        }
+      }
+      catch (IncompatibleThreadStateException itse) { error.log("Unable to obtain stack frame.", itse); }
+      catch (IndexOutOfBoundsException ioobe) { error.log("The stack frames requested are invalid.", ioobe); }
+      catch (VMDisconnectedException vmde) {
+        error.log("VMDisconnected when getting the current stack frame data.", vmde);
+      }
+      catch (InvalidStackFrameException isfe) { error.log("The stack frame requested is invalid.", isfe); }
     }
   }
   
@@ -1250,6 +1325,7 @@ public class JPDADebugger implements Debugger {
     
     
     _runningThread = thread;
+    _nextSuspensionGeneration();
     if (!fromStep) {
       // Copy variables back into the thread
       _copyVariablesFromInterpreter();
@@ -1290,6 +1366,7 @@ public class JPDADebugger implements Debugger {
     // We do this before stepping since DrJava will hang if you try to copy back
     // variables after creating the step request.
     _runningThread = thread;
+    _nextSuspensionGeneration();
     _copyVariablesFromInterpreter();
     
     _log.log(this + " is Deleting pending requests ...");
@@ -1438,47 +1515,73 @@ public class JPDADebugger implements Debugger {
     }
   }
   
-  /** Updates the stored value of each watched field and variable. Synchronization is necessary because this method is 
-    * called from unsynchronized listeners. */
-  private /* synchronized */ void _updateWatches() {
+  /** Updates the stored value of each watched field and variable.  All watches are evaluated with a single call to the
+    * interpreter JVM on a background thread, so the event thread is not blocked; the results are then applied in the
+    * event thread, and listeners are told which watches changed.  Results of an evaluation that has been superseded by
+    * a later call to this method are discarded.  Only runs in the event thread.
+    */
+  private void _updateWatches() {
     assert EventQueue.isDispatchThread();
-    if (! isReady()) return;
+    if (! isReady() || _watches.isEmpty()) return;
+    
+    final List<DebugWatchData> watches = new ArrayList<DebugWatchData>(_watches);
+    final List<String> names = new ArrayList<String>(watches.size());
+    for (DebugWatchData w : watches) { names.add(w.getName()); }
+    final int generation = ++_watchGeneration;
     
-    for (DebugWatchData w : _watches) {
-      String name = w.getName();
-      String val = "";
-      String type = "";
-//      ArrayList<Integer> arr_index = new ArrayList<Integer>();
-//      
-//      if (name.indexOf("[") != -1 && name.indexOf("]") != -1) {
-//        name = name.substring(0, name.indexOf("["));
-//        arr_index.add(Integer.parseInt(w.getName().substring(w.getName().indexOf("[")+1, w.getName().indexOf("]"))));      
-//        if (w.getName().indexOf("]")<(w.getName().length()-1)) {
-//          String iter = w.getName().substring(w.getName().indexOf("]")+1, w.getName().length());
-//          while(iter.indexOf("[") != -1 && iter.indexOf("]") != -1) {
-//            arr_index.add(Integer.parseInt(iter.substring(iter.indexOf("[")+1, iter.indexOf("]"))));      
-//            if (iter.indexOf("]")<(iter.length()-1))
-//              iter = iter.substring(iter.indexOf("]")+1, iter.length());
-//            else 
-//              iter = "";
-//          }
-//        }
-//      }
-//     
-//      int [] indices = new int[arr_index.size()];
-//      for (int i = 0; i < arr_index.size(); i++) {
-//        indices[i] = arr_index.get(i);
-//      }
-      Pair<String,String> pair = _model.getInteractionsModel().getVariableToString(name);
-      // System.out.println("pair == null? "+(pair == null));
-      val = pair.first();
-      type = pair.second();
+    _watchExecutor().execute(new Runnable() {
+      public void run() {
+        final List<Pair<String,String>> results = _model.getInteractionsModel().getVariablesToString(names);
+        Utilities.invokeLater(new Runnable() {
+          public void run() {
+            if (generation != _watchGeneration) return;  // a newer evaluation is on its way
+            List<DebugWatchData> changed = _applyWatchResults(watches, results);
+            if (! changed.isEmpty()) _notifier.watchesUpdated(changed);
+          }
+        });
+      }
+    });
+  }
+  
+  /** Stores the evaluated values and types in the given watches.
+    * @param watches the watches that were evaluated
+    * @param results the value and type of each watch, in the same order; {@code null} parts mean "not found"
+    * @return the watches whose displayed value, type, or "changed" highlight differs from before
+    */
+  static List<DebugWatchData> _applyWatchResults(List<DebugWatchData> watches, List<Pair<String,String>> results) {
+    List<DebugWatchData> changed = new ArrayList<DebugWatchData>();
+    for (int i = 0; i < watches.size(); ++i) {
+      DebugWatchData w = watches.get(i);
+      String oldValue = w.getValue();
+      String oldType = w.getType();
+      boolean oldChanged = w.isChanged();
       
+      String val = results.get(i).first();
+      String type = results.get(i).second();
       if (val == null) { w.setNoValue(); }
       else { w.setValue(val); }
       if (type == null) { w.setNoType(); }
       else { w.setType(type); }
+      
+      if (! w.getValue().equals(oldValue) || ! w.getType().equals(oldType) || w.isChanged() != oldChanged) {
+        changed.add(w);
+      }
     }
+    return changed;
+  }
+  
+  /** @return the thread evaluating watches, creating it if necessary. */
+  private synchronized ExecutorService _watchExecutor() {
+    if (_watchExecutor == null) {
+      _watchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Debugger Watches");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return _watchExecutor;
   }
   
   /** Copy the current selected thread's visible variables (those in scope) into
@@ -1498,27 +1601,21 @@ public class JPDADebugger implements Debugger {
       ObjectReference thisVal = thread.frame(0).thisObject();
       ClassObjectReference thisClass = thread.frame(0).location().declaringType().classObject();
       
-      List<ObjectReference> localVars = new LinkedList<ObjectReference>();
-      List<StringReference> localVarNames = new LinkedList<StringReference>();
-      List<ClassObjectReference> localVarClasses = new LinkedList<ClassObjectReference>();
+      // Names and primitive values are encoded as strings, so the only methods invoked in the thread
+      // are the two array allocations and addInterpreter itself, regardless of the number of locals
+      List<ObjectReference> localVars = new ArrayList<ObjectReference>();
+      List<String> localVarNames = new ArrayList<String>();
+      List<ClassObjectReference> localVarClasses = new ArrayList<ClassObjectReference>();
+      List<String> localVarEntries = new ArrayList<String>();
       try {
-        // we don't store the value thread.frame(0) anywhere, because it is invalidated
-        // each time we invoke a method in thread (as in _box)
-        for (LocalVariable v : thread.frame(0).visibleVariables()) {
+        StackFrame frame = thread.frame(0);
+        List<LocalVariable> vars = new ArrayList<LocalVariable>();
+        for (LocalVariable v : frame.visibleVariables()) {
           try {
-            // Get the type first, so that if an error occurs, we haven't mutated the lists.
             Type t = v.type();
-            if (t instanceof ReferenceType) {
-              localVarClasses.add(((ReferenceType) t).classObject());
-            }
-            else {
-              // primitive types are represented by null
-              localVarClasses.add(null);
-            }
-            localVarNames.add(_mirrorString(v.name(), toRelease));
-            Value val = thread.frame(0).getValue(v);
-            if (val == null || val instanceof ObjectReference) { localVars.add((ObjectReference) val); }
-            else { localVars.add(_box((PrimitiveValue) val, thread, toRelease)); }
+            // primitive types are represented by null
+            localVarClasses.add((t instanceof ReferenceType) ? ((ReferenceType) t).classObject() : null);
+            vars.add(v);
           }
           catch (ClassNotLoadedException e) {
             // This is a real possibility, as documented in the ClassNotLoadedException
@@ -1526,14 +1623,29 @@ public class JPDADebugger implements Debugger {
             // out-of-scope, since we can't talk about values of its type.
           }
         }
+        Map<LocalVariable, Value> values = frame.getValues(vars);
+        for (LocalVariable v : vars) {
+          Value val = values.get(v);
+          localVarNames.add(v.name());
+          if (val == null || val instanceof ObjectReference) {
+            localVars.add((ObjectReference) val);
+            localVarEntries.add(DebugVariableCodec.REFERENCE);
+          }
+          else {
+            localVars.add(null);
+            localVarEntries.add(_encode((PrimitiveValue) val));
+          }
+        }
       }
       catch (AbsentInformationException e) { /* ignore -- we just won't include any local variables */ }
       ArrayReference mirroredVars = _mirrorArray("java.lang.Object", localVars, thread, toRelease);
-      ArrayReference mirroredVarNames = _mirrorArray("java.lang.String", localVarNames, thread, toRelease);
       ArrayReference mirroredVarClasses = _mirrorArray("java.lang.Class", localVarClasses, thread, toRelease);
+      StringReference mirroredVarNames = _mirrorString(DebugVariableCodec.join(localVarNames), toRelease);
+      StringReference mirroredVarEntries = _mirrorString(DebugVariableCodec.join(localVarEntries), toRelease);
       
       _invokeMethod(thread, _interpreterJVM, "addInterpreter", ADD_INTERPRETER_SIG,
-                    mirroredName, thisVal, thisClass, mirroredVars, mirroredVarNames, mirroredVarClasses);
+                    mirroredName, thisVal, thisClass, mirroredVars, mirroredVarNames, mirroredVarClasses,
+                    mirroredVarEntries);
       
       // Set the new interpreter and prompt
       String prompt = _getPromptString(thread);
@@ -1607,76 +1719,37 @@ public class JPDADebugger implements Debugger {
     throw new DebugException("Ran out of OBJECT_COLLECTED_TRIES");
   }
   
-  /** Create a boxed object corresponding to the given primitive.
-   * @param val the value to be boxed
-   * @param thread a ThreadReference
-   * @param toRelease a list of boxed objects
-   * @return the boxed value
-   * @throws DebugException if something goes wrong
+  /** Encode a primitive value for transfer to the interpreter JVM; no method is invoked in the debuggee.
+   * @param val the value to be encoded
+   * @return the DebugVariableCodec entry for val
    */
-  private ObjectReference _box(PrimitiveValue val, ThreadReference thread,
-                               List<ObjectReference> toRelease) throws DebugException {
-    String c = null;
-    String prim = null;
-    if (val instanceof BooleanValue) { c = "java.lang.Boolean"; prim = "Z"; }
-    else if (val instanceof IntegerValue) { c = "java.lang.Integer"; prim = "I"; }
-    else if (val instanceof DoubleValue) { c = "java.lang.Double"; prim = "D"; }
-    else if (val instanceof CharValue) { c = "java.lang.Character"; prim = "C"; }
-    else if (val instanceof ByteValue) { c = "java.lang.Byte"; prim = "B"; }
-    else if (val instanceof ShortValue) { c = "java.lang.Short"; prim = "S"; }
-    else if (val instanceof LongValue) { c = "java.lang.Long"; prim = "J"; }
-    else if (val instanceof FloatValue) { c = "java.lang.Float"; prim = "F"; }
-    ClassType location = (ClassType) _getClass(c);
-    for (int tries = 0; tries < OBJECT_COLLECTED_TRIES; tries++) {
-      try {
-        ObjectReference result;
-        try {
-          String valueOfSig = "(" + prim + ")L" + c.replace('.', '/') + ";";
-          result = (ObjectReference) _invokeStaticMethod(thread, location, "valueOf",
-                                                         valueOfSig, val);
-        }
-        catch (DebugException e) {
-          // valueOf() is not available in all classes in Java 1.4
-          debug.log("Can't invoke valueOf()", e);
-          String consSig = "(" + prim + ")V";
-          result = (ObjectReference) _invokeConstructor(thread, location, consSig, val);
-        }
-        
-        result.disableCollection();
-        if (!result.isCollected()) {
-          toRelease.add(result);
-          return result;
-        }
-      }
-      catch (ObjectCollectedException e) { /* try again */ }
-    }
-    throw new DebugException("Ran out of OBJECT_COLLECTED_TRIES");
-  }
-  
-  
-  /** Create an unboxed primitive corresponding to the given object.
-   * @param val the value to be unboxed
-   * @param thread a ThreadReference
-   * @return unboxed value corresponding to val
-   * @throws DebugException  If the value is not of a type that can be unboxed, or if an error
-   *                         occurs in the unboxing method invocation.
+  private static String _encode(PrimitiveValue val) {
+    if (val instanceof BooleanValue) { return DebugVariableCodec.encode('Z', val.booleanValue() ? 1 : 0); }
+    else if (val instanceof CharValue) { return DebugVariableCodec.encode('C', val.charValue()); }
+    else if (val instanceof ByteValue) { return DebugVariableCodec.encode('B', val.byteValue()); }
+    else if (val instanceof ShortValue) { return DebugVariableCodec.encode('S', val.shortValue()); }
+    else if (val instanceof IntegerValue) { return DebugVariableCodec.encode('I', val.intValue()); }
+    else if (val instanceof LongValue) { return DebugVariableCodec.encode('J', val.longValue()); }
+    else if (val instanceof FloatValue) {
+      return DebugVariableCodec.encode('F', Float.floatToRawIntBits(val.floatValue()));
+    }
+    else { return DebugVariableCodec.encode('D', Double.doubleToRawLongBits(val.doubleValue())); }
+  }
+  
+  /** Create a primitive value in the VM from an encoded value; no method is invoked in the debuggee.
+   * @param entry a DebugVariableCodec entry for a primitive value
+   * @return the mirrored value
    */
-  private PrimitiveValue _unbox(ObjectReference val, ThreadReference thread) throws DebugException {
-    if (val == null) { throw new DebugException("Value can't be unboxed"); }
-    String type = val.referenceType().name();
-    String m = null;
-    String sig = null;
-    if (type.equals("java.lang.Boolean")) { m = "booleanValue"; sig = "()Z"; }
-    else if (type.equals("java.lang.Integer")) { m = "intValue"; sig = "()I"; }
-    else if (type.equals("java.lang.Double")) { m = "doubleValue"; sig = "()D"; }
-    else if (type.equals("java.lang.Character")) { m = "charValue"; sig = "()C"; }
-    else if (type.equals("java.lang.Byte")) { m = "byteValue"; sig = "()B"; }
-    else if (type.equals("java.lang.Short")) { m = "shortValue"; sig = "()S"; }
-    else if (type.equals("java.lang.Long")) { m = "longValue"; sig = "()J"; }
-    else if (type.equals("java.lang.Float")) { m = "floatValue"; sig = "()F"; }
-    
-    if (m == null) { throw new DebugException("Value can't be unboxed"); }
-    else { return (PrimitiveValue) _invokeMethod(thread, val, m, sig); }
+  private PrimitiveValue _decode(String entry) {
+    Object val = DebugVariableCodec.decode(entry);
+    if (val instanceof Boolean) { return _vm.mirrorOf((Boolean) val); }
+    else if (val instanceof Character) { return _vm.mirrorOf((Character) val); }
+    else if (val instanceof Byte) { return _vm.mirrorOf((Byte) val); }
+    else if (val instanceof Short) { return _vm.mirrorOf((Short) val); }
+    else if (val instanceof Integer) { return _vm.mirrorOf((Integer) val); }
+    else if (val instanceof Long) { return _vm.mirrorOf((Long) val); }
+    else if (val instanceof Float) { return _vm.mirrorOf((Float) val); }
+    else { return _vm.mirrorOf((Double) val); }
   }
   
   
@@ -1755,6 +1828,7 @@ public class JPDADebugger implements Debugger {
   private void _switchToSuspendedThread(BreakpointRequest request, boolean updateWatches) throws DebugException {
     _log.log(this + " executing _switchToSuspendedThread()");
     _runningThread = null;
+    _nextSuspensionGeneration();
     if (updateWatches) _updateWatches();
     final ThreadReference currThread = _suspendedThreads.peek();
     _notifier.currThreadSuspended();
@@ -1796,8 +1870,8 @@ public class JPDADebugger implements Debugger {
   }
   
   /** Assumes lock is already held.
-   * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getVariableValue
-   * @see #GET_VARIABLE_VALUE_SIG
+   * @see edu.rice.cs.drjava.model.repl.newjvm.InterpreterJVM#getVariableValues
+   * @see #GET_VARIABLE_VALUES_SIG
    * @throws DebugException if something goes wrong
    */
   private void _copyVariablesFromInterpreter() throws DebugException {
@@ -1805,36 +1879,41 @@ public class JPDADebugger implements Debugger {
     // into the relevant stack frame
     List<ObjectReference> toRelease = new LinkedList<ObjectReference>();
     try {
-      // we don't store _runningThread.frame(0) anywhere because it is invalidated
-      // every time we invoke a method in the thread (getVariable, for example)
-      for (LocalVariable var : _runningThread.frame(0).visibleVariables()) {
-        Value oldVal = _runningThread.frame(0).getValue(var);
-        StringReference name = _mirrorString(var.name(), toRelease);
-        ArrayReference wrappedVal =
-          (ArrayReference) _invokeMethod(_runningThread, _interpreterJVM, "getVariableValue",
-                                         GET_VARIABLE_VALUE_SIG, name);
-        if ((wrappedVal != null) && (wrappedVal.length() == 1)) { // if it can't be found (length is 0), just ignore it
-          try {
-            Value val = wrappedVal.getValue(0);
-            if (var.type() instanceof PrimitiveType) {
-              try { val = _unbox((ObjectReference) val, _runningThread); }
-              catch (DebugException e) { error.log("Can't unbox variable", e); }
-            }
-
-            if ((val != null) && (!oldVal.equals(val))) {
-              /* The following test was added after a NullPointerException was thrown with line coordinate = 1833 (after
-               * compensating for additonal comment lines). */
-              if (_runningThread != null) {
-                try { _runningThread.frame(0).setValue(var, val); }
-                /* The (error != null) tests were added to work around NullPointerExceptions when either _runningThread
-                 * or error is null.  The latter appears impossible based on the static initialization block in DebugUtil 
-                 * and the definition of VoidLog.INSTANCE, so _runningThread is presumably null. */
-                catch (InvalidTypeException e) { if (error != null) error.log("Can't set variable", e); }
-                catch (ClassNotLoadedException e) { if (error != null) error.log("Can't set variable", e); }
-              }
-            }
-          }
-          catch (ClassNotLoadedException e) { /* just ignore -- val must be null anyway */ }
+      // all the values are fetched from the interpreter in one invocation, and only those that differ
+      // from the frame's current values (that is, those modified in the interpreter) are written back
+      List<LocalVariable> vars = _runningThread.frame(0).visibleVariables();
+      Map<LocalVariable, Value> oldVals = _runningThread.frame(0).getValues(vars);
+      List<String> names = new ArrayList<String>(vars.size());
+      for (LocalVariable var : vars) { names.add(var.name()); }
+      StringReference mirroredNames = _mirrorString(DebugVariableCodec.join(names), toRelease);
+      ArrayReference wrappedVals =
+        (ArrayReference) _invokeMethod(_runningThread, _interpreterJVM, "getVariableValues",
+                                       GET_VARIABLE_VALUES_SIG, mirroredNames, _vm.mirrorOf(vars.size()));
+      if (wrappedVals == null) { return; }
+      List<Value> results = wrappedVals.getValues();
+      String[] entries = DebugVariableCodec.split(((StringReference) results.get(0)).value(), vars.size());
+      
+      Map<LocalVariable, Value> changed = new TreeMap<LocalVariable, Value>();
+      for (int i = 0; i < entries.length; i++) {
+        // if it can't be found, just ignore it
+        if (entries[i].equals(DebugVariableCodec.MISSING)) { continue; }
+        LocalVariable var = vars.get(i);
+        boolean isPrimitive = var.signature().length() == 1 && DebugVariableCodec.isPrimitive(entries[i]);
+        Value val = isPrimitive ? _decode(entries[i]) : results.get(i+1);
+        if ((val != null) && (!val.equals(oldVals.get(var)))) { changed.put(var, val); }
+      }
+      
+      /* The following test was added after a NullPointerException was thrown with line coordinate = 1833 (after
+       * compensating for additonal comment lines). */
+      if (! changed.isEmpty() && _runningThread != null) {
+        StackFrame frame = _runningThread.frame(0);
+        for (Map.Entry<LocalVariable, Value> e : changed.entrySet()) {
+          try { frame.setValue(e.getKey(), e.getValue()); }
+          /* The (error != null) tests were added to work around NullPointerExceptions when either _runningThread
+           * or error is null.  The latter appears impossible based on the static initialization block in DebugUtil 
+           * and the definition of VoidLog.INSTANCE, so _runningThread is presumably null. */
+          catch (InvalidTypeException ex) { if (error != null) error.log("Can't set variable", ex); }
+          catch (ClassNotLoadedException ex) { if (error != null) error.log("Can't set variable", ex); }
         }
       }
     }
@@ -1901,7 +1980,10 @@ public class JPDADebugger implements Debugger {
   }
   
   void threadStarted() {
-    EventQueue.invokeLater(new Runnable() { public void run() { _notifier.threadStarted(); } });
+    EventQueue.invokeLater(new Runnable() { public void run() {
+      _nextSuspensionGeneration();
+      _notifier.threadStarted();
+    } });
   }
   
   /** Notifies all listeners that the current thread has died.  updateThreads 
@@ -1913,6 +1995,7 @@ public class JPDADebugger implements Debugger {
     assert EventQueue.isDispatchThread();
     printMessage("The current thread has finished.");
     _runningThread = null;
+    _nextSuspensionGeneration();
     
     _updateWatches();
     
@@ -1936,7 +2019,10 @@ public class JPDADebugger implements Debugger {
   }
   
   void nonCurrThreadDied() {
-    EventQueue.invokeLater(new Runnable() { public void run() { _notifier.nonCurrThreadDied(); } }); 
+    EventQueue.invokeLater(new Runnable() { public void run() {
+      _nextSuspensionGeneration();
+      _notifier.nonCurrThreadDied();
+    } });
   }
   
   /** Notifies all listeners that the debugger has shut down. updateThreads is set to true if the threads and stack 
@@ -0,0 +1,86 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.debug.jpda;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.debug.DebugWatchData;
+import edu.rice.cs.plt.tuple.Pair;
+
+/** Tests the parts of JPDADebugger that do not require a running debugger. */
+public final class JPDADebuggerTest extends DrJavaTestCase {
+  
+  private static Pair<String,String> _result(String value, String type) { return Pair.make(value, type); }
+  
+  /** Tests that only watches whose display changes are reported after an evaluation. */
+  public void testApplyWatchResultsReportsOnlyChanges() {
+    DebugWatchData x = new DebugWatchData("x");
+    DebugWatchData s = new DebugWatchData("s");
+    DebugWatchData u = new DebugWatchData("u");
+    List<DebugWatchData> watches = Arrays.asList(x, s, u);
+    
+    List<DebugWatchData> changed = JPDADebugger._applyWatchResults(watches, Arrays.asList(
+      _result("1", "int"), _result("a", "java.lang.String"), _result(null, null)));
+    assertEquals("all watches are new", watches, changed);
+    assertEquals("1", x.getValue());
+    assertEquals("int", x.getType());
+    assertEquals(DebugWatchData.NO_VALUE, u.getValue());
+    assertEquals(DebugWatchData.NO_TYPE, u.getType());
+    
+    changed = JPDADebugger._applyWatchResults(watches, Arrays.asList(
+      _result("2", "int"), _result("a", "java.lang.String"), _result(null, null)));
+    assertEquals("the modified value, and the cleared highlight of the unmodified one", Arrays.asList(x, s), changed);
+    assertTrue(x.isChanged());
+    assertFalse(s.isChanged());
+    
+    // x keeps its value, but its "changed" highlight goes away
+    changed = JPDADebugger._applyWatchResults(watches, Arrays.asList(
+      _result("2", "int"), _result("a", "java.lang.String"), _result(null, null)));
+    assertEquals("only the cleared highlight", Arrays.asList(x), changed);
+    assertFalse(x.isChanged());
+    
+    changed = JPDADebugger._applyWatchResults(watches, Arrays.asList(
+      _result("2", "int"), _result("a", "java.lang.String"), _result(null, null)));
+    assertTrue("unchanged watches are not reported", changed.isEmpty());
+    
+    changed = JPDADebugger._applyWatchResults(watches, Arrays.asList(
+      _result("2", "int"), _result(null, null), _result("3", "long")));
+    assertEquals("a watch going out of scope and one coming into scope", Arrays.asList(s, u), changed);
+  }
+}
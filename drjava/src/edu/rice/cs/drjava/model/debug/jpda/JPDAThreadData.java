@@ -39,22 +39,38 @@ package edu.rice.cs.drjava.model.debug.jpda;
 import com.sun.jdi.*;
 import edu.rice.cs.drjava.model.debug.DebugThreadData;
 
-/** * Class for keeping track of the currently running threads.
+/** * Class for keeping track of the currently running threads.  The name and status are fetched from the
+ * debuggee when first requested, so that listing many threads only costs round trips for those displayed.
  * @version $Id$
  */
 public class JPDAThreadData extends DebugThreadData {
   private final ThreadReference _thread;
+  private volatile String _name = null;
+  private volatile String _status = null;
   
   /** Object for keeping track of a thread in the debuggee JVM.
    * @param thread JPDA's reference to the thread
    */
   public JPDAThreadData(ThreadReference thread) {
-    super(threadName(thread), threadStatus(thread), thread.uniqueID());
+    super(thread.uniqueID());
     _thread = thread;
   }
   
+  /** @return the name of this thread, fetched on first access. */
+  @Override public String getName() {
+    if (_name == null) { _name = threadName(_thread); }
+    return _name;
+  }
+  
+  /** @return the status of this thread at the time of its first access. */
+  @Override public String getStatus() {
+    if (_status == null) { _status = threadStatus(_thread); }
+    return _status;
+  }
+  
   private static String threadName(ThreadReference thread) {
     try { return thread.name(); }
+    catch (ObjectCollectedException e) { return ""; }
     catch (VMDisconnectedException e) { return ""; }
   }
   
@@ -78,6 +94,9 @@ public class JPDAThreadData extends DebugThreadData {
           status = "ZOMBIE"; break;
       }
     }
+    catch (ObjectCollectedException e) {
+      // status will be set to unknown
+    }
     catch (VMDisconnectedException e) {
       // status will be set to unknown
     }
@@ -43,12 +43,12 @@ import com.sun.jdi.event.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Vector;
-import java.util.TreeMap;
 
 import java.io.File;
 
 import edu.rice.cs.drjava.model.DrJavaFileUtils;
 import edu.rice.cs.drjava.model.debug.DebugException;
+import edu.rice.cs.plt.collect.IntIntMap;
 
 /** Keeps track of DocumentDebugActions that are waiting to be resolved when the classes they corresponed to are 
   * prepared.  (Only DocumentDebugActions have reference types which can be prepared.)
@@ -131,8 +131,8 @@ public class PendingRequestManager {
     
     if (DrJavaFileUtils.isLLFile(f)) {
       f = DrJavaFileUtils.getJavaForLLFile(f);
-      TreeMap<Integer, Integer> tM = _manager.getLLSTM().readLLBlock(f);
-      line = tM.get(dda.getLineNumber());
+      IntIntMap tM = _manager.getLLSTM().readLLBlock(f);
+      line = tM.get(line, line);
     }
     return line;
   }
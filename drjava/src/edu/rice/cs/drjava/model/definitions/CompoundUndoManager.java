@@ -37,7 +37,14 @@
 package edu.rice.cs.drjava.model.definitions;
 
 import java.awt.EventQueue;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
 import javax.swing.undo.*;
 
 import edu.rice.cs.drjava.model.GlobalEventNotifier;
@@ -47,6 +54,12 @@ import edu.rice.cs.drjava.model.GlobalEventNotifier;
   * in UndoManager.  The public methods that involve composite state are synchronized, so this manager can be accessed
   * outside of the event thread.  The internal data structures _compoundEdits and _keys are not thread safe but they
   * only accessed only by synchronized methods.  The synchronization scheme (locking on this) follows UndoManager.
+  * <p>
+  * The memory retained by the history is bounded.  Each stored edit is charged an estimate of the memory it holds, and
+  * the oldest edits are discarded when the history of this manager exceeds its memory budget or when the histories of
+  * all managers together exceed the global budget (in which case the largest history is trimmed first).  A compound
+  * edit that consists of a run of adjacent insertions, which is what typing produces, is compacted into a single edit
+  * that only holds the inserted text.
   * @version $Id$
   */
 public class CompoundUndoManager extends UndoManager {
@@ -55,6 +68,28 @@ public class CompoundUndoManager extends UndoManager {
   
   private static volatile int counter = 0;
   
+  /** Default budget for the estimated memory retained by the history of one undo manager, in bytes. */
+  public static final long DOCUMENT_MEMORY_BUDGET = 16L << 20;
+  
+  /** Default budget for the estimated memory retained by the histories of all undo managers together, in bytes. */
+  public static final long GLOBAL_MEMORY_BUDGET = 64L << 20;
+  
+  /** Estimated memory held by a document event apart from its text: the event, its element edits, the content undo
+    * record and the reduced model commands. */
+  private static final long EVENT_OVERHEAD = 256;
+  
+  /** Estimated memory held per character of a document event; the text is held by both the content undo record and the
+    * reduced model commands. */
+  private static final long EVENT_CHAR_SIZE = 4;
+  
+  /** Save point that editToBeUndone() never returns; used once the saved state has been trimmed from the history. */
+  private static final UndoableEdit UNREACHABLE_SAVE_POINT = new AbstractUndoableEdit();
+  
+  /** All live undo managers, used to enforce the global budget.  Weak so that closed documents are not retained. */
+  private static final Map<CompoundUndoManager, Boolean> _managers = new WeakHashMap<CompoundUndoManager, Boolean>();
+  
+  private static volatile long _globalBudget = GLOBAL_MEMORY_BUDGET;
+  
   private final int id;
   
   /** The compound edits we are storing. Not thread safe! */
@@ -72,6 +107,15 @@ public class CompoundUndoManager extends UndoManager {
   /** Keeps track of the listeners to this undo manager. */
   private final GlobalEventNotifier _notifier;
   
+  /** The estimated memory retained by each edit in the history.  Only accessed while holding the lock on this. */
+  private final Map<UndoableEdit, Long> _sizes = new IdentityHashMap<UndoableEdit, Long>();
+  
+  /** The sum of _sizes.  Only modified while holding the lock on this. */
+  private volatile long _retainedSize = 0;
+  
+  /** The budget for _retainedSize. */
+  private volatile long _budget = DOCUMENT_MEMORY_BUDGET;
+  
   /** Standard constructor. 
    * @param notifier a GlobalEventNotifier
    */
@@ -84,13 +128,14 @@ public class CompoundUndoManager extends UndoManager {
     _nextKey = 0;
     _savePoint = null;
     _notifier = notifier;
+    synchronized(_managers) { _managers.put(this, Boolean.TRUE); }
   }
   
   /** Starts a compound edit.
     * @return the key for the compound edit
     */
   public /* synchronized */ int startCompoundEdit() {
-    _compoundEdits.add(0, new CompoundEdit());
+    _compoundEdits.add(0, new SizedCompoundEdit());
     _keys.add(0, Integer.valueOf(_nextKey));
     if (_nextKey < Integer.MAX_VALUE) _nextKey++;
     else _nextKey = Integer.MIN_VALUE;
@@ -119,7 +164,7 @@ public class CompoundUndoManager extends UndoManager {
       ce.end();
       if (ce.canUndo()) {
         if (! _compoundEditInProgress()) {
-          super.addEdit(ce);
+          _addToHistory(_compact(ce));
           _notifyUndoHappened();
         }
         else {
@@ -156,12 +201,158 @@ public class CompoundUndoManager extends UndoManager {
       return _compoundEdits.get(0).addEdit(e);
     }
     else {
-      boolean result = super.addEdit(e);
+      boolean result = _addToHistory(e);
       _notifyUndoHappened();
       return result;
     }
   }
   
+  /** Adds an edit to the history, charges its estimated size and trims the history to the memory budgets.
+    * @param e the edit to be added
+    * @return true if the add is successful, false otherwise
+    */
+  private boolean _addToHistory(UndoableEdit e) {
+    boolean result;
+    synchronized(this) {
+      result = super.addEdit(e);
+      if (result && ! edits.isEmpty() && edits.lastElement() == e) {
+        long size = _sizeOf(e);
+        _sizes.put(e, size);
+        _retainedSize += size;
+      }
+      while (_retainedSize > _budget && _trimOldest()) { }
+    }
+    _enforceGlobalBudget();
+    return result;
+  }
+  
+  /** Discards the oldest edit in the history unless it is the only edit that can be undone.  Assumes that the lock on
+    * this is held.
+    * @return true if an edit was discarded
+    */
+  private boolean _trimOldest() {
+    if (_undoableCount() <= 1) return false;
+    trimEdits(0, 0);
+    return true;
+  }
+  
+  /** @return the number of edits in the history up to and including the next edit to be undone */
+  private int _undoableCount() { return edits.indexOf(editToBeUndone()) + 1; }
+  
+  /** Trims the largest histories until the histories of all undo managers fit in the global budget. */
+  private static void _enforceGlobalBudget() {
+    synchronized(_managers) {
+      while (true) {
+        long total = 0;
+        long largestSize = -1;
+        CompoundUndoManager largest = null;
+        for (CompoundUndoManager m: _managers.keySet()) {
+          long size = m._retainedSize;
+          total += size;
+          if (size > largestSize) {
+            largestSize = size;
+            largest = m;
+          }
+        }
+        if (total <= _globalBudget || largest == null) return;
+        synchronized(largest) { if (! largest._trimOldest()) return; }
+      }
+    }
+  }
+  
+  /** Removes edits from the history, releasing their charged sizes.  If the state at the last save is among the
+    * discarded states, the document can no longer return to it by undoing; if it is the state after the last discarded
+    * edit, it becomes the start of the history.
+    * @param from the index of the first edit to remove
+    * @param to the index of the last edit to remove
+    */
+  protected void trimEdits(int from, int to) {
+    if (from > to) return;
+    if (from == 0 && _undoableCount() > 0) {
+      int saved = (_savePoint == null) ? -1 : edits.indexOf(_savePoint);
+      if (_savePoint == null || (saved >= 0 && saved < to)) _savePoint = UNREACHABLE_SAVE_POINT;
+      else if (saved == to) _savePoint = null;
+    }
+    for (int i = from; i <= to; i++) {
+      Long size = _sizes.remove(edits.elementAt(i));
+      if (size != null) _retainedSize -= size;
+    }
+    super.trimEdits(from, to);
+  }
+  
+  /** Empties the history and releases all charged sizes. */
+  public synchronized void discardAllEdits() {
+    super.discardAllEdits();
+    _sizes.clear();
+    _retainedSize = 0;
+  }
+  
+  /** @return the estimated memory retained by the history of this undo manager, in bytes */
+  public long getRetainedSize() { return _retainedSize; }
+  
+  /** Sets the budget for the estimated memory retained by the history of this undo manager, trimming the history if
+    * necessary.
+    * @param bytes the new budget in bytes
+    */
+  public synchronized void setMemoryBudget(long bytes) {
+    _budget = bytes;
+    while (_retainedSize > _budget && _trimOldest()) { }
+  }
+  
+  /** Sets the budget for the estimated memory retained by the histories of all undo managers together.
+    * @param bytes the new budget in bytes
+    */
+  public static void setGlobalMemoryBudget(long bytes) {
+    _globalBudget = bytes;
+    _enforceGlobalBudget();
+  }
+  
+  /** Estimates the memory retained by an edit.
+    * @param e the edit
+    * @return the estimated size in bytes
+    */
+  static long _sizeOf(UndoableEdit e) {
+    if (e instanceof SizedCompoundEdit) return ((SizedCompoundEdit) e).getSize();
+    if (e instanceof TypingEdit) return ((TypingEdit) e).getSize();
+    if (e instanceof DocumentEvent) return EVENT_OVERHEAD + EVENT_CHAR_SIZE * ((DocumentEvent) e).getLength();
+    return EVENT_OVERHEAD;
+  }
+  
+  /** Replaces a finished compound edit that consists of adjacent insertions into a DefinitionsDocument, such as a run
+    * of typed characters, by a TypingEdit holding just the inserted text.  The text is still in the document because
+    * the compound edit has just ended.
+    * @param ce the finished compound edit
+    * @return the compacted edit, or ce if it cannot be compacted
+    */
+  private static UndoableEdit _compact(CompoundEdit ce) {
+    if (! (ce instanceof SizedCompoundEdit)) return ce;
+    List<UndoableEdit> parts = ((SizedCompoundEdit) ce).getEdits();
+    if (parts.size() < 2) return ce;
+    
+    DefinitionsDocument doc = null;
+    int start = 0;
+    int end = 0;
+    for (UndoableEdit part: parts) {
+      if (! (part instanceof AbstractDocument.DefaultDocumentEvent)) return ce;
+      AbstractDocument.DefaultDocumentEvent event = (AbstractDocument.DefaultDocumentEvent) part;
+      if (event.getType() != DocumentEvent.EventType.INSERT) return ce;
+      if (doc == null) {
+        if (! (event.getDocument() instanceof DefinitionsDocument)) return ce;
+        doc = (DefinitionsDocument) event.getDocument();
+        start = end = event.getOffset();
+      }
+      if (event.getDocument() != doc || event.getOffset() != end) return ce;
+      end += event.getLength();
+    }
+    
+    try {
+      UndoableEdit typed = new TypingEdit(doc, start, doc.getText(start, end - start), ce.getPresentationName());
+      ce.die();
+      return typed;
+    }
+    catch (BadLocationException e) { return ce; }
+  }
+  
   /** Returns whether or not a compound edit is in progress.
     * @return true iff in progress
     */
@@ -251,6 +442,56 @@ public class CompoundUndoManager extends UndoManager {
   
   public String toString() { return "(CompoundUndoManager: " + id + ")"; }
   
+  /** A CompoundEdit that keeps track of the estimated memory retained by the edits it contains. */
+  private static class SizedCompoundEdit extends CompoundEdit {
+    private long _size = 0;
+    
+    public boolean addEdit(UndoableEdit e) {
+      boolean added = super.addEdit(e);
+      if (added) _size += _sizeOf(e);
+      return added;
+    }
+    
+    public long getSize() { return _size; }
+    
+    public List<UndoableEdit> getEdits() { return edits; }
+  }
+  
+  /** A run of adjacent insertions, stored as the inserted text.  It is undone and redone by removing and reinserting
+    * the text, which the document does not report to its undoable edit listeners.  Unlike the document's own edits, 
+    * redoing does not restore Positions that were inside the text: undoing collapses them to the start of the run, 
+    * and they stay there (they still move with later edits, like any other Position).
+    */
+  private static class TypingEdit extends AbstractUndoableEdit {
+    private final DefinitionsDocument _doc;
+    private final int _offset;
+    private final String _text;
+    private final String _presentationName;
+    
+    public TypingEdit(DefinitionsDocument doc, int offset, String text, String presentationName) {
+      _doc = doc;
+      _offset = offset;
+      _text = text;
+      _presentationName = presentationName;
+    }
+    
+    public void undo() throws CannotUndoException {
+      super.undo();
+      try { _doc._replayEdit(_offset, _text.length(), ""); }
+      catch (BadLocationException e) { throw new CannotUndoException(); }
+    }
+    
+    public void redo() throws CannotRedoException {
+      super.redo();
+      try { _doc._replayEdit(_offset, 0, _text); }
+      catch (BadLocationException e) { throw new CannotRedoException(); }
+    }
+    
+    public String getPresentationName() { return _presentationName; }
+    
+    public long getSize() { return 64 + 2L * _text.length(); }
+  }
+  
   /** Used to help track down memory leaks. */
   //  protected void finalize() throws Throwable{
   //    super.finalize();
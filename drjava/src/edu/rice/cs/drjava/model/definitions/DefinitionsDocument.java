@@ -37,17 +37,24 @@
 package edu.rice.cs.drjava.model.definitions;
 
 import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.Timer;
 import javax.swing.text.*;
 import javax.swing.undo.*;
 import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.UndoableEditEvent;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.lang.ref.WeakReference;
 
 import java.io.Reader;
-import java.io.StringReader;
 import java.io.IOException;
 
 import koala.dynamicjava.parser.impl.Parser;
@@ -57,6 +64,7 @@ import koala.dynamicjava.parser.impl.TokenMgrError;
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.drjava.model.definitions.reducedmodel.*;
 import edu.rice.cs.util.Log;
+import edu.rice.cs.util.StringOps;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.swing.Utilities;
 import edu.rice.cs.drjava.model.definitions.indent.Indenter;
@@ -105,6 +113,9 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
   /** Specifies if the document has been modified since the last save.  Modified under write lock. */
   private volatile boolean _isModifiedSinceSave = false;
   
+  /** True while the undo manager replays a compacted edit through _replayEdit. */
+  private volatile boolean _replayingEdit = false;
+  
   /** This reference to the OpenDefinitionsDocument is needed so that the document iterator 
     * (the DefaultGlobalModel) can find the next ODD given a DD. */
   private volatile OpenDefinitionsDocument _odd;
@@ -130,6 +141,24 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
   /** List with weak references to positions. */
   private volatile LinkedList<WeakReference<WrappedPosition>> _wrappedPosList;
   
+  /** Delay in milliseconds between the last edit and the background rebuild of the outline. */
+  private static final int OUTLINE_REBUILD_DELAY = 500;
+  
+  /** Builds outlines in the background; created on demand. */
+  private static ExecutorService _outlineExecutor = null;
+  
+  /** The structural outline of this document, or null until it is first requested. */
+  private volatile OutlineIndex _outline = null;
+  
+  /** The number of edits to this document.  Modified under write lock. */
+  private volatile int _editCount = 0;
+  
+  /** The value of _editCount when _outline was built. */
+  private volatile int _outlineEditCount = 0;
+  
+  /** Rebuilds the outline once editing pauses; created on demand. */
+  private volatile Timer _outlineTimer = null;
+  
   /** Root constructor that other constructors call; not used directly
    * @param indenter custom indenter class
    * @param notifier used by CompoundUndoManager to announce undoable edits
@@ -140,6 +169,11 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     _notifier = notifier;
     _editor = new DefinitionsEditorKit(notifier);
     _undoManager = undoManager;
+    addDocumentListener(new DocumentListener() {
+      public void insertUpdate(DocumentEvent e) { _outlineEdited(e.getOffset(), e.getLength()); }
+      public void removeUpdate(DocumentEvent e) { _outlineEdited(e.getOffset(), - e.getLength()); }
+      public void changedUpdate(DocumentEvent e) { }
+    });
   }
   
   /** Convenience constructor used ?? 
@@ -506,13 +540,14 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
 //    Utilities.show("Uncomment line at location " + _currentLocation);
 //    Utilities.show("Preceding char = '" + getText().charAt(_currentLocation - 1) + "'");
 //    Utilities.show("Line = \n" + getText(_currentLocation, getLineEndPos(_currentLocation) - _currentLocation + 1));
-    int pos1 = getText().indexOf("//", _currentLocation);  // TODO: get text of current line instead of whole document
-    if (pos1 < 0) return NO_COMMENT_OFFSET;
-    int pos2 = getFirstNonWSCharPos(_currentLocation, true);
-//    Utilities.show("Pos1 = " + pos1 + " Pos2 = " + pos2);
-    if (pos1 != pos2) return NO_COMMENT_OFFSET;
+    // Only the first non-whitespace characters are examined, rather than searching the rest of the document for "//"
+    int pos = getFirstNonWSCharPos(_currentLocation, true);
+//    Utilities.show("Pos = " + pos);
+    if (pos < 0 || pos + 2 > getLength() || ! StringOps.regionMatches(getTextSequence(), pos, "//", true)) {
+      return NO_COMMENT_OFFSET;
+    }
     
-    remove(pos1, 2);
+    remove(pos, 2);
     return WING_COMMENT_OFFSET;
   }
   
@@ -533,320 +568,87 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     }
   }  
   
-  /** Assumes that read lock is already held. 
-   * @param text the text to search within
-   * @param pos the position to begin searching from
-   * @return the index of the next open curly brace
-   * @throws BadLocationException if attempts to reference an invalid location
-   */
-  private int _findNextOpenCurly(String text, int pos) throws BadLocationException {
-    
-    /* */ assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
-    int i;
-    int reducedPos = pos;
-    
-//    synchronized(_reduced) {
-    final int origLocation = _currentLocation;
-    // Move reduced model to location pos
-    _reduced.move(pos - origLocation);  // reduced model points to pos == reducedPos
-    
-    // Walk forward from specificed position
-    i = text.indexOf('{', reducedPos);
-    while (i >- 1) {
-      // Move reduced model to walker's location
-      _reduced.move(i - reducedPos);  // reduced model points to i
-      reducedPos = i;                 // reduced model points to reducedPos
-      
-      // Check if matching keyword should be ignored because it is within a comment, or quotes
-      ReducedModelState state = _reduced.getStateAtCurrent();
-      if (!state.equals(FREE) || _isStartOfComment(text, i)
-            || ((i > 0) && _isStartOfComment(text, i - 1))) {
-        i = text.indexOf('{', reducedPos+1);
-        continue;  // ignore matching brace
-      }
-      else {
-        break; // found our brace
-      }        
-    }  
-    _reduced.move(origLocation - reducedPos);    // Restore the state of the reduced model;
-//    } // end synchronized
-    
-    if (i == -1) reducedPos = -1; // No matching brace was found
-    return reducedPos;  
-  }
-  
-  /** Assuming that text is a document prefix including offset pos, finds the index of the keyword kw
-   * searching back from pos.
-   * @param text the text to search within
-   * @param kw the keyword to search for
-   * @param pos the position to begin searching from
-   * @return the index of kw
-   * @throws BadLocationException if attempts to reference an invalid location
-   */
-  public int _findPrevKeyword(String text, String kw, int pos) throws BadLocationException {
-    
-    /* */ assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
-    
-    int i;
-    int reducedPos = pos;
-    
-//    synchronized(_reduced) {
-    final int origLocation = _currentLocation;
-    // Move reduced model to location pos
-    _reduced.move(pos - origLocation);  // reduced model points to pos == reducedPos
-    
-    // Walk backwards from specificed position
-    i = text.lastIndexOf(kw, reducedPos);
-    while (i >- 1) {
-      // Check that this is the beginning of a word
-      if (i > 0) {
-        if (Character.isJavaIdentifierPart(text.charAt(i-1))) {
-          // not begining
-          i = text.lastIndexOf(kw, i - 1);
-          continue;  // ignore matching keyword 
-        }
-      }
-      // Check that this not just the beginning of a longer word
-      if (i + kw.length() < text.length()) {
-        if (Character.isJavaIdentifierPart(text.charAt(i+kw.length()))) {
-          // not begining
-          i = text.lastIndexOf(kw, i-1);
-          continue;  // ignore matching keyword 
-        }
-      }
-      
-      // Move reduced model to walker's location
-      _reduced.move(i - reducedPos);  // reduced model points to i
-      reducedPos = i;                 // reduced model points to reducedPos
-      
-      // Check if matching keyword should be ignored because it is within a comment, or quotes
-      ReducedModelState state = _reduced.getStateAtCurrent();
-      if (!state.equals(FREE) || _isStartOfComment(text, i) || ((i > 0) && _isStartOfComment(text, i - 1))) {
-        i = text.lastIndexOf(kw, reducedPos-1);
-        continue;  // ignore matching keyword 
-      }
-      else break; // found our keyword   
-    }  // end synchronized/
-    
-    _reduced.move(origLocation - reducedPos);    // Restore the state of the reduced model;
-//    }
-    
-    if (i == -1) reducedPos = -1; // No matching keyword was found
-    return reducedPos;  
-  }
-  
 //  public static boolean log = true;
   
-  /** Searches backwards to find the name of the enclosing named class or 
-   * interface. NB: ignores comments.
-   * WARNING: In long source files and when contained in anonymous inner 
-   * classes, this function might take a LONG time.
+  /** Finds the name of the class enclosing pos using the outline of this document, which answers in logarithmic time
+   * once it is built.  Anonymous classes are numbered in order of appearance within their enclosing class.
    * @param pos Position to start from
    * @param qual true to find the fully qualified class name
-   * @return name of the enclosing named class or interface
+   * @return name of the enclosing class, or "" if pos is not inside a class body
    * @throws BadLocationException if attempts to reference an invalid location
    * @throws ClassNameNotFoundException if the class is not found
    */
   public String getEnclosingClassName(int pos, boolean qual) throws BadLocationException, ClassNameNotFoundException {
-    return _getEnclosingClassName(pos, qual);
+    if (pos < 0 || pos > getLength()) throw new BadLocationException("Invalid position", pos);
+    return getOutline(true).getEnclosingClassName(pos, qual);
   }
   
-  /** Searches backwards to find the name of the enclosing named class or 
-   * interface. NB: ignores comments. Only runs in event thread.
-   * WARNING: In long source files and when contained in anonymous inner 
-   * classes, this function might take a LONG time.
-   * @param pos Position to start from
-   * @param qual true to find the fully qualified class name
-   * @return name of the enclosing named class or interface
-   * @throws BadLocationException if attempts to reference an invalid location
-   * @throws ClassNameNotFoundException if the class is not found
-   */
-  public String _getEnclosingClassName(final int pos, final boolean qual) throws BadLocationException, 
-    ClassNameNotFoundException {    
-    
-    /* */ assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
-    
-    // Check cache
-    final Query key = new Query.EnclosingClassName(pos, qual);
-    final String cached = (String) _checkCache(key);
-    if (cached != null) return cached;
-    
-    final char[] delims = {'{','}','(',')','[',']','+','-','/','*',';',':','=','!','@','#','$','%','^','~','\\','"','`','|'};
-    String name = "";
-    
-    final String text = getText(0, pos);  
-    
-    int curPos = pos;
-    
-    do {
-//        if (text.charAt(curPos) != '{' || text.charAt(curPos) != '}') ++curPos;
-      
-//        if (oldLog) System.err.println("curPos=" + curPos + " `" +
-//                                       text.substring(Math.max(0,curPos-10), Math.min(text.length(), curPos+1)) + "`");
-      
-      curPos = findPrevEnclosingBrace(curPos, '{', '}');
-      if (curPos == -1) { break; }
-      int classPos = _findPrevKeyword(text, "class", curPos);
-      int interPos = _findPrevKeyword(text, "interface", curPos);
-      int otherPos = findPrevDelimiter(curPos, delims);
-      int newPos = -1;
-      // see if there's a ) closer by
-      int closeParenPos = _findPrevNonWSCharPos(curPos);
-      if (closeParenPos != -1 && text.charAt(closeParenPos) == ')') {
-        // yes, find the matching (
-        int openParenPos = findPrevEnclosingBrace(closeParenPos, '(', ')');
-        if (openParenPos != -1 && text.charAt(openParenPos) == '(') {
-          // this might be an inner class
-          newPos = _findPrevKeyword(text, "new", openParenPos);
-//            if (oldLog) System.err.println("\tnew found at " + newPos + ", openCurlyPos=" + curPos);
-          if (! _isAnonymousInnerClass(newPos, curPos)) {
-            // not an anonymous inner class
-            newPos = -1;
-          }
-        }
-      }
-      
-      while (classPos != -1 || interPos != -1 || newPos != -1) {
-        if (newPos != -1) {
-          classPos = -1;
-          interPos = -1;
-          break;
-        }
-        else if (otherPos > classPos && otherPos > interPos) {
-          if (text.charAt(otherPos) != '{' || text.charAt(otherPos) != '}') ++otherPos;
-          curPos = findPrevEnclosingBrace(otherPos, '{', '}');
-          classPos = _findPrevKeyword(text, "class", curPos);
-          interPos = _findPrevKeyword(text, "interface", curPos);
-          otherPos = findPrevDelimiter(curPos, delims);
-          newPos = -1;
-          // see if there's a ) closer by
-          closeParenPos = _findPrevNonWSCharPos(curPos);
-          if (closeParenPos != -1 && text.charAt(closeParenPos) == ')') {
-            // yes, find the matching (
-            int openParenPos = findPrevEnclosingBrace(closeParenPos, '(', ')');
-            if (openParenPos != -1 && text.charAt(openParenPos) == '(') {
-              // this might be an inner class
-              newPos = _findPrevKeyword(text, "new", openParenPos);
-//                if (oldLog) System.err.println("\tnew found at " + newPos + ", openCurlyPos=" + curPos);
-              if (! _isAnonymousInnerClass(newPos, curPos)) newPos = -1;
-            }
-          }
-        }
-        else {
-          // either class or interface found first            
-          curPos = Math.max(classPos, Math.max(interPos, newPos));
-          break;
-        }
-      }
-      
-      if (classPos != -1 || interPos != -1) {
-        if (classPos > interPos) curPos += "class".length();  // class found first
-        else curPos += "interface".length();                  // interface found first
-        
-        int nameStart = getFirstNonWSCharPos(curPos);
-        if (nameStart==-1) { throw new ClassNameNotFoundException("Cannot determine enclosing class name"); }
-        int nameEnd = nameStart + 1;
-        while (nameEnd < text.length()) {
-          if (! Character.isJavaIdentifierPart(text.charAt(nameEnd)) && text.charAt(nameEnd) != '.') break;
-          ++nameEnd;
-        }
-        name = text.substring(nameStart,nameEnd) + '$' + name;
-      }
-      else if (newPos != -1) {
-        name = String.valueOf(_getAnonymousInnerClassIndex(curPos)) + "$" + name;
-        curPos = newPos;
-      }
-      else break; // neither class nor interface found (exiting loop if qual == true)
-    } while(qual);
-    
-    // chop off '$' at the end.
-    if (name.length() > 0) name = name.substring(0, name.length() - 1);
-    
-    if (qual) {
-      String pn = getPackageName();
-      if ((pn.length() > 0) && (name.length() > 0)) {
-        name = getPackageName() + "." + name;
-      }
+  /** Returns the structural outline of this document.  Once editing pauses, the outline is rebuilt in the background;
+    * until then, its ranges are shifted with each edit but declarations added or removed by the edits are missing.
+    * @param exact true to rebuild the outline immediately if it does not reflect the latest edits
+    * @return the outline of this document
+    */
+  public OutlineIndex getOutline(boolean exact) {
+    OutlineIndex outline = _outline;
+    if (outline == null || (exact && _outlineEditCount != _editCount)) {
+      final int editCount = _editCount;
+      outline = OutlineIndex.build(getTextSequence());
+      _outline = outline;
+      _outlineEditCount = editCount;
     }
-//    log = oldLog;
-    _storeInCache(key, name, pos);
-    return name;
+    return outline;
   }
   
-  /** Returns true if this position is the instantiation of an anonymous inner 
-   * class.  Only runs in the event thread.
-   * @param pos position of "new"
-   * @param openCurlyPos position of the next '{'
-   * @return true if anonymous inner class instantiation
-   * @throws BadLocationException if attempts to reference an invalid location
-   */
-  public boolean _isAnonymousInnerClass(final int pos, final int openCurlyPos) throws BadLocationException {
-//    String t = getText(0, openCurlyPos+1);
-//    System.err.print("_isAnonymousInnerClass(" + pos + ", " + openCurlyPos + ")");
-//    System.err.println("_isAnonymousInnerClass(" + pos + ", " + openCurlyPos + "): `" + 
-//                       t.substring(pos, openCurlyPos+1) + "`");
-    
-    // Check cache
-    final Query key = new Query.AnonymousInnerClass(pos, openCurlyPos);
-    Boolean cached = (Boolean) _checkCache(key);
-    if (cached != null) {
-//      System.err.println(" ==> " + cached);
-      return cached;
+  /** Keeps the outline in step with an edit and schedules a rebuild for when editing pauses.
+    * @param offset the offset of the edit
+    * @param delta the number of characters inserted (positive) or removed (negative)
+    */
+  private void _outlineEdited(int offset, int delta) {
+    ++_editCount;
+    final OutlineIndex outline = _outline;
+    if (outline == null) return;  // nobody has asked for an outline yet
+    outline.shift(offset, delta);
+    if (_outlineTimer == null) {
+      _outlineTimer = new Timer(OUTLINE_REBUILD_DELAY, new ActionListener() {
+        public void actionPerformed(ActionEvent e) { _rebuildOutline(); }
+      });
+      _outlineTimer.setRepeats(false);
     }
-    int newPos = pos;
-//    synchronized(_reduced) {
-    cached = false;
-    
-    String text = getText(0, openCurlyPos + 1);  // includes open Curly brace
-    newPos += "new".length();
-    int classStart = getFirstNonWSCharPos(newPos);
-    if (classStart != -1) { 
-      int classEnd = classStart + 1;
-      while (classEnd < text.length()) {
-        if (! Character.isJavaIdentifierPart(text.charAt(classEnd)) && text.charAt(classEnd) != '.') {
-          // delimiter found
-          break;
-        }
-        ++classEnd;
-      }
-      
-      /* Determine parenStart, the postion immediately before the open parenthesis following the superclass name. */
-//         System.err.println("\tclass = `" + text.substring(classStart,classEnd) + "`");
-      int parenStart = getFirstNonWSCharPos(classEnd);
-      if (parenStart != -1) {
-        int origParenStart = parenStart;
-        
-//           System.err.println("\tfirst non-whitespace after class = " + parenStart + " `" + text.charAt(parenStart) + "`");
-        if (text.charAt(origParenStart) == '<') {
-          parenStart = -1;
-          // might be a generic class
-          int closePointyBracket = findNextEnclosingBrace(origParenStart, '<', '>');
-          if (closePointyBracket != -1) {
-            if (text.charAt(closePointyBracket) == '>') {
-              parenStart = getFirstNonWSCharPos(closePointyBracket+1);
+    _outlineTimer.restart();
+  }
+  
+  /** Rebuilds the outline from a snapshot of the text in the outline thread.  The result is discarded if the document
+    * is edited in the meantime; that edit has already scheduled another rebuild.  Only runs in the event thread. */
+  private void _rebuildOutline() {
+    final int editCount = _editCount;
+    if (_outlineEditCount == editCount) return;
+    final String text = getText();
+    _outlineExecutor().execute(new Runnable() {
+      public void run() {
+        final OutlineIndex outline = OutlineIndex.build(text);
+        EventQueue.invokeLater(new Runnable() {
+          public void run() {
+            if (_editCount == editCount) {
+              _outline = outline;
+              _outlineEditCount = editCount;
             }
           }
-        }
+        });
       }
-      
-      if (parenStart != -1) {
-        if (text.charAt(parenStart) == '(') {
-          setCurrentLocation(parenStart + 1);   // reduced model points to pos == parenStart + 1
-          int parenEnd = balanceForward();
-          if (parenEnd > -1) {
-            parenEnd = parenEnd + parenStart + 1;
-//               System.err.println("\tafter closing paren = " + parenEnd);
-            int afterParen = getFirstNonWSCharPos(parenEnd);
-//               System.err.println("\tfirst non-whitespace after paren = " + parenStart + " `" + text.charAt(afterParen) + "`");
-            cached = (afterParen == openCurlyPos); 
-          }
+    });
+  }
+  
+  private static synchronized ExecutorService _outlineExecutor() {
+    if (_outlineExecutor == null) {
+      _outlineExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Outline Builder");
+          t.setDaemon(true);
+          return t;
         }
-      }
+      });
     }
-    _storeInCache(key, cached, openCurlyPos);
-//      System.err.println(" ==> " + cached);
-    return cached;
-//    }
+    return _outlineExecutor;
   }
   
   /** Gets the package name embedded in the text of this document by minimally parsing the document to find the
@@ -856,9 +658,12 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     */
   public String getPackageName() {
     // assert EventQueue.isDispatchThread();
-    Reader r;
-    r = new StringReader(getText()); // getText() is cheap if document is not resident
-    try { return new Parser(r).packageDeclaration(Parser.DeclType.TOP).getName(); }
+    Reader r = null;
+    readLock();  // the reader shares the document's storage
+    try {
+      r = getTextSequence().newReader();
+      return new Parser(r).packageDeclaration(Parser.DeclType.TOP).getName();
+    }
     catch (ParseException e) { return ""; }
     // addresses bug [ 1815387 ] Editor should discard parse errors for now
     // we should upgrade our parser to handle @
@@ -872,94 +677,28 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
       else { throw e; }
     }
     finally {
-      try { r.close(); }
-      catch (IOException e) { /* ignore */ }
+      readUnlock();
+      if (r != null) {
+        try { r.close(); }
+        catch (IOException e) { /* ignore */ }
+      }
     }
   }
   
-  /** Returns the index of the anonymous inner class being instantiated at the 
-   * specified position (where openining brace
-   * for anonymous inner class is pos).  Only runs in event thread.
+  /** Returns the index of the anonymous inner class whose body opens at the specified position, as numbered by the
+   * outline of this document.
    * @param pos is position of the opening curly brace of the anonymous inner class
    * @return anonymous class index
    * @throws BadLocationException if attempts to reference an invalid location
-   * @throws ClassNameNotFoundException if the class name is not found
+   * @throws ClassNameNotFoundException if no anonymous class body opens at pos
    */
-  int _getAnonymousInnerClassIndex(final int pos) throws BadLocationException, ClassNameNotFoundException {   
-//    boolean oldLog = true; // log; log = false;
-    
-    /* */ assert Utilities.TEST_MODE || EventQueue.isDispatchThread();
-    
-    // Check cache
-    final Query key = new Query.AnonymousInnerClassIndex(pos);
-    final Integer cached = (Integer) _checkCache(key);
-    if (cached != null) {
-//      log = oldLog;
-      return cached.intValue();
-    }
-    
-    int newPos = pos; // formerly pos -1 // move outside the curly brace?  Corrected to do nothing since already outside
-    
-//    final char[] delims = {'{','}','(',')','[',']','+','-','/','*',';',':','=','!','@','#','$','%','^','~','\\','"','`','|'};
-    
-    final String className = _getEnclosingClassName(newPos - 2 , true);  // class name must be followed by at least "()"
-    final String text = getText(0, newPos - 2);  // excludes miminal (empty) argument list after class name
-    int index = 1;
-    
-//    if (oldLog) System.err.println("anon before " + pos + " enclosed by " + className);
-    while ((newPos = _findPrevKeyword(text, "new", newPos - 4)) != -1) { // excludes space + minimal class name + args
-//      if (oldLog) System.err.println("new found at " + newPos);
-      int afterNewPos = newPos + "new".length();
-      int classStart = getFirstNonWSCharPos(afterNewPos);
-      if (classStart == -1) { continue; }
-      int classEnd = classStart + 1;
-      while (classEnd < text.length()) {
-        if (! Character.isJavaIdentifierPart(text.charAt(classEnd)) && text.charAt(classEnd) != '.') {
-          // delimiter found
-          break;
-        }
-        ++classEnd;
-      }
-//      if (oldLog) System.err.println("\tclass = `" + text.substring(classStart,classEnd) + "`");
-      int parenStart = getFirstNonWSCharPos(classEnd);
-      if (parenStart == -1) { continue; }
-      int origParenStart = parenStart;
-      
-//      if (oldLog) System.err.println("\tfirst non-whitespace after class = " + parenStart + " `" + text.charAt(parenStart) + "`");
-      if (text.charAt(origParenStart) == '<') {
-        parenStart = -1;
-        // might be a generic class
-        int closePointyBracket = findNextEnclosingBrace(origParenStart, '<', '>');
-        if (closePointyBracket != -1) {
-          if (text.charAt(closePointyBracket) == '>') {
-            parenStart = getFirstNonWSCharPos(closePointyBracket + 1);
-          }
-        }
-      }
-      if (parenStart == -1) { continue; }      
-      if (text.charAt(parenStart) != '(') { continue; }
-      int parenEnd = findNextEnclosingBrace(parenStart, '(', ')');
-      
-      int nextOpenCurly = _findNextOpenCurly(text, parenEnd);
-      if (nextOpenCurly == -1) { continue; }
-//      if (oldLog) System.err.println("{ found at " + nextOpenCurly + ": `" + 
-//                                     text.substring(newPos, nextOpenCurly + 1) + "`");
-//      if (oldLog) System.err.println("_isAnonymousInnerClass(" + newPos + ", " + nextOpenCurly + ")");
-      if (_isAnonymousInnerClass(newPos, nextOpenCurly)) {
-//        if (oldLog) System.err.println("is anonymous inner class");
-        String cn = _getEnclosingClassName(newPos, true);
-//        if (oldLog) System.err.println("enclosing class = " + cn);
-        if (! cn.startsWith(className)) { break; }
-        else if (! cn.equals(className)) {
-          newPos = findPrevEnclosingBrace(newPos, '{', '}');
-          continue;
-        }
-        else ++index;
-      }
+  int _getAnonymousInnerClassIndex(final int pos) throws BadLocationException, ClassNameNotFoundException {
+    if (pos < 0 || pos >= getLength()) throw new BadLocationException("Invalid position", pos);
+    OutlineIndex.Declaration c = getOutline(true).getEnclosingClass(pos + 1);
+    if (c == null || c.getKind() != OutlineIndex.Kind.ANONYMOUS_CLASS || c.getBodyStart() != pos) {
+      throw new ClassNameNotFoundException("No anonymous class at " + pos);
     }
-    _storeInCache(key, index, pos);
-//    oldLog = log;
-    return index;
+    return Integer.parseInt(c.getName());
   }
   
   /** Returns the name of the class or interface enclosing the caret position at the top level.
@@ -1157,7 +896,7 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
       int index = getFirstNonWSCharPos(startPos);
       if (index == -1) throw new IllegalStateException("No identifier found");
       
-      String text = getText();
+      final CharSequence text = getTextSequence();  // a view, not a copy
       int length = text.length(); 
       int endIndex = length; //just in case no whitespace at end of file
       
@@ -1174,7 +913,7 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
         }
       }
 //      _log.log("endIndex = " + endIndex);
-      return text.substring(index, endIndex);
+      return text.subSequence(index, endIndex).toString();
     }
     catch(BadLocationException e) { 
 //      System.err.println("text =\n" + text);
@@ -1354,6 +1093,28 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     chng.addEdit(new CommandUndoableEdit(undoCommand, doCommand));    
   }
   
+  /** Removes length characters at offset and then inserts text there, without reporting the changes to undoable edit
+    * listeners.  Used by the undo manager to undo and redo compacted edits, which must not record new edits.  The
+    * reduced model is updated as for any other change.  Only runs in the event thread.
+    * @param offset the offset of the change
+    * @param length the number of characters to remove
+    * @param text the text to insert
+    * @throws BadLocationException if offset or length is out of bounds
+    */
+  void _replayEdit(int offset, int length, String text) throws BadLocationException {
+    _replayingEdit = true;
+    try {
+      if (length > 0) super.remove(offset, length);
+      if (text.length() > 0) super.insertString(offset, text, null);
+    }
+    finally { _replayingEdit = false; }
+  }
+  
+  /** Suppresses undoable edit events while the undo manager replays a compacted edit. */
+  protected void fireUndoableEditUpdate(UndoableEditEvent e) {
+    if (! _replayingEdit) super.fireUndoableEditUpdate(e);
+  }
+  
   
   /** Formerly used to call editToBeUndone and editToBeRedone since they are protected methods in UndoManager. */
 //  private class OurUndoManager extends UndoManager {
@@ -1468,17 +1229,17 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
     int i, j;
     int reducedPos = 0;
     
-    final String text = getText();
+    final CharSequence text = getTextSequence();  // a view, not a copy
     final int origLocation = _currentLocation;
     try {
       // Move reduced model to beginning of file
       _reduced.move(-origLocation);
       
       // Walk forward from specificed position
-      i = text.indexOf("class", reducedPos);
-      j = text.indexOf("interface", reducedPos);
+      i = StringOps.indexOf(text, "class", reducedPos, true);
+      j = StringOps.indexOf(text, "interface", reducedPos, true);
       if (i==-1) i = j; else if (j >= 0) i = Math.min(i,j);
-      j = text.indexOf("enum", reducedPos);
+      j = StringOps.indexOf(text, "enum", reducedPos, true);
       if (i==-1) i = j; else if (j >= 0) i = Math.min(i,j);
       while (i > - 1) {
         // Move reduced model to walker's location
@@ -1488,10 +1249,10 @@ public class DefinitionsDocument extends AbstractDJDocument implements Finalizab
         // Check if matching keyword should be ignored because it is within a comment, or quotes
         ReducedModelState state = _reduced.getStateAtCurrent();
         if (!state.equals(FREE) || _isStartOfComment(text, i) || ((i > 0) && _isStartOfComment(text, i - 1))) {
-          i = text.indexOf("class", reducedPos+1);
-          j = text.indexOf("interface", reducedPos+1);
+          i = StringOps.indexOf(text, "class", reducedPos+1, true);
+          j = StringOps.indexOf(text, "interface", reducedPos+1, true);
           if (i==-1) i = j; else if (j >= 0) i = Math.min(i,j);
-          j = text.indexOf("enum", reducedPos+1);
+          j = StringOps.indexOf(text, "enum", reducedPos+1, true);
           if (i==-1) i = j; else if (j >= 0) i = Math.min(i,j);
           continue;  // ignore match
         }
@@ -1260,6 +1260,94 @@ public final class DefinitionsDocumentTest extends DrJavaTestCase implements Red
     assertFalse("Document should no longer be modified after redo.", _doc.isModifiedSinceSave());
   }
   
+  /** Verifies that a run of typed characters is stored as a single compact edit that undoes and redoes correctly.
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public void testTypingRunIsCompacted() throws BadLocationException {
+    CompoundUndoManager undoManager = _doc.getUndoManager();
+    _doc.addUndoableEditListener(undoManager);
+    _doc.insertString(0, "class A ", null);
+    undoManager.startCompoundEdit();
+    String typed = "{ int x; }";
+    for (int i = 0; i < typed.length(); i++) _doc.insertString(8 + i, typed.substring(i, i + 1), null);
+    undoManager.endLastCompoundEdit();
+    
+    assertFalse("typing run is compacted", undoManager.getNextUndo() instanceof javax.swing.undo.CompoundEdit);
+    assertTrue("compacted run retains little memory", undoManager.getRetainedSize() < 2 * 256 + 4 * 8);
+    
+    undoManager.undo();
+    assertEquals("undo typing", "class A ", _doc.getText());
+    assertTrue("undo records no new edit", undoManager.canRedo());
+    assertEquals("reduced model after undo", 8, _doc.getCurrentLocation());
+    undoManager.redo();
+    assertEquals("redo typing", "class A " + typed, _doc.getText());
+    _doc.setCurrentLocation(9);  // just after the open brace
+    assertEquals("reduced model after redo", typed.length() - 1, _doc.balanceForward());
+    undoManager.undo();
+    undoManager.undo();
+    assertEquals("undo all", "", _doc.getText());
+  }
+  
+  /** Verifies that the undo history is trimmed to its memory budget and that the saved state is no longer considered
+   * reachable once it has been trimmed.
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public void testUndoHistoryMemoryBudget() throws BadLocationException {
+    CompoundUndoManager undoManager = _doc.getUndoManager();
+    _doc.addUndoableEditListener(undoManager);
+    undoManager.setMemoryBudget(2000);  // three insertions of 100 characters
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 99; i++) line.append('x');
+    line.append('\n');
+    for (int i = 0; i < 10; i++) _doc.insertString(_doc.getLength(), line.toString(), null);
+    assertTrue("history fits in budget", undoManager.getRetainedSize() <= 2000);
+    
+    int undone = 0;
+    while (undoManager.canUndo()) {
+      undoManager.undo();
+      undone++;
+    }
+    assertEquals("oldest edits were discarded", 3, undone);
+    assertEquals("remaining text", 700, _doc.getLength());
+    _doc.updateModifiedSinceSave();
+    assertTrue("saved state is unreachable", _doc.isModifiedSinceSave());
+  }
+  
+  /** Verifies that when trimming the undo history discards exactly the edits up to the saved state, undoing back to
+   * the saved state reports the document as unmodified.
+   * @throws BadLocationException if attempts to reference an invalid location
+   */
+  public void testUndoHistoryTrimmedToSavePoint() throws BadLocationException {
+    CompoundUndoManager undoManager = _doc.getUndoManager();
+    _doc.addUndoableEditListener(undoManager);
+    undoManager.setMemoryBudget(2000);  // three insertions of 100 characters
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 99; i++) line.append('x');
+    line.append('\n');
+    _doc.insertString(0, line.toString(), null);
+    _doc.documentSaved();
+    _doc.updateModifiedSinceSave();
+    assertFalse("saved", _doc.isModifiedSinceSave());
+    
+    // the fourth insertion discards the first, which produced the saved state
+    for (int i = 0; i < 3; i++) _doc.insertString(_doc.getLength(), line.toString(), null);
+    _doc.updateModifiedSinceSave();
+    assertTrue("modified after more insertions", _doc.isModifiedSinceSave());
+    
+    int undone = 0;
+    while (undoManager.canUndo()) {
+      undoManager.undo();
+      undone++;
+    }
+    assertEquals("only the edits after the save remain", 3, undone);
+    assertEquals("saved text", 100, _doc.getLength());
+    _doc.updateModifiedSinceSave();
+    assertFalse("saved state is the start of the history", _doc.isModifiedSinceSave());
+    undoManager.redo();
+    _doc.updateModifiedSinceSave();
+    assertTrue("modified after redo", _doc.isModifiedSinceSave());
+  }
+  
   protected static final String NEWLINE = "\n"; // Was StringOps.EOL;but swing usees '\n' for newLine
   
   protected static final String NESTED_CLASSES_TEXT =
@@ -0,0 +1,599 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.drjava.model.definitions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/** A structural outline of a Java source text: the classes, methods, and fields it declares, with their ranges.
+  * The outline is built by a single forward scan that skips comments and string and character literals, so it is
+  * cheap enough to rebuild in the background whenever editing pauses.  Queries for the declaration enclosing an
+  * offset descend the outline with a binary search at each level instead of scanning the text backwards.  Between
+  * rebuilds, {@link #shift} keeps the ranges in step with edits.  Instances are not thread-safe; a document only
+  * touches its current outline in the event thread and builds replacements privately.
+  * @version $Id$
+  */
+public final class OutlineIndex {
+  
+  /** The kinds of declarations recorded in an outline. */
+  public enum Kind { CLASS, ANONYMOUS_CLASS, METHOD, FIELD }
+  
+  /** A declaration in the outline.  The range [start, end) covers the whole declaration including modifiers, except
+    * for anonymous classes, whose range is just their body because the instance creation expression may contain other
+    * anonymous classes.  For classes and methods with a body, bodyStart is the offset of the opening brace. */
+  public static final class Declaration {
+    private final Kind _kind;
+    private final String _name;
+    private final String _binaryName;
+    private final Declaration _parent;
+    private final ArrayList<Declaration> _children = new ArrayList<Declaration>();
+    private int _start;
+    private int _bodyStart;
+    private int _end;
+    
+    private Declaration(Kind kind, String name, String binaryName, Declaration parent, int start, int bodyStart) {
+      _kind = kind;
+      _name = name;
+      _binaryName = binaryName;
+      _parent = parent;
+      _start = start;
+      _bodyStart = bodyStart;
+      _end = start;
+    }
+    
+    public Kind getKind() { return _kind; }
+    
+    /** @return the simple name; for anonymous classes, their index within the enclosing class */
+    public String getName() { return _name; }
+    
+    /** @return the binary name (without package) of a class, e.g. "Outer$Inner$1", or "Outer$1Local" for a local
+      * class; null for methods and fields */
+    public String getBinaryName() { return _binaryName; }
+    
+    /** @return the enclosing declaration, or null for a top-level class */
+    public Declaration getParent() { return _parent; }
+    
+    /** @return the nested declarations, ordered by offset */
+    public List<Declaration> getChildren() { return Collections.unmodifiableList(_children); }
+    
+    public int getStart() { return _start; }
+    
+    /** @return the offset of the opening brace of the body, or -1 if there is none */
+    public int getBodyStart() { return _bodyStart; }
+    
+    public int getEnd() { return _end; }
+    
+    public boolean isClass() { return _kind == Kind.CLASS || _kind == Kind.ANONYMOUS_CLASS; }
+    
+    /** @return true if offset lies inside the declaration */
+    public boolean contains(int offset) { return _start <= offset && offset < _end; }
+    
+    /** @return true if offset lies between the braces of the body (after the opening brace, up to the closing one) */
+    public boolean bodyContains(int offset) { return _bodyStart >= 0 && _bodyStart < offset && offset < _end; }
+    
+    public String toString() { return _kind + " " + (_binaryName != null ? _binaryName : _name) + " [" + _start + 
+      ", " + _end + ")"; }
+  }
+  
+  /** Top-level declarations, ordered by offset. */
+  private final ArrayList<Declaration> _roots;
+  
+  /** The name in the package statement, or "" for the default package. */
+  private final String _packageName;
+  
+  private OutlineIndex(ArrayList<Declaration> roots, String packageName) {
+    _roots = roots;
+    _packageName = packageName;
+  }
+  
+  /** Scans text and returns its outline.  Runs in linear time and does not require the text to be well-formed;
+    * unterminated declarations extend to the end of the text.
+    * @param text the source text
+    * @return the outline of text
+    */
+  public static OutlineIndex build(CharSequence text) { return new Scanner(text).scan(); }
+  
+  /** @return the name in the package statement, or "" for the default package */
+  public String getPackageName() { return _packageName; }
+  
+  /** @return the top-level declarations, ordered by offset */
+  public List<Declaration> getDeclarations() { return Collections.unmodifiableList(_roots); }
+  
+  /** @param offset an offset into the text
+    * @return the innermost declaration containing offset, or null if offset is outside all declarations
+    */
+  public Declaration getEnclosingDeclaration(int offset) {
+    Declaration found = null;
+    List<Declaration> level = _roots;
+    Declaration d;
+    while ((d = _find(level, offset)) != null) {
+      found = d;
+      level = d._children;
+    }
+    return found;
+  }
+  
+  /** @param offset an offset into the text
+    * @return the innermost class whose body contains offset, or null if there is none
+    */
+  public Declaration getEnclosingClass(int offset) {
+    Declaration found = null;
+    List<Declaration> level = _roots;
+    Declaration d;
+    while ((d = _find(level, offset)) != null) {
+      if (d.isClass() && d.bodyContains(offset)) found = d;
+      level = d._children;
+    }
+    return found;
+  }
+  
+  /** Returns the name of the class whose body encloses offset.  Qualified names are binary names as javac assigns
+    * them: nested classes are separated by '$', anonymous classes are numbered within their enclosing class, and a
+    * local class is prefixed with its number among the local classes of the same name in its enclosing class.  The
+    * unqualified name of an anonymous class is its number.
+    * @param offset an offset into the text
+    * @param qual true to return the binary name prefixed with the package name
+    * @return the enclosing class name, or "" if offset is not inside a class body
+    */
+  public String getEnclosingClassName(int offset, boolean qual) {
+    Declaration c = getEnclosingClass(offset);
+    if (c == null) return "";
+    if (! qual) return c._name;
+    return (_packageName.length() > 0) ? _packageName + "." + c._binaryName : c._binaryName;
+  }
+  
+  /** Adjusts all ranges for an edit of the text.  Declarations inside a removed range collapse onto its start.
+    * @param offset the offset of the edit
+    * @param delta the number of characters inserted (positive) or removed (negative) at offset
+    */
+  public void shift(int offset, int delta) { _shift(_roots, offset, delta); }
+  
+  private static void _shift(List<Declaration> ds, int offset, int delta) {
+    for (Declaration d: ds) {
+      if (d._end < offset || (d._end == offset && delta > 0)) continue;  // entirely before the edit
+      d._start = _shift(d._start, offset, delta, false);
+      if (d._bodyStart >= 0) d._bodyStart = _shift(d._bodyStart, offset, delta, false);
+      d._end = _shift(d._end, offset, delta, true);
+      _shift(d._children, offset, delta);
+    }
+  }
+  
+  /** Insertions at an end offset stay outside the declaration; insertions at any other boundary move it. */
+  private static int _shift(int p, int offset, int delta, boolean isEnd) {
+    if (delta >= 0) return (p > offset || (p == offset && ! isEnd)) ? p + delta : p;
+    if (p < offset) return p;
+    return (p >= offset - delta) ? p + delta : offset;
+  }
+  
+  /** @return the declaration in ds (sorted and disjoint) that contains offset, or null */
+  private static Declaration _find(List<Declaration> ds, int offset) {
+    int lo = 0;
+    int hi = ds.size() - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (ds.get(mid)._start <= offset) lo = mid + 1;
+      else hi = mid - 1;
+    }
+    if (hi < 0) return null;
+    Declaration d = ds.get(hi);
+    return d.contains(offset) ? d : null;
+  }
+  
+  /** A token of the scan: an identifier, keyword or number (IDENT), a placeholder for a nested expression body that
+    * has already been scanned (BODY), or a single punctuation character. */
+  private static final class Token {
+    static final char IDENT = 'a';
+    static final char BODY = 'B';
+    final char kind;
+    final String text;
+    final int start;
+    Token(char kind, String text, int start) {
+      this.kind = kind;
+      this.text = text;
+      this.start = start;
+    }
+    boolean is(String s) { return kind == IDENT && text.equals(s); }
+    int end() { return (kind == IDENT) ? start + text.length() : start + 1; }
+  }
+  
+  /** What a pair of braces encloses. */
+  private enum FrameKind {
+    /** Outside all braces. */ TOP,
+    /** A class, interface or enum body. */ CLASS,
+    /** A method or constructor body. */ METHOD,
+    /** A statement block or initializer; ends the enclosing statement. */ BLOCK,
+    /** An array initializer or lambda body; part of the enclosing statement. */ EXPRESSION
+  }
+  
+  /** An open brace pair during the scan, with the tokens of the current statement at its level. */
+  private static final class Frame {
+    final FrameKind kind;
+    final Declaration decl;
+    final boolean isEnum;
+    final ArrayList<Token> statement = new ArrayList<Token>();
+    int anonymousCount = 0;
+    /** The number of local classes of each name declared so far in this class; null until there is one. */
+    HashMap<String, Integer> localClassCounts = null;
+    boolean inEnumConstants;
+    Frame(FrameKind kind, Declaration decl, boolean isEnum) {
+      this.kind = kind;
+      this.decl = decl;
+      this.isEnum = isEnum;
+      inEnumConstants = isEnum;
+    }
+    /** @return the number javac gives the next local class named name in this class, counting from 1 */
+    int nextLocalClassIndex(String name) {
+      if (localClassCounts == null) localClassCounts = new HashMap<String, Integer>();
+      Integer count = localClassCounts.get(name);
+      int index = (count == null) ? 1 : count + 1;
+      localClassCounts.put(name, index);
+      return index;
+    }
+  }
+  
+  /** The single-pass scanner that builds an outline. */
+  private static final class Scanner {
+    private final CharSequence _text;
+    private final int _length;
+    private int _pos = 0;
+    private final ArrayList<Frame> _frames = new ArrayList<Frame>();
+    private final ArrayList<Declaration> _roots = new ArrayList<Declaration>();
+    private String _packageName = "";
+    
+    Scanner(CharSequence text) {
+      _text = text;
+      _length = text.length();
+      _frames.add(new Frame(FrameKind.TOP, null, false));
+    }
+    
+    OutlineIndex scan() {
+      Token t;
+      while ((t = _next()) != null) {
+        Frame f = _frames.get(_frames.size() - 1);
+        switch(t.kind) {
+          case '{': _open(f, t); break;
+          case '}': _close(t); break;
+          case ';': _endStatement(f, t.start + 1); break;
+          default: f.statement.add(t);
+        }
+      }
+      for (int i = _frames.size() - 1; i > 0; --i) {
+        Frame f = _frames.get(i);
+        if (f.decl != null) f.decl._end = _length;
+      }
+      return new OutlineIndex(_roots, _packageName);
+    }
+    
+    /** @return the next token, or null at the end of the text */
+    private Token _next() {
+      while (_pos < _length) {
+        char c = _text.charAt(_pos);
+        if (Character.isWhitespace(c)) { ++_pos; continue; }
+        if (c == '/' && _pos + 1 < _length) {
+          char d = _text.charAt(_pos + 1);
+          if (d == '/') {
+            while (_pos < _length && _text.charAt(_pos) != '\n') ++_pos;
+            continue;
+          }
+          if (d == '*') {
+            _pos += 2;
+            while (_pos < _length && ! (_text.charAt(_pos) == '*' && _pos + 1 < _length && 
+                                        _text.charAt(_pos + 1) == '/')) ++_pos;
+            _pos += 2;
+            continue;
+          }
+        }
+        if (c == '"' || c == '\'') { _skipLiteral(c); continue; }
+        int start = _pos;
+        if (Character.isJavaIdentifierPart(c)) {
+          while (_pos < _length && Character.isJavaIdentifierPart(_text.charAt(_pos))) ++_pos;
+          return new Token(Token.IDENT, _text.subSequence(start, _pos).toString(), start);
+        }
+        ++_pos;
+        return new Token(c, null, start);
+      }
+      return null;
+    }
+    
+    /** Skips a string or character literal starting at the current position.  Unterminated literals end at the end
+      * of the line. */
+    private void _skipLiteral(char quote) {
+      ++_pos;
+      while (_pos < _length) {
+        char c = _text.charAt(_pos++);
+        if (c == '\\') ++_pos;
+        else if (c == quote || c == '\n') return;
+      }
+    }
+    
+    private Frame _top() { return _frames.get(_frames.size() - 1); }
+    
+    /** @return the nearest enclosing class frame, or null */
+    private Frame _classFrame() {
+      for (int i = _frames.size() - 1; i > 0; --i) {
+        Frame f = _frames.get(i);
+        if (f.kind == FrameKind.CLASS) return f;
+      }
+      return null;
+    }
+    
+    /** @return the list that new declarations are added to */
+    private ArrayList<Declaration> _siblings() {
+      for (int i = _frames.size() - 1; i > 0; --i) {
+        Declaration d = _frames.get(i).decl;
+        if (d != null) return d._children;
+      }
+      return _roots;
+    }
+    
+    private Declaration _parent() {
+      for (int i = _frames.size() - 1; i > 0; --i) {
+        Declaration d = _frames.get(i).decl;
+        if (d != null) return d;
+      }
+      return null;
+    }
+    
+    private void _open(Frame f, Token brace) {
+      ArrayList<Token> s = f.statement;
+      int n = s.size();
+      Token last = (n > 0) ? s.get(n - 1) : null;
+      
+      int newIndex = (last != null && last.kind == ')') ? _anonymousNew(s) : -1;
+      if (newIndex >= 0 || (f.inEnumConstants && last != null && (last.kind == Token.IDENT || last.kind == ')'))) {
+        // anonymous class, or the body of an enum constant (which is compiled as one)
+        Frame cf = (newIndex >= 0) ? _classFrame() : f;
+        String index = String.valueOf(cf == null ? 1 : ++cf.anonymousCount);
+        String binaryName = (cf == null) ? index : cf.decl._binaryName + "$" + index;
+        _push(FrameKind.CLASS, new Declaration(Kind.ANONYMOUS_CLASS, index, binaryName, _parent(), brace.start, 
+                                               brace.start), false);
+        return;
+      }
+      if ((f.kind == FrameKind.EXPRESSION && n == 0) || 
+          (last != null && (last.kind == '=' || last.kind == ',' || last.kind == '(' || last.kind == ']' || 
+                            (last.kind == '>' && n > 1 && s.get(n - 2).kind == '-')))) {
+        _push(FrameKind.EXPRESSION, null, false);
+        return;
+      }
+      int classIndex = _classKeyword(s);
+      if (classIndex >= 0) {
+        String name = s.get(classIndex + 1).text;
+        Frame cf = _classFrame();
+        String binaryName;
+        if (cf == null) binaryName = name;
+        else if (f.kind == FrameKind.CLASS) binaryName = cf.decl._binaryName + "$" + name;
+        else binaryName = cf.decl._binaryName + "$" + cf.nextLocalClassIndex(name) + name;  // a local class
+        Declaration d = new Declaration(Kind.CLASS, name, binaryName, _parent(), s.get(0).start, brace.start);
+        boolean isEnum = s.get(classIndex).is("enum");
+        s.clear();
+        _push(FrameKind.CLASS, d, isEnum);
+        return;
+      }
+      if (f.kind == FrameKind.CLASS && n > 0) {
+        int nameIndex = _methodName(s);
+        if (nameIndex >= 0) {
+          Declaration d = new Declaration(Kind.METHOD, s.get(nameIndex).text, null, _parent(), s.get(0).start, 
+                                          brace.start);
+          s.clear();
+          _push(FrameKind.METHOD, d, false);
+          return;
+        }
+      }
+      s.clear();
+      _push(FrameKind.BLOCK, null, false);
+    }
+    
+    private void _push(FrameKind kind, Declaration d, boolean isEnum) {
+      if (d != null) _siblings().add(d);
+      _frames.add(new Frame(kind, d, isEnum));
+    }
+    
+    private void _close(Token brace) {
+      if (_frames.size() == 1) {  // unbalanced
+        _top().statement.clear();
+        return;
+      }
+      Frame f = _top();
+      if (f.inEnumConstants) _enumConstants(f);
+      _frames.remove(_frames.size() - 1);
+      if (f.decl != null) f.decl._end = brace.start + 1;
+      Frame p = _top();
+      if (f.kind == FrameKind.EXPRESSION || (f.decl != null && f.decl._kind == Kind.ANONYMOUS_CLASS)) {
+        p.statement.add(new Token(Token.BODY, null, brace.start));
+      }
+      else p.statement.clear();
+    }
+    
+    private void _endStatement(Frame f, int end) {
+      ArrayList<Token> s = f.statement;
+      if (f.kind == FrameKind.TOP && s.size() > 0 && s.get(0).is("package")) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < s.size(); ++i) {
+          Token t = s.get(i);
+          if (t.kind == Token.IDENT) sb.append(t.text);
+          else if (t.kind == '.') sb.append('.');
+        }
+        _packageName = sb.toString();
+      }
+      else if (f.inEnumConstants) {
+        _enumConstants(f);
+        f.inEnumConstants = false;
+      }
+      else if (f.kind == FrameKind.CLASS && s.size() > 0) {
+        int nameIndex = _methodName(s);
+        if (nameIndex >= 0) _member(Kind.METHOD, s.get(nameIndex).text, s.get(0).start, end);
+        else {
+          nameIndex = _fieldName(s);
+          if (nameIndex >= 0) _member(Kind.FIELD, s.get(nameIndex).text, s.get(0).start, end);
+        }
+      }
+      s.clear();
+    }
+    
+    /** Records the constants in an enum's constant list as fields, one per comma-separated entry. */
+    private void _enumConstants(Frame f) {
+      ArrayList<Token> s = f.statement;
+      int depth = 0;
+      int from = 0;
+      for (int i = 0; i <= s.size(); ++i) {
+        char k = (i < s.size()) ? s.get(i).kind : ',';
+        if (k == '(') ++depth;
+        else if (k == ')') --depth;
+        else if (k == ',' && depth <= 0) {
+          for (int j = from; j < i; ++j) {
+            Token t = s.get(j);
+            if (t.kind == Token.IDENT && (j == 0 || s.get(j - 1).kind != '@')) {
+              int end = s.get(i - 1).end();
+              _member(Kind.FIELD, t.text, s.get(from).start, end);
+              break;
+            }
+          }
+          from = i + 1;
+        }
+      }
+      s.clear();
+    }
+    
+    /** Adds a member that has been scanned completely, adopting anonymous classes already recorded inside it. */
+    private void _member(Kind kind, String name, int start, int end) {
+      ArrayList<Declaration> siblings = _siblings();
+      Declaration d = new Declaration(kind, name, null, _parent(), start, -1);
+      d._end = end;
+      int j = siblings.size();
+      while (j > 0 && siblings.get(j - 1)._start >= end) --j;
+      int i = j;
+      while (i > 0 && siblings.get(i - 1)._start >= start) --i;
+      if (i < j) {
+        List<Declaration> inner = siblings.subList(i, j);
+        d._children.addAll(inner);
+        inner.clear();
+      }
+      siblings.add(i, d);
+    }
+    
+    /** @return the index of the "new" starting an anonymous class instance creation that s ends with, or -1 */
+    private static int _anonymousNew(ArrayList<Token> s) {
+      int i = _matching(s, s.size() - 1, '(', ')') - 1;
+      if (i >= 0 && s.get(i).kind == '>') i = _matching(s, i, '<', '>') - 1;
+      if (i < 0 || s.get(i).kind != Token.IDENT) return -1;
+      while (i >= 2 && s.get(i - 1).kind == '.' && s.get(i - 2).kind == Token.IDENT && ! s.get(i - 2).is("new")) {
+        i -= 2;
+      }
+      --i;
+      if (i >= 0 && s.get(i).kind == '>') i = _matching(s, i, '<', '>') - 1;  // new <T> Foo()
+      return (i >= 0 && s.get(i).is("new")) ? i : -1;
+    }
+    
+    /** @return the index of the open token matching the close token at index i, or -1 */
+    private static int _matching(ArrayList<Token> s, int i, char open, char close) {
+      int depth = 0;
+      for (; i >= 0; --i) {
+        char k = s.get(i).kind;
+        if (k == close) ++depth;
+        else if (k == open && --depth == 0) return i;
+      }
+      return -1;
+    }
+    
+    /** @return the index of a class, interface or enum keyword followed by the declared name, or -1 */
+    private static int _classKeyword(ArrayList<Token> s) {
+      int depth = 0;
+      for (int i = 0; i + 1 < s.size(); ++i) {
+        Token t = s.get(i);
+        if (t.kind == '(') ++depth;
+        else if (t.kind == ')') --depth;
+        else if (depth == 0 && (t.is("class") || t.is("interface") || t.is("enum")) &&
+                 (i == 0 || s.get(i - 1).kind != '.') && s.get(i + 1).kind == Token.IDENT) return i;
+      }
+      return -1;
+    }
+    
+    /** @return the index of the name of the method or constructor declared by s, or -1 if s is not a method header */
+    private static int _methodName(ArrayList<Token> s) {
+      for (int i = 1; i < s.size(); ++i) {
+        Token t = s.get(i);
+        if (t.kind == '=') return -1;
+        if (t.kind == '(') {
+          Token name = s.get(i - 1);
+          if (name.kind == Token.IDENT && ! _isAnnotationName(s, i - 1)) return i - 1;
+          int close = _skipParens(s, i);
+          if (close < 0) return -1;
+          i = close;
+        }
+      }
+      return -1;
+    }
+    
+    private static boolean _isAnnotationName(ArrayList<Token> s, int i) {
+      while (i >= 2 && s.get(i - 1).kind == '.' && s.get(i - 2).kind == Token.IDENT) i -= 2;
+      return i >= 1 && s.get(i - 1).kind == '@';
+    }
+    
+    /** @return the index of the ')' matching the '(' at index i, or -1 */
+    private static int _skipParens(ArrayList<Token> s, int i) {
+      int depth = 0;
+      for (; i < s.size(); ++i) {
+        char k = s.get(i).kind;
+        if (k == '(') ++depth;
+        else if (k == ')' && --depth == 0) return i;
+      }
+      return -1;
+    }
+    
+    /** @return the index of the first variable name declared by s, or -1 */
+    private static int _fieldName(ArrayList<Token> s) {
+      int angles = 0;
+      for (int i = 0; i < s.size(); ++i) {
+        char k = s.get(i).kind;
+        if (k == '<') ++angles;
+        else if (k == '>') --angles;
+        else if (k == '(') {
+          i = _skipParens(s, i);
+          if (i < 0) return -1;
+        }
+        else if (k == '=' || (k == ',' && angles <= 0)) {
+          return (i > 0 && s.get(i - 1).kind == Token.IDENT) ? i - 1 : -1;
+        }
+      }
+      int last = s.size() - 1;
+      return (last >= 0 && s.get(last).kind == Token.IDENT) ? last : -1;
+    }
+  }
+}
@@ -0,0 +1,234 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.drjava.model.definitions;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+
+import static edu.rice.cs.drjava.model.definitions.OutlineIndex.Kind.*;
+
+/** Tests the structural outline built by {@link OutlineIndex}.
+  * @version $Id$
+  */
+public final class OutlineIndexTest extends DrJavaTestCase {
+  
+  /** Positions in DefinitionsDocumentTest.NESTED_CLASSES_TEXT with their qualified and unqualified enclosing class
+    * names, as expected from DefinitionsDocument.getEnclosingClassName. */
+  private static final String[][] NESTED_CLASS_NAMES = {
+    { "private int i", "Temp.Test", "Test" },
+    { "= other.i", "Temp.Test", "Test" },
+    { "System.out.println(i)", "Temp.Test", "Test" },
+    { "System.currentTimeMillis", "Temp.Test$Interf", "Interf" },
+    { "Implementor implements Interf", "Temp.Test", "Test" },
+    { "/*Implementor.act*/", "Temp.Test$Implementor", "Implementor" },
+    { "/*Implementor$1*/", "Temp.Test$Implementor$1", "1" },
+    { "\"Test$Implementor$1\"", "Temp.Test$Implementor$1", "1" },
+    { "/*Implementor$1$1*/", "Temp.Test$Implementor$1$1", "1" },
+    { "\"Test$Implementor$1$1\"", "Temp.Test$Implementor$1$1", "1" },
+    { "/*Implementor$1$2*/", "Temp.Test$Implementor$1$2", "2" },
+    { "/*b-Implementor$1*/", "Temp.Test$Implementor$1", "1" },
+    { "/*b-Implementor*/", "Temp.Test$Implementor", "Implementor" },
+    { "/*c-Implementor*/", "Temp.Test$Implementor", "Implementor" },
+    { "/*Implementor$Inner*/", "Temp.Test$Implementor$Inner", "Inner" },
+    { "/*b-Implementor$Inner*/", "Temp.Test$Implementor$Inner", "Inner" },
+    { "/*anon()*/", "Temp.Test", "Test" },
+    { "/*Test$1*/", "Temp.Test$1", "1" },
+    { "/*Test$1$NamedInAnonymous*/", "Temp.Test$1$NamedInAnonymous", "NamedInAnonymous" },
+    { "\"Test$1$NamedInAnonymous\"", "Temp.Test$1$NamedInAnonymous", "NamedInAnonymous" },
+    { "/*b-Test$1*/", "Temp.Test$1", "1" },
+    { "\"Test$1\"", "Temp.Test$1", "1" },
+    { "/*b-anon()*/", "Temp.Test", "Test" },
+    { "/*Test$2*/", "Temp.Test$2", "2" },
+    { "\"Test$2\"", "Temp.Test$2", "2" },
+    { "/*Test$2$1*/", "Temp.Test$2$1", "1" },
+    { "\"Test$2$1\"", "Temp.Test$2$1", "1" },
+    { "/*Test$3*/", "Temp.Test$3", "3" },
+    { "\"Test$3\"", "Temp.Test$3", "3" },
+    { "(true) { i = j; }", "Temp.Test", "Test" },
+    { "new Test(1)", "Temp.Test", "Test" },
+    { "class Foo", "", "" },
+    { "FooImplementor fimp", "Temp.Foo", "Foo" },
+    { "/*Foo$FooInterf*/", "Temp.Foo$FooInterf", "FooInterf" },
+    { "/*Foo$FooImplementor*/", "Temp.Foo$FooImplementor", "FooImplementor" },
+    { "/*b-Foo$FooImplementor*/", "Temp.Foo$FooImplementor", "FooImplementor" },
+    { "/*Foo$FooImplementor$1*/", "Temp.Foo$FooImplementor$1", "1" },
+    { "\"Foo$FooImplementor$1\"", "Temp.Foo$FooImplementor$1", "1" },
+    { "/*Foo$FooImplementor$1$1*/", "Temp.Foo$FooImplementor$1$1", "1" },
+    { "\"Foo$FooImplementor$1$1\"", "Temp.Foo$FooImplementor$1$1", "1" },
+    { "/*Foo$FooImplementor$Inner*/", "Temp.Foo$FooImplementor$Inner", "Inner" },
+    { "/*eof*/", "", "" },
+    { "/*bof*/", "", "" },
+    { "public class Test", "", "" },
+    { "/*anon2()*/", "Temp.Test", "Test" },
+    { "/*Test$4*/", "Temp.Test$4", "4" },
+    { "\"parameter 1 = Test$4\"", "Temp.Test$4", "4" },
+    { "/*Test$4$1*/", "Temp.Test$4$1", "1" },
+    { "\"Test$4$1\"", "Temp.Test$4$1", "1" },
+    { "/*b-anon2()*/", "Temp.Test", "Test" },
+    { "/*Test$5*/", "Temp.Test$5", "5" },
+    { "\"parameter 2 = Test$5\"", "Temp.Test$5", "5" },
+    { "/*c-anon2()*/", "Temp.Test", "Test" },
+    { "/*Test$6*/", "Temp.Test$6", "6" },
+    { "\"Test$6\"", "Temp.Test$6", "6" },
+    { "/*anon3()*/", "Temp.Test", "Test" },
+    { "/*Test$7*/", "Temp.Test$7", "7" },
+    { "\"doSomething\"", "Temp.Test$7$NamedClassAgain", "NamedClassAgain" },
+    { "\"parameter 3 = Test$7\"", "Temp.Test$7", "7" },
+    { "/*Test$7$1*/", "Temp.Test$7$1", "1" },
+    { "\"Test$7$1\"", "Temp.Test$7$1", "1" },
+    { "/*c-anon2()*/", "Temp.Test", "Test" },
+    { "/*Test$8*/", "Temp.Test$8", "8" },
+    { "\"Test$8\"", "Temp.Test$8", "8" },
+    { "abstract void feeDo()", "Temp.Fee", "Fee" },
+    { "class FeeConc extends Fee", "Temp.Fee", "Fee" },
+    { "/*Fee$FeeConc*/", "Temp.Fee$FeeConc", "FeeConc" },
+    { "\"FeeConc/feeDo\"", "Temp.Fee$FeeConc", "FeeConc" },
+    { "\"FeeConc/feeAct\"", "Temp.Fee$FeeConc", "FeeConc" },
+    { "\"FeeConc/s\"", "Temp.Fee$FeeConc", "FeeConc" },
+    { "\"FeeConc/t\"", "Temp.Fee$FeeConc", "FeeConc" },
+    { "\"FeeConc/u\"", "Temp.Fee$FeeConc", "FeeConc" },
+    { "/*Fee$1*/", "Temp.Fee$1", "1" },
+    { "\"Fee$1/feeDo\"", "Temp.Fee$1", "1" },
+    { "\"Fee$1/feeAct\"", "Temp.Fee$1", "1" },
+    { "\"Fee$1/s\"", "Temp.Fee$1", "1" },
+    { "\"Fee$1/t\"", "Temp.Fee$1", "1" },
+    { "\"Fee$1/u\"", "Temp.Fee$1", "1" },
+    { "/*Test$Outer$Middle$1*/", "Temp.Test$Outer$Middle$1", "1" },
+    { "\"Test$Outer$Middle$1\"", "Temp.Test$Outer$Middle$1", "1" },
+    { "/*Test$9*/", "Temp.Test$9", "9" },
+    { "\"Test$9\"", "Temp.Test$9", "9" },
+    { "/*Test$10*/", "Temp.Test$10", "10" },
+    { "\"Test$10\"", "Temp.Test$10", "10" },
+  };
+  
+  /** Tests that the outline finds the same enclosing class names as DefinitionsDocument. */
+  public void testEnclosingClassName() {
+    String text = DefinitionsDocumentTest.NESTED_CLASSES_TEXT;
+    OutlineIndex outline = OutlineIndex.build(text);
+    assertEquals("package", "Temp", outline.getPackageName());
+    for (String[] n: NESTED_CLASS_NAMES) {
+      int pos = text.indexOf(n[0]);
+      assertEquals("class name at " + n[0], n[1], outline.getEnclosingClassName(pos, true));
+      assertEquals("class name at " + n[0], n[2], outline.getEnclosingClassName(pos, false));
+    }
+  }
+  
+  /** Tests finding the innermost enclosing declaration of each kind. */
+  public void testEnclosingDeclaration() {
+    String text = 
+      "class A {\n" +
+      "  /* class B { */ int x = 1, y;\n" +
+      "  java.util.Map<String, Integer> map = new java.util.HashMap<String, Integer>() { int z; };\n" +
+      "  @SuppressWarnings(\"unchecked\") <T> void m(T t) throws Exception {\n" +
+      "    String s = \"}\"; char c = '{';\n" +
+      "    Runnable r = () -> { int local; };\n" +
+      "  }\n" +
+      "  abstract int n();\n" +
+      "  enum E { ONE, TWO(2) { void f() { } }; E() { } E(int i) { } }\n" +
+      "}\n";
+    OutlineIndex outline = OutlineIndex.build(text);
+    assertEquals("package", "", outline.getPackageName());
+    assertEquals("top level", 1, outline.getDeclarations().size());
+    
+    _assertDeclaration(outline, text, "int x", FIELD, "x");
+    _assertDeclaration(outline, text, "map", FIELD, "map");
+    _assertDeclaration(outline, text, "int z", FIELD, "z");
+    assertEquals("anonymous class in field", "A$1", outline.getEnclosingClassName(text.indexOf("int z"), true));
+    _assertDeclaration(outline, text, "\"}\"", METHOD, "m");
+    _assertDeclaration(outline, text, "int local", METHOD, "m");
+    _assertDeclaration(outline, text, "abstract", METHOD, "n");
+    _assertDeclaration(outline, text, "ONE", FIELD, "ONE");
+    _assertDeclaration(outline, text, "TWO", FIELD, "TWO");
+    _assertDeclaration(outline, text, "void f", METHOD, "f");
+    _assertDeclaration(outline, text, "E() {", METHOD, "E");
+    assertEquals("enum constant body", "A$E$1", outline.getEnclosingClassName(text.indexOf("void f"), true));
+    assertEquals("enum", "A$E", outline.getEnclosingClassName(text.indexOf("E() {"), true));
+    assertEquals("comment", "A", outline.getEnclosingClassName(text.indexOf("class B"), true));
+    assertEquals("past end", "", outline.getEnclosingClassName(text.length(), true));
+    assertEquals("class header", "A", outline.getEnclosingDeclaration(0).getName());
+    assertEquals("class header", "", outline.getEnclosingClassName(0, true));
+  }
+  
+  /** Tests that local classes get the binary names javac gives them (checked against the class files javac writes for
+    * this text). */
+  public void testLocalClassNames() {
+    String text = 
+      "class A {\n" +
+      "  void m() { class L { /*A$1L*/ } class M { /*A$1M*/ } }\n" +
+      "  void n() { if (true) { class L { /*A$2L*/ class I { /*A$2L$I*/ } } } }\n" +
+      "  { class L { /*A$3L*/ } }\n" +
+      "  Runnable r = new Runnable() { public void run() { class L { /*A$1$1L*/ } } };\n" +
+      "  class N { /*A$N*/ void p() { class L { /*A$N$1L*/ } } }\n" +
+      "}\n";
+    OutlineIndex outline = OutlineIndex.build(text);
+    for (String name: new String[] { "A$1L", "A$1M", "A$2L", "A$2L$I", "A$3L", "A$1$1L", "A$N", "A$N$1L" }) {
+      assertEquals("class name", name, outline.getEnclosingClassName(text.indexOf("/*" + name + "*/"), true));
+    }
+    assertEquals("unqualified local class name", "L", outline.getEnclosingClassName(text.indexOf("/*A$1L*/"), false));
+  }
+  
+  /** Tests that ranges follow insertions and removals. */
+  public void testShift() {
+    String text = "class A { void m() { } }\nclass B { }\n";
+    OutlineIndex outline = OutlineIndex.build(text);
+    int m = text.indexOf("{ }");
+    
+    outline.shift(m + 1, 10);  // inside the body of m
+    OutlineIndex.Declaration a = outline.getDeclarations().get(0);
+    OutlineIndex.Declaration b = outline.getDeclarations().get(1);
+    assertEquals("A grows", text.indexOf("\nclass B") + 10, a.getEnd());
+    assertEquals("B moves", text.indexOf("class B") + 10, b.getStart());
+    assertEquals("m grows", m + 13, a.getChildren().get(0).getEnd());
+    
+    outline.shift(a.getEnd(), 5);  // right after A
+    assertEquals("A unchanged", text.indexOf("\nclass B") + 10, a.getEnd());
+    assertEquals("B moves again", text.indexOf("class B") + 15, b.getStart());
+    
+    outline.shift(0, -15);  // removes "class A { void "
+    assertEquals("A collapses", 0, a.getStart());
+    assertEquals("m collapses", 0, a.getChildren().get(0).getStart());
+    assertEquals("B moves back", text.indexOf("class B"), b.getStart());
+    assertEquals("class name", "B", outline.getEnclosingClassName(b.getBodyStart() + 1, true));
+  }
+  
+  private void _assertDeclaration(OutlineIndex outline, String text, String at, OutlineIndex.Kind kind, String name) {
+    OutlineIndex.Declaration d = outline.getEnclosingDeclaration(text.indexOf(at));
+    assertNotNull("declaration at " + at, d);
+    assertEquals("kind at " + at, kind, d.getKind());
+    assertEquals("name at " + at, name, d.getName());
+  }
+}
@@ -106,6 +106,14 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
   /** The error model containing all current JUnit errors. */
   private volatile JUnitErrorModel _junitErrorModel;
   
+  /** The faults reported so far by the running test suite, already mapped to language level files.  Only accessed
+    * in the event thread. */
+  private ArrayList<JUnitError> _faults = new ArrayList<JUnitError>();
+  
+  /** The open language level files, gathered when the first fault of a suite is mapped; null until then.  Only
+    * accessed in the event thread. */
+  private List<File> _llFiles = null;
+  
   /** State flag to prevent starting new tests on top of old ones and to prevent resetting interactions after compilation
     * is forced by unit testing. This field is NOT REDUNDANT, it is used in junitJVMReady.
     */
@@ -469,7 +477,7 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
               File sourceFile = new File(sourceFileName);
               classNames.add(className.value());
               files.add(sourceFile);
-              _log.log("Class " + className + "added to classNames.   File " + sourceFileName + " added to files.");
+              _log.logf("Class %sadded to classNames.   File %s added to files.", className, sourceFileName);
             }
             catch(IOException e) { /* ignore it; can't read class file */ }
           }
@@ -499,7 +507,7 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
         synchronized(_compilerModel.getCompilerLock()) {
           // synchronized over _compilerModel to ensure that compilation and junit testing are mutually exclusive.
           /** Set up junit test suite on slave JVM; get TestCase classes forming that suite */
-          _log.log("Calling findTestClasses(" + classNames + ", " + files + " ... )");
+          _log.logf("Calling findTestClasses(%s, %s ... )", classNames, files);
           List<String> tests = _jvm.findTestClasses(classNames, files, coverageMetadata).unwrap(null);
 
           if (tests == null || tests.isEmpty()) {
@@ -598,7 +606,11 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
     * @param numTests The number of tests in the suite to be run.
     */
   public void testSuiteStarted(final int numTests) { 
-    Utilities.invokeLater(new Runnable() { public void run() { _notifier.junitSuiteStarted(numTests); } });
+    Utilities.invokeLater(new Runnable() { public void run() { 
+      _faults = new ArrayList<JUnitError>();
+      _llFiles = null;
+      _notifier.junitSuiteStarted(numTests); 
+    } });
   }
   
   /** Called when a particular test is started.
@@ -619,33 +631,53 @@ public class DefaultJUnitModel implements JUnitModel, JUnitModelCallback {
     });
   }
   
+  /** Called as soon as a test fails or causes an error.  Does not necessarily run in event thread.
+    * @param fault The failure or error.
+    */
+  public void testFaulted(final JUnitError fault) {
+    Utilities.invokeLater(new Runnable() { public void run() { _faults.add(_mapToLanguageLevel(fault)); } });
+  }
+  
   /** Called when a full suite of tests has finished running.  Does not necessarily run in event thread.
-    * @param errors The array of errors from all failed tests in the suite.
+    * @param errors Errors not already reported through testFaulted.
     */
   public void testSuiteEnded(final JUnitError[] errors) {
 //    new ScrollableDialog(null, "DefaultJUnitModel.testSuiteEnded(...) called", "", "").show();
     Utilities.invokeLater(new Runnable() { public void run() { 
-      List<File> files = new ArrayList<File>();
-      for(OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { files.add(odd.getRawFile()); }
-//    Utilities.show("errors.length = " + errors.length + " files = " + files);
-      for(JUnitError e: errors) {
-        try {
-          e.setStackTrace(_compilerModel.getLLSTM().replaceStackTrace(e.stackTrace(),files));
-        } catch(Exception ex) { DrJavaErrorHandler.record(ex); }
-        File f = e.file();
-        if ((f != null) && (DrJavaFileUtils.isLLFile(f))) {
-          String dn = DrJavaFileUtils.getJavaForLLFile(f.getName());
-          StackTraceElement ste = new StackTraceElement(e.className(), "", dn, e.lineNumber());
-          ste = _compilerModel.getLLSTM().replaceStackTraceElement(ste, f);
-          e.setLineNumber(ste.getLineNumber());
-        }
-      }
-      _junitErrorModel = new JUnitErrorModel(errors, _model, true);
+      for (JUnitError e: errors) _faults.add(_mapToLanguageLevel(e));
+      _junitErrorModel = new JUnitErrorModel(_faults.toArray(new JUnitError[_faults.size()]), _model, true);
+      _faults = new ArrayList<JUnitError>();
+      _llFiles = null;
       _notifyJUnitEnded();
       _testInProgress = false;
 //    new ScrollableDialog(null, "DefaultJUnitModel.testSuiteEnded(...) finished", "", "").show();
     }});
   }
+  
+  /** Maps the stack trace and line number of the given fault from Java files to the corresponding open language 
+    * level files, if any.  Only runs in event thread.
+    * @param e the fault to map
+    * @return e, updated in place
+    */
+  private JUnitError _mapToLanguageLevel(JUnitError e) {
+    if (_llFiles == null) {
+      _llFiles = new ArrayList<File>();
+      for(OpenDefinitionsDocument odd: _model.getLLOpenDefinitionsDocuments()) { _llFiles.add(odd.getRawFile()); }
+    }
+    if (! _llFiles.isEmpty()) {
+      try {
+        e.setStackTrace(_compilerModel.getLLSTM().replaceStackTrace(e.stackTrace(), _llFiles));
+      } catch(Exception ex) { DrJavaErrorHandler.record(ex); }
+    }
+    File f = e.file();
+    if ((f != null) && (DrJavaFileUtils.isLLFile(f))) {
+      String dn = DrJavaFileUtils.getJavaForLLFile(f.getName());
+      StackTraceElement ste = new StackTraceElement(e.className(), "", dn, e.lineNumber());
+      ste = _compilerModel.getLLSTM().replaceStackTraceElement(ste, f);
+      e.setLineNumber(ste.getLineNumber());
+    }
+    return e;
+  }
 
   
   /** Called when the JUnitTestManager wants to open a file that is not currently open.
@@ -73,8 +73,13 @@ public interface JUnitModelCallback {
     */
   public void testEnded(String testName, boolean wasSuccessful, boolean causedError);
   
+  /** Called as soon as a test fails or causes an error, before the corresponding call to testEnded.
+    * @param fault The failure or error.
+    */
+  public void testFaulted(JUnitError fault);
+  
   /** Called when a full suite of tests has finished running.
-    * @param errors The array of errors from all failed tests in the suite.
+    * @param errors Errors not already reported through testFaulted, such as errors raised while running the suite.
     */
   public void testSuiteEnded(JUnitError[] errors);
   
@@ -37,16 +37,17 @@
 package edu.rice.cs.drjava.model.junit;
 
 import java.util.Map;
-import java.util.List;
+
+import edu.rice.cs.plt.collect.IntList;
 
 import java.io.Serializable;
 
 public class JUnitResultTuple implements Serializable {
 
     private boolean retval;
-    private Map<String, List<String>> lineColors;
+    private Map<String, IntList> lineColors;
 
-    public JUnitResultTuple(boolean retval, Map<String, List<String>> lineColors) {
+    public JUnitResultTuple(boolean retval, Map<String, IntList> lineColors) {
         this.retval = retval;
         this.lineColors = lineColors;  
     }
@@ -55,7 +56,7 @@ public class JUnitResultTuple implements Serializable {
         return this.retval;
     }
 
-    public Map<String, List<String>> getLineColors() {
+    public Map<String, IntList> getLineColors() {
         return this.lineColors;
     }
 }
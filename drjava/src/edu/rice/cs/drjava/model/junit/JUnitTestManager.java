@@ -37,6 +37,8 @@
 package edu.rice.cs.drjava.model.junit;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 
 import java.net.MalformedURLException;
@@ -47,13 +49,19 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Enumeration;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.rice.cs.drjava.model.coverage.CoverageMetadata;
+import edu.rice.cs.drjava.model.coverage.CoverageRuntime;
 import edu.rice.cs.drjava.model.coverage.ReportGenerator;
 
 import edu.rice.cs.drjava.model.repl.newjvm.ClassPathManager;
@@ -62,7 +70,9 @@ import edu.rice.cs.util.Log;
 import edu.rice.cs.util.UnexpectedException;
 import edu.rice.cs.util.classloader.ClassFileError;
 
+import edu.rice.cs.plt.collect.IntList;
 import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.lambda.Lambda2;
 import edu.rice.cs.plt.tuple.Pair;
 import edu.rice.cs.plt.iter.IterUtil;
 
@@ -76,7 +86,6 @@ import junit.framework.JUnit4TestAdapter;
 import junit.framework.AssertionFailedError;
 
 import junit.framework.Test;
-import junit.framework.TestResult;
 import junit.framework.TestSuite;
 import junit.framework.TestFailure;
 import junit.framework.JUnit4TestCaseFacade;
@@ -84,12 +93,12 @@ import junit.framework.JUnit4TestCaseFacade;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
 
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.IRuntime;
-import org.jacoco.core.runtime.LoggerRuntime;
 import org.jacoco.core.runtime.RuntimeData;
 
 /** Runs in the InterpreterJVM. Runs tests given a classname and formats the results into a (serializable) array of 
@@ -162,7 +171,7 @@ public class JUnitTestManager {
   public List<String> findTestClasses(final List<String> classNames, final List<File> files, 
                                       final CoverageMetadata coverageMetadata) {
     
-    _log.log("findTestClasses(" + classNames + ", " + files + ", " + coverageMetadata + ") called");
+    _log.logf("findTestClasses(%s, %s, %s) called", classNames, files, coverageMetadata);
     boolean doCoverage = coverageMetadata.getFlag();
     
     // Set up the loader
@@ -172,13 +181,16 @@ public class JUnitTestManager {
     else {
       // create a Jacoco runtime, output directory, report descriptors, and loader
       _coverageOutdir = coverageMetadata.getOutdirPath();
-      _runtime = new LoggerRuntime();
+      // CoverageRuntime instances share an access key, so a runtime left over from an aborted run must be stopped
+      if (_runtime != null) _runtime.shutdown();
+      _runtime = new CoverageRuntime();
       _myData = new RuntimeData();
-      loader = new JacocoClassLoader(_classPathManager.getClassPath(), new Instrumenter(_runtime), defaultLoader);
+      loader = new JacocoClassLoader(_classPathManager.getClassPath(), new Instrumenter(_runtime), 
+                                     JacocoClassLoader.defaultCacheDirectory(), defaultLoader);
       _nonTestClassNames = new ArrayList(classNames.size());
       try { _runtime.startup(_myData); }
       catch (Exception e) {
-        _log.log("In code coverage startup, throwing the wrapped exception " + e);
+        _log.logf("In code coverage startup, throwing the wrapped exception %s", e);
         throw new UnexpectedException(e);
       }
     }
@@ -199,16 +211,16 @@ public class JUnitTestManager {
       String cName = pair.first();
       try {
         Class<?> possibleTest = _testRunner.loadPossibleTest(cName); 
-        _log.log("Exploring possibleTest " + possibleTest);
+        _log.logf("Exploring possibleTest %s", possibleTest);
         if (_isJUnitTest(possibleTest)) {
           _testClassNames.add(cName);
           _testFiles.add(pair.second());
           Test test = new JUnit4TestAdapter(possibleTest);
           _suite.addTest(test); 
-          _log.log("Adding test " + test + " to test suite"); 
+          _log.logf("Adding test %s to test suite", test); 
         } else { // cName is a program class that is not a test class
           _nonTestClassNames.add(cName);
-          _log.log("adding " + cName + " to nonTestClassNames");
+          _log.logf("adding %s to nonTestClassNames", cName);
         }
       }
       catch (ClassNotFoundException e) { error.log(e); }
@@ -220,8 +232,8 @@ public class JUnitTestManager {
     }
     
 //    debug.logEnd("result", _testClassNames);
-    _log.log("accumulated non test class names: " + _nonTestClassNames);
-    _log.log("returning: " + _testClassNames);
+    _log.logf("accumulated non test class names: %s", _nonTestClassNames);
+    _log.logf("returning: %s", _testClassNames);
     
     return _testClassNames;
   }
@@ -238,48 +250,22 @@ public class JUnitTestManager {
       _finalResult = new JUnitResultTuple(false, null);
       return false;
     }
-    Map<String, List<String>> lineColors = null;
+    Map<String, IntList> lineColors = null;
     _finalResult = new JUnitResultTuple(true, null);
     
 //    _log.log("runTestSuite() in SlaveJVM called");
     
-    /* Declare fault array for amalgamating errors and failures */
+    /* Faults raised by the tests themselves are reported to _jmc as they occur (see makeRunner); only faults from
+     * running the suite as a whole are left for testSuiteEnded. */
     JUnitError[] faults = new JUnitError[0];
     try {
-      _log.log("Calling _testRunner.runSuite(" + _suite + ")");
-      TestResult result = _testRunner.runSuite(_suite);
-      
-      /* A fault is either an error or a failure. */
-      int faultCount = result.errorCount() + result.failureCount();
-      
-      if (faultCount > 0) {
-        
-        /* NOTE: TestFailure, a JUnit class, is misnamed; it should have been called TestFault with TestFailure
-         * and TestError as disjoint subtypes (e.g., classes) */
-        faults = new JUnitError[faultCount];
-        Enumeration<TestFailure> failures = result.failures();
-        Enumeration<TestFailure> errors = result.errors();
-        
-        int i = 0;
-        
-        // faults should be called faults!  and makeJUnitError should be makeJUnitFault!
-        while (errors.hasMoreElements()) {
-          TestFailure error = errors.nextElement();
-          faults[i] = _makeJUnitError(error, _testClassNames, true, _testFiles);
-          i++;
-        }
-        
-        while (failures.hasMoreElements()) {
-          TestFailure failure = failures.nextElement();
-          faults[i] = _makeJUnitError(failure, _testClassNames, false, _testFiles);
-          i++;
-        }
-      }
+      _log.logf("Calling _testRunner.runSuite(%s)", _suite);
+      _testRunner.runSuite(_suite);
 
       _log.log("Testing doCoverage");
       
       if (_runtime != null) { /* doCoverage was true */
-        _log.log("Analyzing coverage data for " + _nonTestClassNames);
+        _log.logf("Analyzing coverage data for %s", _nonTestClassNames);
 
         /* Collect session info (including which code was executed) */
         final ExecutionDataStore _executionDataStore = new ExecutionDataStore();
@@ -289,21 +275,7 @@ public class JUnitTestManager {
         _runtime.shutdown();
         
         /** Together with the original class definitions we can calculate coverage information. */
-        final CoverageBuilder coverageBuilder = new CoverageBuilder();
-        final Analyzer analyzer = new Analyzer(_executionDataStore, coverageBuilder);
-        URLClassLoader urlCL = newURLLoader();
-        
-        String cName = null;
-        try {
-          for (int j = 0; j < _nonTestClassNames.size(); j++) {
-            cName = _nonTestClassNames.get(j);
-            InputStream is = urlCL.getResource(cName + ".class").openStream();
-            _log.log("Constructed InputStream " + is + " for class " + cName);
-            analyzer.analyzeClass(is, cName);
-          } 
-        } catch(Exception e) {
-          throw new UnexpectedException(e, "Coverage analysis threw this exception while processing class " + cName);
-        }
+        final CoverageBuilder coverageBuilder = _analyzeCoverage(_executionDataStore);
         
         /* Run the structure analyzer on the project source folder to build up the coverage model. In flat file
          * mode, only the first source directory (if there are multiple source directories) is analyzed.  TODO:
@@ -314,10 +286,10 @@ public class JUnitTestManager {
         IBundleCoverage bundleCoverage = coverageBuilder.getBundle("Coverage Summary");
         ReportGenerator rg = new ReportGenerator(_coverageOutdir, coverageBuilder);
         _log.log("Determining project root");
-        _log.log("getProjectCP() = " + _classPathManager.getProjectFilesCP());
+        if (_log.isEnabled()) _log.log("getProjectCP() = " + _classPathManager.getProjectFilesCP());
         File f = _classPathManager.getProjectFilesCP().iterator().next();
         if (! f.exists()) _log.log("****** Project root does not exist!");
-        _log.log("Creating coverage report for code base rooted at " + f);
+        _log.logf("Creating coverage report for code base rooted at %s", f);
         rg.createReport(bundleCoverage, _executionDataStore, sessionInfos, f);
         lineColors = rg.getAllLineColors();
         _finalResult = new JUnitResultTuple(true, lineColors);
@@ -335,7 +307,7 @@ public class JUnitTestManager {
       faults = new JUnitError[] { 
         new JUnitError(null, -1, -1, e.getMessage(), false, "", "", e.toString(), e.getStackTrace())
       };
-      _log.log("Slave JVM: testSuite ended with faults:" + Arrays.toString(faults));
+      if (_log.isEnabled()) _log.log("Slave JVM: testSuite ended with faults:" + Arrays.toString(faults));
       _reset();
       _jmc.testSuiteEnded(faults);
     }
@@ -344,6 +316,59 @@ public class JUnitTestManager {
     return _finalResult.getRetval();
   }
   
+  /** Analyzes the classes in _nonTestClassNames against the given execution data.
+    * @param executionData the execution data collected during the test run
+    * @return a CoverageBuilder holding the coverage of all analyzed classes
+    */
+  private CoverageBuilder _analyzeCoverage(ExecutionDataStore executionData) {
+    return analyzeCoverage(newURLLoader(), _nonTestClassNames, executionData);
+  }
+  
+  /** Analyzes the given classes against the given execution data.  Classes are analyzed in parallel, each into its 
+    * own CoverageBuilder (which is not thread-safe); the results are merged in the order of classNames.
+    * @param loader the loader used to find the original (uninstrumented) class files
+    * @param classNames the names of the classes to analyze
+    * @param executionData the execution data collected during the test run; only read during analysis
+    * @return a CoverageBuilder holding the coverage of all analyzed classes
+    * @throws UnexpectedException if a class file is missing or cannot be analyzed
+    */
+  static CoverageBuilder analyzeCoverage(final ClassLoader loader, final List<String> classNames, 
+                                         final ExecutionDataStore executionData) {
+    final int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), classNames.size()));
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Collection<IClassCoverage>>> results = 
+        new ArrayList<Future<Collection<IClassCoverage>>>(classNames.size());
+      for (final String cName : classNames) {
+        results.add(executor.submit(new Callable<Collection<IClassCoverage>>() {
+          public Collection<IClassCoverage> call() throws IOException {
+            final URL url = loader.getResource(cName.replace('.', '/') + ".class");
+            if (url == null) throw new FileNotFoundException("No class file for " + cName);
+            final CoverageBuilder builder = new CoverageBuilder();
+            final InputStream is = url.openStream();
+            _log.logf("Constructed InputStream %s for class %s", is, cName);
+            try { new Analyzer(executionData, builder).analyzeClass(is, cName); }
+            finally { is.close(); }
+            return builder.getClasses();
+          }
+        }));
+      }
+      
+      final CoverageBuilder coverageBuilder = new CoverageBuilder();
+      for (int j = 0; j < results.size(); j++) {
+        try { for (IClassCoverage cc : results.get(j).get()) coverageBuilder.visitCoverage(cc); }
+        catch (ExecutionException e) {
+          throw new UnexpectedException(e.getCause(), 
+                                        "Coverage analysis threw this exception while processing class " + 
+                                        classNames.get(j));
+        }
+        catch (InterruptedException e) { throw new UnexpectedException(e); }
+      }
+      return coverageBuilder;
+    }
+    finally { executor.shutdownNow(); }
+  }
+  
   private void _reset() {
     _suite = null;
     _testClassNames = null;
@@ -358,7 +383,7 @@ public class JUnitTestManager {
     * @return true iff the given class is an instance of junit.framework.Test
     */
   private boolean _isJUnitTest(Class<?> c) {
-    _log.log("Testing class " + c + " to determine if it is a JUnit test class");
+    _log.logf("Testing class %s to determine if it is a JUnit test class", c);
 
     // test first for JUnit 4 annotated test methods
     for (Method method : c.getDeclaredMethods()) {
@@ -402,71 +427,44 @@ public class JUnitTestManager {
       className = testString.substring(0, firstIndex-1);
     
     
-    String classNameAndTest = className + "." + testName;
-//   _log.log("classNameAndTest = " + classNameAndTest);
     String exception = failure.thrownException().toString();
     StackTraceElement[] stackTrace = failure.thrownException().getStackTrace();
     
     /* Check to see if the class and test name appear directly in the stack trace. If
      * they don't, then we'll have to do additional work to find the line number. Additionally,
      * if the exception occured in a subclass of the test class, we'll need to adjust our conception
-     * of the class name.
+     * of the class name.  The stack trace elements are examined directly rather than printed and searched.
      */
-    StringBuilder sb = new StringBuilder();
-    sb.append(exception);
-    sb.append('\n');
-    for(StackTraceElement s: stackTrace) {
-      sb.append("\tat ");
-      sb.append(s);
-    }
-    String combined = sb.toString();
     int lineNum = -1;
     
-    if (combined.indexOf(classNameAndTest) == -1) {
-      /* get the stack trace of the junit error */
-      String trace = failure.trace();
-      /* knock off the first line of the stack trace.
-       * now the string will look like
-       * at my.package.class(file.java:line)
-       * at other.package.class(anotherfile.java:line)
-       * etc...
+    if (_findFrame(stackTrace, className, testName) == null) {
+      /* The frames from junit.framework.Assert* are skipped; if the exception was thrown from the test case (so the 
+       * test failed without going through assert), then the source file will be on the first frame of the trace.
        */
-      trace = trace.substring(trace.indexOf('\n')+1);
-      if (trace.trim().length()>0) {
-        while (trace.indexOf("junit.framework.Assert") != -1 &&
-               trace.indexOf("junit.framework.Assert") < trace.indexOf("(")) {
-          /* the format of the trace will have "at junit.framework.Assert..."
-           * on each line until the line of the actual source file.
-           * if the exception was thrown from the test case (so the test failed
-           * without going through assert), then the source file will be on
-           * the first line of the stack trace
-           */
-          trace = trace.substring(trace.indexOf('\n') + 1);
-        }
-        trace = trace.substring(trace.indexOf('(')+1);
-        trace = trace.substring(0, trace.indexOf(')'));
+      StackTraceElement frame = null;
+      for (StackTraceElement s: stackTrace) {
+        if (! s.getClassName().startsWith("junit.framework.Assert")) { frame = s; break; }
+      }
+      if (frame != null) {
         // If the exception occurred in a subclass of the test class, then update our
         // concept of the class and test name. Otherwise, we're only here to pick up the
         // line number.
-        if (combined.indexOf(className) == -1) {
-          int dotPos = trace.lastIndexOf('.');
-          if (dotPos!=-1) {
-            className = trace.substring(0,dotPos);
-            classNameAndTest = className + "." + testName;
-          }
-        }
-        
-        try {
-          lineNum = Integer.parseInt(trace.substring(trace.indexOf(':') + 1)) - 1;
+        if (! _traceMentions(stackTrace, className) && frame.getFileName() != null) {
+          String fileName = frame.getFileName();
+          int dotPos = fileName.lastIndexOf('.');
+          if (dotPos != -1) className = fileName.substring(0, dotPos);
         }
-        catch (NumberFormatException e) { lineNum = 0; } // may be native method
-      }      
+        lineNum = _lineIndex(frame);
+      }
     }
     
     if (lineNum < 0) {
-      lineNum = _lineNumber(combined, classNameAndTest);
+      StackTraceElement frame = _findFrame(stackTrace, className, testName);
+      if (frame != null) lineNum = _lineIndex(frame);
     }
     
+    String classNameAndTest = className + "." + testName;
+    
 //    if (lineNum > -1) _faultsWithPos++;
     
     String message =  (isError) ? failure.thrownException().toString(): 
@@ -510,36 +508,45 @@ public class JUnitTestManager {
     return new JUnitError(file, lineNum, 0, message, !isFailure, testName, className, exception, stackTrace);
   }
   
-  /** Parses the line number out of the stack trace in the given class name. 
-    * @param sw stack trace
-    * @param classname class in which stack trace was generated
-    * @return the line number
+  /** @param stackTrace the stack trace to search
+    * @param className the fully qualified name of a class
+    * @param methodName the name of a method of className
+    * @return the first frame of stackTrace executing the given method, or null if there is none
     */
-  private int _lineNumber(String sw, String classname) {
-    // TODO: use stack trace elements to find line number
-    int lineNum;
-    int idxClassname = sw.indexOf(classname);
-    if (idxClassname == -1) return -1;
-    
-    String theLine = sw.substring(idxClassname, sw.length());
-    
-    theLine = theLine.substring(theLine.indexOf(classname), theLine.length());
-    theLine = theLine.substring(theLine.indexOf("(") + 1, theLine.length());
-    theLine = theLine.substring(0, theLine.indexOf(")"));
-    
-    try {
-      int i = theLine.indexOf(":") + 1;
-      lineNum = Integer.parseInt(theLine.substring(i, theLine.length())) - 1;
+  private static StackTraceElement _findFrame(StackTraceElement[] stackTrace, String className, String methodName) {
+    for (StackTraceElement s: stackTrace) {
+      if (s.getClassName().equals(className) && s.getMethodName().equals(methodName)) return s;
     }
-    catch (NumberFormatException e) { lineNum = 0; } // may be native method
-    
-    return lineNum;
+    return null;
+  }
+  
+  /** @param stackTrace the stack trace to search
+    * @param className the fully qualified name of a class
+    * @return true iff some frame of stackTrace executes code of className or one of its nested classes
+    */
+  private static boolean _traceMentions(StackTraceElement[] stackTrace, String className) {
+    for (StackTraceElement s: stackTrace) {
+      if (s.getClassName().startsWith(className)) return true;
+    }
+    return false;
+  }
+  
+  /** @param frame a stack trace element
+    * @return the zero-based line number of frame; 0 if it is unknown (e.g., in a native method)
+    */
+  private static int _lineIndex(StackTraceElement frame) {
+    int line = frame.getLineNumber();
+    return (line > 0) ? line - 1 : 0;
   }
   
   /** @param loader current template for the runner's class loader
     * @return a fresh JUnitTestRunner with its own class loader instance. 
     */
   private JUnitTestRunner makeRunner(ClassLoader loader) {
-    return new JUnitTestRunner(_jmc, loader);
+    return new JUnitTestRunner(_jmc, loader, new Lambda2<TestFailure, Boolean, JUnitError>() {
+      public JUnitError value(TestFailure failure, Boolean isError) {
+        return _makeJUnitError(failure, _testClassNames, isError, _testFiles);
+      }
+    });
   }
 }
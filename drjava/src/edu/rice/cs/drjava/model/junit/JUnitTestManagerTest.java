@@ -0,0 +1,114 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.junit;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.model.coverage.CoverageRuntime;
+import edu.rice.cs.drjava.model.coverage.JacocoClassLoader;
+import edu.rice.cs.util.UnexpectedException;
+
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/** Tests the coverage analysis of JUnitTestManager.
+  * @version $Id$
+  */
+public final class JUnitTestManagerTest extends DrJavaTestCase {
+  
+  /** A class that is run instrumented. */
+  public static class Covered implements Runnable {
+    public void run() { System.getProperty("user.dir"); }
+  }
+  
+  /** A class that is never run. */
+  public static class Uncovered implements Runnable {
+    public void run() { System.getProperty("user.dir"); }
+  }
+  
+  /** Runs Covered instrumented and returns the collected execution data. */
+  private ExecutionDataStore _runCovered() throws Exception {
+    File binDir = new File(getClass().getProtectionDomain().getCodeSource().getLocation().toURI());
+    CoverageRuntime runtime = new CoverageRuntime();
+    RuntimeData data = new RuntimeData();
+    runtime.startup(data);
+    try {
+      JacocoClassLoader loader = new JacocoClassLoader(Arrays.asList(binDir), new Instrumenter(runtime), 
+                                                       getClass().getClassLoader());
+      ((Runnable) loader.loadClass(Covered.class.getName()).newInstance()).run();
+      ExecutionDataStore store = new ExecutionDataStore();
+      data.collect(store, new SessionInfoStore(), false);
+      return store;
+    }
+    finally { runtime.shutdown(); }
+  }
+  
+  /** Tests that every class is analyzed and only the run class is covered. */
+  public void testAnalyzeCoverage() throws Exception {
+    ExecutionDataStore store = _runCovered();
+    CoverageBuilder builder = 
+      JUnitTestManager.analyzeCoverage(getClass().getClassLoader(), 
+                                       Arrays.asList(Covered.class.getName(), Uncovered.class.getName()), store);
+    Map<String, IClassCoverage> classes = new HashMap<String, IClassCoverage>();
+    for (IClassCoverage cc : builder.getClasses()) classes.put(cc.getName().replace('/', '.'), cc);
+    assertEquals("both classes analyzed", 2, classes.size());
+    assertTrue("run class covered", classes.get(Covered.class.getName()).getLineCounter().getCoveredCount() > 0);
+    assertEquals("other class not covered", 0, 
+                 classes.get(Uncovered.class.getName()).getLineCounter().getCoveredCount());
+  }
+  
+  /** Tests that a missing class file is reported with the name of the class. */
+  public void testAnalyzeCoverageMissingClass() {
+    try {
+      JUnitTestManager.analyzeCoverage(getClass().getClassLoader(), 
+                                       Arrays.asList(Covered.class.getName(), "no.such.Missing"), 
+                                       new ExecutionDataStore());
+      fail("missing class file not reported");
+    }
+    catch (UnexpectedException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("no.such.Missing"));
+    }
+  }
+}
@@ -36,9 +36,12 @@
 
 package edu.rice.cs.drjava.model.junit;
 
+import java.util.ArrayList;
+
 import junit.runner.*;
 import junit.framework.*;
 
+import edu.rice.cs.plt.lambda.Lambda2;
 import edu.rice.cs.util.Log;
 import edu.rice.cs.util.UnexpectedException;
 
@@ -52,6 +55,9 @@ public class JUnitTestRunner extends BaseTestRunner {
   
   /** Receives updates on the test suite's progress. */
   private JUnitModelCallback _jmc;
+  
+  /** Converts a fault (and whether it is an error rather than a failure) into a JUnitError for _jmc. */
+  private final Lambda2<TestFailure, Boolean, JUnitError> _faultConverter;
 
   /** Class loader that uses DrJava's classpath. */
   private ClassLoader _loader;
@@ -70,11 +76,14 @@ public class JUnitTestRunner extends BaseTestRunner {
   /** Standard constructor. 
    * @param jmc a JUnitModelCallback
    * @param loader class loader to use during testing
+   * @param faultConverter converts each fault to the JUnitError reported to jmc
    */
-  public JUnitTestRunner(JUnitModelCallback jmc, ClassLoader loader) {
+  public JUnitTestRunner(JUnitModelCallback jmc, ClassLoader loader, 
+                         Lambda2<TestFailure, Boolean, JUnitError> faultConverter) {
     super();
     _jmc = jmc;
     _loader = loader;
+    _faultConverter = faultConverter;
     _result = null;
     _errorCount = 0;
     _failureCount = 0;
@@ -86,7 +95,7 @@ public class JUnitTestRunner extends BaseTestRunner {
     _failureCount = 0;
 
     // Run the test
-    _result = new TestResult();
+    _result = new StreamingTestResult();
     _result.addListener(this);
     _jmc.testSuiteStarted(suite.countTestCases());
     suite.run(_result);
@@ -95,7 +104,7 @@ public class JUnitTestRunner extends BaseTestRunner {
   
   public Class<?> loadPossibleTest(String className) throws ClassNotFoundException {
     Class<?> c =_loader.loadClass(className);
-    _log.log("Test class " + c + " loaded");
+    _log.logf("Test class %s loaded", c);
     return c;
   }
   
@@ -124,11 +133,46 @@ public class JUnitTestRunner extends BaseTestRunner {
     _jmc.testEnded(testName, success, failure);
   }
   
+  /** Called by BaseTestRunner when a test fails or causes an error, before testEnded.  Reports the fault right away,
+    * so faults are neither accumulated here nor shipped to the main JVM in one piece at the end of the suite.  This
+    * runs inside JUnit's TestResult, so an exception from the conversion (which may call back to the main JVM) would
+    * abort the remaining tests; such faults are reported without source information instead.
+    */
   @Override public synchronized void testFailed(int status, Test test, Throwable t) {
-    // ignore
+    boolean isError = (status == TestRunListener.STATUS_ERROR);
+    JUnitError fault;
+    try { fault = _faultConverter.value(new TestFailure(test, t), isError); }
+    catch (RuntimeException e) {
+      _log.log("Could not convert fault of " + test, e);
+      fault = new JUnitError(null, -1, -1, String.valueOf(t.getMessage()), isError, String.valueOf(test), "",
+                             t.toString(), t.getStackTrace());
+    }
+    _jmc.testFaulted(fault);
   }
   
   @Override protected void runFailed(String message) {
     throw new UnexpectedException(message);
   }  
+  
+  /** A TestResult that counts errors and failures and passes them on to its listeners without retaining them, since
+    * they have already been reported through testFailed.  errors() and failures() are therefore always empty.
+    */
+  private static class StreamingTestResult extends TestResult {
+    private int _errors = 0;
+    private int _failures = 0;
+    
+    @Override public synchronized void addError(Test test, Throwable t) {
+      _errors++;
+      for (TestListener l : new ArrayList<TestListener>(fListeners)) l.addError(test, t);
+    }
+    
+    @Override public synchronized void addFailure(Test test, AssertionFailedError t) {
+      _failures++;
+      for (TestListener l : new ArrayList<TestListener>(fListeners)) l.addFailure(test, t);
+    }
+    
+    @Override public synchronized int errorCount() { return _errors; }
+    @Override public synchronized int failureCount() { return _failures; }
+    @Override public synchronized boolean wasSuccessful() { return _errors == 0 && _failures == 0; }
+  }
 }
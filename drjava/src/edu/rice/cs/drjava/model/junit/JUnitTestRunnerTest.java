@@ -0,0 +1,158 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.model.junit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import junit.framework.TestFailure;
+import junit.framework.TestResult;
+import junit.framework.TestSuite;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.iter.IterUtil;
+import edu.rice.cs.plt.lambda.Lambda2;
+import edu.rice.cs.util.classloader.ClassFileError;
+
+/** Tests that JUnitTestRunner reports each fault as it occurs and counts faults without retaining them.
+  * @version $Id$
+  */
+public final class JUnitTestRunnerTest extends DrJavaTestCase {
+  
+  /** The suite run by these tests: one passing test, one failure, and one error. */
+  public static class Sample extends TestCase {
+    public void testPass() { }
+    public void testFail() { fail("expected failure"); }
+    public void testError() { throw new IllegalStateException("expected error"); }
+  }
+  
+  /** Records the callbacks of a test run, in order. */
+  private static class RecordingCallback implements JUnitModelCallback {
+    final List<String> events = new ArrayList<String>();
+    final List<JUnitError> faults = new ArrayList<JUnitError>();
+    public void nonTestCase(boolean isTestAll, boolean didCompileFail) { events.add("nonTestCase"); }
+    public void classFileError(ClassFileError e) { events.add("classFileError"); }
+    public void testSuiteStarted(int numTests) { events.add("suiteStarted " + numTests); }
+    public void testStarted(String testName) { events.add("started " + _shortName(testName)); }
+    public void testEnded(String testName, boolean wasSuccessful, boolean causedError) {
+      events.add("ended " + _shortName(testName) + " " + wasSuccessful);
+    }
+    public void testFaulted(JUnitError fault) {
+      events.add("faulted " + _shortName(fault.testName()));
+      faults.add(fault);
+    }
+    public void testSuiteEnded(JUnitError[] errors) { events.add("suiteEnded"); }
+    public File getFileForClassName(String className) { return null; }
+    public Iterable<File> getClassPath() { return IterUtil.empty(); }
+    public void junitJVMReady() { }
+  }
+  
+  /** @return the method name in a test name of the form "method(class)" */
+  private static String _shortName(String testName) {
+    int paren = testName.indexOf('(');
+    return (paren < 0) ? testName : testName.substring(0, paren);
+  }
+  
+  /** A converter that keeps only the test name and the kind of fault. */
+  private static final Lambda2<TestFailure, Boolean, JUnitError> SIMPLE_CONVERTER =
+    new Lambda2<TestFailure, Boolean, JUnitError>() {
+    public JUnitError value(TestFailure failure, Boolean isError) {
+      return new JUnitError(failure.exceptionMessage(), isError, failure.failedTest().toString());
+    }
+  };
+  
+  private TestResult _run(RecordingCallback callback, Lambda2<TestFailure, Boolean, JUnitError> converter) {
+    JUnitTestRunner runner = new JUnitTestRunner(callback, getClass().getClassLoader(), converter);
+    TestSuite suite = new TestSuite();
+    suite.addTest(TestSuite.createTest(Sample.class, "testPass"));
+    suite.addTest(TestSuite.createTest(Sample.class, "testFail"));
+    suite.addTest(TestSuite.createTest(Sample.class, "testError"));
+    return runner.runSuite(suite);
+  }
+  
+  /** Tests that each fault is delivered before its test ends, and that the result counts faults without keeping them. */
+  public void testFaultsStreamed() {
+    RecordingCallback callback = new RecordingCallback();
+    TestResult result = _run(callback, SIMPLE_CONVERTER);
+    
+    List<String> expected = new ArrayList<String>();
+    expected.add("suiteStarted 3");
+    expected.add("started testPass");
+    expected.add("ended testPass true");
+    expected.add("started testFail");
+    expected.add("faulted testFail");
+    expected.add("ended testFail false");
+    expected.add("started testError");
+    expected.add("faulted testError");
+    expected.add("ended testError false");
+    assertEquals(expected, callback.events);
+    
+    assertEquals("expected failure", callback.faults.get(0).message());
+    assertFalse("a failure", callback.faults.get(0).isWarning());
+    assertEquals("expected error", callback.faults.get(1).message());
+    assertTrue("an error", callback.faults.get(1).isWarning());
+    
+    assertEquals(3, result.runCount());
+    assertEquals(1, result.failureCount());
+    assertEquals(1, result.errorCount());
+    assertFalse(result.wasSuccessful());
+    assertFalse("faults are not retained", result.failures().hasMoreElements());
+    assertFalse("faults are not retained", result.errors().hasMoreElements());
+  }
+  
+  /** Tests that a fault that can't be converted is still reported, and the remaining tests still run. */
+  public void testConversionFailure() {
+    RecordingCallback callback = new RecordingCallback();
+    TestResult result = _run(callback, new Lambda2<TestFailure, Boolean, JUnitError>() {
+      public JUnitError value(TestFailure failure, Boolean isError) {
+        throw new RuntimeException("lost connection to the main JVM");
+      }
+    });
+    
+    assertEquals(3, result.runCount());
+    assertEquals(1, result.failureCount());
+    assertEquals(1, result.errorCount());
+    assertEquals("both faults reported", 2, callback.faults.size());
+    assertEquals("expected failure", callback.faults.get(0).message());
+    assertEquals("testFail", _shortName(callback.faults.get(0).testName()));
+    assertEquals("expected error", callback.faults.get(1).message());
+    assertTrue("an error", callback.faults.get(1).isWarning());
+    assertEquals("last test ended", "ended testError false", callback.events.get(callback.events.size() - 1));
+  }
+}
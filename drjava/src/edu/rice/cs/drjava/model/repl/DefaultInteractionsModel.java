@@ -106,14 +106,14 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
   public void replSystemErrPrint(String s) {
     super.replSystemErrPrint(s);
     _model.systemErrPrint(s);
-    _log.log("Printing string '" + s + "'");
+    _log.logf("Printing string '%s'", s);
   }
   
   /** Returns a line of text entered by the user at the equivalent of System.in.  This method may be safely called
     * from outside the event thread. */
   public String getConsoleInput() { 
     String s = super.getConsoleInput();
-    _log.log("Returning '" + s + "' as console input");
+    _log.logf("Returning '%s' as console input", s);
     _model.systemInEcho(s);
     return s; 
   }
@@ -141,7 +141,7 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
       public void run() {
         String output = "JVM failed to start.  Make sure a firewall is not blocking " +
           StringOps.NEWLINE + "inter-process communication.  See the console tab for details." + StringOps.NEWLINE;
-        _log.log("inserted '" + output + "' before prompt");
+        _log.logf("inserted '%s' before prompt", output);
         _document.insertBeforeLastPrompt(output, InteractionsDocument.ERROR_STYLE);
          // Print the exception to the console
         _model.systemErrPrint(StringOps.getStackTrace(e));  // redundantly moves code to event thread
@@ -155,7 +155,7 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
   public void interpreterReady(File wd) {
     _model.resetInteractionsClassPath();  // Done here rather than in the superclass because _model is available here.
     super.interpreterReady(wd);
-    _log.log("****Event: interpreterReady(" + wd +") called");
+    _log.logf("****Event: interpreterReady(%s) called", wd);
   }
   
   /** In the event thread, notifies listeners that an interaction has started. */
@@ -188,7 +188,7 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
   protected void _notifyInterpreterChanged(final boolean inProgress) {
     Utilities.invokeLater(new Runnable() { public void run() { 
       _notifier.interpreterChanged(inProgress); 
-      _log.log("****Event: the interpreter was changed; inProgess = " + inProgress);
+      _log.logf("****Event: the interpreter was changed; inProgess = %s", inProgress);
     } });
   }
   
@@ -206,7 +206,7 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
 //    System.out.println("Asynchronously notifying interpreterReady event listeners");  // DEBUG
     Utilities.invokeLater(new Runnable() { public void run() { 
       _notifier.interpreterReady(wd); 
-      _log.log("****Event: the interpreter is ready with wd " + wd);
+      _log.logf("****Event: the interpreter is ready with wd %s", wd);
     } });
   }
   
@@ -216,7 +216,7 @@ public class DefaultInteractionsModel extends RMIInteractionsModel {
   protected void _notifyInterpreterExited(final int status) {
     Utilities.invokeLater(new Runnable() { public void run() { 
       _notifier.interpreterExited(status); 
-      _log.log("****Event: the interpreter exited unexpectedly with status = " + status);
+      _log.logf("****Event: the interpreter exited unexpectedly with status = %s", status);
     } });
   }
   
@@ -40,6 +40,7 @@ import java.io.*;
 import java.net.ServerSocket;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 import javax.swing.text.BadLocationException;
 
@@ -211,12 +212,12 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
                 
         toEval = transformCommands(toEval);
         
-        _log.log("Preparing to interpret '" + toEval  + "'");
+        _log.logf("Preparing to interpret '%s'", toEval);
         final String evalText = toEval;
 
         new Thread(new Runnable() { 
           public void run() {
-            _log.log("InteractionsModel.interpretCurrentInteraction is interpreting '" + evalText + "'");
+            _log.logf("InteractionsModel.interpretCurrentInteraction is interpreting '%s'", evalText);
             try { interpret(evalText); } 
             catch(Throwable t) { DrJavaErrorHandler.record(t); }
           } 
@@ -262,6 +263,17 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
     */
   public abstract Pair<String,String> getVariableToString(String var);
   
+  /** Gets the string representations of the values of several variables in the current interpreter.  Subclasses 
+    * that talk to a remote interpreter override this method to fetch all values at once.
+    * @param vars the names of the variables
+    * @return the result of {@link #getVariableToString} for each variable, in the same order
+    */
+  public List<Pair<String,String>> getVariablesToString(List<String> vars) {
+    List<Pair<String,String>> result = new ArrayList<Pair<String,String>>(vars.size());
+    for (String var : vars) { result.add(getVariableToString(var)); }
+    return result;
+  }
+  
   /** Resets the Java interpreter with working directory wd. 
     * @param wd the working directory to be set
     * @param force true if reset is to be forced (restarting the slave JVM)
@@ -552,7 +564,7 @@ public abstract class InteractionsModel implements InteractionsModelCallback {
   public void _interactionIsOver() {
     Utilities.invokeLater(new Runnable() {
       public void run() {
-        _log.log("Adding to history '" + _toAddToHistory + "'");
+        _log.logf("Adding to history '%s'", _toAddToHistory);
         _document.addToHistory(_toAddToHistory);  // better place for this action despite bug report #952
         _document.setInProgress(false);
         _document.insertPrompt();
@@ -44,6 +44,8 @@ import edu.rice.cs.util.text.ConsoleDocumentInterface;
 
 import java.io.File;
 import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
 
 import static edu.rice.cs.plt.debug.DebugUtil.debug;
 
@@ -89,6 +91,18 @@ public abstract class RMIInteractionsModel extends InteractionsModel {
     return retval;
   }
   
+  /** Gets the string representations of the values of several variables in the current interpreter, using a single
+    * call to the interpreter JVM.
+    * @param vars the names of the variables
+    */
+  public List<Pair<String,String>> getVariablesToString(List<String> vars) {
+    Option<List<Pair<String,String>>> result = _jvm.getVariablesToString(vars);
+    if (result.isSome()) return result.unwrap();
+    List<Pair<String,String>> empty = new ArrayList<Pair<String,String>>(vars.size());
+    for (int i = 0; i < vars.size(); ++i) { empty.add(new Pair<String,String>("","")); }
+    return empty;
+  }
+  
   /** Adds the given path to the interpreter's class path.
     * @param f  the path to add
     */
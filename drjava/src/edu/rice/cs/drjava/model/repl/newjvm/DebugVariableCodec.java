@@ -0,0 +1,132 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.util.List;
+
+/** Encodes the local variables of a debugged stack frame as a single string, so that the debugger can move
+  * all of a frame's names and primitive values between the debugger and the interpreter JVM with one JDWP
+  * round trip instead of one (or, for boxing, several) per variable.  The string is a comma-separated list
+  * with one entry per variable.  An entry is {@link #REFERENCE} if the value is passed separately as an
+  * object, {@link #MISSING} if there is no value, or a primitive type descriptor ({@code Z}, {@code C},
+  * {@code B}, {@code S}, {@code I}, {@code J}, {@code F}, {@code D}) followed by the decimal bits of the
+  * value.  Since identifiers cannot contain commas, the same format is used for lists of variable names.
+  * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger
+  */
+public final class DebugVariableCodec {
+  
+  /** Entry for a value passed as an object rather than encoded in the string. */
+  public static final String REFERENCE = "L";
+  
+  /** Entry for a variable that has no value. */
+  public static final String MISSING = "-";
+  
+  private static final String SEPARATOR = ",";
+  
+  /** Prevents instance creation */
+  private DebugVariableCodec() { }
+  
+  /** @param entries the entries to join; none may contain a comma
+    * @return the entries joined into a single string */
+  public static String join(List<String> entries) {
+    StringBuilder sb = new StringBuilder();
+    for (String e : entries) {
+      if (sb.length() > 0) { sb.append(SEPARATOR); }
+      sb.append(e);
+    }
+    return sb.toString();
+  }
+  
+  /** @param s a string produced by {@link #join}
+    * @param count the expected number of entries
+    * @return the entries of s
+    * @throws IllegalArgumentException if s does not have {@code count} entries */
+  public static String[] split(String s, int count) {
+    String[] result = (count == 0) ? new String[0] : s.split(SEPARATOR, -1);
+    if (result.length != count) { throw new IllegalArgumentException("Expected " + count + " entries: " + s); }
+    return result;
+  }
+  
+  /** @param val a value
+    * @return the entry for val: its encoding if it is a boxed primitive, otherwise {@link #REFERENCE} */
+  public static String encode(Object val) {
+    if (val instanceof Boolean) { return encode('Z', ((Boolean) val) ? 1 : 0); }
+    else if (val instanceof Character) { return encode('C', (Character) val); }
+    else if (val instanceof Byte) { return encode('B', (Byte) val); }
+    else if (val instanceof Short) { return encode('S', (Short) val); }
+    else if (val instanceof Integer) { return encode('I', (Integer) val); }
+    else if (val instanceof Long) { return encode('J', (Long) val); }
+    else if (val instanceof Float) { return encode('F', Float.floatToRawIntBits((Float) val)); }
+    else if (val instanceof Double) { return encode('D', Double.doubleToRawLongBits((Double) val)); }
+    else { return REFERENCE; }
+  }
+  
+  /** @param descriptor a primitive type descriptor
+    * @param bits the bits of the value, as produced by the conversions in {@link #encode(Object)}
+    * @return the entry for the value */
+  public static String encode(char descriptor, long bits) { return descriptor + Long.toString(bits); }
+  
+  /** @param entry an entry
+    * @return true iff entry encodes a primitive value */
+  public static boolean isPrimitive(String entry) {
+    return ! entry.equals(REFERENCE) && ! entry.equals(MISSING);
+  }
+  
+  /** @param entry an entry for which {@link #isPrimitive} is true
+    * @return the boxed primitive value encoded by entry
+    * @throws IllegalArgumentException if entry does not encode a primitive value */
+  public static Object decode(String entry) {
+    if (! isPrimitive(entry) || entry.length() < 2) {
+      throw new IllegalArgumentException("Not a primitive value: " + entry);
+    }
+    long bits;
+    try { bits = Long.parseLong(entry.substring(1)); }
+    catch (NumberFormatException e) { throw new IllegalArgumentException(e); }
+    switch (entry.charAt(0)) {
+      case 'Z': return Boolean.valueOf(bits != 0);
+      case 'C': return Character.valueOf((char) bits);
+      case 'B': return Byte.valueOf((byte) bits);
+      case 'S': return Short.valueOf((short) bits);
+      case 'I': return Integer.valueOf((int) bits);
+      case 'J': return Long.valueOf(bits);
+      case 'F': return Float.valueOf(Float.intBitsToFloat((int) bits));
+      case 'D': return Double.valueOf(Double.longBitsToDouble(bits));
+      default: throw new IllegalArgumentException("Not a primitive value: " + entry);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.drjava.model.repl.newjvm;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+
+/** Tests the encoding of debugger variables in DebugVariableCodec. */
+public final class DebugVariableCodecTest extends DrJavaTestCase {
+  
+  public void testPrimitivesRoundTrip() {
+    Object[] vals = { true, false, 'x', '\uffff', (byte) -3, (short) 1234, -17, Integer.MIN_VALUE,
+      Long.MAX_VALUE, 1.5f, Float.NaN, -0.0, Double.MAX_VALUE };
+    for (Object v : vals) {
+      String entry = DebugVariableCodec.encode(v);
+      assertTrue(entry, DebugVariableCodec.isPrimitive(entry));
+      assertEquals(v, DebugVariableCodec.decode(entry));
+    }
+  }
+  
+  public void testReferences() {
+    assertEquals(DebugVariableCodec.REFERENCE, DebugVariableCodec.encode("abc"));
+    assertEquals(DebugVariableCodec.REFERENCE, DebugVariableCodec.encode(null));
+    assertFalse(DebugVariableCodec.isPrimitive(DebugVariableCodec.REFERENCE));
+    assertFalse(DebugVariableCodec.isPrimitive(DebugVariableCodec.MISSING));
+    try { DebugVariableCodec.decode(DebugVariableCodec.MISSING); fail("decoded a missing value"); }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+  
+  public void testJoinAndSplit() {
+    String s = DebugVariableCodec.join(Arrays.asList("x", DebugVariableCodec.MISSING, "I5"));
+    assertEquals(Arrays.asList("x", DebugVariableCodec.MISSING, "I5"),
+                 Arrays.asList(DebugVariableCodec.split(s, 3)));
+    assertEquals(0, DebugVariableCodec.split(DebugVariableCodec.join(Collections.<String>emptyList()), 0).length);
+    try { DebugVariableCodec.split(s, 2); fail("accepted the wrong number of entries"); }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+}
@@ -294,6 +294,34 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     else return new Object[] { arr[0].first() };
   }
   
+  /** Gets the values of the variables with the given names in the current interpreter.  Invoked reflectively
+    * by the debugger, which copies all of a frame's variables back with this single invocation.
+    * @param varNames the variable names, in the format of {@link DebugVariableCodec#join}
+    * @param count the number of names
+    * @return an array whose first element is a String of {@link DebugVariableCodec} entries, one per
+    *         variable, and whose remaining elements are the (possibly boxed) values of the variables; the
+    *         debugger reads primitive variables from the entries, so that it need not unbox them
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#GET_VARIABLE_VALUES_SIG
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#_copyVariablesFromInterpreter()
+    */
+  public Object[] getVariableValues(String varNames, int count) {
+    String[] names = DebugVariableCodec.split(varNames, count);
+    Object[] result = new Object[count+1];
+    List<String> entries = new ArrayList<String>(count);
+    synchronized(_stateLock) {
+      for (int i = 0; i < count; i++) {
+        Object[] val = getVariableValue(names[i]);
+        if (val.length == 0) { entries.add(DebugVariableCodec.MISSING); }
+        else {
+          entries.add(DebugVariableCodec.encode(val[0]));
+          result[i+1] = val[0];
+        }
+      }
+    }
+    result[0] = DebugVariableCodec.join(entries);
+    return result;
+  }
+  
   //public JUnitResultTuple getLastJUnitResult() {
   //  return this._junitTestManager.getFinalResult();
   //}
@@ -347,6 +375,18 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
       }
     }
   }
+  
+  /** Gets the string representations of the values of several variables in the current interpreter.
+    * @param vars the names of the variables
+    * @return a list with the result of {@link #getVariableToString} for each variable, in the same order
+    */
+  public List<Pair<String,String>> getVariablesToString(List<String> vars) {
+    List<Pair<String,String>> result = new ArrayList<Pair<String,String>>(vars.size());
+    synchronized(_stateLock) {
+      for (String var : vars) { result.add(getVariableToString(var)); }
+    }
+    return result;
+  }
 
   /** @param c the class to get the name of
    * @return the name of the class, with the right number of array suffixes 
@@ -450,6 +490,32 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     }
   }
   
+  /** Adds a named Interpreter in the given environment to the list.  Invoked reflectively by the debugger,
+    * which passes names and primitive values encoded as strings so that they need not be mirrored and boxed
+    * one at a time in this JVM.
+    * @param name  The unique name for the interpreter
+    * @param thisVal  The value of {@code this} (may be null, implying this is a static context)
+    * @param thisClass  The class in whose context the interpreter is to be created
+    * @param localVars  Values of local variables with a {@link DebugVariableCodec#REFERENCE} entry
+    *                   (other elements are ignored)
+    * @param localVarNames  Names of the local variables, in the format of {@link DebugVariableCodec#join}
+    * @param localVarClasses  Classes of the local variables (null for primitives)
+    * @param localVarEntries  {@link DebugVariableCodec} entries for the local variables
+    * @throws IllegalArgumentException if the name is not unique, or if the local var arguments
+    *                                  are not all of the same length
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#ADD_INTERPRETER_SIG
+    * @see edu.rice.cs.drjava.model.debug.jpda.JPDADebugger#_dumpVariablesIntoInterpreterAndSwitch
+    */
+  public void addInterpreter(String name, Object thisVal, Class<?> thisClass, Object[] localVars,
+                             String localVarNames, Class<?>[] localVarClasses, String localVarEntries) {
+    String[] names = DebugVariableCodec.split(localVarNames, localVars.length);
+    String[] entries = DebugVariableCodec.split(localVarEntries, localVars.length);
+    for (int i = 0; i < entries.length; i++) {
+      if (DebugVariableCodec.isPrimitive(entries[i])) { localVars[i] = DebugVariableCodec.decode(entries[i]); }
+    }
+    addInterpreter(name, thisVal, thisClass, localVars, names, localVarClasses);
+  }
+  
   /** A custom context for interpreting within the body of a defined method. */
   private static class DebugMethodContext extends DelegatingContext {
     private final boolean _isStatic;
@@ -588,9 +654,17 @@ public class InterpreterJVM extends AbstractSlaveJVM implements InterpreterJVMRe
     catch (RemoteException re) { error.log(re); }
   }
   
+  /** Notifies that a test has failed or caused an error.  Unsynchronized because it contains a remote call.
+    * @param fault The failure or error.
+    */
+  public void testFaulted(JUnitError fault) {
+    try { _mainJVM.testFaulted(fault); }
+    catch (RemoteException re) { error.log(re); }
+  }
+  
   /** Notifies that a full suite of tests has finished running.  Unsynchronized because it contains a remote call
     * and does not involve mutable local state.
-    * @param errors The array of errors from all failed tests in the suite.
+    * @param errors Errors not already reported through testFaulted.
     */
   public void testSuiteEnded(JUnitError[] errors) {
     try { _mainJVM.testSuiteEnded(errors); }
@@ -121,6 +121,13 @@ public interface InterpreterJVMRemoteI extends SlaveRemote {
    */
   public Pair<String,String> getVariableToString(String var) throws RemoteException;
   
+  /** Gets the string representations of the values of several variables in the current interpreter, in one call.
+   * @param vars the names of the variables
+   * @return a list with the result of {@link #getVariableToString} for each variable, in the same order
+   * @throws RemoteException if communication over RMI fails
+   */
+  public List<Pair<String,String>> getVariablesToString(List<String> vars) throws RemoteException;
+  
   /** @return the current class path.
    * @throws RemoteException if communication over RMI fails
    */
@@ -278,8 +278,15 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
     _junitModel.testEnded(testName, wasSuccessful, causedError);
   }
  
+  /** Called when a test has failed or caused an error. Forwards from the other JVM to the local JUnit model.
+   * @param fault The failure or error.
+   */
+  public void testFaulted(JUnitError fault) {
+    _junitModel.testFaulted(fault);
+  }
+ 
   /** Called when a full suite of tests has finished running. Forwards from the other JVM to the local JUnit model.
-   * @param errors The array of errors from all failed tests in the suite.
+   * @param errors Errors not already reported through testFaulted.
    */
   public void testSuiteEnded(JUnitError[] errors) {
     _junitModel.testSuiteEnded(errors);
@@ -383,6 +390,19 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
     catch (RemoteException e) { _handleRemoteException(e); return Option.none(); }
   }
   
+  /** Gets the string representations of the values of several variables in the current interpreter in a single 
+    * round trip, or "none" if the remote JVM is unavailable or an error occurs.  Blocks until the interpreter is 
+    * connected.
+    * @param vars the names of the variables
+    * @return string representations of vars, in the same order
+    */
+  public Option<List<Pair<String,String>>> getVariablesToString(List<String> vars) {
+    InterpreterJVMRemoteI remote = _state.value().interpreter(false);
+    if (remote == null) { return Option.none(); }
+    try { return Option.some(remote.getVariablesToString(vars)); }
+    catch (RemoteException e) { _handleRemoteException(e); return Option.none(); }
+  }
+  
   /** Blocks until the interpreter is connected. 
     * @param f file to be added to the class path
     * @return {@code true} if the change was successfully passed to the remote JVM.
@@ -1130,6 +1150,7 @@ public class MainJVM extends AbstractMasterJVM implements MainJVMRemoteI {
     public void testSuiteStarted(int numTests) { }
     public void testStarted(String testName) { }
     public void testEnded(String testName, boolean wasSuccessful, boolean causedError) { }
+    public void testFaulted(JUnitError fault) { }
     public void testSuiteEnded(JUnitError[] errors) { }
     public File getFileForClassName(String className) { return null; }
     public Iterable<File> getClassPath() { return IterUtil.empty(); }
@@ -101,8 +101,14 @@ public interface MainJVMRemoteI extends MasterRemote {
   public void testEnded(String testName, boolean wasSuccessful, boolean causedError)
     throws RemoteException;
   
+  /** Called as soon as a test fails or causes an error.
+    * @param fault The failure or error.
+    * @throws RemoteException if remote communication fails
+    */
+  public void testFaulted(JUnitError fault) throws RemoteException;
+  
   /** Called when a full suite of tests has finished running.
-    * @param errors The array of errors from all failed tests in the suite.
+    * @param errors Errors not already reported through testFaulted.
     * @throws RemoteException if remote communication fails
     */
   public void testSuiteEnded(JUnitError[] errors) throws RemoteException;
@@ -40,6 +40,7 @@ import edu.rice.cs.drjava.DrJavaTestCase;
 
 import edu.rice.cs.plt.concurrent.CompletionMonitor;
 import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.tuple.Pair;
 import edu.rice.cs.util.Log;
 import edu.rice.cs.util.UnexpectedException;
 
@@ -48,6 +49,8 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.List;
 
 import static edu.rice.cs.plt.debug.DebugUtil.debug;
 
@@ -206,6 +209,25 @@ public final class NewJVMTest extends DrJavaTestCase {
 //     }
     debug.logEnd();
   }
+  
+  /** Ensure that several variables can be fetched with one call, with the same results as fetching each one. */
+  public void testGetVariablesToString() {
+    debug.logStart();
+    
+    assertTrue(_jvm.interpret("int batchX = 7; String batchS = \"hi\"; Object batchN = null;"));
+    List<String> names = Arrays.asList("batchX", "batchS", "batchN", "batchUndefined");
+    List<Pair<String,String>> values = _jvm.getVariablesToString(names).unwrap();
+    assertEquals("one result per variable", names.size(), values.size());
+    assertEquals("7", values.get(0).first());
+    assertEquals("hi", values.get(1).first());
+    assertEquals("null", values.get(2).first());
+    assertEquals("undefined variable", new Pair<String,String>(null, null), values.get(3));
+    for (int i = 0; i < names.size(); i++) {
+      assertEquals(names.get(i), _jvm.getVariableToString(names.get(i)).unwrap(), values.get(i));
+    }
+    
+    debug.logEnd();
+  }
 
   private static class TestJVMExtension extends MainJVM {
     private static final int WAIT_TIMEOUT = 30000; // time to wait for an interaction to complete
@@ -107,7 +107,7 @@ public class XMLProjectFileParser extends ProjectFileParserFacade {
       
       // create a sub-configuration so we don't have to prefix everything with "drjava/project/"
       _xc = new XMLConfig(xcParent, xcParent.getNodes("drjava/project").get(0));
-      LOG.log(_xc.toString());
+      if (LOG.isEnabled()) { LOG.log(_xc.toString()); }  // writes out the whole document
       String s;
       
       // read project root; must be present
@@ -230,7 +230,7 @@ public class XMLProjectFileParser extends ProjectFileParserFacade {
     List<DocFile> docFList = new ArrayList<DocFile>();
     List<Node> defs = _xc.getNodes(path + "/file");
     LOG.log("\tdefs.size() = " + defs.size());
-    for(Node n: defs) { LOG.log("\t" + n.getNodeValue()); }
+    if (LOG.isEnabled()) { for(Node n: defs) { LOG.log("\t" + n.getNodeValue()); } }
 
     for(Node n: defs) {
       LOG.log("\t" + n.toString());
@@ -385,6 +385,7 @@ public class AutoCompletePopup {
       new java.util.ArrayList<MatchingStrategy<AutoCompletePopupEntry>>();
     strategies.add(new FragmentStrategy<AutoCompletePopupEntry>());
     strategies.add(new PrefixStrategy<AutoCompletePopupEntry>());
+    strategies.add(new CamelCaseStrategy<AutoCompletePopupEntry>());
     strategies.add(new RegExStrategy<AutoCompletePopupEntry>());
     
     GoToFileListEntry entry = new GoToFileListEntry(new DummyOpenDefDoc() {
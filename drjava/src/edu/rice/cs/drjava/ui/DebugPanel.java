@@ -37,6 +37,7 @@
 package edu.rice.cs.drjava.ui;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.*;
 import javax.swing.table.*;
@@ -88,8 +89,8 @@ public class DebugPanel extends JPanel implements OptionConstants {
   private JLabel _statusBar;
 
   private ArrayList<DebugWatchData> _watches;
-  private ArrayList<DebugThreadData> _threads;
-  private ArrayList<DebugStackData> _stackFrames;
+  private List<DebugThreadData> _threads;
+  private List<DebugStackData> _stackFrames;
   
   /* The following field is commented out because it was never written (and hence always null). */
 //  private DefaultTreeCellRenderer dtcr;
@@ -313,11 +314,9 @@ public class DebugPanel extends JPanel implements OptionConstants {
           case 1: return watch.getValue();
           case 2: return watch.getType();
         }
-        fireTableRowsUpdated(row, _watches.size()-1);
         return null;
       }
       else {
-        fireTableRowsUpdated(row, _watches.size()-1);
         // Last row blank
         return "";
       }
@@ -542,7 +541,7 @@ public class DebugPanel extends JPanel implements OptionConstants {
     _stackPopupMenu.add(new AbstractAction("Scroll to Source") {
       public void actionPerformed(ActionEvent e) {
         try {
-          _debugger.scrollToSource(getSelectedStackItem());
+          _scrollToStackFrame(getSelectedStackItem());
         }
         catch (DebugException de) { MainFrameStatics.showDebugError(_frame, de); }
       }
@@ -596,6 +595,13 @@ public class DebugPanel extends JPanel implements OptionConstants {
     return _stackFrames.get(_stackTable.getSelectedRow());
   }
 
+  /** Scrolls to the source of the given stack frame, unless it has no location (for example, a frame that
+    * could not be fetched before the thread resumed).
+    */
+  private void _scrollToStackFrame(DebugStackData frame) throws DebugException {
+    if (frame.getLine() >= 0) { _debugger.scrollToSource(frame); }
+  }
+
   /** @return the selected watch */
   public DebugWatchData getSelectedWatch() {
     return _watches.get(_watchTable.getSelectedRow());
@@ -640,6 +646,15 @@ public class DebugPanel extends JPanel implements OptionConstants {
     public void breakpointReached(final Breakpoint bp) { }
     public void watchSet(final DebugWatchData w) { }
     public void watchRemoved(final DebugWatchData w) { }
+    
+    /** Repaints only the rows of the watches whose values changed.  Only runs in event thread. */
+    public void watchesUpdated(List<DebugWatchData> watches) {
+      AbstractTableModel model = (AbstractTableModel) _watchTable.getModel();
+      for (DebugWatchData w : watches) {
+        int row = _watches.indexOf(w);
+        if (row >= 0) model.fireTableRowsUpdated(row, row);
+      }
+    }
     public void stepRequested() { }
     public void regionAdded(Breakpoint r) { }
     public void regionChanged(Breakpoint r) { }
@@ -720,7 +735,7 @@ public class DebugPanel extends JPanel implements OptionConstants {
 
     protected void _action() {
       try {
-        _debugger.scrollToSource(_stackFrames.get(_lastRow));
+        _scrollToStackFrame(_stackFrames.get(_lastRow));
       }
       catch (DebugException de) {
         MainFrameStatics.showDebugError(_frame, de);
@@ -572,10 +572,8 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     String tabLabel = (title.length() <= 20) ? title : title.substring(0,20);
     RegionManager<MovingDocumentRegion> rm = _model.createFindResultsManager();
 
-    MovingDocumentRegion region = new MovingDocumentRegion(startDoc, 
-      _defPane.getSelectionStart(), _defPane.getSelectionEnd(), 
-      startDoc._getLineStartPos(_defPane.getSelectionStart()),
-      startDoc._getLineEndPos(_defPane.getSelectionEnd()));
+    MovingDocumentRegion region = 
+      new MovingDocumentRegion(startDoc, _defPane.getSelectionStart(), _defPane.getSelectionEnd());
 
     final FindResultsPanel panel = 
       _frame.createFindResultsPanel(rm, region, tabLabel, searchStr, searchAll, searchSelectionOnly, _machine.getMatchCase(),
@@ -673,17 +671,19 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     _machine.setPosition(oldPosition);
     
 //    System.out.println("Adding found regions to corresponding documents");
+    final ArrayList<MovingDocumentRegion> regions = new ArrayList<MovingDocumentRegion>(results.size());
     for (FindResult fr: results) {
       
       final OpenDefinitionsDocument doc = fr.getDocument();
       
       final int end = fr.getFoundOffset();
       final int start = end - searchLen;
-      final int lineStart = doc._getLineStartPos(start);
-      final int lineEnd = doc._getLineEndPos(end);
       
-      rm.addRegion(new MovingDocumentRegion(doc, start, end, lineStart, lineEnd));                       
+      regions.add(new MovingDocumentRegion(doc, start, end));                       
     }
+    panel.startChanging();  // build the panel's tree once rather than node by node
+    try { rm.addRegions(regions); }
+    finally { panel.finishChanging(); }
       
     if (count > 0) _frame.showFindResultsPanel(panel);
     else panel.freeResources();
@@ -713,10 +713,8 @@ class FindReplacePanel extends TabbedPanel implements ClipboardOwner {
     _machine.setSearchBackwards(false);
     final OpenDefinitionsDocument startDoc = _defPane.getOpenDefDocument();
 
-    final MovingDocumentRegion region = new MovingDocumentRegion(startDoc, 
-      _defPane.getSelectionStart(), _defPane.getSelectionEnd(), 
-      startDoc._getLineStartPos(_defPane.getSelectionStart()),
-      startDoc._getLineEndPos(_defPane.getSelectionEnd()));
+    final MovingDocumentRegion region = 
+      new MovingDocumentRegion(startDoc, _defPane.getSelectionStart(), _defPane.getSelectionEnd());
 
     _machine.setSelection(region);
     _frame.clearStatusMessage();
@@ -298,6 +298,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
       getRootNode().removeAllChildren();
       _docToTreeNode.clear();
       _regionToTreeNode.clear();
+      _lazyDocNodes.clear();
       getRegTreeModel().nodeStructureChanged(getRootNode());
       _lastSelectedRegion = null;
 //      _requestFocusInWindow();
@@ -319,10 +320,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
       int end = r.getEndOffset();
       Collection<MovingDocumentRegion> conflictingRegions = bm.getRegionsOverlapping(doc, start, end);
       for (MovingDocumentRegion cr: conflictingRegions) bm.removeRegion(cr);
-
-      int lineStart = r.getLineStartOffset();
-      int lineEnd = r.getLineEndOffset();
-      bm.addRegion(new MovingDocumentRegion(doc, start, end, lineStart, lineEnd));
+      bm.addRegion(new MovingDocumentRegion(doc, start, end));
     }
     _frame.showBookmarks();
   }
@@ -392,6 +390,7 @@ public class FindResultsPanel extends RegionsTreePanel<MovingDocumentRegion> {
   public void freeResources() {
     _docToTreeNode.clear();
     _regionToTreeNode.clear();
+    _lazyDocNodes.clear();
     getGlobalModel().removeFindResultsManager(getRegionManager());  // removes manager from global model (should be done by listener!)
     for (Pair<Option<Color>, OptionListener<Color>> p: _colorOptionListeners) {
       DrJava.getConfig().removeOptionListener(p.first(), p.second());
@@ -692,6 +692,21 @@ public class JarOptionsDialog extends SwingFrame {
     SwingWorker worker = new SwingWorker() {
       boolean _success = false;
       HashSet<String> _exceptions = new HashSet<String>();
+      int _entriesWritten = 0;
+      
+      /** Reports the number of entries written so far in the processing dialog's progress bar. */
+      final Runnable1<String> _progress = new Runnable1<String>() {
+        public void run(String name) {
+          final String text = (++_entriesWritten) + " files added";
+          Utilities.invokeLater(new Runnable() {
+            public void run() {
+              JProgressBar pb = _processingDialog.getProgressBar();
+              pb.setStringPainted(true);
+              pb.setString(text);
+            }
+          });
+        }
+      };
       
       private boolean jarAll(File dir, JarBuilder jarFile, final File outputFile) throws IOException {
         LOG.log("jarOthers(" + dir + " , " + jarFile + ")");
@@ -817,6 +832,7 @@ public class JarOptionsDialog extends SwingFrame {
             else {
               mainJar = new JarBuilder(jarOut);
             }
+            mainJar.setProgressListener(_progress);
             
             //If the project has a set build directory, start there.
             //Otherwise, start at project root
@@ -878,6 +894,7 @@ public class JarOptionsDialog extends SwingFrame {
             else {
               jb = new JarBuilder(jarOut);
             }
+            jb.setProgressListener(_progress);
             //If the project has a set build directory, start there.
             //Otherwise, start at project root
             File binRoot = _model.getBuildDirectory();
@@ -890,6 +907,7 @@ public class JarOptionsDialog extends SwingFrame {
           }
           else {
             JarBuilder jb = new JarBuilder(jarOut);
+            jb.setProgressListener(_progress);
             jarSources(_model, jb);
             jb.close();
           }
@@ -0,0 +1,443 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.ui;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import edu.rice.cs.drjava.ui.MainFrameStatics.JavaAPIListEntry;
+
+/** A compact, binary list of the classes documented in a Javadoc API.  The index consists of a table of link
+  * bases, a table of package paths, and a list of classes sorted by simple name.  Indices for the Javadoc
+  * pages shipped with DrJava are generated at build time by {@link #main}; indices for additional Javadoc
+  * libraries are cached in a local directory, so that the "Open Javadoc" dialog and auto-import do not have
+  * to parse HTML (or go online) on first use.  A cached index is refreshed when its page is a local file that
+  * has changed, when it is older than MAX_CACHE_AGE, or when the cache is cleared.
+  */
+public final class JavaAPIIndex {
+  /** The magic number at the beginning of every index file ("DJAX"). */
+  private static final int MAGIC = 0x444A4158;
+  
+  /** The version of the binary format. */
+  private static final int VERSION = 2;
+  
+  /** The suffix of index files. */
+  public static final String INDEX_SUFFIX = ".idx";
+  
+  /** The prefix of cached index files for additional Javadoc libraries. */
+  private static final String CACHE_PREFIX = "javaapi-";
+  
+  /** How long a cached index of a library that is not a local file is used before the library is parsed again. */
+  public static final long MAX_CACHE_AGE = 7L * 24 * 60 * 60 * 1000;
+  
+  /** The URL or file this index was created from; stored in the file to detect cache collisions. */
+  private final String _source;
+  
+  /** The last-modified time reported for the source when it was parsed, or 0 if unknown. */
+  private final long _sourceModified;
+  
+  /** The time at which this index was created. */
+  private final long _created;
+  
+  /** The link bases, e.g. "http://docs.oracle.com/javase/8/docs/api/". */
+  private final String[] _bases;
+  
+  /** The package paths, e.g. "java/util". */
+  private final String[] _packages;
+  
+  /** The index into _bases of the link base of each package. */
+  private final int[] _packageBases;
+  
+  /** The index into _packages of each class. */
+  private final int[] _classPackages;
+  
+  /** The name of each class within its package, e.g. "Map.Entry". */
+  private final String[] _classNames;
+  
+  private JavaAPIIndex(String source, long sourceModified, long created, String[] bases, String[] packages,
+                       int[] packageBases, int[] classPackages, String[] classNames) {
+    _source = source;
+    _sourceModified = sourceModified;
+    _created = created;
+    _bases = bases;
+    _packages = packages;
+    _packageBases = packageBases;
+    _classPackages = classPackages;
+    _classNames = classNames;
+  }
+  
+  /** @return the URL or file this index was created from. */
+  public String getSource() { return _source; }
+  
+  /** @return the last-modified time reported for the source when it was parsed, or 0 if unknown. */
+  public long getSourceModified() { return _sourceModified; }
+  
+  /** @return the time at which this index was created. */
+  public long getCreated() { return _created; }
+  
+  /** @return the number of classes in this index. */
+  public int size() { return _classNames.length; }
+  
+  /** @return the entries of this index, sorted by simple class name. */
+  public List<JavaAPIListEntry> getEntries() {
+    List<JavaAPIListEntry> entries = new ArrayList<JavaAPIListEntry>(_classNames.length);
+    for (int i = 0; i < _classNames.length; ++i) {
+      int p = _classPackages[i];
+      String path = _packages[p];
+      String name = _classNames[i];
+      String fullName = (path.length() == 0) ? name : path.replace('/', '.') + "." + name;
+      String simpleName = name.substring(name.lastIndexOf('.') + 1);
+      String link = _bases[_packageBases[p]] + ((path.length() == 0) ? "" : path + "/") + name + ".html";
+      try { entries.add(new JavaAPIListEntry(simpleName, fullName, new URL(link))); }
+      catch(MalformedURLException mue) { /* ignore, we'll just not put this class in the list */ }
+    }
+    return entries;
+  }
+  
+  /** Writes this index to the given file.  The index is first written to a temporary file in the same directory
+    * and then renamed, so a concurrent reader never sees a partially written index.
+    * @param f the file to write
+    * @throws IOException if writing fails
+    */
+  public void write(File f) throws IOException {
+    File dir = f.getAbsoluteFile().getParentFile();
+    if (! dir.exists() && ! dir.mkdirs()) throw new IOException("Could not create directory " + dir);
+    File temp = File.createTempFile(f.getName(), ".tmp", dir);
+    try {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        _writeString(out, _source);
+        out.writeLong(_sourceModified);
+        out.writeLong(_created);
+        out.writeInt(_bases.length);
+        for (String b: _bases) _writeString(out, b);
+        out.writeInt(_packages.length);
+        for (int i = 0; i < _packages.length; ++i) {
+          out.writeInt(_packageBases[i]);
+          _writeString(out, _packages[i]);
+        }
+        out.writeInt(_classNames.length);
+        for (int i = 0; i < _classNames.length; ++i) {
+          out.writeInt(_classPackages[i]);
+          _writeString(out, _classNames[i]);
+        }
+      }
+      finally { out.close(); }
+      if (f.exists() && ! f.delete()) throw new IOException("Could not replace " + f);
+      if (! temp.renameTo(f)) throw new IOException("Could not rename " + temp + " to " + f);
+    }
+    finally { if (temp.exists()) temp.delete(); }
+  }
+  
+  private static void _writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+  
+  private static String _readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > (1 << 16)) throw new IOException("Corrupt Java API index: string length " + length);
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+  
+  /** Reads an index from a stream.  The stream is not closed.
+    * @param stream the stream containing the index
+    * @return the index
+    * @throws IOException if the stream cannot be read or does not contain a valid index
+    */
+  public static JavaAPIIndex read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+    try {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a Java API index");
+      String source = _readString(in);
+      long sourceModified = in.readLong();
+      long created = in.readLong();
+      String[] bases = new String[in.readInt()];
+      for (int i = 0; i < bases.length; ++i) bases[i] = _readString(in);
+      int packageCount = in.readInt();
+      String[] packages = new String[packageCount];
+      int[] packageBases = new int[packageCount];
+      for (int i = 0; i < packageCount; ++i) {
+        packageBases[i] = in.readInt();
+        packages[i] = _readString(in);
+      }
+      int classCount = in.readInt();
+      String[] classNames = new String[classCount];
+      int[] classPackages = new int[classCount];
+      for (int i = 0; i < classCount; ++i) {
+        classPackages[i] = in.readInt();
+        classNames[i] = _readString(in);
+      }
+      return new JavaAPIIndex(source, sourceModified, created, bases, packages, packageBases, classPackages,
+                              classNames);
+    }
+    catch(RuntimeException e) { throw new IOException("Corrupt Java API index: " + e); } // bad count or index
+  }
+  
+  /** Reads an index from a file.
+    * @param f the index file
+    * @return the index
+    * @throws IOException if the file cannot be read or does not contain a valid index
+    */
+  public static JavaAPIIndex read(File f) throws IOException {
+    InputStream in = new FileInputStream(f);
+    try { return read(in); }
+    finally { in.close(); }
+  }
+  
+  /** Reads an index from a URL, such as a local file or an entry in DrJava's jar file.
+    * @param url the URL of the index
+    * @return the index, or null if the URL is null
+    * @throws IOException if the URL cannot be read or does not contain a valid index
+    */
+  public static JavaAPIIndex read(URL url) throws IOException {
+    if (url == null) return null;
+    InputStream in = url.openStream();
+    try { return read(in); }
+    finally { in.close(); }
+  }
+  
+  /** Parses an "allclasses" Javadoc HTML page.
+    * @param url the URL of the HTML page
+    * @return the index of the classes linked from the page; empty if the page could not be read
+    */
+  public static JavaAPIIndex parseHTML(URL url) {
+    Builder b = new Builder(String.valueOf(url));
+    if (url == null) return b.build();
+    try {
+      URLConnection conn = url.openConnection();
+      BufferedReader br = new BufferedReader(new InputStreamReader(conn.getInputStream()));
+      b.setSourceModified(conn.getLastModified());
+      try {
+        String line = br.readLine();
+        final String aText = "<a href=\"";  
+        final int aTextLength = aText.length();
+        final String classNamePrefix = "/docs/api/";
+        final int prefixLength = classNamePrefix.length();
+        final String hText = ".html\" ";
+        while (line != null) {
+          int aPos = line.toLowerCase().indexOf(aText); // returns -1 for lines that are not class links
+          final int classNameStartPos = (aPos < 0) ? 0 : line.indexOf(classNamePrefix) + prefixLength;
+          final int classNameEndPos = line.toLowerCase().indexOf(hText, classNameStartPos);
+          if ((classNameStartPos > 0) && (classNameEndPos > 0)) {  // class link found
+            String base = line.substring(aPos + aTextLength, Math.max(aPos + aTextLength, classNameStartPos));
+            String classNamePath = line.substring(classNameStartPos, classNameEndPos);
+            try {
+              new URL(base + classNamePath + ".html"); // make sure the link is valid
+              b.add(base, classNamePath);
+            }
+            catch(MalformedURLException mue) { /* ignore, we'll just not put this class in the list */ }
+          }
+          line = br.readLine();
+        }
+      }
+      finally { br.close(); }
+    }
+    catch(IOException ioe) { /* ignore, we'll just have an incomplete list */ }
+    return b.build();
+  }
+  
+  /** Returns the cache file for the additional Javadoc library at the given URL.  The name is derived from a
+    * digest of the whole link, and the link is also stored in the file and checked when it is read.
+    * @param link the base URL of the Javadoc library
+    * @param cacheDir the directory containing cached indices
+    * @return the cache file
+    */
+  public static File getCacheFile(String link, File cacheDir) {
+    String key;
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(link.getBytes("UTF-8"));
+      StringBuilder sb = new StringBuilder(2 * digest.length);
+      for (byte d: digest) {
+        sb.append(Character.forDigit((d >> 4) & 0xf, 16));
+        sb.append(Character.forDigit(d & 0xf, 16));
+      }
+      key = sb.toString();
+    }
+    catch(NoSuchAlgorithmException e) { key = Integer.toHexString(link.hashCode()); } // every JVM has SHA-1
+    catch(UnsupportedEncodingException e) { key = Integer.toHexString(link.hashCode()); } // and UTF-8
+    return new File(cacheDir, CACHE_PREFIX + key + INDEX_SUFFIX);
+  }
+  
+  /** @param link the base URL of the Javadoc library
+    * @param cacheDir the directory containing cached indices
+    * @return true if there is a cached index for the additional Javadoc library at the given URL. */
+  public static boolean isCached(String link, File cacheDir) { return getCacheFile(link, cacheDir).isFile(); }
+  
+  /** Deletes all cached library indices, so that every library is parsed again the next time it is used.
+    * @param cacheDir the directory containing cached indices
+    */
+  public static void clearCache(File cacheDir) {
+    File[] files = cacheDir.listFiles();
+    if (files == null) return;
+    for (File f: files) {
+      String name = f.getName();
+      if (name.startsWith(CACHE_PREFIX) && name.endsWith(INDEX_SUFFIX)) f.delete();
+    }
+  }
+  
+  /** @param index a cached index
+    * @param url the page the index should have been created from
+    * @return true if the index was created from the page and is still current: for a local page, if the page
+    *         has not been modified since; otherwise, if the index is younger than MAX_CACHE_AGE.
+    */
+  private static boolean _isCurrent(JavaAPIIndex index, URL url) {
+    if (! index.getSource().equals(url.toString())) return false;
+    if (url.getProtocol().equals("file")) {
+      try { return new File(url.toURI()).lastModified() == index.getSourceModified(); }
+      catch(java.net.URISyntaxException e) { /* fall through and use the age */ }
+      catch(IllegalArgumentException e) { /* fall through and use the age */ }
+    }
+    long age = System.currentTimeMillis() - index.getCreated();
+    return age >= 0 && age < MAX_CACHE_AGE;
+  }
+  
+  /** Returns the index of an additional Javadoc library.  If a current cached index exists, it is used; otherwise,
+    * the library's "allclasses-frame.html" page is parsed and the result is cached, unless it is empty.  If the
+    * page cannot be read, an out-of-date cached index is used rather than none.
+    * @param link the base URL of the Javadoc library
+    * @param cacheDir the directory containing cached indices
+    * @return the index; empty if the library could not be read
+    * @throws MalformedURLException if the link is not a valid URL
+    */
+  public static JavaAPIIndex forLibrary(String link, File cacheDir) throws MalformedURLException {
+    URL url = new URL(link + "/allclasses-frame.html");
+    File cache = getCacheFile(link, cacheDir);
+    JavaAPIIndex cached = null;
+    if (cache.isFile()) {
+      try {
+        JavaAPIIndex index = read(cache);
+        if (index.getSource().equals(url.toString())) cached = index;
+        if (cached != null && _isCurrent(cached, url)) return cached;
+      }
+      catch(IOException ioe) { /* corrupt, old or foreign file, parse the page again */ }
+    }
+    JavaAPIIndex index = parseHTML(url);
+    if (index.size() > 0) {
+      try { index.write(cache); }
+      catch(IOException ioe) { /* ignore, we'll just parse the page again next time */ }
+      return index;
+    }
+    return (cached != null) ? cached : index;
+  }
+  
+  /** Accumulates class links and builds an index. */
+  private static class Builder {
+    private final String _source;
+    private long _sourceModified = 0;
+    private final Map<String, Integer> _bases = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> _packages = new LinkedHashMap<String, Integer>();
+    private final List<Integer> _packageBases = new ArrayList<Integer>();
+    /** Pairs of package index and class name, keyed by simple name and full name for sorting. */
+    private final TreeMap<String, Object[]> _classes = new TreeMap<String, Object[]>();
+    
+    public Builder(String source) { _source = source; }
+    
+    /** @param sourceModified the last-modified time reported for the source, or 0 if unknown */
+    public void setSourceModified(long sourceModified) { _sourceModified = sourceModified; }
+    
+    /** @param base the link base
+      * @param classNamePath the path of the class page relative to the base, without ".html" */
+    public void add(String base, String classNamePath) {
+      int slash = classNamePath.lastIndexOf('/');
+      String pkg = (slash < 0) ? "" : classNamePath.substring(0, slash);
+      String name = classNamePath.substring(slash + 1);
+      Integer b = _bases.get(base);
+      if (b == null) { b = _bases.size(); _bases.put(base, b); }
+      String pkgKey = b + " " + pkg;
+      Integer p = _packages.get(pkgKey);
+      if (p == null) { p = _packages.size(); _packages.put(pkgKey, p); _packageBases.add(b); }
+      String simpleName = name.substring(name.lastIndexOf('.') + 1);
+      _classes.put(simpleName.toLowerCase() + " " + classNamePath + " " + b, new Object[] { p, name });
+    }
+    
+    public JavaAPIIndex build() {
+      String[] bases = _bases.keySet().toArray(new String[_bases.size()]);
+      String[] packages = new String[_packages.size()];
+      int[] packageBases = new int[packages.length];
+      int i = 0;
+      for (String key: _packages.keySet()) {
+        packages[i] = key.substring(key.indexOf(' ') + 1);
+        packageBases[i] = _packageBases.get(i);
+        ++i;
+      }
+      int[] classPackages = new int[_classes.size()];
+      String[] classNames = new String[classPackages.length];
+      i = 0;
+      for (Object[] c: _classes.values()) {
+        classPackages[i] = (Integer) c[0];
+        classNames[i] = (String) c[1];
+        ++i;
+      }
+      return new JavaAPIIndex(_source, _sourceModified, System.currentTimeMillis(), bases, packages, packageBases,
+                              classPackages, classNames);
+    }
+  }
+  
+  /** Generates binary indices for the "allclasses" pages shipped with DrJava.  Used by the build script.
+    * @param args the output directory, followed by the directory containing the "allclasses-*.html" pages
+    * @throws IOException if an index cannot be written
+    */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: JavaAPIIndex <output directory> <javaapi directory>");
+      System.exit(1);
+    }
+    File outDir = new File(args[0]);
+    File[] pages = new File(args[1]).listFiles();
+    if (pages == null) throw new IOException("Could not list " + args[1]);
+    for (File page: pages) {
+      String name = page.getName();
+      if (name.startsWith("allclasses") && name.endsWith(".html")) {
+        JavaAPIIndex index = parseHTML(page.toURI().toURL());
+        File out = new File(outDir, name.substring(0, name.length() - ".html".length()) + INDEX_SUFFIX);
+        index.write(out);
+        System.out.println("Wrote " + index.size() + " classes to " + out);
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+import edu.rice.cs.plt.debug.Stopwatch;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Compares parsing the bundled Java 8 API page to reading its binary index.  This is a timing benchmark, not a unit
+  * test; run it with {@code java edu.rice.cs.drjava.ui.JavaAPIIndexBenchmark}.
+  */
+public class JavaAPIIndexBenchmark {
+  
+  private static final String PAGE = "/edu/rice/cs/drjava/docs/javaapi/allclasses-1.8.html";
+  
+  public static void main(String... args) throws IOException {
+    URL page = JavaAPIIndexBenchmark.class.getResource(PAGE);
+    File dir = IOUtil.createAndMarkTempDirectory("DrJava-benchmark", "");
+    try {
+      File f = new File(dir, "allclasses-1.8" + JavaAPIIndex.INDEX_SUFFIX);
+      JavaAPIIndex.parseHTML(page).write(f);
+      JavaAPIIndex.read(f).getEntries(); // warm up
+      final int runs = 20;
+      Stopwatch parse = new Stopwatch(true);
+      for (int i = 0; i < runs; ++i) { JavaAPIIndex.parseHTML(page).getEntries(); }
+      long parseMs = parse.stop();
+      Stopwatch read = new Stopwatch(true);
+      for (int i = 0; i < runs; ++i) { JavaAPIIndex.read(f).getEntries(); }
+      long readMs = read.stop();
+      System.out.println("parse: " + (parseMs / runs) + " ms/run, index: " + (readMs / runs) + " ms/run, index size: " +
+                         f.length() + " bytes");
+    }
+    finally { IOUtil.deleteRecursively(dir); }
+  }
+  
+}
@@ -0,0 +1,166 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.ui;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.drjava.ui.MainFrameStatics.JavaAPIListEntry;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests the JavaAPIIndex.
+  * @version $Id$
+  */
+public final class JavaAPIIndexTest extends DrJavaTestCase {
+  private static final String PAGE = "/edu/rice/cs/drjava/docs/javaapi/allclasses-1.8.html";
+  
+  private volatile File _tempDir;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    String user = System.getProperty("user.name");
+    _tempDir = IOUtil.createAndMarkTempDirectory("DrJava-test-" + user, "");
+  }
+  
+  public void tearDown() throws Exception {
+    IOUtil.deleteRecursively(_tempDir);
+    _tempDir = null;
+    super.tearDown();
+  }
+  
+  private static void _assertSameEntries(List<JavaAPIListEntry> expected, List<JavaAPIListEntry> actual) {
+    assertEquals("size", expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals("simple name", expected.get(i).toString(), actual.get(i).toString());
+      assertEquals("full name", expected.get(i).getFullString(), actual.get(i).getFullString());
+      assertEquals("URL", expected.get(i).getURL(), actual.get(i).getURL());
+    }
+  }
+  
+  public void testParseHTML() throws Exception {
+    File page = new File(_tempDir, "allclasses-frame.html");
+    IOUtil.writeStringToFile(page,
+      "<ul>\n" +
+      "<li><a href=\"http://example.com/docs/api/java/util/Map.Entry.html\" title=\"interface\">Map.Entry</a></li>\n" +
+      "<li><a href=\"http://example.com/docs/api/java/util/ArrayList.html\" title=\"class\">ArrayList</a></li>\n" +
+      "<li><a href=\"java/util/Relative.html\" title=\"class\">Relative</a></li>\n" +
+      "</ul>\n");
+    List<JavaAPIListEntry> entries = JavaAPIIndex.parseHTML(page.toURI().toURL()).getEntries();
+    assertEquals(2, entries.size());
+    assertEquals("ArrayList", entries.get(0).toString());
+    assertEquals("java.util.ArrayList", entries.get(0).getFullString());
+    assertEquals(new URL("http://example.com/docs/api/java/util/ArrayList.html"), entries.get(0).getURL());
+    assertEquals("Entry", entries.get(1).toString());
+    assertEquals("java.util.Map.Entry", entries.get(1).getFullString());
+    assertEquals(new URL("http://example.com/docs/api/java/util/Map.Entry.html"), entries.get(1).getURL());
+  }
+  
+  public void testRoundTrip() throws Exception {
+    URL page = JavaAPIIndexTest.class.getResource(PAGE);
+    assertNotNull("allclasses page is on the class path", page);
+    JavaAPIIndex parsed = JavaAPIIndex.parseHTML(page);
+    assertTrue(parsed.size() > 1000);
+    File f = new File(_tempDir, "allclasses-1.8" + JavaAPIIndex.INDEX_SUFFIX);
+    parsed.write(f);
+    _assertSameEntries(parsed.getEntries(), JavaAPIIndex.read(f).getEntries());
+    _assertSameEntries(parsed.getEntries(), JavaAPIIndex.read(f.toURI().toURL()).getEntries());
+    assertNull(JavaAPIIndex.read((URL) null));
+    
+    // an index inside a jar file is read as a stream
+    File jar = new File(_tempDir, "index.jar");
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    out.putNextEntry(new JarEntry("index.idx"));
+    out.write(IOUtil.toByteArray(f));
+    out.close();
+    URL inJar = new URL("jar:" + jar.toURI().toURL() + "!/index.idx");
+    _assertSameEntries(parsed.getEntries(), JavaAPIIndex.read(inJar).getEntries());
+    
+    IOUtil.writeStringToFile(f, "not an index");
+    try {
+      JavaAPIIndex.read(f);
+      fail("read a corrupt index");
+    }
+    catch(IOException e) { /* expected */ }
+  }
+  
+  public void testLibraryCache() throws Exception {
+    File lib = new File(_tempDir, "lib");
+    lib.mkdirs();
+    File page = new File(lib, "allclasses-frame.html");
+    IOUtil.writeStringToFile(page,
+      "<a href=\"http://example.com/docs/api/org/example/Foo.html\" title=\"class\">Foo</a>\n");
+    File cacheDir = new File(_tempDir, "cache");
+    String link = lib.toURI().toURL().toString();
+    assertFalse(JavaAPIIndex.isCached(link, cacheDir));
+    assertEquals(1, JavaAPIIndex.forLibrary(link, cacheDir).size());
+    assertTrue(JavaAPIIndex.isCached(link, cacheDir));
+    
+    // the cached index is used even if the library is no longer reachable
+    File saved = new File(_tempDir, "saved.html");
+    assertTrue(page.renameTo(saved));
+    List<JavaAPIListEntry> entries = JavaAPIIndex.forLibrary(link, cacheDir).getEntries();
+    assertEquals(1, entries.size());
+    assertEquals("org.example.Foo", entries.get(0).getFullString());
+    assertTrue(saved.renameTo(page));
+    
+    // a local library that has changed is parsed again
+    IOUtil.writeStringToFile(page,
+      "<a href=\"http://example.com/docs/api/org/example/Foo.html\" title=\"class\">Foo</a>\n" +
+      "<a href=\"http://example.com/docs/api/org/example/Bar.html\" title=\"class\">Bar</a>\n");
+    assertTrue(page.setLastModified(page.lastModified() - 10000));
+    assertEquals(2, JavaAPIIndex.forLibrary(link, cacheDir).size());
+    assertEquals(2, JavaAPIIndex.read(JavaAPIIndex.getCacheFile(link, cacheDir)).size());
+    
+    // links are distinguished by their full text
+    assertFalse(JavaAPIIndex.getCacheFile(link, cacheDir).equals(JavaAPIIndex.getCacheFile(link + "/", cacheDir)));
+    
+    // clearing the cache forces the libraries to be parsed again
+    JavaAPIIndex.clearCache(cacheDir);
+    assertFalse(JavaAPIIndex.isCached(link, cacheDir));
+    
+    // unreachable libraries without a cached index are not cached
+    String missing = new File(_tempDir, "missing").toURI().toURL().toString();
+    assertEquals(0, JavaAPIIndex.forLibrary(missing, cacheDir).size());
+    assertFalse(JavaAPIIndex.isCached(missing, cacheDir));
+  }
+}
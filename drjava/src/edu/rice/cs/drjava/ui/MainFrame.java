@@ -80,6 +80,7 @@ import edu.rice.cs.drjava.RemoteControlServer;
 import edu.rice.cs.drjava.platform.*;
 import edu.rice.cs.drjava.config.*;
 import edu.rice.cs.drjava.model.*;
+import edu.rice.cs.drjava.model.compiler.ClassFileIndex;
 import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.drjava.model.compiler.CompilerModel;
 import edu.rice.cs.drjava.model.definitions.ClassNameNotFoundException;
@@ -1766,6 +1767,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
           ArrayList<MatchingStrategy<JavaAPIListEntry>> strategies = new ArrayList<MatchingStrategy<JavaAPIListEntry>>();
           strategies.add(new FragmentStrategy<JavaAPIListEntry>());
           strategies.add(new PrefixStrategy<JavaAPIListEntry>());
+          strategies.add(new CamelCaseStrategy<JavaAPIListEntry>());
           strategies.add(new RegExStrategy<JavaAPIListEntry>());
           List<PredictiveInputFrame.CloseAction<JavaAPIListEntry>> actions
             = new ArrayList<PredictiveInputFrame.CloseAction<JavaAPIListEntry>>();
@@ -1796,11 +1798,20 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     });
   }
   
-  /** Generate Java API class list. 
+  /** Generate Java API class list.  Uses the binary index generated at build time if there is one, and parses
+    * the HTML page otherwise.
     * @param suffix the suffix to append to the API path
     * @return the Java API class list
     */
   public static Set<JavaAPIListEntry> _generateJavaAPISet(String suffix) {
+    if (suffix.endsWith(".html")) {
+      String indexSuffix = suffix.substring(0, suffix.length() - ".html".length()) + JavaAPIIndex.INDEX_SUFFIX;
+      URL indexURL = MainFrame.class.getResource("/edu/rice/cs/drjava/docs/javaapi" + indexSuffix);
+      if (indexURL != null) {
+        try { return new HashSet<JavaAPIListEntry>(JavaAPIIndex.read(indexURL).getEntries()); }
+        catch(IOException ioe) { /* fall back to parsing the HTML page */ }
+      }
+    }
     URL url = MainFrame.class.getResource("/edu/rice/cs/drjava/docs/javaapi" + suffix);
     return _generateJavaAPISet(url);
   }
@@ -1810,64 +1821,22 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     * @return the Java API class list
    */
   public static Set<JavaAPIListEntry> _generateJavaAPISet(URL url) {
-//    _log.log("URL for Java API = '" + url + "'");
-    Set<JavaAPIListEntry> s = new HashSet<JavaAPIListEntry>();
-    if (url == null) return s;
-    try {
-      InputStream urls = url.openStream();
-      InputStreamReader is = null;
-      BufferedReader br = null;
-      try {
-        is = new InputStreamReader(urls);
-        br = new BufferedReader(is);
-        String line = br.readLine();
-        final String aText = "<a href=\"";  
-        final int aTextLength = aText.length();
-        final String classNamePrefix = "/docs/api/";
-        final int prefixLength = classNamePrefix.length();
-        final String hText = ".html\" ";
-        final int hTextLength = hText.length();
-        while (line != null) {
-//          _log.log("Line read from Java API = '" + line + "'");
-          int aPos = line.toLowerCase().indexOf(aText); // returns -1 for lines that are not class links
-          final int classNameStartPos = (aPos < 0) ? 0 : line.indexOf(classNamePrefix) + prefixLength;
-          final int classNameEndPos = line.toLowerCase().indexOf(hText, classNameStartPos);
-          if ((classNameStartPos > 0) && (classNameEndPos > 0)) {  // class link found
-            String link = line.substring(aPos + aTextLength, classNameEndPos + hTextLength);
-            String classNamePath = line.substring(classNameStartPos, classNameEndPos);
-            String fullClassName = classNamePath.replace('/', '.');
-            String simpleClassName = fullClassName;
-            int lastDot = fullClassName.lastIndexOf('.');
-            if (lastDot >= 0) { simpleClassName = fullClassName.substring(lastDot + 1); }
-            try {
-              URL pageURL = new URL(link);
-//              _log.log("URL is: " + pageURL);
-//              _log.log("new JavaAPIListEntry(" + simpleClassName + ", " + fullClassName + ", " + pageURL + ")");
-              s.add(new JavaAPIListEntry(simpleClassName, fullClassName, pageURL));
-            }
-            catch(MalformedURLException mue) { 
-              System.err.println("MalformedURLException on " + link + ".html");
-            /* ignore, we'll just not put this class in the list */ 
-            }
-          }
-          line = br.readLine();
-        }
-      }
-      finally {
-        if (br != null) { br.close(); }
-        if (is != null) { is.close(); }
-        if (urls != null) { urls.close(); }
-      }
-    }
-    catch(IOException ioe) { /* ignore, we'll just have an incomplete list */ }
-    return s;
+    return new HashSet<JavaAPIListEntry>(JavaAPIIndex.parseHTML(url).getEntries());
+  }
+  
+  /** @return the directory in which the indices of additional Javadoc libraries are cached. */
+  public static File getJavaAPICacheDirectory() {
+    return new File(DrJava.getPropertiesFile().getAbsoluteFile().getParentFile(), ".drjava-javaapi");
   }
 
   /** @return the set of all classes, scanned after the last compile. */
   public Set<GoToFileListEntry> getCompleteClassSet() { return _completeClassSet; }
 
   /** Clear the set of all classes. */
-  public void clearCompleteClassSet() { _completeClassSet.clear(); }
+  public void clearCompleteClassSet() {
+    _model.getCompilerModel().getClassFileIndex().scheduleClear();
+    _completeClassSet.clear();
+  }
   
   /** Clears the Java API class set. */
   public void clearJavaAPISet() { _javaAPISet.clear(); }
@@ -1884,9 +1853,14 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     // otherwise the processing frame will not work correctly and the event thread will block
     // assert (!EventQueue.isDispatchThread());  // Why is this commented out???
     if (_javaAPISet.size() == 0) {
-      final ProcessingDialog pd =
-        new ProcessingDialog(this, "Java API Classes", "Loading, please wait.", false);
-      if (! EventQueue.isDispatchThread()) { pd.setVisible(true); }
+      // the bundled indices and cached libraries load instantly; only show progress if a page must be fetched
+      final File cacheDir = getJavaAPICacheDirectory();
+      final Vector<String> additionalLinks = DrJava.getConfig().getSetting(JAVADOC_ADDITIONAL_LINKS);
+      boolean fetch = false;
+      for(String url: additionalLinks) { fetch |= ! JavaAPIIndex.isCached(url, cacheDir); }
+      final ProcessingDialog pd = (fetch && ! EventQueue.isDispatchThread())
+        ? new ProcessingDialog(this, "Java API Classes", "Loading, please wait.", false) : null;
+      if (pd != null) { pd.setVisible(true); }
       // generate list
       String linkVersion = DrJava.getConfig().getSetting(JAVADOC_API_REF_VERSION);
       
@@ -1936,18 +1910,15 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
       _javaAPISet.addAll(junitAPIList);
       
       // add additional Javadoc libraries
-      for(String url: DrJava.getConfig().getSetting(JAVADOC_ADDITIONAL_LINKS)) {
-        try {
-          Set<JavaAPIListEntry> additionalList = _generateJavaAPISet(new URL(url+"/allclasses-frame.html"));
-          _javaAPISet.addAll(additionalList);
-        }
+      for(String url: additionalLinks) {
+        try { _javaAPISet.addAll(JavaAPIIndex.forLibrary(url, cacheDir).getEntries()); }
         catch(MalformedURLException mue) { /* ignore, we'll just not put this class in the list */ }
       }
       
       if (_javaAPISet.size() == 0) { clearJavaAPISet(); }
       
       // finished
-      if (!EventQueue.isDispatchThread()) {
+      if (pd != null) {
         pd.setVisible(false);
         pd.dispose();
       }
@@ -2307,9 +2278,8 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
           FileOps.saveFile(new FileOps.DefaultFileSaver(file) {
             /** Only runs in event thread so no read lock is necessary. */
             public void saveTo(OutputStream os) throws IOException {
-              final String text = doc.getText();
               OutputStreamWriter osw = new OutputStreamWriter(os);
-              osw.write(text,0,text.length());
+              doc.getTextSequence().writeTo(osw);  // writes straight from the document's storage
               osw.flush();
             }
           });
@@ -3466,6 +3436,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
       // Create the main model listener and attach it to the global model
       _mainListener = new ModelListener();
       _model.addListener(_mainListener);
+      _model.getCompilerModel().getClassFileIndex().addListener(_classFileIndexListener);
       
       // Initialize tabs before DefPane
       _setUpTabs();
@@ -3771,6 +3742,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
       DrJava.getConfig().addOptionListener(JUNIT_LINK, linkJUnitOptionListener);
       OptionListener<Vector<String>> additionalLinkOptionListener = new OptionListener<Vector<String>>() {
         public void optionChanged(OptionEvent<Vector<String>> oce) {
+          JavaAPIIndex.clearCache(getJavaAPICacheDirectory());  // editing the links refreshes the cached libraries
           clearJavaAPISet();
         }
       };
@@ -4352,6 +4324,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
         // could not use _clean(), since ProjectFileGroupingState.cleanBuildDirectory()
         // is implemented as an asynchronous task, and DrJava would not wait for its completion
         IOUtil.deleteRecursively(_model.getBuildDirectory());
+        _model.getCompilerModel().getClassFileIndex().scheduleRefresh();
       }
       public boolean isCurrent() { return false; }
     });
@@ -5794,69 +5767,44 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
   
   private void _clean() { _model.cleanBuildDirectory(); }  // The model performs this as an AsyncTask
   
-  /** List with entries for the complete dialog. */
+  /** List with entries for the complete dialog.  Only modified in the event thread, apart from being cleared. */
   HashSet<GoToFileListEntry> _completeClassSet = new HashSet<GoToFileListEntry>();
   
 //  /** List with entries for the auto-import dialog. */
 //  HashSet<JavaAPIListEntry> _autoImportClassSet = new HashSet<JavaAPIListEntry>();
   
-  /** Scan the build directory for class files and update the auto-completion list. */
-  private void _scanClassFiles() {
-    
-    String trace = Arrays.toString(Thread.currentThread().getStackTrace());
-    _log.log("#### _scanClassFiles() called with trace:\n" + trace);
-    Thread t = new Thread(new Runnable() {
-      public void run() {
-        File buildDir = _model.getBuildDirectory();
-        HashSet<GoToFileListEntry> hs = new HashSet<GoToFileListEntry>();
-        HashSet<JavaAPIListEntry> hs2 = new HashSet<JavaAPIListEntry>();
-        if (buildDir != null) {
-          List<File> classFiles = _model.getClassFiles();
-          DummyOpenDefDoc dummyDoc = new DummyOpenDefDoc();
-          for(File f: classFiles) {
-            String s = f.toString();
-            if (s.lastIndexOf(File.separatorChar) >= 0) {
-              s = s.substring(s.lastIndexOf(File.separatorChar)+1);
-            }
-            s = s.substring(0, s.lastIndexOf(".class"));
-            s = s.replace('$', '.');
-            int pos = 0;
-            boolean ok = true;
-            while ((pos=s.indexOf('.', pos)) >= 0) {
-              if (s.length() <= pos + 1 || Character.isDigit(s.charAt(pos + 1))) {
-                ok = false;
-                break;
-              }
-              ++pos;
-            }
-            if (ok) {
-              if (s.lastIndexOf('.') >= 0) {
-                s = s.substring(s.lastIndexOf('.') + 1);
-              }
-              GoToFileListEntry entry = new GoToFileListEntry(dummyDoc, s);
-              hs.add(entry);
-              try {
-                String rel = FileOps.stringMakeRelativeTo(f, buildDir);
-                String full = rel.replace(File.separatorChar, '.');
-                full = full.substring(0, full.lastIndexOf(".class"));
-                if (full.indexOf('$') < 0) {
-                  // No '$' in the name means not an inner class. we do not support inner classes, because that would
-                  // mean having to determine public static scope
-                  hs2.add(new JavaAPIListEntry(s, full, null));
-                }
-              }
-              catch(IOException ioe) { /* ignore, just don't add this one */ }
-              catch(SecurityException se) { /* ignore, just don't add this one */ }
-            }
+  /** Document used for the entries of _completeClassSet, which do not correspond to open documents. */
+  private final DummyOpenDefDoc _completeClassDummyDoc = new DummyOpenDefDoc();
+  
+  /** Applies changes in the compiler model's class file index to the auto-completion list. */
+  private final ClassFileIndex.Listener _classFileIndexListener = new ClassFileIndex.Listener() {
+    public void classesChanged(final Set<String> added, final Set<String> removed) {
+      Utilities.invokeLater(new Runnable() {
+        public void run() {
+          ClassFileIndex index = _model.getCompilerModel().getClassFileIndex();
+          for (String c: removed) {
+            String s = ClassFileIndex.getSimpleName(c);
+            if (! index.containsSimpleName(s)) _completeClassSet.remove(new GoToFileListEntry(_completeClassDummyDoc, s));
+          }
+          for (String c: added) {
+            _completeClassSet.add(new GoToFileListEntry(_completeClassDummyDoc, ClassFileIndex.getSimpleName(c)));
           }
         }
-        clearCompleteClassSet();
-        _completeClassSet.addAll(hs);
-//        _autoImportClassSet = new HashSet<JavaAPIListEntry>(hs2);
-      }
-    });
-    t.setPriority(Thread.MIN_PRIORITY);
-    t.start();
+      });
+    }
+  };
+  
+  /** Make sure the auto-completion list reflects the class files in the build directory.  The build directory is only
+    * scanned in full when it is not the one already indexed; otherwise the compiler model has already scheduled a
+    * refresh of the index.
+    */
+  private void _scanClassFiles() {
+    _log.log("#### _scanClassFiles() called");
+    File buildDir = _model.getBuildDirectory();
+    ClassFileIndex index = _model.getCompilerModel().getClassFileIndex();
+    if (buildDir != null && ! IOUtil.attemptCanonicalFile(buildDir).equals(index.getRoot())) {
+      index.scheduleRescan(buildDir);
+    }
   }
   
   private void _runProject() {
@@ -9050,6 +8998,7 @@ public class MainFrame extends SwingFrame implements ClipboardOwner, DropTargetL
     public void regionRemoved(final Breakpoint bp) { }    
     public void watchSet(final DebugWatchData w) { }
     public void watchRemoved(final DebugWatchData w) { }
+    public void watchesUpdated(List<DebugWatchData> watches) { }
     public void threadStarted() { }
     public void nonCurrThreadDied() { }
   }
@@ -41,6 +41,7 @@ import java.awt.event.*;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.SortedSet;
@@ -94,7 +95,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
   protected volatile R _lastSelectedRegion = null;
   /** State pattern to improve performance when rapid changes are made. */
   protected final IChangeState DEFAULT_STATE = new DefaultState();
-//  protected final IChangeState CHANGING_STATE = new ChangingState();
+  protected final IChangeState CHANGING_STATE = new ChangingState();
   protected volatile IChangeState _changeState = DEFAULT_STATE;
   /** A table mapping each document entered in this panel to its corresponding MutableTreeNode in _regTreeModel. */
   protected volatile HashMap<OpenDefinitionsDocument, DefaultMutableTreeNode> _docToTreeNode = 
@@ -102,6 +103,14 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
   /** A table mapping each region entered in this panel to its corresponding MutableTreeNode in _regTreeModel. */
   protected volatile IdentityHashMap<R, DefaultMutableTreeNode> _regionToTreeNode = 
     new IdentityHashMap<R, DefaultMutableTreeNode>();
+  /** Document nodes whose region nodes have not been created yet.  The regions of such a document are only in the
+    * region manager; their nodes are created when the document node is expanded or one of them is needed.  Document
+    * nodes added while the panel is changing start out this way.
+    */
+  protected volatile HashSet<DefaultMutableTreeNode> _lazyDocNodes = new HashSet<DefaultMutableTreeNode>();
+  
+  /** The number of regions beyond which expandTree leaves further documents collapsed. */
+  public static final int EXPAND_LIMIT = 1000;
   
   /** State variable used to control the granular updating of the tabbed panel. */
 //  private volatile long _lastChangeTime;
@@ -180,14 +189,14 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     updateButtons();
   }
   
-//  /** Set the state to handle rapid changes. When a lot of changes are about to be made,
-//    * this state should be set to postpone some actions until the changes are finished. */
-//  public void startChanging() {
-//    _changeState.switchStateTo(CHANGING_STATE);
-//  }
+  /** Set the state to handle rapid changes. When a lot of changes are about to be made,
+    * this state should be set to postpone some actions until the changes are finished. */
+  public void startChanging() {
+    _changeState.switchStateTo(CHANGING_STATE);
+  }
   
-//  /** Set the default state again. Not equipped to handle rapid changes. */
-//  public void finishChanging() { _changeState.switchStateTo(DEFAULT_STATE); }
+  /** Set the default state again. Not equipped to handle rapid changes. */
+  public void finishChanging() { _changeState.switchStateTo(DEFAULT_STATE); }
   
   /** Update the JTree. */
   public boolean requestFocusInWindow() {
@@ -257,7 +266,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
   /** Creates the region tree. */
   private void _setupRegionTree() {
     _rootNode = new DefaultMutableTreeNode(_title);
-    _regTreeModel = new DefaultTreeModel(_rootNode);
+    _regTreeModel = new DefaultTreeModel(_rootNode, true);  // document nodes with uncreated children are not leaves
     _regTree = new RegionTree(_regTreeModel);
     _regTree.setEditable(false);
     _regTree.getSelectionModel().setSelectionMode(TreeSelectionModel.DISCONTIGUOUS_TREE_SELECTION);
@@ -268,6 +277,12 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     _regTree.addTreeSelectionListener(new TreeSelectionListener() {
       public void valueChanged(TreeSelectionEvent e) { updateButtons(); }
     });
+    _regTree.addTreeWillExpandListener(new TreeWillExpandListener() {
+      public void treeWillExpand(TreeExpansionEvent e) {
+        _materialize((DefaultMutableTreeNode) e.getPath().getLastPathComponent());
+      }
+      public void treeWillCollapse(TreeExpansionEvent e) { }
+    });
     _regTree.addKeyListener(new KeyAdapter() {
       public void keyPressed(KeyEvent e) { if (e.getKeyCode() == KeyEvent.VK_ENTER) { performDefaultAction(); } } 
     });
@@ -278,6 +293,12 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
 //    _setColors(dtcr);
     _regTree.setCellRenderer(dtcr);
     
+    /* With a fixed row height, the tree only lays out and renders the visible rows of a large document node. */
+    FontMetrics fm = _regTree.getFontMetrics(_regTree.getFont());
+    Icon icon = dtcr.getClosedIcon();
+    _regTree.setRowHeight(Math.max(fm.getHeight(), icon == null ? 0 : icon.getIconHeight()) + 2);
+    _regTree.setLargeModel(true);
+    
     _leftPane.add(new JScrollPane(_regTree));
     
     _initPopup();
@@ -556,9 +577,39 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
   DefaultMutableTreeNode getNode(OpenDefinitionsDocument doc) { return _docToTreeNode.get(doc); }
   
   /** @param region the region for which to get the tree node 
-   * @return the tree node for the given region. 
+   * @return the tree node for the given region, creating the nodes for its document if necessary. 
    */
-  DefaultMutableTreeNode getNode(R region) { return _regionToTreeNode.get(region); }
+  DefaultMutableTreeNode getNode(R region) {
+    DefaultMutableTreeNode regionNode = _regionToTreeNode.get(region);
+    if (regionNode == null) {
+      DefaultMutableTreeNode docNode = _docToTreeNode.get(region.getDocument());
+      if (docNode != null && _materialize(docNode)) regionNode = _regionToTreeNode.get(region);
+    }
+    return regionNode;
+  }
+  
+  /** Creates the region nodes of a document node that has none yet, from the regions of its document in the region
+    * manager.  Does nothing for other nodes.
+    * @param docNode the document node
+    * @return true if region nodes were created
+    */
+  protected boolean _materialize(DefaultMutableTreeNode docNode) {
+    if (! _lazyDocNodes.remove(docNode)) return false;
+    OpenDefinitionsDocument doc = null;
+    for (OpenDefinitionsDocument d: _docToTreeNode.keySet()) {
+      if (_docToTreeNode.get(d) == docNode) { doc = d; break; }
+    }
+    SortedSet<R> regions = (doc == null) ? null : _regionManager.getRegions(doc);
+    if (regions != null) {
+      for (R r: regions) {
+        DefaultMutableTreeNode regionNode = new DefaultMutableTreeNode(makeRegionTreeUserObj(r), false);
+        docNode.add(regionNode);
+        _regionToTreeNode.put(r, regionNode);
+      }
+    }
+    _regTreeModel.nodeStructureChanged(docNode);
+    return true;
+  }
   
   /** Gets the currently selected regions in the region tree, or an empty array if no regions are selected.
     * @return list of selected regions in the tree
@@ -647,7 +698,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
    * @return the region preceding r in the tree, or null if there isn't one. 
    */
   protected R getPrevRegionInTree(R r) {
-    DefaultMutableTreeNode regionNode = _regionToTreeNode.get(r);
+    DefaultMutableTreeNode regionNode = getNode(r);
     if (regionNode != null) {
       DefaultMutableTreeNode prevSibling = regionNode.getPreviousSibling();
       if (prevSibling!=null) {
@@ -673,6 +724,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
         if (parent!=null) {
           DefaultMutableTreeNode parentsPrevSibling = parent.getPreviousSibling();
           if (parentsPrevSibling!=null) {
+            _materialize(parentsPrevSibling);
             try {
               DefaultMutableTreeNode olderCousin = (DefaultMutableTreeNode)parentsPrevSibling.getLastChild();
               if (olderCousin!=null) {
@@ -718,7 +770,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
    * @return the region following r in the tree, or null if there isn't one. 
    */
   protected R getNextRegionInTree(R r) {
-    DefaultMutableTreeNode regionNode = _regionToTreeNode.get(r);
+    DefaultMutableTreeNode regionNode = getNode(r);
     if (regionNode != null) {
       DefaultMutableTreeNode nextSibling = regionNode.getNextSibling();
       if (nextSibling!=null) {
@@ -744,6 +796,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
         if (parent!=null) {
           DefaultMutableTreeNode parentsNextSibling = parent.getNextSibling();
           if (parentsNextSibling!=null) {
+            _materialize(parentsNextSibling);
             try {
               DefaultMutableTreeNode youngerCousin = (DefaultMutableTreeNode)parentsNextSibling.getFirstChild();
               if (youngerCousin!=null) {
@@ -767,76 +820,36 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     */
   public void addRegion(final R r) {
     try {
-//    System.err.println("Adding region '" + r + "'");
-      DefaultMutableTreeNode docNode;
       OpenDefinitionsDocument doc = r.getDocument();
-      
-//    if (doc == _cachedDoc) docNode = _cachedDocNode;
-//    else {
-      docNode = _docToTreeNode.get(doc);
+      DefaultMutableTreeNode docNode = _docToTreeNode.get(doc);
       if (docNode == null) {
         // No matching document node was found, so create one
         docNode = new DefaultMutableTreeNode(doc.getRawFile());
-        _regTreeModel.insertNodeInto(docNode, _rootNode, _rootNode.getChildCount());
         // Create link from doc to docNode
         _docToTreeNode.put(doc, docNode);
-//        _cachedDoc = doc;
-//        _cachedDocNode = docNode;
-//        _cachedStartOffset = -1;  // a sentinel value guaranteed to be less than r.getStartOffset()
-//        _cachedRegionIndex = -1;  // The next region in this document will have index 0
+        if (_changeState == CHANGING_STATE) {
+          // the region nodes are created when the document node is first expanded
+          _rootNode.add(docNode);
+          _lazyDocNodes.add(docNode);
+          return;
+        }
+        _regTreeModel.insertNodeInto(docNode, _rootNode, _rootNode.getChildCount());
       }
-//    }
-      
-//    if (doc == _cachedDoc & r.getStartOffset() >= _cachedStartOffset) { // insert new region after previous insert
-//      _cachedRegionIndex++;
-//      _cachedStartOffset = r.getStartOffset();
-//      insertNewRegionNode(r, docNode, _cachedRegionIndex);
-//    }
-//    else {
-      @SuppressWarnings("unchecked")
-      Enumeration<DefaultMutableTreeNode> regionNodes = docNode.children();
+      if (_lazyDocNodes.contains(docNode)) return;  // r is picked up from the region manager by _materialize
       
-      // Create a new region node in this document node list, where regions are sorted by start offset.
+      // Binary search for the first region node whose start offset is >= that of r; region nodes are sorted by start
       int startOffset = r.getStartOffset();
-      for (int index = 0; true ; index++) {  // infinite loop incrementing index on each iteration
-        
-        if (! regionNodes.hasMoreElements()) { // exhausted all elements; insert new region node at end
-//          System.err.println("inserting " + r + " at end, unaided by caching");
-          insertNewRegionNode(r, docNode, index);
-//          _cachedDoc = doc;
-//          _cachedDocNode = docNode;
-//          _cachedRegionIndex = index;
-//          _cachedStartOffset = startOffset;
-          break;
-        }
-        DefaultMutableTreeNode node = regionNodes.nextElement();
-        
+      int lo = 0;
+      int hi = docNode.getChildCount();
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
         @SuppressWarnings("unchecked")
-        RegionTreeUserObj<R> userObject = (RegionTreeUserObj<R>) node.getUserObject();
-        R nodeRegion = userObject.region();
-        int nodeOffset = nodeRegion.getStartOffset();
-        
-//        if (nodeOffset == startOffset) {
-//          // region with same start offset already exists
-//          if (nodeRegion.getEndOffset() == r.getEndOffset()) {
-//            // silently suppress inserting region; can this happen?  Caller should suppress it.
-//            _changeState.scrollPathToVisible(new TreePath(node));
-//            _changeState.setLastAdded(node);
-//            break;
-//          }
-//          else { // new region is distinct from nodeRegion
-//            insertNewRegionNode(r, docNode, index);
-//            break;
-//          }
-//        }
-//        else 
-        if (nodeOffset >= startOffset) {
-          insertNewRegionNode(r, docNode, index);
-//          _cachedDoc = null;  // insertion was not at the end of the region list for doc
-          break;
-        }
+        RegionTreeUserObj<R> userObject = 
+          (RegionTreeUserObj<R>) ((DefaultMutableTreeNode) docNode.getChildAt(mid)).getUserObject();
+        if (userObject.region().getStartOffset() < startOffset) lo = mid + 1;
+        else hi = mid;
       }
-//    }
+      insertNewRegionNode(r, docNode, lo);
       _changeState.updateButtons();
     }
     catch(Exception e) { DrJavaErrorHandler.record(e); throw new UnexpectedException(e); }
@@ -844,22 +857,32 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
 
   private void insertNewRegionNode(R r, DefaultMutableTreeNode docNode, int pos) {
 //    System.err.println("insertNewRegionNode(" + r + ", " + docNode + ", " + pos + ")");
-    DefaultMutableTreeNode newRegionNode = new DefaultMutableTreeNode(makeRegionTreeUserObj(r));
-    
-    _regTreeModel.insertNodeInto(newRegionNode, docNode, pos);
+    DefaultMutableTreeNode newRegionNode = new DefaultMutableTreeNode(makeRegionTreeUserObj(r), false);
     
     // Create link from region r to newRegionNode
     _regionToTreeNode.put(r, newRegionNode);
     
+    if (_changeState == CHANGING_STATE) {
+      docNode.insert(newRegionNode, pos);  // the whole tree is reloaded by finishChanging
+      return;
+    }
+    _regTreeModel.insertNodeInto(newRegionNode, docNode, pos);
+    
     // Make sure this node is visible
     _changeState.scrollPathToVisible(new TreePath(newRegionNode.getPath()));
     _changeState.setLastAdded(newRegionNode);
   }       
   
-  /** Expands all nodes in a two-level tree. */
+  /** Expands the document nodes of the two-level tree in order, leaving the remaining documents collapsed once more 
+    * than EXPAND_LIMIT regions are showing.  The first document is always expanded. */
   public void expandTree() {
-    int ct = _regTree.getRowCount();
-    for (int i = ct - 1; i >= 0; i--) _regTree.expandRow(i);
+    int ct = _rootNode.getChildCount();
+    int shown = 0;
+    for (int i = 0; i < ct && (i == 0 || shown <= EXPAND_LIMIT); i++) {
+      DefaultMutableTreeNode docNode = (DefaultMutableTreeNode) _rootNode.getChildAt(i);
+      _regTree.expandPath(new TreePath(docNode.getPath()));
+      shown += docNode.getChildCount();
+    }
   }
     
   /** Remove a region from this panel. Must be executed in event thread.
@@ -881,6 +904,19 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     }
     
     DefaultMutableTreeNode regionNode = _regionToTreeNode.get(r);
+    if (regionNode == null) {
+      // r may belong to a document whose region nodes have not been created yet
+      OpenDefinitionsDocument doc = r.getDocument();
+      DefaultMutableTreeNode docNode = _docToTreeNode.get(doc);
+      if (docNode != null && _lazyDocNodes.contains(docNode)) {
+        SortedSet<R> regions = _regionManager.getRegions(doc);
+        if (regions == null || regions.isEmpty()) {
+          _lazyDocNodes.remove(docNode);
+          _docToTreeNode.remove(doc);
+          _regTreeModel.removeNodeFromParent(docNode);
+        }
+      }
+    }
 //    if (regionNode == null) throw new UnexpectedException("Region node for region " + r + " is null");  // should not happen but it does
     if (regionNode != null) {
 
@@ -911,7 +947,7 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     */
   protected void selectRegion(final R r) {
     assert EventQueue.isDispatchThread();
-    DefaultMutableTreeNode regionNode = _regionToTreeNode.get(r);
+    DefaultMutableTreeNode regionNode = getNode(r);
     if (regionNode != null) {
       _regTree.setSelectionPath(new TreePath(regionNode.getPath()));
     }
@@ -931,7 +967,8 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
       R r = iterator.next();
       if (r.compareTo(endRegion) > 0) break; 
 //      System.err.println("Reloading region '" + r.getString() + "'");
-      _regTreeModel.reload(getNode(r));
+      DefaultMutableTreeNode regionNode = _regionToTreeNode.get(r);
+      if (regionNode != null) _regTreeModel.reload(regionNode);
     }
   }
   
@@ -1042,4 +1079,20 @@ public abstract class RegionsTreePanel<R extends OrderedDocumentRegion> extends
     }
     protected DefaultState() { }
   }
+  
+  /** State used while many regions are added at once: region nodes are added without model events, documents that 
+    * are new to the tree get lazily created region nodes, and the tree is reloaded once when the state is left. */
+  protected class ChangingState implements IChangeState {
+    public void scrollPathToVisible(TreePath tp) { }
+    public void updateButtons() { }
+    public void setLastAdded(DefaultMutableTreeNode node) { }
+    public void switchStateTo(IChangeState newState) {
+      if (newState == this) return;
+      _changeState = newState;
+      _regTreeModel.reload();
+      expandTree();
+      DEFAULT_STATE.updateButtons();
+    }
+    protected ChangingState() { }
+  }
 }
@@ -0,0 +1,148 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.ui;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+import edu.rice.cs.drjava.DrJava;
+import edu.rice.cs.drjava.model.ConcreteRegionManager;
+import edu.rice.cs.drjava.model.MovingDocumentRegion;
+import edu.rice.cs.drjava.model.MultiThreadedTestCase;
+import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
+import edu.rice.cs.util.swing.Utilities;
+
+/** Tests the document nodes that RegionsTreePanel creates lazily while it is changing.
+  * @version $Id$
+  */
+public final class RegionsTreePanelTest extends MultiThreadedTestCase {
+  
+  private volatile MainFrame _frame;
+  private volatile ConcreteRegionManager<MovingDocumentRegion> _manager;
+  private volatile BookmarksPanel _panel;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        DrJava.getConfig().resetToDefaults();
+        _frame = new MainFrame();
+        _frame.pack();
+        _manager = new ConcreteRegionManager<MovingDocumentRegion>();
+        _panel = new BookmarksPanel(_frame, _manager);
+      }
+    });
+  }
+  
+  public void tearDown() throws Exception {
+    Utilities.invokeLater(new Runnable() {
+      public void run() {
+        _frame.dispose();
+        _frame = null;
+      }
+    });
+    Utilities.clearEventQueue();
+    super.tearDown();
+  }
+  
+  /** Creates a new document containing the given text. */
+  private OpenDefinitionsDocument _newDoc(String text) throws Exception {
+    OpenDefinitionsDocument doc = _frame.getModel().newFile();
+    doc.insertString(0, text, null);
+    return doc;
+  }
+  
+  /** Tests that regions added while changing get no nodes until one of them is needed. */
+  public void testGetNodeMaterializesLazyDocument() {
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          OpenDefinitionsDocument doc = _newDoc("first line\nsecond line\nthird line\n");
+          MovingDocumentRegion r1 = new MovingDocumentRegion(doc, 0, 5);
+          MovingDocumentRegion r2 = new MovingDocumentRegion(doc, 11, 17);
+          
+          _panel.startChanging();
+          _manager.addRegion(r2);
+          _manager.addRegion(r1);
+          DefaultMutableTreeNode docNode = _panel.getNode(doc);
+          assertNotNull("document node created", docNode);
+          assertTrue("document node is lazy", _panel._lazyDocNodes.contains(docNode));
+          assertEquals("no region nodes yet", 0, docNode.getChildCount());
+          
+          DefaultMutableTreeNode regionNode = _panel.getNode(r2);
+          assertNotNull("region node created on demand", regionNode);
+          assertFalse("document node no longer lazy", _panel._lazyDocNodes.contains(docNode));
+          assertEquals("all region nodes created", 2, docNode.getChildCount());
+          assertSame(docNode, regionNode.getParent());
+          assertSame("region nodes in document order", _panel.getNode(r1), docNode.getChildAt(0));
+          assertFalse("materializing twice does nothing", _panel._materialize(docNode));
+          _panel.finishChanging();
+        }
+        catch (Exception e) { fail("unexpected exception " + e); }
+      }
+    });
+  }
+  
+  /** Tests that removing the last region of a lazy document node removes the node. */
+  public void testRemoveRegionFromLazyDocument() {
+    Utilities.invokeAndWait(new Runnable() {
+      public void run() {
+        try {
+          OpenDefinitionsDocument doc = _newDoc("one\ntwo\n");
+          MovingDocumentRegion r1 = new MovingDocumentRegion(doc, 0, 3);
+          MovingDocumentRegion r2 = new MovingDocumentRegion(doc, 4, 7);
+          
+          _panel.startChanging();
+          _manager.addRegion(r1);
+          _manager.addRegion(r2);
+          DefaultMutableTreeNode docNode = _panel.getNode(doc);
+          
+          _manager.removeRegion(r1);
+          assertSame("document node kept while it has regions", docNode, _panel.getNode(doc));
+          assertTrue("document node still lazy", _panel._lazyDocNodes.contains(docNode));
+          
+          _manager.removeRegion(r2);
+          assertNull("document node removed", _panel.getNode(doc));
+          assertFalse("lazy entry removed", _panel._lazyDocNodes.contains(docNode));
+          assertNull("removed document node has no parent", docNode.getParent());
+          assertNull("no region node for a removed region", _panel.getNode(r2));
+          _panel.finishChanging();
+        }
+        catch (Exception e) { fail("unexpected exception " + e); }
+      }
+    });
+  }
+}
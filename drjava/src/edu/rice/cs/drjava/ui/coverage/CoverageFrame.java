@@ -56,6 +56,7 @@ import edu.rice.cs.drjava.model.OpenDefinitionsDocument;
 import edu.rice.cs.drjava.model.SingleDisplayModel;
 import edu.rice.cs.drjava.model.compiler.CompilerListener;
 import edu.rice.cs.drjava.model.compiler.DummyCompilerListener;
+import edu.rice.cs.drjava.model.coverage.ReportGenerator;
 import edu.rice.cs.drjava.model.definitions.ClassNameNotFoundException;
 
 import edu.rice.cs.drjava.config.Option;
@@ -68,6 +69,7 @@ import edu.rice.cs.drjava.ui.*;
 import edu.rice.cs.drjava.DrJava;
 import edu.rice.cs.plt.iter.IterUtil;
 import edu.rice.cs.plt.collect.CollectUtil;
+import edu.rice.cs.plt.collect.IntList;
 import edu.rice.cs.plt.lambda.Runnable1;
 import edu.rice.cs.plt.lambda.LambdaUtil;
 import edu.rice.cs.util.FileOps;
@@ -317,7 +319,7 @@ public class CoverageFrame extends SwingFrame {
      * @param selOnly true if we only want to highlight the currently-selected
      *                document; false to highlight everything
      */
-    private void highlight(Map<String, List<String>> lineColors, boolean selOnly) {
+    private void highlight(Map<String, IntList> lineColors, boolean selOnly) {
     
         /* Get an iterator over the documents to be highlighted */
         Iterator<OpenDefinitionsDocument> iter;
@@ -336,11 +338,11 @@ public class CoverageFrame extends SwingFrame {
             final DefinitionsPane pane = _mainFrame.getDefPaneGivenODD(o);
 
             try {
-                List<String> colors = lineColors.get(o.getQualifiedClassName());
+                IntList colors = lineColors.get(o.getQualifiedClassName());
 
                 /* Highlight each line */
                 for (int i = 0; i < colors.size(); i++) {
-                    String color = colors.get(i);
+                    String color = ReportGenerator.getColor(colors.get(i));
               
                     Color c = Color.black;
                     if (color.equals("")) {
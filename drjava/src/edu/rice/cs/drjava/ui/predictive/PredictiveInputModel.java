@@ -36,14 +36,19 @@
 
 package edu.rice.cs.drjava.ui.predictive;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Map;
 import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 import java.util.regex.PatternSyntaxException;
 
+import edu.rice.cs.util.StringOps;
+
 /** Model class for predictive string input. */
 public class PredictiveInputModel<T extends Comparable<? super T>> {
   
@@ -112,9 +117,246 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     public String force(X item, String mask);
   }
   
+  /** Strategy that can build an index over the items, so that the matches for a mask are found without testing
+    * every item.  An indexed strategy must guarantee that extending the mask can only narrow the set of matches, and
+    * that every perfect match is also a match.
+    */
+  public static interface IndexedMatchingStrategy<X extends Comparable<? super X>> extends MatchingStrategy<X> {
+    
+    /** Builds an index over the items.
+      * @param items the items, in the order used by the predictive input model
+      * @param ignoreCase true if case should be ignored
+      * @return the index
+      */
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase);
+  }
+  
+  /** Index over a list of items, built by an {@link IndexedMatchingStrategy}. */
+  public static interface MatchIndex {
+    
+    /** Returns the positions of the items that match the mask.
+      * @param mask the mask
+      * @param within the positions that may match, in increasing order, or null if all items may match; when the 
+      *        mask is an extension of a previous mask, these are the matches for the previous mask
+      * @return the positions of the matching items in increasing order
+      */
+    public int[] getMatches(String mask, int[] within);
+  }
+  
+  /** @param mask a mask, possibly followed by a line number separated by :
+    * @return the mask without the line number
+    */
+  private static String stripLineNum(String mask) {
+    int pos = mask.lastIndexOf(':');
+    return (pos < 0) ? mask : mask.substring(0, pos);
+  }
+  
+  /** @param length number of positions
+    * @return the positions 0 to length-1
+    */
+  private static int[] allPositions(int length) {
+    int[] result = new int[length];
+    for (int i = 0; i < length; ++i) result[i] = i;
+    return result;
+  }
+  
+  /** @param a positions in increasing order
+    * @param b positions in increasing order, or null for all positions
+    * @return the positions in both a and b, in increasing order
+    */
+  private static int[] intersect(int[] a, int[] b) {
+    if (b == null) return a;
+    if (a.length > b.length) { int[] t = a; a = b; b = t; }
+    int[] result = new int[a.length];
+    int count = 0;
+    int lo = 0;
+    for (int x: a) {
+      int pos = Arrays.binarySearch(b, lo, b.length, x);
+      if (pos >= 0) { result[count++] = x; lo = pos + 1; }
+      else lo = -pos - 1;
+      if (lo >= b.length) break;
+    }
+    return Arrays.copyOf(result, count);
+  }
+  
+  /** Index for prefix matching: the keys of the items in sorted order, so that the items starting with a mask form 
+    * a contiguous range that is found by binary search.  This serves the same purpose as a prefix trie, but only needs
+    * two arrays.
+    */
+  public static class PrefixIndex implements MatchIndex {
+    /** Keys in sorted order. */
+    private final String[] _sortedKeys;
+    /** Positions of the items, in the order of _sortedKeys. */
+    private final int[] _positions;
+    private final boolean _ignoreCase;
+    private final boolean _lineNums;
+    
+    /** @param items the items
+      * @param ignoreCase true if case should be ignored
+      * @param lineNums true if masks may end with a line number separated by :
+      */
+    public PrefixIndex(List<?> items, boolean ignoreCase, boolean lineNums) {
+      _ignoreCase = ignoreCase;
+      _lineNums = lineNums;
+      final String[] keys = new String[items.size()];
+      Integer[] order = new Integer[keys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        keys[i] = (ignoreCase) ? items.get(i).toString().toLowerCase() : items.get(i).toString();
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        public int compare(Integer a, Integer b) { return keys[a].compareTo(keys[b]); }
+      });
+      _sortedKeys = new String[keys.length];
+      _positions = new int[keys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        _sortedKeys[i] = keys[order[i]];
+        _positions[i] = order[i];
+      }
+    }
+    
+    public int[] getMatches(String mask, int[] within) {
+      if (_lineNums) mask = stripLineNum(mask);
+      if (_ignoreCase) mask = mask.toLowerCase();
+      int lo = lowerBound(mask);
+      int hi = lo;
+      while (hi < _sortedKeys.length && _sortedKeys[hi].startsWith(mask)) ++hi;
+      int[] result = Arrays.copyOfRange(_positions, lo, hi);
+      Arrays.sort(result);
+      return intersect(result, within);
+    }
+    
+    /** @param key a key
+      * @return the first index in _sortedKeys whose key is not less than key
+      */
+    private int lowerBound(String key) {
+      int lo = 0;
+      int hi = _sortedKeys.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (_sortedKeys[mid].compareTo(key) < 0) lo = mid + 1;
+        else hi = mid;
+      }
+      return lo;
+    }
+  }
+  
+  /** Index for camel-case matching: a prefix index over the items and another over their camel-case initials. */
+  public static class CamelCaseIndex implements MatchIndex {
+    private final PrefixIndex _prefixIndex;
+    private final PrefixIndex _initialsIndex;
+    private final String[] _strings;
+    
+    /** @param items the items
+      * @param ignoreCase true if case should be ignored for prefix matches
+      */
+    public CamelCaseIndex(List<?> items, boolean ignoreCase) {
+      _prefixIndex = new PrefixIndex(items, ignoreCase, false);
+      _strings = new String[items.size()];
+      List<String> initials = new ArrayList<String>(items.size());
+      for (int i = 0; i < _strings.length; ++i) {
+        _strings[i] = items.get(i).toString();
+        initials.add(StringOps.getCamelCaseInitials(_strings[i]));
+      }
+      _initialsIndex = new PrefixIndex(initials, false, false);
+    }
+    
+    public int[] getMatches(String mask, int[] within) {
+      int[] prefixMatches = _prefixIndex.getMatches(mask, within);
+      String initials = StringOps.getCamelCaseInitials(mask);
+      if (initials.length() == 0) return prefixMatches;
+      int[] candidates = _initialsIndex.getMatches(initials, within);
+      int count = 0;
+      for (int p: candidates) { if (StringOps.matchesCamelCase(_strings[p], mask)) candidates[count++] = p; }
+      // merge the two sorted position arrays
+      int[] result = new int[prefixMatches.length + count];
+      int i = 0, j = 0, k = 0;
+      while (i < prefixMatches.length || j < count) {
+        if (j >= count || (i < prefixMatches.length && prefixMatches[i] < candidates[j])) result[k++] = prefixMatches[i++];
+        else if (i >= prefixMatches.length || candidates[j] < prefixMatches[i]) result[k++] = candidates[j++];
+        else { result[k++] = prefixMatches[i++]; ++j; }
+      }
+      return Arrays.copyOf(result, k);
+    }
+  }
+  
+  /** Index for fragment matching: the keys of the items, and for every three-character sequence (trigram) the 
+    * positions of the keys containing it.  The candidates for a fragment of at least three characters are found by
+    * intersecting the lists for its trigrams; shorter fragments are checked against the candidates directly.
+    */
+  public static class FragmentIndex implements MatchIndex {
+    private final String[] _keys;
+    private final Map<String, int[]> _trigrams;
+    private final boolean _ignoreCase;
+    private final boolean _lineNums;
+    
+    /** @param items the items
+      * @param ignoreCase true if case should be ignored
+      * @param lineNums true if masks may end with a line number separated by :
+      */
+    public FragmentIndex(List<?> items, boolean ignoreCase, boolean lineNums) {
+      _ignoreCase = ignoreCase;
+      _lineNums = lineNums;
+      _keys = new String[items.size()];
+      // first pass counts the keys containing each trigram, so the position lists can be allocated exactly
+      Map<String, int[]> counts = new HashMap<String, int[]>();
+      for (int i = 0; i < _keys.length; ++i) {
+        _keys[i] = (ignoreCase) ? items.get(i).toString().toLowerCase() : items.get(i).toString();
+        String k = _keys[i];
+        for (int j = 0; j + 3 <= k.length(); ++j) {
+          String t = k.substring(j, j + 3);
+          if (k.indexOf(t) == j) { // count each key only once per trigram
+            int[] c = counts.get(t);
+            if (c == null) counts.put(t, new int[] { 1 });
+            else ++c[0];
+          }
+        }
+      }
+      _trigrams = new HashMap<String, int[]>(counts.size() * 2);
+      for (Map.Entry<String, int[]> e: counts.entrySet()) _trigrams.put(e.getKey(), new int[e.getValue()[0]]);
+      for (int[] c: counts.values()) c[0] = 0; // reuse as fill pointers
+      for (int i = 0; i < _keys.length; ++i) {
+        String k = _keys[i];
+        for (int j = 0; j + 3 <= k.length(); ++j) {
+          String t = k.substring(j, j + 3);
+          if (k.indexOf(t) == j) _trigrams.get(t)[counts.get(t)[0]++] = i;
+        }
+      }
+    }
+    
+    public int[] getMatches(String mask, int[] within) {
+      if (_lineNums) mask = stripLineNum(mask);
+      if (_ignoreCase) mask = mask.toLowerCase();
+      java.util.StringTokenizer tok = new java.util.StringTokenizer(mask);
+      List<String> fragments = new ArrayList<String>();
+      int[] candidates = within;
+      while(tok.hasMoreTokens()) {
+        String f = tok.nextToken();
+        fragments.add(f);
+        for (int j = 0; j + 3 <= f.length(); ++j) {
+          int[] list = _trigrams.get(f.substring(j, j + 3));
+          if (list == null) return new int[0];
+          candidates = intersect(list, candidates);
+        }
+      }
+      if (candidates == null) candidates = allPositions(_keys.length);
+      int[] result = new int[candidates.length];
+      int count = 0;
+      for (int p: candidates) {
+        boolean match = true;
+        for (String f: fragments) {
+          if (_keys[p].indexOf(f) < 0) { match = false; break; }
+        }
+        if (match) result[count++] = p;
+      }
+      return Arrays.copyOf(result, count);
+    }
+  }
+  
   /** Matching based on string prefix. */
-  public static class PrefixStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+  public static class PrefixStrategy<X extends Comparable<? super X>> implements IndexedMatchingStrategy<X> {
     public String toString() { return "Prefix"; }
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase) { return new PrefixIndex(items, ignoreCase, false); }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
       String a = (pim._ignoreCase) ? (item.toString().toLowerCase()) : (item.toString());
       String b = (pim._ignoreCase) ? (pim._mask.toLowerCase()) : (pim._mask);
@@ -153,31 +395,7 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
       return longestMatch;
     }
     public String getSharedMaskExtension(List<X> items, PredictiveInputModel<X> pim) {
-      StringBuilder res = new StringBuilder();
-      String ext = "";
-      if (items.size() == 0) {
-        return ext;
-      }
-      boolean allMatching = true;
-      int len = pim._mask.length();
-      while((allMatching) && (pim._mask.length() + ext.length() < items.get(0).toString().length())) {
-        char origCh = items.get(0).toString().charAt(pim._mask.length() + ext.length());
-        char ch = (pim._ignoreCase) ? (Character.toLowerCase(origCh)) : (origCh);
-        allMatching = true;
-        for (X i: items) {
-          String a = (pim._ignoreCase) ? (i.toString().toLowerCase()) : (i.toString());
-          if (a.charAt(len) != ch) {
-            allMatching = false;
-            break;
-          }
-        }
-        if (allMatching) {
-          ext = ext + ch;
-          res.append(origCh);
-          ++len;
-        }
-      }
-      return res.toString();
+      return sharedExtension(items, pim._mask.length(), pim._ignoreCase);
     }
     public String getExtendedSharedMask(List<X> items, PredictiveInputModel<X> pim) {
       return pim._mask + getSharedMaskExtension(items, pim);
@@ -185,9 +403,69 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     public String force(X item, String mask) { return item.toString(); }
   };
   
+  /** Returns the longest string that follows the first {@code start} characters in all the items.
+    * @param items the items, which all share a prefix of length start
+    * @param start the length of the shared prefix
+    * @param ignoreCase true if case should be ignored
+    * @return the extension, taken from the first item
+    */
+  private static String sharedExtension(List<?> items, int start, boolean ignoreCase) {
+    if (items.size() == 0) return "";
+    String first = items.get(0).toString();
+    int end = first.length();
+    for (Object i: items) {
+      String a = i.toString();
+      int len = Math.min(end, a.length());
+      int j = start;
+      while (j < len && (a.charAt(j) == first.charAt(j) || 
+                         (ignoreCase && Character.toLowerCase(a.charAt(j)) == Character.toLowerCase(first.charAt(j))))) {
+        ++j;
+      }
+      end = j;
+      if (end <= start) return "";
+    }
+    return first.substring(start, end);
+  }
+  
+  /** Remembers the most recently compiled pattern, so a mask is only compiled once, not once per item. */
+  private static class PatternCache {
+    private String _regex = null;
+    private boolean _ignoreCase;
+    private Pattern _pattern;
+    
+    /** @param regex the regular expression
+      * @param ignoreCase true if case should be ignored
+      * @return the compiled pattern, or null if the regular expression is invalid
+      */
+    public synchronized Pattern get(String regex, boolean ignoreCase) {
+      if (! regex.equals(_regex) || ignoreCase != _ignoreCase) {
+        _regex = regex;
+        _ignoreCase = ignoreCase;
+        try { _pattern = Pattern.compile(regex, (ignoreCase)?(Pattern.CASE_INSENSITIVE):(0)); }
+        catch (PatternSyntaxException e) { _pattern = null; }
+      }
+      return _pattern;
+    }
+  }
+  
+  /** Matching based on string prefix or camel-case abbreviation, e.g. "ArrayL", "AL" or "ArLi" for "ArrayList". */
+  public static class CamelCaseStrategy<X extends Comparable<? super X>> extends PrefixStrategy<X> {
+    public String toString() { return "CamelCase"; }
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase) { return new CamelCaseIndex(items, ignoreCase); }
+    public boolean isMatch(X item, PredictiveInputModel<X> pim) {
+      return super.isMatch(item, pim) || 
+        (StringOps.getCamelCaseInitials(pim._mask).length() > 0 && StringOps.matchesCamelCase(item.toString(), pim._mask));
+    }
+    public String getSharedMaskExtension(List<X> items, PredictiveInputModel<X> pim) {
+      for (X i: items) { if (! super.isMatch(i, pim)) return ""; }
+      return super.getSharedMaskExtension(items, pim);
+    }
+  };
+  
   /** Matching based on string fragments. */
-  public static class FragmentStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+  public static class FragmentStrategy<X extends Comparable<? super X>> implements IndexedMatchingStrategy<X> {
     public String toString() { return "Fragments"; }
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase) { return new FragmentIndex(items, ignoreCase, false); }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
       String a = (pim._ignoreCase) ? (item.toString().toLowerCase()) : (item.toString());
       String b = (pim._ignoreCase) ? (pim._mask.toLowerCase()) : (pim._mask);
@@ -228,19 +506,11 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   
   /** Matching based on string regular expressions. */
   public static class RegExStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+    private final PatternCache _patternCache = new PatternCache();
     public String toString() { return "RegEx"; }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
-      String a = item.toString();
-
-      try {
-        Pattern p = Pattern.compile(pim._mask,
-                                    (pim._ignoreCase)?(Pattern.CASE_INSENSITIVE):(0));
-        Matcher m = p.matcher(a);
-        return m.matches();
-      }
-      catch (PatternSyntaxException e) {
-        return false;
-      }
+      Pattern p = _patternCache.get(pim._mask, pim._ignoreCase);
+      return (p != null) && p.matcher(item.toString()).matches();
     }
     public boolean isPerfectMatch(X item, PredictiveInputModel<X> pim) {
       String a = (pim._ignoreCase)?(item.toString().toLowerCase()):(item.toString());
@@ -271,8 +541,9 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   };
   
   /** Matching based on string prefix, supporting line numbers separated by :. */
-  public static class PrefixLineNumStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+  public static class PrefixLineNumStrategy<X extends Comparable<? super X>> implements IndexedMatchingStrategy<X> {
     public String toString() { return "Prefix"; }
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase) { return new PrefixIndex(items, ignoreCase, true); }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
       int posB = pim._mask.lastIndexOf(':');
       if (posB < 0) { posB = pim._mask.length(); }
@@ -343,36 +614,7 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
       return longestMatch;
     }
     public String getSharedMaskExtension(List<X> items, PredictiveInputModel<X> pim) {
-      StringBuilder res = new StringBuilder();
-      String ext = "";
-      if (items.size() == 0) {
-        return ext;
-      }
-      
-      int posB = pim._mask.lastIndexOf(':');
-      if (posB < 0) { posB = pim._mask.length(); }
-      String mask = pim._mask.substring(0,posB);
-      
-      boolean allMatching = true;
-      int len = mask.length();
-      while((allMatching) && (mask.length() + ext.length() < items.get(0).toString().length())) {
-        char origCh = items.get(0).toString().charAt(mask.length()+ext.length());
-        char ch = (pim._ignoreCase)?(Character.toLowerCase(origCh)):(origCh);
-        allMatching = true;
-        for (X i: items) {
-          String a = (pim._ignoreCase)?(i.toString().toLowerCase()):(i.toString());
-          if (a.charAt(len) != ch) {
-            allMatching = false;
-            break;
-          }
-        }
-        if (allMatching) {
-          ext = ext + ch;
-          res.append(origCh);
-          ++len;
-        }
-      }
-      return res.toString();
+      return sharedExtension(items, stripLineNum(pim._mask).length(), pim._ignoreCase);
     }
     public String getExtendedSharedMask(List<X> items, PredictiveInputModel<X> pim) {
       int pos = pim._mask.lastIndexOf(':');
@@ -395,8 +637,9 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   };
   
   /** Matching based on string fragments, supporting line numbers. */
-  public static class FragmentLineNumStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+  public static class FragmentLineNumStrategy<X extends Comparable<? super X>> implements IndexedMatchingStrategy<X> {
     public String toString() { return "Fragments"; }
+    public MatchIndex buildIndex(List<X> items, boolean ignoreCase) { return new FragmentIndex(items, ignoreCase, true); }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
       int posB = pim._mask.lastIndexOf(':');
       if (posB < 0) { posB = pim._mask.length(); }
@@ -469,23 +712,11 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   
   /** Matching based on string regular expressions, supporting line numbers. */
   public static class RegExLineNumStrategy<X extends Comparable<? super X>> implements MatchingStrategy<X> {
+    private final PatternCache _patternCache = new PatternCache();
     public String toString() { return "RegEx"; }
     public boolean isMatch(X item, PredictiveInputModel<X> pim) {
-      int posB = pim._mask.lastIndexOf(':');
-      if (posB < 0) { posB = pim._mask.length(); }
-      String mask = pim._mask.substring(0,posB);
-      
-      String a = item.toString();
-
-      try {
-        Pattern p = Pattern.compile(mask,
-                                    (pim._ignoreCase)?(Pattern.CASE_INSENSITIVE):(0));
-        Matcher m = p.matcher(a);
-        return m.matches();
-      }
-      catch (PatternSyntaxException e) {
-        return false;
-      }
+      Pattern p = _patternCache.get(stripLineNum(pim._mask), pim._ignoreCase);
+      return (p != null) && p.matcher(item.toString()).matches();
     }
     public boolean isPerfectMatch(X item, PredictiveInputModel<X> pim) {
       int posB = pim._mask.lastIndexOf(':');
@@ -559,14 +790,27 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   
   /** Matching strategy. */
   private volatile MatchingStrategy<T> _strategy;
+  
+  /** Index over _items built by the strategy if it is an IndexedMatchingStrategy; null if not built yet. */
+  private volatile MatchIndex _matchIndex = null;
+  
+  /** Positions in _items of the matching items if the strategy is indexed, otherwise null. */
+  private volatile int[] _matchingPositions = null;
+  
+  /** Shared mask extension of the current matches, or null if it has not been computed yet. */
+  private volatile String _sharedMaskExtension = null;
 
   /** Create a new predictive input model.
     * @param ignoreCase true if case should be ignored
     * @param pim other predictive input model
     */
   public PredictiveInputModel(boolean ignoreCase, PredictiveInputModel<T> pim) {
-    this(ignoreCase, pim._strategy, pim._items);
-    setMask(pim.getMask());
+    _ignoreCase = ignoreCase;
+    _strategy = pim._strategy;
+    _items = pim._items;  // already sorted, and never modified in place
+    if (ignoreCase == pim._ignoreCase) _matchIndex = pim._matchIndex;
+    _mask = pim.getMask();
+    updateMatchingStrings(_items);
   }
 
   /** Create a new predictive input model.
@@ -597,6 +841,7 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
    */
   public void setStrategy(MatchingStrategy<T> strategy) {
     _strategy = strategy;
+    _matchIndex = null;
     updateMatchingStrings(_items);
   }
 
@@ -613,6 +858,7 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
   public void setItems(Collection<T> items) {
     _items = new ArrayList<T>(items);
     Collections.sort(_items);
+    _matchIndex = null;
     updateMatchingStrings(_items);
   }
 
@@ -624,6 +870,7 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     _items = new ArrayList<T>(items.length);
     for(T s: items) _items.add(s);
     Collections.sort(_items);
+    _matchIndex = null;
     updateMatchingStrings(_items);
   }
 
@@ -641,8 +888,10 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     * @param mask new mask
     */
   public void setMask(String mask) {
+    boolean extended = mask.startsWith(_mask);
     _mask = mask;
-    updateMatchingStrings(_items);
+    // extending the mask can only narrow the matches of an indexed strategy
+    updateMatchingStrings((extended && _matchingPositions != null) ? _matchingItems : _items);
   }
 
   /** Helper function that does indexOf with ignoreCase option.
@@ -663,6 +912,12 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     * @param items list of items to base the matching on
     */
   private void updateMatchingStrings(ArrayList<T> items) {
+    _sharedMaskExtension = null;
+    if (_strategy instanceof IndexedMatchingStrategy) {
+      updateMatchingPositions(items == _matchingItems);
+      return;
+    }
+    _matchingPositions = null;
     items = new ArrayList<T>(items); // create a new copy, otherwise we might be clearing the list in the next line
     _matchingItems.clear();
     for(T s: items) {
@@ -680,6 +935,44 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
     else _index = 0;
   }
 
+  /** Update the list of matching strings and current index using the index built by the strategy.  Only the 
+    * positions of the matches are tracked, so the current item is found by binary search rather than by comparing
+    * the items.
+    * @param narrow true if only the current matches need to be considered
+    */
+  private void updateMatchingPositions(boolean narrow) {
+    if (_matchIndex == null) {
+      @SuppressWarnings("unchecked")
+      IndexedMatchingStrategy<T> strategy = (IndexedMatchingStrategy<T>) _strategy;
+      _matchIndex = strategy.buildIndex(_items, _ignoreCase);
+      narrow = false;
+    }
+    int[] positions = _matchIndex.getMatches(_mask, (narrow) ? _matchingPositions : null);
+    _matchingPositions = positions;
+    _matchingItems.clear();
+    _matchingItems.ensureCapacity(positions.length);
+    for (int p: positions) _matchingItems.add(_items.get(p));
+    if (_items.size() == 0) { _index = 0; return; }
+    if (_index >= _items.size()) _index = 0;
+    for (int p: positions) {  // every perfect match is also a match
+      if (_strategy.isPerfectMatch(_items.get(p), this)) { _index = p; return; }
+    }
+    // select the first match at or after the current item; otherwise the match closest to it
+    int pos = Arrays.binarySearch(positions, _index);
+    if (pos < 0) pos = -pos - 1;
+    if (pos < positions.length) _index = positions[pos];
+    else if (positions.length > 0) {
+      T item = _items.get(_index);
+      int follows = positions[0];
+      for (int p: positions) {
+        if (_strategy.compare(item, _items.get(p), this) < 0) break;
+        follows = p;
+      }
+      _index = follows;
+    }
+    else pickClosestMatch(_items.get(_index));
+  }
+  
   /** Get currently selected item.
     * @return currently selected item
     */
@@ -750,7 +1043,12 @@ public class PredictiveInputModel<T extends Comparable<? super T>> {
    * @return shared mask extension
    */
   public String getSharedMaskExtension() {
-    return _strategy.getSharedMaskExtension(_matchingItems, this);
+    String ext = _sharedMaskExtension;
+    if (ext == null) {
+      ext = _strategy.getSharedMaskExtension(_matchingItems, this);
+      _sharedMaskExtension = ext;
+    }
+    return ext;
   }
 
   /** Extends the mask. This operation can only narrow the list of matching strings and is thus faster than
@@ -0,0 +1,78 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.drjava.ui.predictive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.rice.cs.plt.debug.Stopwatch;
+
+/** Reports the time to type the masks of PredictiveInputModelTest into a 100,000 item list, with and without the
+  * strategies' indices.  This is a timing benchmark, not a unit test; run it with
+  * {@code java edu.rice.cs.drjava.ui.predictive.PredictiveInputModelBenchmark}.
+  */
+public class PredictiveInputModelBenchmark {
+  
+  /** Scanning is slow enough that only a few keystrokes are timed. */
+  private static final String[] SCANNING_MASKS = { "hash m" };
+  
+  public static void main(String... args) {
+    List<String> items = PredictiveInputModelTest.makeNames(100000);
+    List<PredictiveInputModel.MatchingStrategy<String>> strategies = 
+      new ArrayList<PredictiveInputModel.MatchingStrategy<String>>();
+    strategies.add(new PredictiveInputModel.PrefixStrategy<String>());
+    strategies.add(new PredictiveInputModel.FragmentStrategy<String>());
+    strategies.add(new PredictiveInputModel.CamelCaseStrategy<String>());
+    String[] masks = PredictiveInputModelTest.MASKS;
+    for (PredictiveInputModel.MatchingStrategy<String> s: strategies) {
+      Stopwatch build = new Stopwatch(true);
+      PredictiveInputModel<String> indexed = new PredictiveInputModel<String>(true, s, items);
+      long buildTime = build.stop();
+      PredictiveInputModel<String> scanning = 
+        new PredictiveInputModel<String>(true, new PredictiveInputModelTest.ScanningStrategy<String>(s), items);
+      Stopwatch indexedTime = new Stopwatch(true);
+      for (String m: masks) { indexed.setMask(m); indexed.getSharedMaskExtension(); }
+      long indexedMillis = indexedTime.stop();
+      Stopwatch scanningTime = new Stopwatch(true);
+      for (String m: SCANNING_MASKS) { scanning.setMask(m); scanning.getSharedMaskExtension(); }
+      long scanningMillis = scanningTime.stop();
+      System.out.println(s + ": build " + buildTime + " ms, indexed " + ((double) indexedMillis / masks.length) +
+                         " ms/key, scanning " + ((double) scanningMillis / SCANNING_MASKS.length) + " ms/key");
+    }
+  }
+  
+}
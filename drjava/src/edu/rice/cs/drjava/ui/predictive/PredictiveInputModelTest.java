@@ -38,7 +38,9 @@ package edu.rice.cs.drjava.ui.predictive;
 
 import edu.rice.cs.drjava.DrJavaTestCase;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /** * Unit tests for PredictiveInputModel class.
@@ -1093,6 +1095,108 @@ public class PredictiveInputModelTest extends DrJavaTestCase {
     assertTrue(pim.getMatchingItems().contains("JFrame"));
   }
 
+  public void testCamelCaseStrategy() {
+    PredictiveInputModel<String> pim = new PredictiveInputModel<String>(true,
+                                                                        new PredictiveInputModel.CamelCaseStrategy<String>(),
+                                                                        "AbstractList",
+                                                                        "ActionListener",
+                                                                        "ArrayList",
+                                                                        "ArrayListener",
+                                                                        "Arrays",
+                                                                        "alpha");
+    pim.setMask("AL");
+    assertEquals(5, pim.getMatchingItems().size());  // includes "alpha", since case is ignored for prefixes
+    assertEquals("AbstractList", pim.getCurrentItem());
+    assertEquals("", pim.getSharedMaskExtension());
+    
+    pim.setMask("ALis");
+    assertEquals(4, pim.getMatchingItems().size());
+    pim.setMask("AListe");
+    assertEquals(2, pim.getMatchingItems().size());
+    assertTrue(pim.getMatchingItems().contains("ActionListener"));
+    assertTrue(pim.getMatchingItems().contains("ArrayListener"));
+    
+    pim.setMask("arr");
+    assertEquals(3, pim.getMatchingItems().size());
+    assertEquals("ay", pim.getSharedMaskExtension());
+    pim.extendSharedMask();
+    assertEquals("array", pim.getMask());
+    assertEquals(3, pim.getMatchingItems().size());
+    
+    pim.setMask("ArrayList");
+    assertEquals(2, pim.getMatchingItems().size());
+    assertEquals("ArrayList", pim.getCurrentItem());
+    
+    pim.setMask("al");
+    assertEquals(1, pim.getMatchingItems().size());
+    assertEquals("alpha", pim.getCurrentItem());
+  }
+  
+  /** Hides that a strategy is indexed, so that the model tests every item. */
+  static class ScanningStrategy<X extends Comparable<? super X>> implements PredictiveInputModel.MatchingStrategy<X> {
+    private final PredictiveInputModel.MatchingStrategy<X> _s;
+    public ScanningStrategy(PredictiveInputModel.MatchingStrategy<X> s) { _s = s; }
+    public boolean isMatch(X item, PredictiveInputModel<X> pim) { return _s.isMatch(item, pim); }
+    public boolean isPerfectMatch(X item, PredictiveInputModel<X> pim) { return _s.isPerfectMatch(item, pim); }
+    public boolean equivalent(X item1, X item2, PredictiveInputModel<X> pim) { return _s.equivalent(item1, item2, pim); }
+    public int compare(X item1, X item2, PredictiveInputModel<X> pim) { return _s.compare(item1, item2, pim); }
+    public X getLongestMatch(X item, List<X> items, PredictiveInputModel<X> pim) { 
+      return _s.getLongestMatch(item, items, pim);
+    }
+    public String getSharedMaskExtension(List<X> items, PredictiveInputModel<X> pim) { 
+      return _s.getSharedMaskExtension(items, pim);
+    }
+    public String getExtendedSharedMask(List<X> items, PredictiveInputModel<X> pim) {
+      return _s.getExtendedSharedMask(items, pim);
+    }
+    public String force(X item, String mask) { return _s.force(item, mask); }
+  }
+  
+  /** @return n generated class-like names */
+  static List<String> makeNames(int n) {
+    String[] parts = { "Abstract", "Array", "List", "Map", "Hash", "Tree", "Set", "Node", "Visitor", "Factory", 
+      "Model", "Document", "Panel", "Frame", "Listener", "Event", "Action", "Util", "Test", "Impl" };
+    Random r = new Random(42);
+    List<String> result = new ArrayList<String>(n);
+    for (int i = 0; i < n; ++i) {
+      StringBuilder sb = new StringBuilder();
+      int count = 1 + r.nextInt(4);
+      for (int j = 0; j < count; ++j) sb.append(parts[r.nextInt(parts.length)]);
+      sb.append(i % 97);
+      result.add(sb.toString());
+    }
+    return result;
+  }
+  
+  static final String[] MASKS = { "", "a", "ar", "arr", "array", "arrayl", "arraylist", "arrayl", "ar", 
+    "h", "ha", "has", "hash ", "hash m", "hash ma", "hash map", "AL", "ALi", "AbLM", "tree:12", "tre:1", "" };
+  
+  /** Types a sequence of masks and checks that indexed and scanning strategies agree on the matches. */
+  private static void assertSameMatches(List<String> items, PredictiveInputModel.MatchingStrategy<String> s, 
+                                        boolean ignoreCase) {
+    PredictiveInputModel<String> indexed = new PredictiveInputModel<String>(ignoreCase, s, items);
+    PredictiveInputModel<String> scanning = 
+      new PredictiveInputModel<String>(ignoreCase, new ScanningStrategy<String>(s), items);
+    for (String m: MASKS) {
+      indexed.setMask(m);
+      scanning.setMask(m);
+      assertEquals(s + " matches for '" + m + "'", scanning.getMatchingItems(), indexed.getMatchingItems());
+      assertEquals(s + " extension for '" + m + "'", 
+                   scanning.getSharedMaskExtension(), indexed.getSharedMaskExtension());
+    }
+  }
+  
+  public void testIndexedStrategiesMatchScanning() {
+    List<String> items = makeNames(2000);
+    for (boolean ignoreCase: new boolean[] { true, false }) {
+      assertSameMatches(items, new PredictiveInputModel.PrefixStrategy<String>(), ignoreCase);
+      assertSameMatches(items, new PredictiveInputModel.FragmentStrategy<String>(), ignoreCase);
+      assertSameMatches(items, new PredictiveInputModel.PrefixLineNumStrategy<String>(), ignoreCase);
+      assertSameMatches(items, new PredictiveInputModel.FragmentLineNumStrategy<String>(), ignoreCase);
+      assertSameMatches(items, new PredictiveInputModel.CamelCaseStrategy<String>(), ignoreCase);
+    }
+  }
+  
   // What about Java 6, 7, 8?
   public void testJavaAPIFragmentLineNumStrategy() {
     final String base = edu.rice.cs.drjava.DrJava.
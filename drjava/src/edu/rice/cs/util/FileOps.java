@@ -163,7 +163,7 @@ public abstract class FileOps {
   public static boolean isAncestorOf(File ancestor, File f) {
     ancestor = ancestor.getAbsoluteFile();
     f = f.getAbsoluteFile();
-    _log.log("ancestor = " +ancestor + "     f = " + f);
+    _log.logf("ancestor = %s     f = %s", ancestor, f);
     while ((!ancestor.equals(f)) && (f != null)) {
       f = f.getParentFile();
     }
@@ -611,7 +611,7 @@ public abstract class FileOps {
   @Deprecated public static void deleteDirectoryOnExit(final File dir) {
     
     // Delete this on exit, whether it's a directory or file
-    _log.log("Deleting file/directory " + dir + " on exit");
+    _log.logf("Deleting file/directory %s on exit", dir);
     dir.deleteOnExit(); 
     
     // If it's a directory, visit its children.  This recursive walk has to be done AFTER calling deleteOnExit
@@ -705,21 +705,31 @@ public abstract class FileOps {
     * backup will be destroyed (because the backup is written before saving begins, then moved back over the original 
     * file when saving fails).  Since the old backup would have been destroyed anyway if saving had succeeded, this
     * behavior is appropriate.
+    * 
+    * If the target file already holds exactly the bytes the saver produces, nothing on disk is touched: no backup is
+    * made and the file keeps its modification date, so an unchanged file does not look out of date to the compiler.
+    * The comparison streams the saver's output against the file and stops at the first difference.  The new contents
+    * are written to a temp file in the same directory, which is then atomically renamed over the target where the
+    * file system supports it.
     * @param fileSaver  Keeps track of the name of the file to write, whether to back up the file, and has 
     *                   a method that actually performs the writing of the file
     * @throws IOException if the saving or backing up of the file fails for any reason
     */
   public static void saveFile(FileSaver fileSaver) throws IOException {
     
+    File file = fileSaver.getTargetFile();
+//    System.err.println("Saving file " + file + " with backup status = " + makeBackup);
+    // file.canWrite() is false if file.exists() is false, but we want to be able to save a file that doesn't yet exist.
+    if (file.exists() && ! file.canWrite()) throw new IOException("Permission denied");
+    if (_isUnchanged(fileSaver, file)) {
+      _log.logf("saveFile skipped unchanged %s", file);
+      return;
+    }
     
     boolean makeBackup = fileSaver.shouldBackup();
     boolean success = false;
-    File file = fileSaver.getTargetFile();
-//    System.err.println("Saving file " + file + " with backup status = " + makeBackup);
     File backup = null;
     boolean tempFileUsed = true;
-    // file.canWrite() is false if file.exists() is false, but we want to be able to save a file that doesn't yet exist.
-    if (file.exists() && ! file.canWrite()) throw new IOException("Permission denied");
     // First back up the file, if necessary.
     if (makeBackup) {
       backup = fileSaver.getBackupFile();
@@ -727,7 +737,7 @@ public abstract class FileOps {
         throw new IOException("Save failed. Could not create backup file " + backup.getAbsolutePath() +
                               "\nIt may be possible to save by disabling file backups\n");
       }
-      _log.log("saveFile renamed " + file + " as " + backup);
+      _log.logf("saveFile renamed %s as %s", file, backup);
       fileSaver.backupDone();  // Why? This action may have to be reversed if writing new file fails!
 //      System.err.println("Contents: '" + IOUtil.toString(backup) + "'");
     }
@@ -736,7 +746,7 @@ public abstract class FileOps {
      * try ... finally ... construction so that we can clean up the temp file and restore the file from its backup. */
     File parent = file.getParentFile();
     File tempFile = File.createTempFile("drjava", ".temp", parent);
-    _log.log("tempfileName = " + tempFile + " for backup file " + backup);
+    _log.logf("tempfileName = %s for backup file %s", tempFile, backup);
     
     try {
       /* Now, write your output to the temp file, then rename it to the correct name.  This way, if writing fails in the
@@ -755,15 +765,15 @@ public abstract class FileOps {
         } 
         else throw new IOException("Could not create temp file " + tempFile + " in attempt to save " + file);
       }
-      BufferedOutputStream bos = new BufferedOutputStream(fos);
+      BufferedOutputStream bos = new BufferedOutputStream(fos, SAVE_BUFFER_SIZE);
       fileSaver.saveTo(bos);
       _log.log(bos + " written");
-      _log.log("Closing " + bos + " and " + fos);
+      _log.logf("Closing %s and %s", bos, fos);
       bos.close();
 //      fos.close();
       
 //      System.err.println("Wrote: " + tempFile);
-      if (tempFileUsed && ! renameFile(tempFile, file))
+      if (tempFileUsed && ! _replaceFile(tempFile, file))
         throw new IOException("Save failed. Another process may be using " + file + ".");
 //      System.err.println("Renamed " + tempFile + " as " + file);
 //      if (makeBackup) System.err.println("Does " + backup + " still exists? " + backup.exists());
@@ -787,6 +797,89 @@ public abstract class FileOps {
     }
   }
   
+  /** Size of the buffer between a FileSaver and the file it writes or compares against. */
+  private static final int SAVE_BUFFER_SIZE = 64 * 1024;
+  
+  /** Determines whether file already contains exactly the bytes that fileSaver writes.  The saver's output is compared
+    * against the file as it is produced; the first difference ends the comparison.
+    * @param fileSaver the saver whose output is compared
+    * @param file the target file
+    * @return true iff file exists and its contents equal the saver's output
+    * @throws IOException if the saver fails before the first difference
+    */
+  private static boolean _isUnchanged(FileSaver fileSaver, File file) throws IOException {
+    if (! file.isFile()) return false;
+    ComparingOutputStream cos = new ComparingOutputStream(file);
+    try {
+      try { fileSaver.saveTo(cos); }
+      catch (IOException e) { if (! cos.differs()) throw e; }
+      return cos.matches();
+    }
+    finally { cos.dispose(); }
+  }
+  
+  /** Moves source over dest, atomically if the file system allows it.  Falls back on renameFile otherwise.
+    * @param source the file to move
+    * @param dest the file to replace
+    * @return true iff the move was successful
+    */
+  private static boolean _replaceFile(File source, File dest) {
+    try {
+      java.nio.file.Files.move(source.toPath(), dest.toPath(), java.nio.file.StandardCopyOption.ATOMIC_MOVE,
+                               java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    }
+    catch (IOException e) { return renameFile(source, dest); }
+  }
+  
+  /** An OutputStream that discards what is written to it after comparing it with the contents of a file.  Once a
+    * difference is found, further output is ignored and a ContentsDifferException is thrown to cut the writer short.
+    */
+  private static class ComparingOutputStream extends OutputStream {
+    private final InputStream _in;
+    private final byte[] _expected = new byte[SAVE_BUFFER_SIZE];
+    private boolean _differs = false;
+    
+    public ComparingOutputStream(File file) throws IOException {
+      _in = new BufferedInputStream(new FileInputStream(file), SAVE_BUFFER_SIZE);
+    }
+    
+    /** @return true iff a difference has been found */
+    public boolean differs() { return _differs; }
+    
+    /** @return true iff everything written so far equals the whole file */
+    public boolean matches() throws IOException { return ! _differs && _in.read() < 0; }
+    
+    public void write(int b) throws IOException {
+      if (! _differs && _in.read() != (b & 0xff)) _mismatch();
+    }
+    
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (! _differs && len > 0) {
+        int n = _in.read(_expected, 0, Math.min(len, _expected.length));
+        if (n < 0) _mismatch();
+        for (int i = 0; i < n; i++) {
+          if (_expected[i] != b[off + i]) _mismatch();
+        }
+        off += n;
+        len -= n;
+      }
+    }
+    
+    /** Does not close the file; the caller disposes of the stream after the saver has returned. */
+    public void close() { }
+    
+    public void dispose() throws IOException { _in.close(); }
+    
+    private void _mismatch() throws IOException {
+      _differs = true;
+      throw new ContentsDifferException();
+    }
+  }
+  
+  /** Thrown by ComparingOutputStream to stop a FileSaver as soon as its output differs from the file. */
+  private static class ContentsDifferException extends IOException { }
+  
   public interface FileSaver {
     
     /** This method tells what to name the backup file, if a backup is made.  
@@ -817,7 +910,9 @@ public abstract class FileOps {
     /** This method actually writes info to a file.  NOTE: It is important that this
      * method write to the stream it is passed, not the target file.  If you write
      * directly to the target file, the target file will be destroyed if saving fails.
-     * Also, it is important that when saving fails this method throw an IOException
+     * Also, it is important that when saving fails this method throw an IOException.
+     * saveFile may call this method twice: once to compare the output with the existing 
+     * file, which may be cut short by an IOException, and once to write the file.
      * @param os the OutputStream to write to
      * @throws IOException when saving fails for any reason
      */
@@ -840,7 +935,7 @@ public abstract class FileOps {
   public abstract static class DefaultFileSaver implements FileSaver {
     
     private volatile File outputFile = FileOps.NULL_FILE;
-    private static volatile Set<File> filesNotNeedingBackup = new HashSet<File>();
+    private static final Set<File> filesNotNeedingBackup = Collections.synchronizedSet(new HashSet<File>());
     private volatile boolean backupsEnabled = DrJava.getConfig().getSetting(BACKUP_FILES);  // uses the config default
     
     /** This field keeps track of whether or not outputFile has been resolved to its canonical name. */
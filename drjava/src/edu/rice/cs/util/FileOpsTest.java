@@ -221,6 +221,41 @@ public class FileOpsTest extends DrJavaTestCase {
     catch(FileNotFoundException e) { } //do nothing, we expected this
   }
   
+  /** Tests that saving the contents a file already has leaves the file alone, and that other contents still replace it.
+    * @throws IOException if an IO operation fails
+    */
+  public void testSaveFileUnchanged() throws IOException {
+    final File writeTo = File.createTempFile("fileops", ".test").getCanonicalFile();
+    writeTo.deleteOnExit();
+    FileOps.writeStringToFile(writeTo, "same contents");
+    writeTo.setLastModified(1000000000L);
+    
+    final int[] saves = { 0 };
+    class StringSaver implements FileOps.FileSaver {
+      private final String _text;
+      StringSaver(String text) { _text = text; }
+      public File getBackupFile() { return new File(writeTo.getPath() + "~"); }
+      public boolean shouldBackup() { return true; }
+      public boolean continueWhenTempFileCreationFails() { return false; }
+      public void backupDone() { }
+      public void saveTo(OutputStream os) throws IOException { saves[0]++; os.write(_text.getBytes()); }
+      public File getTargetFile() { return writeTo; }
+    }
+    
+    FileOps.saveFile(new StringSaver("same contents"));
+    assertEquals("unchanged contents", "same contents", FileOps.readFileAsString(writeTo));
+    assertEquals("unchanged file keeps its date", 1000000000L, writeTo.lastModified());
+    assertFalse("unchanged file is not backed up", new File(writeTo.getPath() + "~").exists());
+    assertEquals("only compared", 1, saves[0]);
+    
+    FileOps.saveFile(new StringSaver("same contents, longer"));
+    assertEquals("extended contents", "same contents, longer", FileOps.readFileAsString(writeTo));
+    FileOps.saveFile(new StringSaver("same"));
+    assertEquals("truncated contents", "same", FileOps.readFileAsString(writeTo));
+    assertEquals("backup", "same contents, longer", FileOps.readFileAsString(new File(writeTo.getPath() + "~")));
+    new File(writeTo.getPath() + "~").delete();
+  }
+  
   /** This tests that packageExplore correctly runs through and returns
    * non-empty packages
    * @throws IOException if an IO operation fails
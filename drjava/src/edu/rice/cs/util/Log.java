@@ -43,8 +43,16 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.TimeZone;
 
+import edu.rice.cs.plt.debug.AsynchronousLogSink;
+import edu.rice.cs.plt.debug.LogSink;
+import edu.rice.cs.plt.debug.ThreadSnapshot;
+import edu.rice.cs.plt.lambda.Thunk;
+
 /** Logging class to record errors or unexpected behavior to a file.  The file is created in the current directory,
   * and is only used if the log is enabled.  All logs can be enabled at once with the ENABLE_ALL field.
+  * <p>Messages that are expensive to build should be passed to {@link #logf} or {@link #log(Thunk)}, which only
+  * format them if the log is enabled; a disabled log then costs a field read per call.  An asynchronous log
+  * writes its messages on a background thread, so that callers do not wait for the file.</p>
   * @version $Id$
   */
 public class Log {
@@ -64,6 +72,16 @@ public class Log {
   
   public final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("d MMM yyyy H:mm:ss z");
   
+  /** Whether messages are written by a background thread. */
+  private final boolean _isAsynchronous;
+  
+  /** Queue writing messages to _writer on a background thread; null unless asynchronous and open. */
+  private volatile AsynchronousLogSink _sink;
+  
+  /** Second (in ms since the epoch) of the most recent time stamp, and its formatted text.  Guarded by DATE_FORMAT. */
+  private long _stampSecond = -1;
+  private String _stamp = null;
+  
   /** Creates a new Log with the given name.  If enabled is true, a file is created in the current directory with the
     * given name.
     * @param name  File name for the log
@@ -71,22 +89,36 @@ public class Log {
     */
   public Log(String name, boolean isEnabled) { this(new File(name), isEnabled); }
   
-  public Log(File f, boolean isEnabled) {
+  public Log(File f, boolean isEnabled) { this(f, isEnabled, false); }
+  
+  /** Creates a new Log with the given name.  If enabled is true, a file is created in the current directory with the
+    * given name.
+    * @param name  File name for the log
+    * @param isEnabled  Whether to actively use this log
+    * @param isAsynchronous  Whether to write messages on a background thread
+    */
+  public Log(String name, boolean isEnabled, boolean isAsynchronous) {
+    this(new File(name), isEnabled, isAsynchronous);
+  }
+  
+  public Log(File f, boolean isEnabled, boolean isAsynchronous) {
     _file = f;
     _name = f.getName();
     _isEnabled = isEnabled;
+    _isAsynchronous = isAsynchronous;
     DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("GMT"));
     DATE_FORMAT.setLenient(false);
     _init();
   }
   
   /** Creates the log file, if enabled. */
-  protected void _init() {
+  protected synchronized void _init() {
     if (_writer == null) {
       if (_isEnabled || ENABLE_ALL) {
         try {
           FileWriter w = new FileWriter(_file.getAbsolutePath(), true);
           _writer = new PrintWriter(w);
+          if (_isAsynchronous) { _sink = new AsynchronousLogSink(new WriterSink(_writer)); }
           log("Log '" + _name + "' opened: " + DATE_FORMAT.format(new Date()) + " with name " + _file.getAbsolutePath());
         }
         catch (IOException ioe) {
@@ -107,16 +139,115 @@ public class Log {
   /** Prints a message to the log, if enabled.
     * @param message Message to print.
     */
-  public synchronized void log(String message) {
-    if (isEnabled()) {
-      if (_writer == null) {
-        _init();
+  public void log(String message) {
+    if (isEnabled()) { _write(message); }
+  }
+  
+  /** Prints a message to the log, if enabled.  The message is only computed if the log is enabled.
+    * @param message Thunk producing the message to print
+    */
+  public void log(Thunk<? extends String> message) {
+    if (isEnabled()) { _write(message.value()); }
+  }
+  
+  /** Prints a message formatted with {@link String#format}, if enabled.  The message is only formatted
+    * (and the argument converted to a string) if the log is enabled.
+    * @param format the format string
+    * @param arg the argument referenced by the format string
+    */
+  public void logf(String format, Object arg) {
+    if (isEnabled()) { _write(String.format(format, arg)); }
+  }
+  
+  /** Prints a message formatted with {@link String#format}, if enabled.
+    * @param format the format string
+    * @param arg1 the first argument referenced by the format string
+    * @param arg2 the second argument referenced by the format string
+    */
+  public void logf(String format, Object arg1, Object arg2) {
+    if (isEnabled()) { _write(String.format(format, arg1, arg2)); }
+  }
+  
+  /** Prints a message formatted with {@link String#format}, if enabled.
+    * @param format the format string
+    * @param arg1 the first argument referenced by the format string
+    * @param arg2 the second argument referenced by the format string
+    * @param arg3 the third argument referenced by the format string
+    */
+  public void logf(String format, Object arg1, Object arg2, Object arg3) {
+    if (isEnabled()) { _write(String.format(format, arg1, arg2, arg3)); }
+  }
+  
+  /** Prints a message formatted with {@link String#format}, if enabled.  Note that the argument array is allocated
+    * by the caller even if the log is disabled; the fixed-arity overloads avoid that.
+    * @param format the format string
+    * @param args the arguments referenced by the format string
+    */
+  public void logf(String format, Object... args) {
+    if (isEnabled()) { _write(String.format(format, args)); }
+  }
+  
+  /** Writes a time-stamped message to the log file, opening it if necessary.
+    * @param message Message to print.
+    */
+  private void _write(String message) {
+    if (_isAsynchronous) {
+      AsynchronousLogSink sink = _sink;
+      if (sink == null) {
+        // _init sets _writer before _sink, so check _sink again while holding the lock _init runs under
+        synchronized(this) {
+          if (_sink == null) { _init(); }
+          sink = _sink;
+        }
+      }
+      if (sink != null) {
+        sink.log(new LogSink.StandardMessage(WriterSink.NO_THREAD, _stamp() + ": " + message, NO_NAMES, NO_VALUES));
+      }
+    }
+    else {
+      synchronized(this) {
+        if (_writer == null) {
+          _init();
+        }
+        _writer.println(_stamp() + ": " + message);
+        _writer.flush();
       }
-      _writer.println(DATE_FORMAT.format(new Date()) + ": " + message);
-      _writer.flush();
     }
   }
   
+  /** @return the current time formatted by DATE_FORMAT, reusing the text formatted for the same second */
+  private String _stamp() {
+    long now = System.currentTimeMillis();
+    long second = now - now % 1000;
+    synchronized(DATE_FORMAT) {
+      if (second != _stampSecond) {
+        _stamp = DATE_FORMAT.format(new Date(now));
+        _stampSecond = second;
+      }
+      return _stamp;
+    }
+  }
+  
+  private static final String[] NO_NAMES = new String[0];
+  private static final Object[] NO_VALUES = new Object[0];
+  
+  /** Writes the text of each message to a log file; used by the background thread of an asynchronous log.
+    * The text is complete, including its time stamp, so the message's thread snapshot is not used, and
+    * all messages share {@link #NO_THREAD} rather than capturing the caller's stack.
+    */
+  private static class WriterSink implements LogSink {
+    static final ThreadSnapshot NO_THREAD = new ThreadSnapshot();
+    private final PrintWriter _w;
+    public WriterSink(PrintWriter w) { _w = w; }
+    public void log(StandardMessage m) { _w.println(m.text().unwrap("")); _w.flush(); }
+    // Log only sends standard messages
+    public void logStart(StartMessage m) { }
+    public void logEnd(EndMessage m) { }
+    public void logError(ErrorMessage m) { }
+    public void logStack(StackMessage m) { }
+    public void close() { _w.close(); }
+  }
+  
   /** Converts a stack trace (StackTraceElement[]) to string form 
    * @param trace trace to be converted
    * @return string representation of trace
@@ -131,7 +262,7 @@ public class Log {
     * @param s  Message to print
     * @param trace  Stack track to log
     */
-  public synchronized void log(String s, StackTraceElement[] trace) {
+  public void log(String s, StackTraceElement[] trace) {
     if (isEnabled()) log(s + traceToString(trace));
   }
   
@@ -139,7 +270,7 @@ public class Log {
     * @param s Message to print
     * @param t Throwable to log
     */
-  public synchronized void log(String s, Throwable t) {
+  public void log(String s, Throwable t) {
     if (isEnabled()) {
       StringWriter sw = new StringWriter();
       PrintWriter pw = new PrintWriter(sw);
@@ -148,9 +279,26 @@ public class Log {
     }
   }
   
-  /** Closes a log file. */
-  public void close() {
-    _writer.close();
+  /** Waits until the messages of an asynchronous log have been written; has no effect on other logs. */
+  public void flush() {
+    AsynchronousLogSink sink = _sink;
+    if (sink != null) {
+      try { sink.flush(); }
+      catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+  }
+  
+  /** Closes a log file.  An asynchronous log first writes the messages logged before it was closed. */
+  public synchronized void close() {
+    AsynchronousLogSink sink = _sink;
+    _sink = null;  // later messages reopen the log
+    if (sink != null) {
+      try { sink.flush(); }
+      catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+      try { sink.close(); }  // closes _writer
+      catch (IOException e) { /* WriterSink.close does not throw */ }
+    }
+    else if (_writer != null) _writer.close();
     _writer = null;
   }
   
@@ -159,11 +307,11 @@ public class Log {
    * @param s date to be parsed
    * @return Date representation of s
    */
-  public synchronized Date parse(String s) {
+  public Date parse(String s) {
     int pos = s.indexOf("GMT: ");
     if (pos == -1) { return null; }
     try {
-      return DATE_FORMAT.parse(s.substring(0,pos+3));
+      synchronized(DATE_FORMAT) { return DATE_FORMAT.parse(s.substring(0,pos+3)); }
     }
     catch(ParseException pe) { return null; }
   }
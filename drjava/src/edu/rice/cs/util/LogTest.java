@@ -42,9 +42,11 @@ import java.io.IOException;
 import java.io.File;
 import java.util.Date;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 
 import edu.rice.cs.drjava.model.MultiThreadedTestCase;
 import edu.rice.cs.plt.io.IOUtil;
+import edu.rice.cs.plt.lambda.Thunk;
 
 /** Test cases for {@link Log}.
  *  @version $Id$
@@ -267,5 +269,119 @@ public class LogTest extends MultiThreadedTestCase {
     fin.close();
 //    System.err.println("LogTest.testConucrrentWrites complete");
   }
-}
 
+  /** Tests that a disabled log neither formats its arguments nor evaluates message thunks, and that an enabled log
+    * formats them.
+    * @throws IOException if an IO operation fails
+    */
+  public void testLazyMessages() throws IOException {
+    final int[] evaluated = { 0 };
+    Object arg = new Object() { public String toString() { evaluated[0]++; return "arg"; } };
+    Thunk<String> message = new Thunk<String>() {
+      public String value() { evaluated[0]++; return "thunk"; }
+    };
+    
+    Log disabled = new Log(new File("logtest-disabled.txt"), false);
+    disabled.logf("Message %s", arg);
+    disabled.logf("Message %s %s %s", arg, arg, arg);
+    disabled.log(message);
+    assertEquals("Disabled log evaluated its messages", 0, evaluated[0]);
+    assertFalse(new File("logtest-disabled.txt").exists());
+    
+    File file4 = IOUtil.createAndMarkTempFile("logtest004",".txt");
+    Log log4 = new Log(file4, true);
+    log4.logf("Message %s and %s", arg, 5);
+    log4.log(message);
+    log4.close();
+    assertEquals(2, evaluated[0]);
+    
+    BufferedReader fin = new BufferedReader(new FileReader(file4));
+    fin.readLine();
+    assertEquals("Message arg and 5", getStringAfterDate(fin.readLine()));
+    assertEquals("thunk", getStringAfterDate(fin.readLine()));
+    assertEquals("End of log expected", null, fin.readLine());
+    fin.close();
+  }
+  
+  /** Tests that an asynchronous log records all messages, in order, once flushed.
+    * @throws IOException if an IO operation fails
+    */
+  public void testAsynchronous() throws IOException {
+    File file5 = IOUtil.createAndMarkTempFile("logtest005",".txt");
+    Date earlier = new Date();
+    Log log5 = new Log(file5, true, true);
+    for (int i = 0; i < 100; i++) { log5.logf("Message %s", i); }
+    log5.flush();
+    
+    BufferedReader fin = new BufferedReader(new FileReader(file5));
+    Date now = new Date();
+    String s0 = fin.readLine();
+    assertTrue("Log not opened after 'earlier' and before 'now'", withinTolerance(earlier, log5.parse(s0), now));
+    for (int i = 0; i < 100; i++) {
+      String s = fin.readLine();
+      assertTrue("Date of message not after 'earlier' and before 'now'", withinTolerance(earlier, log5.parse(s), now));
+      assertEquals("Log message", "Message " + i, getStringAfterDate(s));
+    }
+    assertEquals("End of log expected", null, fin.readLine());
+    fin.close();
+    log5.close();
+  }
+  
+  /** Tests that closing an asynchronous log writes the messages still queued.
+    * @throws IOException if an IO operation fails
+    */
+  public void testAsynchronousClose() throws IOException {
+    File file6 = IOUtil.createAndMarkTempFile("logtest006",".txt");
+    Log log6 = new Log(file6, true, true);
+    for (int i = 0; i < 1000; i++) { log6.logf("Message %s", i); }
+    log6.close();
+    
+    BufferedReader fin = new BufferedReader(new FileReader(file6));
+    fin.readLine();  // the line recording that the log was opened
+    for (int i = 0; i < 1000; i++) { assertEquals("Log message", "Message " + i, getStringAfterDate(fin.readLine())); }
+    assertEquals("End of log expected", null, fin.readLine());
+    fin.close();
+  }
+  
+  /** Tests that threads racing to reopen a closed asynchronous log open it once and lose none of their messages.
+    * @throws IOException if an IO operation fails
+    * @throws InterruptedException if execution is interrupted unexpectedly
+    */
+  public void testAsynchronousConcurrentReopen() throws IOException, InterruptedException {
+    File file7 = IOUtil.createAndMarkTempFile("logtest007",".txt");
+    final Log log7 = new Log(file7, true, true);
+    final int rounds = 20;
+    for (int round = 0; round < rounds; round++) {
+      log7.close();
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread[] threads = new Thread[NUM_THREADS];
+      for (int i = 0; i < NUM_THREADS; i++) {
+        threads[i] = new Thread() {
+          public void run() {
+            try { start.await(); }
+            catch (InterruptedException e) { return; }
+            log7.log("Test message");
+          }
+        };
+        threads[i].start();
+      }
+      start.countDown();
+      for (int i = 0; i < NUM_THREADS; i++) threads[i].join();
+    }
+    log7.close();
+    
+    BufferedReader fin = new BufferedReader(new FileReader(file7));
+    String openMsg = "Log '" + file7.getName() + "' opened: ";
+    int opened = 0;
+    int messages = 0;
+    String s;
+    while ((s = fin.readLine()) != null) {
+      String m = getStringAfterDate(s);
+      if (m.startsWith(openMsg)) { opened++; }
+      else { assertEquals("Log message", "Test message", m); messages++; }
+    }
+    fin.close();
+    assertEquals("Log opened once per round, plus once when created", rounds + 1, opened);
+    assertEquals("Log messages", rounds * NUM_THREADS, messages);
+  }
+}
@@ -151,6 +151,57 @@ public abstract class StringOps {
     return fullString;
   }
   
+  /** Finds the first occurrence of word in text at or after fromIndex, like {@link String#indexOf(String, int)} but
+    * without copying text or converting it to lower case.
+    * @param text the text to search
+    * @param word the text to find
+    * @param fromIndex the index to start searching from
+    * @param matchCase false to compare characters ignoring case, as {@link String#regionMatches(boolean, int, String,
+    *        int, int)} does
+    * @return the index of the occurrence, or -1 if there is none
+    */
+  public static int indexOf(CharSequence text, String word, int fromIndex, boolean matchCase) {
+    int max = text.length() - word.length();
+    for (int i = Math.max(fromIndex, 0); i <= max; ++i) {
+      if (regionMatches(text, i, word, matchCase)) return i;
+    }
+    return -1;
+  }
+  
+  /** Finds the last occurrence of word in text that starts at or before fromIndex, like
+    * {@link String#lastIndexOf(String, int)} but without copying text or converting it to lower case.
+    * @param text the text to search
+    * @param word the text to find
+    * @param fromIndex the largest index at which the occurrence may start
+    * @param matchCase false to compare characters ignoring case
+    * @return the index of the occurrence, or -1 if there is none
+    */
+  public static int lastIndexOf(CharSequence text, String word, int fromIndex, boolean matchCase) {
+    for (int i = Math.min(fromIndex, text.length() - word.length()); i >= 0; --i) {
+      if (regionMatches(text, i, word, matchCase)) return i;
+    }
+    return -1;
+  }
+  
+  /** @param text the text to compare
+    * @param offset the index in text to compare at; text must contain word.length() characters there
+    * @param word the text to compare with
+    * @param matchCase false to compare characters ignoring case
+    * @return true if word occurs in text at offset
+    */
+  public static boolean regionMatches(CharSequence text, int offset, String word, boolean matchCase) {
+    for (int j = 0; j < word.length(); ++j) {
+      char a = text.charAt(offset + j);
+      char b = word.charAt(j);
+      if (a == b) continue;
+      if (matchCase) return false;
+      char ua = Character.toUpperCase(a);
+      char ub = Character.toUpperCase(b);
+      if (ua != ub && Character.toLowerCase(ua) != Character.toLowerCase(ub)) return false;
+    }
+    return true;
+  }
+  
   /** Converts the given string to a valid Java string literal.
    * All back slashes, quotes, new-lines, and tabs are converted
    * to their escap character form, and the sourounding quotes 
@@ -342,6 +393,42 @@ public abstract class StringOps {
     return simpleName.substring(idx + 1); // strip the package name
   }
   
+  /** Returns the upper-case letters of a camel-case name, e.g. "AL" for "ArrayList".
+   * @param s name or camel-case pattern
+   * @return the upper-case letters in s
+   */
+  public static String getCamelCaseInitials(String s) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < s.length(); ++i) {
+      char c = s.charAt(i);
+      if (Character.isUpperCase(c)) sb.append(c);
+    }
+    return sb.toString();
+  }
+  
+  /** Returns true if the name matches the camel-case abbreviation, i.e. if the name starts with the first part of 
+   * the pattern and each subsequent capitalized part of the pattern is a prefix of the corresponding capitalized part
+   * of the name.  For example, "AL", "ArLi" and "ArrayL" all match "ArrayList", but "Al" does not.
+   * @param name name to check
+   * @param pattern camel-case abbreviation
+   * @return true if name matches pattern
+   */
+  public static boolean matchesCamelCase(String name, String pattern) {
+    int n = 0; // start of the current part of name
+    int p = 0; // start of the current part of pattern
+    while (p < pattern.length()) {
+      if (n >= name.length()) return false;
+      int pEnd = p + 1;
+      while (pEnd < pattern.length() && ! Character.isUpperCase(pattern.charAt(pEnd))) ++pEnd;
+      int nEnd = n + 1;
+      while (nEnd < name.length() && ! Character.isUpperCase(name.charAt(nEnd))) ++nEnd;
+      if (pEnd - p > nEnd - n || ! name.regionMatches(n, pattern, p, pEnd - p)) return false;
+      p = pEnd;
+      n = nEnd;
+    }
+    return true;
+  }
+  
   /** This works just like java.util.Arrays.toString in Java 5.0 but is not version-specific.
    * @param a array to be converted to string
    * @return string representation of a
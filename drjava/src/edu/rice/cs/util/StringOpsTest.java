@@ -1245,4 +1245,17 @@ public class StringOpsTest extends DrJavaTestCase {
     assertFalse("StringOpsTest is not a member class", StringOps.isMemberClass(StringOpsTest.class));
     assertTrue("XMLConfig.XMLConfigException is a member class", StringOps.isMemberClass(XMLConfig.XMLConfigException.class));
   }
+  
+  public void testIndexOf() {
+    CharSequence text = java.nio.CharBuffer.wrap("Find the word, then the WORD, then the Word.");
+    assertEquals("forward", 9, StringOps.indexOf(text, "word", 0, true));
+    assertEquals("forward from", -1, StringOps.indexOf(text, "word", 10, true));
+    assertEquals("forward ignoring case", 24, StringOps.indexOf(text, "word", 10, false));
+    assertEquals("backward", 39, StringOps.lastIndexOf(text, "WORD", text.length(), false));
+    assertEquals("backward from", 24, StringOps.lastIndexOf(text, "WORD", 38, true));
+    assertEquals("backward none", -1, StringOps.lastIndexOf(text, "WORD", 23, true));
+    assertEquals("too long", -1, StringOps.indexOf("ab", "abc", 0, false));
+    assertTrue("region", StringOps.regionMatches(text, 0, "FIND", false));
+    assertFalse("region case", StringOps.regionMatches(text, 0, "FIND", true));
+  }
 }
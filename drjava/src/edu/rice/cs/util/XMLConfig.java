@@ -65,6 +65,10 @@ import java.util.*;
   *
   * When using getMultiple, any node or attribute name can be substituted with "*" to get all elements:
   * The path "foo/*" returns both the value "abc" and "def".
+  *
+  * The nodes found for paths relative to the root of the configuration are remembered until the document is changed
+  * through set or createNode. Documents consisting only of elements, attributes and text are saved by writing them
+  * out directly; anything else is saved using a Transformer.
   * @author Mathias Ricken
   */
 public class XMLConfig {
@@ -80,6 +84,16 @@ public class XMLConfig {
   /** Node where this XMLConfig starts if delegation is used, or null. */
   private Node _startNode = null;
   
+  /** Number of changes made to the document through set and createNode. */
+  private int _changes = 0;
+  
+  /** Nodes found for paths relative to the root of this configuration; only valid while _cachedChanges is equal to
+    * the number of changes made to the document. */
+  private final HashMap<String, List<Node>> _cachedNodes = new HashMap<String, List<Node>>();
+  
+  /** Number of changes made to the document when the nodes in _cachedNodes were found. */
+  private int _cachedChanges = 0;
+  
   /** Creates an empty configuration. */
   public XMLConfig() {
     DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -155,6 +169,20 @@ public class XMLConfig {
   public void save(OutputStream os) {
     if (isDelegated()) { _parent.save(os); return; }
     
+    if (_isPlain(_document)) {
+      try {
+        Writer w = new BufferedWriter(new OutputStreamWriter(os, "utf-8"));
+        w.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+        w.write(NL);
+        _write(w, _document.getDocumentElement(), 0);
+        w.flush();
+        return;
+      }
+      catch(IOException e) {
+        throw new XMLConfigException("Error in save", e);
+      }
+    }
+    
     // Prepare the DOM document for writing
     Source source = new DOMSource(_document);
 
@@ -174,6 +202,161 @@ public class XMLConfig {
     }
   }
   
+  /** Returns true if a node can be written by _write: the document or element consists only of elements,
+    * attributes and text that is either the only content of an element or whitespace between elements, and contains
+    * no characters that the Transformer would write as character references.
+    * @param n the document or element
+    * @return true if the node can be written directly
+    */
+  private static boolean _isPlain(Node n) {
+    if (n.getNodeType() == Node.DOCUMENT_NODE) {
+      Document d = (Document)n;
+      Node root = d.getDocumentElement();
+      return ! d.getXmlStandalone() && (root != null) && (d.getFirstChild() == root) && (root.getNextSibling() == null)
+        && _isPlain(root);
+    }
+    NamedNodeMap attrMap = n.getAttributes();
+    for(int i = 0; i < attrMap.getLength(); ++i) {
+      if (! _isPlain(attrMap.item(i).getNodeValue())) { return false; }
+    }
+    boolean hasElements = false;
+    boolean hasText = false;
+    for(Node child = n.getFirstChild(); child != null; child = child.getNextSibling()) {
+      switch(child.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          if (! _isPlain(child)) { return false; }
+          hasElements = true;
+          break;
+        case Node.TEXT_NODE:
+          String value = child.getNodeValue();
+          if (! _isPlain(value)) { return false; }
+          if (! _isWhitespace(value)) { hasText = true; }
+          break;
+        default:
+          return false;
+      }
+    }
+    return ! (hasElements && hasText);
+  }
+  
+  /** @return true if the text only contains spaces, tabs and line breaks */
+  private static boolean _isWhitespace(String s) {
+    for(int i = 0; i < s.length(); ++i) {
+      char c = s.charAt(i);
+      if ((c != ' ') && (c != '\t') && (c != '\n') && (c != '\r')) { return false; }
+    }
+    return true;
+  }
+  
+  /** Returns true if a text or attribute value only contains characters that _escape writes like the Transformer.
+    * @param s the value
+    * @return true if the value can be written directly
+    */
+  private static boolean _isPlain(String s) {
+    for(int i = 0; i < s.length(); ++i) {
+      char c = s.charAt(i);
+      if ((c < ' ') ? ((c != '\t') && (c != '\n') && (c != '\r'))
+            : ((c >= 0x7F) && ((c <= 0x9F) || (c == 0x2028) || (c == 0x2029) || Character.isSurrogate(c)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /** Writes an element in the format the indenting Transformer uses.  The element must be plain.  Like the
+    * Transformer, whitespace between elements is kept, and a new line is only started where there is none.
+    * @param w the writer
+    * @param e the element
+    * @param depth the nesting depth of the element
+    */
+  private static void _write(Writer w, Node e, int depth) throws IOException {
+    w.write('<');
+    w.write(e.getNodeName());
+    NamedNodeMap attrMap = e.getAttributes();
+    for(int i = 0; i < attrMap.getLength(); ++i) {
+      Node attr = attrMap.item(i);
+      w.write(' ');
+      w.write(attr.getNodeName());
+      w.write("=\"");
+      _escape(w, attr.getNodeValue(), true);
+      w.write('"');
+    }
+    Node child = e.getFirstChild();
+    while((child != null) && (child.getNodeType() == Node.TEXT_NODE) && (child.getNodeValue().length() == 0)) {
+      child = child.getNextSibling();
+    }
+    if (child == null) { w.write("/>"); }
+    else if (_hasElementChildren(e)) {
+      w.write('>');
+      boolean afterText = false;
+      for(; child != null; child = child.getNextSibling()) {
+        if (child.getNodeType() == Node.ELEMENT_NODE) {
+          if (! afterText) { _indent(w, depth + 1); }
+          _write(w, child, depth + 1);
+          afterText = false;
+        }
+        else if (child.getNodeValue().length() > 0) {
+          _escape(w, child.getNodeValue(), false);
+          afterText = true;
+        }
+      }
+      if (! afterText) { _indent(w, depth); }
+      w.write("</");
+      w.write(e.getNodeName());
+      w.write('>');
+    }
+    else {
+      w.write('>');
+      for(; child != null; child = child.getNextSibling()) { _escape(w, child.getNodeValue(), false); }
+      w.write("</");
+      w.write(e.getNodeName());
+      w.write('>');
+    }
+    if (depth == 0) { w.write(NL); }
+  }
+  
+  /** @return true if the node has a child element */
+  private static boolean _hasElementChildren(Node n) {
+    for(Node child = n.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE) { return true; }
+    }
+    return false;
+  }
+  
+  /** Starts a new line indented for the given depth. */
+  private static void _indent(Writer w, int depth) throws IOException {
+    w.write(NL);
+    for(int i = 0; i < depth; ++i) { w.write("  "); }
+  }
+  
+  /** Writes a text or attribute value, escaped the way the Transformer does it.
+    * @param w the writer
+    * @param s the value
+    * @param attr true if the value is an attribute value
+    */
+  private static void _escape(Writer w, String s, boolean attr) throws IOException {
+    int start = 0;
+    for(int i = 0; i < s.length(); ++i) {
+      String replacement;
+      switch(s.charAt(i)) {
+        case '&': replacement = "&amp;"; break;
+        case '<': replacement = "&lt;"; break;
+        case '>': replacement = "&gt;"; break;
+        case '\r': replacement = "&#13;"; break;
+        case '"': replacement = attr ? "&quot;" : null; break;
+        case '\t': replacement = attr ? "&#9;" : null; break;
+        case '\n': replacement = attr ? "&#10;" : NL; break;
+        default: replacement = null;
+      }
+      if (replacement != null) {
+        w.write(s, start, i - start);
+        w.write(replacement);
+        start = i + 1;
+      }
+    }
+    w.write(s, start, s.length() - start);
+  }
+  
   /** Saves configuration to a file.
     * @param f file
     */
@@ -357,8 +540,7 @@ public class XMLConfig {
     * @return list of values.
     */
   public List<String> getMultiple(String path) {
-    if (isDelegated()) { return getMultiple(path, _startNode); }
-    return getMultiple(path, _document);
+    return _getValues(getNodes(path));
   }
   
   /** Returns the value as specified by the DOM path.
@@ -367,16 +549,23 @@ public class XMLConfig {
     * @return list of values.
     */
   public List<String> getMultiple(String path, Node root) {
-    List<Node> accum = getNodes(path, root);
-    List<String> strings = new LinkedList<String>();
+    return _getValues(getNodes(path, root));
+  }
+  
+  /** Returns the values of nodes.
+    * @param accum attribute nodes, or element nodes that only contain #text and #comment nodes
+    * @return list of values.
+    */
+  private static List<String> _getValues(List<Node> accum) {
+    List<String> strings = new ArrayList<String>(accum.size());
     for(Node n: accum) {
       if (n instanceof Attr) { strings.add(n.getNodeValue()); }
       else {
         Node child;
-        String acc = "";
+        StringBuilder acc = new StringBuilder();
         child = n.getFirstChild();
         while(child != null) {
-          if (child.getNodeName().equals("#text")) { acc += " " + child.getNodeValue(); }
+          if (child.getNodeName().equals("#text")) { acc.append(' ').append(child.getNodeValue()); }
           else if (child.getNodeName().equals("#comment")) { /* ignore */ }
           else {
             String text = "Node " + n.getNodeName() + " contained node " + child.getNodeName() + 
@@ -385,7 +574,7 @@ public class XMLConfig {
           }
           child = child.getNextSibling();
         }
-        strings.add(acc.trim());
+        strings.add(acc.toString().trim());
       }
     }
     return strings;
@@ -396,9 +585,18 @@ public class XMLConfig {
     * @return list of nodes.
     */
   public List<Node> getNodes(String path) {
-    if (isDelegated()) { return getNodes(path, _startNode); }
-
-    return getNodes(path, _document);
+    XMLConfig owner = this;
+    while(owner.isDelegated()) { owner = owner._parent; }
+    if (_cachedChanges != owner._changes) {
+      _cachedNodes.clear();
+      _cachedChanges = owner._changes;
+    }
+    List<Node> nodes = _cachedNodes.get(path);
+    if (nodes == null) {
+      nodes = getNodes(path, isDelegated() ? _startNode : _document);
+      _cachedNodes.put(path, nodes);
+    }
+    return new ArrayList<Node>(nodes);
   }
   
   /** Returns the nodes as specified by the DOM path.
@@ -407,7 +605,7 @@ public class XMLConfig {
     * @return list of nodes.
     */
   public List<Node> getNodes(String path, Node root) {
-    List<Node> accum = new LinkedList<Node>();
+    List<Node> accum = new ArrayList<Node>();
     getMultipleHelper(path, root, accum, false);
     return accum;
   }
@@ -535,6 +733,7 @@ public class XMLConfig {
   public Node set(String path, String value, Node n, boolean overwrite) {
     if (isDelegated()) { return _parent.set(path, value, n, overwrite); }
     
+    ++_changes;
     int dotPos = path.lastIndexOf('.');
     Node node;
     if (dotPos == 0) { node = n; }
@@ -575,6 +774,7 @@ public class XMLConfig {
   public Node createNode(String path, Node n, boolean overwrite) {
     if (isDelegated()) { return _parent.createNode(path, n, overwrite); }
 
+    ++_changes;
     if (n == null) { n = _document; }
     while(path.indexOf('/') > -1) {
       Node child = null;
@@ -1161,4 +1161,38 @@ public class XMLConfigTest extends TestCase {
     Assert.assertTrue("Want to get default value", b);
     
   }
+  
+  public void testSaveKeepsWhitespaceBetweenElements() throws Exception {
+    XMLConfig xc = new XMLConfig(new StringReader("<?xml version=\"1.0\" encoding=\"UTF-8\"?><foo>"
+                                                    + "<bar>a\tb</bar>\n      <fum fee=\"x&#9;&quot;y\"/></foo>"));
+    assertEquals(remove16XML("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" + NL +
+                             "<foo>" + NL +
+                             "  <bar>a\tb</bar>" + NL +
+                             "      <fum fee=\"x&#9;&quot;y\"/>" + NL +
+                             "</foo>" + NL), xc.toString());
+  }
+  
+  public void testSaveWithComments() throws Exception {
+    XMLConfig xc = new XMLConfig(new StringReader("<?xml version=\"1.0\" encoding=\"UTF-8\"?><foo>"
+                                                    + "<!--comment--><bar>abc</bar></foo>"));
+    assertEquals(remove16XML("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" + NL +
+                             "<foo>" + NL +
+                             "  <!--comment-->" + NL +
+                             "  <bar>abc</bar>" + NL +
+                             "</foo>" + NL), xc.toString());
+  }
+  
+  public void testGetAfterSet() throws Exception {
+    XMLConfig xc = new XMLConfig(new StringReader("<?xml version=\"1.0\" encoding=\"UTF-8\"?><foo><bar>abc</bar></foo>"));
+    XMLConfig sub = new XMLConfig(xc, xc.getNodes("foo").get(0));
+    assertEquals(Arrays.asList("abc"), sub.getMultiple("bar"));
+    
+    xc.set("foo/bar", "def", false);
+    assertEquals(Arrays.asList("abc", "def"), sub.getMultiple("bar"));
+    assertEquals(Arrays.asList("abc", "def"), xc.getMultiple("foo/bar"));
+    
+    sub.set("bar", "ghi");
+    assertEquals(Arrays.asList("ghi", "def"), xc.getMultiple("foo/bar"));
+    assertEquals(2, sub.getNodes("bar").size());
+  }
 }
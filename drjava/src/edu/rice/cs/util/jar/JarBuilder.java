@@ -37,12 +37,79 @@
 package edu.rice.cs.util.jar;
 
 import java.io.*;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
 
+import edu.rice.cs.plt.lambda.Runnable1;
+
+/** Builds a jar file.  The contents of the files added to the jar are read and compressed on a pool of worker threads
+  * while the caller goes on adding entries; the compressed entries are written to the archive in the order in which they
+  * were added.  If the jar file already exists, files with the same contents (size and checksum) as the corresponding
+  * entry in the old jar are copied from the old jar without being compressed again.  The jar is written to a temporary
+  * file that replaces the jar file when the builder is closed.  If a file cannot be read or compressed, the remaining
+  * entries are still processed, and close throws the first such failure and leaves the jar file as it was.
+  */
 public class JarBuilder {
-  private JarOutputStream _output;
+  /** The maximum number of entries that may be read and compressed ahead of the entry being written. */
+  private static final int MAX_PENDING = 64;
+  
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+  
+  /** Executor that reads and compresses entries for all builders. */
+  private static ExecutorService _compressor = null;
+  
+  private final File _jar;
+  private File _tempFile = null;
+  
+  /** The temp file being written; null if it could not be opened. */
+  private CountingOutputStream _output = null;
+  
+  /** The reason the jar could not be opened for writing, if it could not. */
+  private IOException _openFailure = null;
+  
+  /** The first failure to read or compress an added file, naming that file; thrown by close. */
+  private IOException _entryFailure = null;
+  
+  /** The entries that have been added but not yet written, in order. */
+  private final ArrayDeque<Future<Entry>> _pending = new ArrayDeque<Future<Entry>>();
+  
+  /** The entries that have been written, for the central directory. */
+  private final List<Entry> _written = new ArrayList<Entry>();
+  
+  /** The names of all entries added so far. */
+  private final Set<String> _names = new HashSet<String>();
+  
+  /** The entries of the jar file as it was before this builder was created, by name. */
+  private final Map<String, OldEntry> _oldEntries = new HashMap<String, OldEntry>();
+  
+  /** The old jar file, open for copying unchanged entries; null if there is none. */
+  private FileChannel _oldJar = null;
+  
+  /** Notified with the name of each entry written; may be null. */
+  private volatile Runnable1<? super String> _progressListener = null;
   
   /** Creates a file file without a manifest
    *
@@ -50,7 +117,8 @@ public class JarBuilder {
    * @throws IOException thrown if the file cannot be opened for writing
    */
   public JarBuilder(File file) throws IOException {
-    _output = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(file)), ManifestWriter.DEFAULT);
+    this(file, ManifestWriter.DEFAULT, false);
+    if (_openFailure != null) throw _openFailure;
   }
   
   /** Creates an empty jar file with the given manifest
@@ -60,7 +128,8 @@ public class JarBuilder {
    * @throws IOException thrown if either file cannot be opened for reading
    */
   public JarBuilder(File jar, File manifest) throws IOException {
-    _output = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jar)), new Manifest(new FileInputStream(manifest)));
+    this(jar, new Manifest(new FileInputStream(manifest)), false);
+    if (_openFailure != null) throw _openFailure;
   }
   
   /** Creates an empty jar file with the given manifest
@@ -70,14 +139,38 @@ public class JarBuilder {
    * @see ManifestWriter
    */
   public JarBuilder(File jar, Manifest manifest) {
+    this(jar, manifest, true);
+  }
+  
+  /** Creates an empty jar file with the given manifest.  A failure to open the jar file is stored in _openFailure and
+    * makes every later write fail.
+    * @param jar the file to write the jar to
+    * @param manifest the manifest for the jar
+    * @param printErrors whether to print the stack trace of a failure
+    */
+  private JarBuilder(File jar, Manifest manifest, boolean printErrors) {
+    _jar = jar.getAbsoluteFile();
     try {
-      _output = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(jar)), manifest);
+      _oldJar = _readOldEntries(_jar);
+      _tempFile = File.createTempFile("drjava", ".jar.temp", _jar.getParentFile());
+      _output = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(_tempFile), 64 * 1024));
+      ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+      manifest.write(manifestBytes);
+      _add(new Entry(JarFile.MANIFEST_NAME, System.currentTimeMillis()).compress(manifestBytes.toByteArray()));
     }
     catch (IOException e) {
-      e.printStackTrace();
+      _dispose();
+      _output = null;
+      _openFailure = e;
+      if (printErrors) e.printStackTrace();
     }
   }
   
+  /** Sets the listener notified with the name of each entry as it is written to the jar.
+    * @param listener the listener, or null for none
+    */
+  public void setProgressListener(Runnable1<? super String> listener) { _progressListener = listener; }
+  
   /** Takes a parent name and a field name and returns the concatenation of them correctly
    *
    * @param parent The parent directory
@@ -100,22 +193,31 @@ public class JarBuilder {
    * @param fileName the name of the file in the archive
    * @throws IOException if an IO operation fails
    */
-  public void addFile(File file, String parent, String fileName) throws IOException {
-    byte data[] = new byte[2048];
-    
-    FileInputStream fi = new FileInputStream(file.getAbsolutePath());
-    BufferedInputStream origin = new BufferedInputStream(fi, 2048);
-    
-    JarEntry entry = new JarEntry(makeName(parent, fileName));
-    _output.putNextEntry(entry);
-    
-    int count = origin.read(data, 0, 2048);
-    while (count != -1) {
-      _output.write(data, 0, count);
-      count = origin.read(data, 0, 2048);
-    }
+  public void addFile(final File file, String parent, String fileName) throws IOException {
+    _checkOpen();
+    final String name = makeName(parent, fileName);
+    if (_names.contains(name)) throw new ZipException("duplicate entry: " + name);
+    final long length = file.length();
+    final long time = file.lastModified();
+    final OldEntry old = _oldEntries.get(name);
     
-    origin.close();
+    final InputStream in = new FileInputStream(file);  // opened here so that a missing file is reported right away
+    _names.add(name);
+    _add(_compressor().submit(new Callable<Entry>() {
+      public Entry call() throws IOException {
+        try {
+          byte[] contents;
+          try { contents = _readFully(in, length); }
+          finally { in.close(); }
+          Entry entry = new Entry(name, time);
+          if (old != null && old.size == contents.length && old.crc == _crc(contents)) {
+            return old.copyTo(entry, _oldJar);
+          }
+          return entry.compress(contents);
+        }
+        catch (IOException e) { throw new IOException("Could not add " + file + " to " + _jar + ": " + e, e); }
+      }
+    }));
   }
   
   /** Add the directory into the directory specified by parent
@@ -123,7 +225,7 @@ public class JarBuilder {
     * @param parent the path inside the jar that the directory should be added to
     */
   public void addDirectoryRecursive(File dir, String parent) {
-    addDirectoryRecursiveHelper(dir, parent, new byte[2048], new FileFilter() {
+    addDirectoryRecursiveHelper(dir, parent, new FileFilter() {
       public boolean accept(File pathname) { return true; }
     });
   }
@@ -134,42 +236,31 @@ public class JarBuilder {
     * @param filter the filter used to filter the files
     */
   public void addDirectoryRecursive(File dir, String parent, FileFilter filter) {
-    addDirectoryRecursiveHelper(dir, parent, new byte[2048], filter);
+    addDirectoryRecursiveHelper(dir, parent, filter);
   }
   
   /** Add the contents of a directory that match a filter to the archive
    * @param dir the directory to add
    * @param parent the directory to add into
-   * @param buffer a buffer that is 2048 bytes
    * @param filter the FileFilter to filter the files by
    * @return true on success, false on failure
    */
-  private boolean addDirectoryRecursiveHelper(File dir, String parent, byte[] buffer, FileFilter filter) {
-    try {
-      File[] files = dir.listFiles(filter);
-      BufferedInputStream origin = null;
-      
-      if ( files == null ) // listFiles may return null if there's an IO error
-        return true;
-      for (int i = 0; i < files.length; i++) {
+  private boolean addDirectoryRecursiveHelper(File dir, String parent, FileFilter filter) {
+    File[] files = dir.listFiles(filter);
+    
+    if ( files == null ) // listFiles may return null if there's an IO error
+      return true;
+    for (int i = 0; i < files.length; i++) {
+      try {
         if ( files[i].isFile() ) {
-          origin = new BufferedInputStream(new FileInputStream(files[i]), 2048);
-          
-          JarEntry entry = new JarEntry(makeName(parent, files[i].getName()));
-          _output.putNextEntry(entry);
-          
-          int count;
-          while((count = origin.read(buffer, 0, 2048)) != -1) {
-            _output.write(buffer, 0, count);
-          }
-          origin.close();
+          addFile(files[i], parent, files[i].getName());
         }
         else if ( files[i].isDirectory() ) {
-          addDirectoryRecursiveHelper(files[i], makeName(parent, files[i].getName()),buffer,filter);
+          addDirectoryRecursiveHelper(files[i], makeName(parent, files[i].getName()), filter);
         }
+      } catch(Exception e) {
+        e.printStackTrace();  // skip this file but add the rest of the directory
       }
-    } catch(Exception e) {
-      e.printStackTrace();
     }
     return true;
   }
@@ -181,9 +272,11 @@ public class JarBuilder {
    * @return Returns true on success, false on failure
    */
   public boolean makeDirectory(String parent, String dirName) {
-    JarEntry entry = new JarEntry(makeName(parent, dirName));
+    String name = makeName(parent, dirName);
+    if (_output == null || _names.contains(name)) return false;
     try {
-      _output.putNextEntry(entry);
+      _names.add(name);
+      _add(new Entry(name, System.currentTimeMillis()).compress(new byte[0]));
     }
     catch (IOException e) {
       return false;
@@ -191,11 +284,355 @@ public class JarBuilder {
     return true;
   }
   
-  /** Close writing on the jar file
-   * @throws IOException if an IO operation fails
+  /** Close writing on the jar file.  If an added file could not be read or compressed, the jar file is left unchanged.
+   * @throws IOException if an IO operation fails or an added file could not be read or compressed
    */
   public void close() throws IOException {
-    _output.flush();
-    _output.close();
+    _checkOpen();
+    try {
+      while (! _pending.isEmpty()) _writeNext();
+      if (_entryFailure != null) throw _entryFailure;
+      _writeCentralDirectory();
+      _output.close();
+      _oldJar = _close(_oldJar);
+      if (! _replace(_tempFile, _jar)) throw new IOException("Could not replace " + _jar);
+    }
+    finally {
+      _dispose();
+      _output = null;
+      _openFailure = new IOException(_jar + " has been closed");
+    }
+  }
+  
+  /** Closes the old jar and the temp file, and deletes the temp file if it has not replaced the jar. */
+  private void _dispose() {
+    _oldJar = _close(_oldJar);
+    if (_output != null) _close(_output);
+    if (_tempFile != null) _tempFile.delete();
+  }
+  
+  /** Closes c, ignoring any error.
+    * @return null
+    */
+  private static <T extends Closeable> T _close(T c) {
+    try { if (c != null) c.close(); }
+    catch (IOException e) { /* ignore */ }
+    return null;
+  }
+  
+  /** Throws an IOException if the jar could not be opened for writing or has been closed. */
+  private void _checkOpen() throws IOException {
+    if (_output == null) throw new IOException("Could not write " + _jar, _openFailure);
+  }
+  
+  /** Writes the pending entries and then an entry that has already been compressed. */
+  private void _add(Entry entry) throws IOException {
+    _checkOpen();
+    while (! _pending.isEmpty()) _writeNext();
+    _writeEntry(entry);
+  }
+  
+  /** Queues an entry that is being compressed, writing the entries ahead of it that are done.  Blocks when too many
+    * entries are pending.
+    */
+  private void _add(Future<Entry> entry) throws IOException {
+    if (_output == null) entry.cancel(true);
+    _checkOpen();
+    _pending.add(entry);
+    while (! _pending.isEmpty() && (_pending.size() > MAX_PENDING || _pending.peek().isDone())) _writeNext();
+  }
+  
+  /** Waits for the oldest pending entry and writes it.  If the entry failed, it is left out of the jar and the failure
+    * is recorded for close, so that it is not reported against whichever file happens to be added next.
+    */
+  private void _writeNext() throws IOException {
+    Future<Entry> next = _pending.poll();
+    Entry entry;
+    try { entry = next.get(); }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (_entryFailure == null) {
+        _entryFailure = 
+          (cause instanceof IOException) ? (IOException) cause : new IOException(String.valueOf(cause), cause);
+      }
+      return;
+    }
+    catch (InterruptedException e) { throw new InterruptedIOException("Interrupted while creating jar"); }
+    _writeEntry(entry);
+  }
+  
+  /** Writes an entry to the jar. */
+  private void _writeEntry(Entry entry) throws IOException {
+    if (_output.getCount() > 0xFFFFFFFFL - entry.data.length - 30 - entry.name.length ||
+        _written.size() >= 0xFFFF) throw new ZipException("Jar file is too large: " + _jar);
+    entry.offset = _output.getCount();
+    _writeHeader(_output, 0x04034b50, entry, false);
+    _output.write(entry.data);
+    entry.data = null;  // release the compressed data; only the header is needed for the central directory
+    _written.add(entry);
+    
+    Runnable1<? super String> listener = _progressListener;
+    if (listener != null) listener.run(new String(entry.name, UTF8));
+  }
+  
+  /** Writes the central directory and the end of central directory record. */
+  private void _writeCentralDirectory() throws IOException {
+    long start = _output.getCount();
+    for (Entry e: _written) _writeHeader(_output, 0x02014b50, e, true);
+    long size = _output.getCount() - start;
+    if (_output.getCount() > 0xFFFFFFFFL) throw new ZipException("Jar file is too large: " + _jar);
+    DataOutputStream out = new DataOutputStream(_output);
+    _writeInt(out, 0x06054b50);
+    _writeShort(out, 0);  // number of this disk
+    _writeShort(out, 0);  // disk where central directory starts
+    _writeShort(out, _written.size());
+    _writeShort(out, _written.size());
+    _writeInt(out, size);
+    _writeInt(out, start);
+    _writeShort(out, 0);  // comment length
+    out.flush();
+  }
+  
+  /** Writes a local file header or a central directory file header for entry. */
+  private static void _writeHeader(OutputStream os, int signature, Entry e, boolean central) throws IOException {
+    DataOutputStream out = new DataOutputStream(os);
+    _writeInt(out, signature);
+    if (central) _writeShort(out, 20);  // version made by
+    _writeShort(out, e.method == METHOD_DEFLATED ? 20 : 10);  // version needed to extract
+    _writeShort(out, 0x800);  // names are UTF-8
+    _writeShort(out, e.method);
+    _writeInt(out, e.dosTime);
+    _writeInt(out, e.crc);
+    _writeInt(out, e.compressedSize);
+    _writeInt(out, e.size);
+    _writeShort(out, e.name.length);
+    _writeShort(out, e.extra.length);
+    if (central) {
+      _writeShort(out, 0);  // comment length
+      _writeShort(out, 0);  // disk number
+      _writeShort(out, 0);  // internal attributes
+      _writeInt(out, 0);    // external attributes
+      _writeInt(out, e.offset);
+    }
+    out.write(e.name);
+    out.write(e.extra);
+    out.flush();
+  }
+  
+  private static void _writeShort(DataOutputStream out, int v) throws IOException {
+    out.write(v & 0xff);
+    out.write((v >>> 8) & 0xff);
+  }
+  
+  private static void _writeInt(DataOutputStream out, long v) throws IOException {
+    _writeShort(out, (int) (v & 0xffff));
+    _writeShort(out, (int) ((v >>> 16) & 0xffff));
+  }
+  
+  /** Reads the central directory of the existing jar file, if any, into _oldEntries.
+    * @return the open jar file, or null if it does not exist or cannot be read as a jar
+    */
+  private FileChannel _readOldEntries(File jar) {
+    if (! jar.isFile() || jar.length() < 22) return null;
+    FileChannel channel = null;
+    try {
+      channel = new RandomAccessFile(jar, "r").getChannel();
+      long length = channel.size();
+      // the end of central directory record is at the end of the file, followed by a comment of at most 64K
+      int tail = (int) Math.min(length, 22 + 0xFFFF);
+      ByteBuffer buf = ByteBuffer.allocate(tail).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+      _readFully(channel, buf, length - tail);
+      int end = -1;
+      for (int i = tail - 22; i >= 0; i--) {
+        if (buf.getInt(i) == 0x06054b50) { end = i; break; }
+      }
+      if (end < 0) throw new ZipException("no end of central directory");
+      long cdSize = buf.getInt(end + 12) & 0xFFFFFFFFL;
+      long cdStart = buf.getInt(end + 16) & 0xFFFFFFFFL;
+      if (cdStart + cdSize > length || cdSize > Integer.MAX_VALUE) throw new ZipException("bad central directory");
+      
+      ByteBuffer cd = ByteBuffer.allocate((int) cdSize).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+      _readFully(channel, cd, cdStart);
+      int pos = 0;
+      while (pos + 46 <= cdSize && cd.getInt(pos) == 0x02014b50) {
+        boolean encrypted = (cd.getShort(pos + 8) & 1) != 0;
+        int method = cd.getShort(pos + 10) & 0xFFFF;
+        int crc = cd.getInt(pos + 16);
+        long compressedSize = cd.getInt(pos + 20) & 0xFFFFFFFFL;
+        long size = cd.getInt(pos + 24) & 0xFFFFFFFFL;
+        int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+        int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+        int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+        long offset = cd.getInt(pos + 42) & 0xFFFFFFFFL;
+        byte[] name = new byte[nameLength];
+        for (int i = 0; i < nameLength; i++) name[i] = cd.get(pos + 46 + i);
+        if ((method == METHOD_STORED || method == METHOD_DEFLATED) && ! encrypted && offset < cdStart &&
+            compressedSize < Integer.MAX_VALUE)
+          _oldEntries.put(new String(name, UTF8), new OldEntry(method, crc, compressedSize, size, offset));
+        pos += 46 + nameLength + extraLength + commentLength;
+      }
+      return channel;
+    }
+    catch (IOException e) {
+      // not a jar we can reuse; build from scratch
+      _oldEntries.clear();
+      return _close(channel);
+    }
+  }
+  
+  private static void _readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+    while (buf.hasRemaining()) {
+      int n = channel.read(buf, position + buf.position());
+      if (n < 0) throw new EOFException();
+    }
+  }
+  
+  private static byte[] _readFully(InputStream in, long length) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(length, Integer.MAX_VALUE - 8) + 1);
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = in.read(buffer)) != -1) bytes.write(buffer, 0, count);
+    return bytes.toByteArray();
+  }
+  
+  /** Moves the finished temp file over the jar file. */
+  private static boolean _replace(File source, File dest) {
+    try {
+      java.nio.file.Files.move(source.toPath(), dest.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    }
+    catch (IOException e) { return false; }
+  }
+  
+  /** @return the MS-DOS date and time, as stored in zip files, for the given Java time */
+  private static int _dosTime(long time) {
+    Calendar c = Calendar.getInstance();
+    c.setTimeInMillis(time);
+    int year = c.get(Calendar.YEAR);
+    if (year < 1980) return (1 << 21) | (1 << 16);
+    return (year - 1980) << 25 | (c.get(Calendar.MONTH) + 1) << 21 | c.get(Calendar.DAY_OF_MONTH) << 16 |
+      c.get(Calendar.HOUR_OF_DAY) << 11 | c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+  }
+  
+  private static int _crc(byte[] contents) {
+    CRC32 checksum = new CRC32();
+    checksum.update(contents);
+    return (int) checksum.getValue();
+  }
+  
+  private static synchronized ExecutorService _compressor() {
+    if (_compressor == null) {
+      _compressor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "Jar Builder");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return _compressor;
+  }
+  
+  /** An entry of the jar, with its data compressed and ready to be written. */
+  private static class Entry {
+    private static final byte[] NO_EXTRA = new byte[0];
+    
+    final byte[] name;
+    final int dosTime;
+    byte[] extra = NO_EXTRA;
+    int method;
+    int crc;
+    long compressedSize;
+    long size;
+    byte[] data;
+    long offset;
+    
+    Entry(String name, long time) {
+      this.name = name.getBytes(UTF8);
+      this.dosTime = _dosTime(time);
+      if (name.equals(JarFile.MANIFEST_NAME)) extra = new byte[] { (byte) 0xFE, (byte) 0xCA, 0, 0 };  // jar magic
+    }
+    
+    /** Compresses contents into this entry; contents that do not shrink are stored. */
+    Entry compress(byte[] contents) {
+      crc = _crc(contents);
+      size = contents.length;
+      
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        deflater.setInput(contents);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (! deflater.finished()) {
+          int n = deflater.deflate(buffer);
+          out.write(buffer, 0, n);
+        }
+        if (out.size() < contents.length) {
+          method = METHOD_DEFLATED;
+          data = out.toByteArray();
+        }
+        else {
+          method = METHOD_STORED;
+          data = contents;
+        }
+      }
+      finally { deflater.end(); }
+      compressedSize = data.length;
+      return this;
+    }
+  }
+  
+  /** An entry of the jar file that existed before this builder was created. */
+  private static class OldEntry {
+    final int method;
+    final int crc;
+    final long compressedSize;
+    final long size;
+    final long offset;
+    
+    OldEntry(int method, int crc, long compressedSize, long size, long offset) {
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.offset = offset;
+    }
+    
+    /** Copies the compressed data of this entry from the old jar into e, which has the same contents. */
+    Entry copyTo(Entry e, FileChannel oldJar) throws IOException {
+      ByteBuffer header = ByteBuffer.allocate(30).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+      _readFully(oldJar, header, offset);
+      if (header.getInt(0) != 0x04034b50) throw new ZipException("bad local header in " + oldJar);
+      long dataStart = offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+      ByteBuffer data = ByteBuffer.allocate((int) compressedSize);
+      _readFully(oldJar, data, dataStart);
+      
+      e.method = method;
+      e.crc = crc;
+      e.compressedSize = compressedSize;
+      e.size = size;
+      e.data = data.array();
+      return e;
+    }
+  }
+  
+  /** An OutputStream that counts the bytes written through it. */
+  private static class CountingOutputStream extends FilterOutputStream {
+    private long _count = 0;
+    
+    public CountingOutputStream(OutputStream out) { super(out); }
+    
+    public long getCount() { return _count; }
+    
+    public void write(int b) throws IOException {
+      out.write(b);
+      _count++;
+    }
+    
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      _count += len;
+    }
   }
 }
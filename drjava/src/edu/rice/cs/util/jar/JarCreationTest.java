@@ -37,13 +37,17 @@
 package edu.rice.cs.util.jar;
 
 import edu.rice.cs.drjava.DrJavaTestCase;
+import edu.rice.cs.plt.lambda.Runnable1;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 
@@ -223,6 +227,80 @@ public class JarCreationTest extends DrJavaTestCase {
     }
   }
 
+  /** Tests that rebuilding an existing jar picks up changed files, keeps unchanged ones, and reports progress.
+   * @throws IOException if an IO operation fails
+   */
+  public void testUpdateJar() throws IOException {
+    File f = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("test", ".jar");
+    File same = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("Same", ".java");
+    File changed = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("Changed", ".java");
+    edu.rice.cs.plt.io.IOUtil.writeStringToFile(same, "class Same { /* unchanged unchanged unchanged */ }");
+    edu.rice.cs.plt.io.IOUtil.writeStringToFile(changed, "class Changed { int version = 1; }");
+    
+    JarBuilder jb = new JarBuilder(f);
+    jb.addFile(same, "", "Same.java");
+    jb.addFile(changed, "", "Changed.java");
+    jb.close();
+    
+    edu.rice.cs.plt.io.IOUtil.writeStringToFile(changed, "class Changed { int version = 2; }");
+    final List<String> written = new ArrayList<String>();
+    jb = new JarBuilder(f);
+    jb.setProgressListener(new Runnable1<String>() { public void run(String name) { written.add(name); } });
+    jb.addFile(same, "", "Same.java");
+    jb.addFile(changed, "", "Changed.java");
+    jb.close();
+    
+    assertEquals("progress", Arrays.asList("Same.java", "Changed.java"), written);
+    JarFile jar = new JarFile(f);
+    try {
+      assertEquals("unchanged entry", "class Same { /* unchanged unchanged unchanged */ }",
+                   edu.rice.cs.plt.io.IOUtil.toString(new java.io.InputStreamReader(jar.getInputStream(jar.getEntry("Same.java")), "UTF-8")));
+      assertEquals("changed entry", "class Changed { int version = 2; }",
+                   edu.rice.cs.plt.io.IOUtil.toString(new java.io.InputStreamReader(jar.getInputStream(jar.getEntry("Changed.java")), "UTF-8")));
+      assertNotNull("manifest", jar.getManifest());
+    }
+    finally { jar.close(); }
+  }
+  
+  /** Tests that a file that cannot be added is reported by close, against that file, and leaves the old jar in place.
+   * @throws IOException if an IO operation fails
+   */
+  public void testFailedEntryKeepsOldJar() throws IOException {
+    File f = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("test", ".jar");
+    File same = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("Same", ".java");
+    File other = edu.rice.cs.plt.io.IOUtil.createAndMarkTempFile("Other", ".java");
+    edu.rice.cs.plt.io.IOUtil.writeStringToFile(same, "class Same { }");
+    edu.rice.cs.plt.io.IOUtil.writeStringToFile(other, "class Other { }");
+
+    JarBuilder jb = new JarBuilder(f);
+    jb.addFile(same, "", "Same.java");
+    jb.close();
+
+    // Corrupt the local header of Same.java (the entry after the manifest), so copying it from the old jar fails
+    byte[] old = edu.rice.cs.plt.io.IOUtil.toByteArray(f);
+    int header = -1;
+    for (int i = 1; i + 4 <= old.length && header < 0; i++) {
+      if (old[i] == 'P' && old[i + 1] == 'K' && old[i + 2] == 3 && old[i + 3] == 4) header = i;
+    }
+    assertTrue("second local header found", header > 0);
+    old[header + 2] = 0;
+    OutputStream out = new FileOutputStream(f);
+    try { out.write(old); }
+    finally { out.close(); }
+
+    jb = new JarBuilder(f);
+    jb.addFile(same, "", "Same.java");
+    for (int i = 0; i < 100; i++) jb.addFile(other, "", "Other" + i + ".java");  // later files are not blamed
+    try {
+      jb.close();
+      fail("close should report the file that could not be added");
+    }
+    catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(same.getPath()));
+    }
+    assertTrue("old jar left unchanged", Arrays.equals(old, edu.rice.cs.plt.io.IOUtil.toByteArray(f)));
+  }
+
   /** Check that all files in an a Set are in the jar file
    * @param jar the jar file to check
    * @param fileNames the set of the names of files
@@ -0,0 +1,200 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.util.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/** A read-only view of a range of a Swing document that shares the document's character storage instead of copying
+  * it.  The range is held as the chunks returned by {@link Document#getText(int, int, Segment)} in partial-return mode;
+  * for a gap buffer that is at most two chunks, one on each side of the gap.  Because the chunks alias the document's
+  * storage, a SegmentedText is only valid until the document is next modified: use it in the event thread or under
+  * the document's read lock, and call {@link #toString} if the text must outlive either.
+  * @version $Id$
+  */
+public final class SegmentedText implements CharSequence {
+  
+  /** The character arrays of the chunks. */
+  private final char[][] _arrays;
+  
+  /** The offset of each chunk in its array. */
+  private final int[] _offsets;
+  
+  /** The index in this sequence of the first character of each chunk; the last element is the length. */
+  private final int[] _starts;
+  
+  /** The chunk that contained the last character accessed, so sequential access does not search. */
+  private int _last = 0;
+  
+  private SegmentedText(char[][] arrays, int[] offsets, int[] starts) {
+    _arrays = arrays;
+    _offsets = offsets;
+    _starts = starts;
+  }
+  
+  /** Returns a view of the specified range of a document without copying its text.
+    * @param doc the document
+    * @param offset the offset of the range
+    * @param length the length of the range
+    * @return a view of the range
+    * @throws BadLocationException if the range is not inside the document
+    */
+  public static SegmentedText of(Document doc, int offset, int length) throws BadLocationException {
+    ArrayList<Segment> chunks = new ArrayList<Segment>(2);
+    Segment s = new Segment();
+    s.setPartialReturn(true);
+    while (length > 0) {
+      doc.getText(offset, length, s);
+      if (s.count == 0) throw new BadLocationException("Document returned no text", offset);
+      chunks.add(new Segment(s.array, s.offset, s.count));
+      offset += s.count;
+      length -= s.count;
+    }
+    int n = chunks.size();
+    char[][] arrays = new char[n][];
+    int[] offsets = new int[n];
+    int[] starts = new int[n + 1];
+    for (int i = 0; i < n; ++i) {
+      Segment c = chunks.get(i);
+      arrays[i] = c.array;
+      offsets[i] = c.offset;
+      starts[i + 1] = starts[i] + c.count;
+    }
+    return new SegmentedText(arrays, offsets, starts);
+  }
+  
+  public int length() { return _starts[_starts.length - 1]; }
+  
+  public char charAt(int index) {
+    int c = _last;
+    if (index < _starts[c] || index >= _starts[c + 1]) {
+      if (index < 0 || index >= length()) throw new StringIndexOutOfBoundsException(index);
+      c = _chunk(index);
+      _last = c;
+    }
+    return _arrays[c][_offsets[c] + index - _starts[c]];
+  }
+  
+  /** @return the index of the chunk containing the character at index, which must be in range */
+  private int _chunk(int index) {
+    int lo = 0;
+    int hi = _arrays.length - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (_starts[mid] <= index) lo = mid;
+      else hi = mid - 1;
+    }
+    return lo;
+  }
+  
+  /** Returns a view of a subrange that shares the same storage. */
+  public SegmentedText subSequence(int start, int end) {
+    if (start < 0 || end > length() || start > end) throw new StringIndexOutOfBoundsException(start + ", " + end);
+    if (start == end) return new SegmentedText(new char[0][], new int[0], new int[] { 0 });
+    int first = _chunk(start);
+    int last = _chunk(end - 1);
+    int n = last - first + 1;
+    char[][] arrays = new char[n][];
+    int[] offsets = new int[n];
+    int[] starts = new int[n + 1];
+    for (int i = 0; i < n; ++i) {
+      int c = first + i;
+      int from = Math.max(start, _starts[c]);
+      int to = Math.min(end, _starts[c + 1]);
+      arrays[i] = _arrays[c];
+      offsets[i] = _offsets[c] + from - _starts[c];
+      starts[i + 1] = starts[i] + to - from;
+    }
+    return new SegmentedText(arrays, offsets, starts);
+  }
+  
+  /** Copies the characters in [srcBegin, srcEnd) into dst starting at dstBegin, like {@link String#getChars}. */
+  public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+    if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd) {
+      throw new StringIndexOutOfBoundsException(srcBegin + ", " + srcEnd);
+    }
+    for (int c = (srcBegin < srcEnd) ? _chunk(srcBegin) : _arrays.length; c < _arrays.length; ++c) {
+      int from = Math.max(srcBegin, _starts[c]);
+      int to = Math.min(srcEnd, _starts[c + 1]);
+      if (from >= to) break;
+      System.arraycopy(_arrays[c], _offsets[c] + from - _starts[c], dst, dstBegin + from - srcBegin, to - from);
+    }
+  }
+  
+  /** Copies the text into a new String. */
+  public String toString() {
+    char[] chars = new char[length()];
+    getChars(0, chars.length, chars, 0);
+    return new String(chars);
+  }
+  
+  /** Writes the text directly from the document's storage.
+    * @param w the writer
+    * @throws IOException if writing fails
+    */
+  public void writeTo(Writer w) throws IOException {
+    for (int c = 0; c < _arrays.length; ++c) w.write(_arrays[c], _offsets[c], _starts[c + 1] - _starts[c]);
+  }
+  
+  /** @return a reader over the text that reads directly from the document's storage */
+  public Reader newReader() {
+    return new Reader() {
+      private int _pos = 0;
+      public int read(char[] cbuf, int off, int len) {
+        int n = Math.min(len, length() - _pos);
+        if (n <= 0) return (len == 0) ? 0 : -1;
+        getChars(_pos, _pos + n, cbuf, off);
+        _pos += n;
+        return n;
+      }
+      public int read() { return (_pos < length()) ? charAt(_pos++) : -1; }
+      public long skip(long n) {
+        int k = (int) Math.max(0, Math.min(n, length() - _pos));
+        _pos += k;
+        return k;
+      }
+      public void close() { }
+    };
+  }
+}
@@ -0,0 +1,107 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2017, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+
+package edu.rice.cs.util.text;
+
+import edu.rice.cs.drjava.DrJavaTestCase;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import javax.swing.text.BadLocationException;
+
+/** Tests the views of document text returned by SwingDocument.getTextSequence.
+  * @version $Id$
+  */
+public class SegmentedTextTest extends DrJavaTestCase {
+  private static final String TEXT = "The quick brown fox jumps over the lazy dog.";
+  
+  protected SwingDocument _doc;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    _doc = new SwingDocument();
+    // Insert in two steps so that the gap of the document's storage lies inside the text.
+    _doc.insertString(0, TEXT.substring(0, 10) + TEXT.substring(20), null);
+    _doc.insertString(10, TEXT.substring(10, 20), null);
+  }
+  
+  public void tearDown() throws Exception {
+    _doc = null;
+    super.tearDown();
+  }
+  
+  /** Tests character access and copying across the gap. */
+  public void testCharacters() throws BadLocationException {
+    SegmentedText text = _doc.getTextSequence();
+    assertEquals("length", TEXT.length(), text.length());
+    assertEquals("toString", TEXT, text.toString());
+    for (int i = 0; i < TEXT.length(); ++i) assertEquals("charAt " + i, TEXT.charAt(i), text.charAt(i));
+    for (int i = TEXT.length() - 1; i >= 0; --i) assertEquals("charAt " + i, TEXT.charAt(i), text.charAt(i));
+    
+    SegmentedText range = _doc.getTextSequence(4, 30);
+    assertEquals("range", TEXT.substring(4, 34), range.toString());
+    assertEquals("subSequence", TEXT.substring(8, 25), range.subSequence(4, 21).toString());
+    assertEquals("empty subSequence", "", range.subSequence(3, 3).toString());
+    
+    char[] chars = new char[12];
+    text.getChars(15, 25, chars, 2);
+    assertEquals("getChars", TEXT.substring(15, 25), new String(chars, 2, 10));
+    
+    try {
+      text.charAt(TEXT.length());
+      fail("charAt past the end should fail");
+    }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+  }
+  
+  /** Tests writing and reading the text. */
+  public void testWriterAndReader() throws BadLocationException, IOException {
+    StringWriter w = new StringWriter();
+    _doc.getTextSequence().writeTo(w);
+    assertEquals("writeTo", TEXT, w.toString());
+    
+    Reader r = _doc.getTextSequence(2, 40).newReader();
+    char[] buf = new char[7];
+    StringBuilder sb = new StringBuilder();
+    int n;
+    while ((n = r.read(buf, 0, buf.length)) >= 0) sb.append(buf, 0, n);
+    assertEquals("reader", TEXT.substring(2, 42), sb.toString());
+    assertEquals("reader at end", -1, r.read());
+  }
+}
@@ -193,6 +193,25 @@ public class SwingDocument extends DefaultStyledDocument implements EditDocument
     catch (BadLocationException e) { throw new UnexpectedException(e); }  // impossible if read lock is already held
   }
  
+  /** Returns a view of a portion of the document that shares the document's storage instead of copying it.  The view is
+    * only valid until the document is next modified.
+    * @param offs First offset of the desired text
+    * @param len Number of characters in the view
+    * @return a view of the text
+    * @throws BadLocationException if the range is not inside the document
+    */
+  public SegmentedText getTextSequence(int offs, int len) throws BadLocationException {
+    return SegmentedText.of(this, offs, len);
+  }
+  
+  /** Returns a view of the whole document that shares the document's storage; see {@link #getTextSequence(int, int)}.
+    * @return a view of the text
+    */
+  public SegmentedText getTextSequence() {
+    try { return SegmentedText.of(this, 0, getLength()); }
+    catch (BadLocationException e) { throw new UnexpectedException(e); }
+  }
+  
   /** Sanitized version of getText(int, int) that converts BadLocationException 
    * to UnexpectedException. 
    * @param pos the position at which to get the text
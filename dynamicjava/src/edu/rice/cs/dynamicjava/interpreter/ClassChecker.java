@@ -168,7 +168,28 @@ public class ClassChecker {
    * Should be called <em>after</em> the signatures of all relevant classes and interfaces have been checked.
    */
   public void checkBodies(TypeDeclaration ast) {
-    checkBodies(ast.getMembers());
+    checkBodies(ast, false);
+  }
+  
+  /**
+   * Check the bodies of a class or interface declaration, as in {@link #checkBodies(TypeDeclaration)}.
+   * If {@code constantsChecked} is true, the initializers of {@code static final} fields are skipped,
+   * because {@link #checkConstantInitializers} has already checked them.
+   */
+  public void checkBodies(TypeDeclaration ast, boolean constantsChecked) {
+    checkBodies(ast.getMembers(), constantsChecked);
+  }
+  
+  /**
+   * Check the initializers of the {@code static final} fields of a class or interface declaration,
+   * recurring on nested classes.  Other classes read these fields' constant values while their own
+   * bodies are checked, so this should be called for all relevant classes before any of them are
+   * passed to {@link #checkBodies(TypeDeclaration, boolean)}.
+   */
+  public void checkConstantInitializers(TypeDeclaration ast) {
+    TypeContext sigContext = new ClassSignatureContext(_context, _c, _loader);
+    TypeContext bodyContext = new ClassContext(sigContext, _c);
+    visitMembers(ast.getMembers(), new ConstantInitializerVisitor(bodyContext));
   }
     
   /**
@@ -176,7 +197,7 @@ public class ClassChecker {
    * Should be called <em>after</em> the signatures of all relevant classes and interfaces have been checked.
    */
   public void checkBodies(AnonymousAllocation ast) {
-    checkBodies(ast.getMembers());
+    checkBodies(ast.getMembers(), false);
   }
   
   /**
@@ -184,13 +205,37 @@ public class ClassChecker {
    * Should be called <em>after</em> the signatures of all relevant classes and interfaces have been checked.
    */
   public void checkBodies(AnonymousInnerAllocation ast) {
-    checkBodies(ast.getMembers());
+    checkBodies(ast.getMembers(), false);
   }
   
-  private void checkBodies(Iterable<? extends Node> members) {
+  private void checkBodies(Iterable<? extends Node> members, boolean constantsChecked) {
     TypeContext sigContext = new ClassSignatureContext(_context, _c, _loader);
     TypeContext bodyContext = new ClassContext(sigContext, _c);
-    visitMembers(members, new MemberBodyVisitor(bodyContext));
+    visitMembers(members, new MemberBodyVisitor(bodyContext, constantsChecked));
+  }
+  
+  private boolean isConstantCandidate(FieldDeclaration node) {
+    DJField f = getField(node);
+    return f.isStatic() && f.isFinal();
+  }
+  
+  private void checkInitializer(FieldDeclaration node, TypeContext bodyContext) {
+    Expression init = node.getInitializer();
+    if (init != null) {
+      TypeContext c = new InitializerContext(bodyContext, getField(node).isStatic(), _c);
+      Type expectedT = getType(node.getType());
+      Type initT = new ExpressionChecker(c, _opt).check(init, expectedT);
+      TypeSystem ts = _opt.typeSystem();
+      try {
+        Expression newInit = ts.assign(expectedT, init);
+        node.setInitializer(newInit);
+      }
+      catch (TypeSystem.UnsupportedConversionException e) {
+        TypeSystem.TypePrinter printer = ts.typePrinter();
+        setErrorStrings(node, printer.print(initT), printer.print(expectedT));
+        throw new ExecutionError("assignment.types", node);
+      }
+    }
   }
   
   private abstract class MemberSignatureVisitor extends AbstractVisitor<Void> {
@@ -327,16 +372,20 @@ public class ClassChecker {
   private class MemberBodyVisitor extends AbstractVisitor<Void> {
     
     private final TypeContext _bodyContext;
+    private final boolean _constantsChecked;
     
-    public MemberBodyVisitor(TypeContext bodyContext) { _bodyContext = bodyContext; }
+    public MemberBodyVisitor(TypeContext bodyContext, boolean constantsChecked) {
+      _bodyContext = bodyContext;
+      _constantsChecked = constantsChecked;
+    }
     
     @Override public Void visit(ClassDeclaration node) {
-      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkBodies(node);
+      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkBodies(node, _constantsChecked);
       return null;
     }
     
     @Override public Void visit(InterfaceDeclaration node) {
-      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkBodies(node);
+      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkBodies(node, _constantsChecked);
       return null;
     }
     
@@ -374,22 +423,7 @@ public class ClassChecker {
     }
     
     @Override public Void visit(FieldDeclaration node) {
-      Expression init = node.getInitializer();
-      if (init != null) {
-        TypeContext c = new InitializerContext(_bodyContext, getField(node).isStatic(), _c);
-        Type expectedT = getType(node.getType());
-        Type initT = new ExpressionChecker(c, _opt).check(init, expectedT);
-        TypeSystem ts = _opt.typeSystem();
-        try {
-          Expression newInit = ts.assign(expectedT, init);
-          node.setInitializer(newInit);
-        }
-        catch (TypeSystem.UnsupportedConversionException e) {
-          TypeSystem.TypePrinter printer = ts.typePrinter();
-          setErrorStrings(node, printer.print(initT), printer.print(expectedT));
-          throw new ExecutionError("assignment.types", node);
-        }
-      }
+      if (!_constantsChecked || !isConstantCandidate(node)) { checkInitializer(node, _bodyContext); }
       return null;
     }
     
@@ -406,4 +440,28 @@ public class ClassChecker {
     }
   }
   
+  private class ConstantInitializerVisitor extends AbstractVisitor<Void> {
+    
+    private final TypeContext _bodyContext;
+    
+    public ConstantInitializerVisitor(TypeContext bodyContext) { _bodyContext = bodyContext; }
+    
+    @Override public Void defaultCase(Node node) { return null; }
+    
+    @Override public Void visit(ClassDeclaration node) {
+      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkConstantInitializers(node);
+      return null;
+    }
+    
+    @Override public Void visit(InterfaceDeclaration node) {
+      new ClassChecker(getDJClass(node), _loader, _bodyContext, _opt).checkConstantInitializers(node);
+      return null;
+    }
+    
+    @Override public Void visit(FieldDeclaration node) {
+      if (isConstantCandidate(node)) { checkInitializer(node, _bodyContext); }
+      return null;
+    }
+  }
+  
 }
@@ -29,23 +29,25 @@ public class ImportContext extends DelegatingContext {
   private final String _currentPackage;
   private final Iterator<Integer> _anonymousCounter;
     
-  // The following fields refer to specific implementation classes in order to use the clone() method.
+  // The following collections are shared between copies of a context and are never mutated once
+  // the context that created them has been returned.  Each import copies only the collection it
+  // extends (which is why the fields refer to implementation classes with a clone() method).
   
   /** Packages whose top-level classes are all imported */
-  private final HashSet<String> _onDemandPackages;
+  private HashSet<String> _onDemandPackages;
   /** Classes whose member classes are all imported */
-  private final HashSet<DJClass> _onDemandClasses;
+  private HashSet<DJClass> _onDemandClasses;
   /** Classes whose static members (fields, methods, and classes) are all imported */
-  private final HashSet<DJClass> _staticOnDemandClasses;
+  private HashSet<DJClass> _staticOnDemandClasses;
   
   /** Top-level classes that are individually imported */
-  private final HashMap<String, DJClass> _importedTopLevelClasses;
+  private HashMap<String, DJClass> _importedTopLevelClasses;
   /** Classes containing an individually-imported member class */
-  private final HashMap<String, DJClass> _importedMemberClasses;
+  private HashMap<String, DJClass> _importedMemberClasses;
   /** Classes containing an individually-imported field */
-  private final HashMap<String, DJClass> _importedFields;
+  private HashMap<String, DJClass> _importedFields;
   /** Classes containing an individually-imported method */
-  private final Relation<String, DJClass> _importedMethods;
+  private Relation<String, DJClass> _importedMethods;
   
   /**
    * Make a top-level context that delegates to a LibraryContext based on the given class loader.
@@ -80,21 +82,28 @@ public class ImportContext extends DelegatingContext {
     this(copy._next, copy._currentPackage, copy);
   }
   
-  @SuppressWarnings("unchecked")
+  /** Share all of {@code bindings}' imports; callers replace any collection they intend to modify. */
   private ImportContext(TypeContext next, String currentPackage, ImportContext bindings) {
     super(next);
     _next = next;
     _opt = bindings._opt;
     _currentPackage = currentPackage;
     _anonymousCounter = bindings._anonymousCounter;
-    _onDemandPackages = (HashSet<String>) bindings._onDemandPackages.clone();
-    _onDemandClasses = (HashSet<DJClass>) bindings._onDemandClasses.clone();
-    _staticOnDemandClasses = (HashSet<DJClass>) bindings._staticOnDemandClasses.clone();
-    _importedTopLevelClasses = (HashMap<String, DJClass>) bindings._importedTopLevelClasses.clone();
-    _importedMemberClasses = (HashMap<String, DJClass>) bindings._importedMemberClasses.clone();
-    _importedFields = (HashMap<String, DJClass>) bindings._importedFields.clone();
-    _importedMethods = new IndexedRelation<String, DJClass>(false);
-    _importedMethods.addAll(bindings._importedMethods);
+    _onDemandPackages = bindings._onDemandPackages;
+    _onDemandClasses = bindings._onDemandClasses;
+    _staticOnDemandClasses = bindings._staticOnDemandClasses;
+    _importedTopLevelClasses = bindings._importedTopLevelClasses;
+    _importedMemberClasses = bindings._importedMemberClasses;
+    _importedFields = bindings._importedFields;
+    _importedMethods = bindings._importedMethods;
+  }
+  
+  @SuppressWarnings("unchecked") private static <T> HashSet<T> copy(HashSet<T> s) {
+    return (HashSet<T>) s.clone();
+  }
+  
+  @SuppressWarnings("unchecked") private static <K, V> HashMap<K, V> copy(HashMap<K, V> m) {
+    return (HashMap<K, V>) m.clone();
   }
   
   protected TypeContext duplicate(TypeContext next) {
@@ -110,6 +119,7 @@ public class ImportContext extends DelegatingContext {
   /** Import on demand all top-level classes in the given package */
   @Override public TypeContext importTopLevelClasses(String pkg) {
     ImportContext result = new ImportContext(this);
+    result._onDemandPackages = copy(_onDemandPackages);
     result._onDemandPackages.add(pkg);
     return result;
   }
@@ -117,6 +127,7 @@ public class ImportContext extends DelegatingContext {
   /** Import on demand all member classes of the given class */
   @Override public TypeContext importMemberClasses(DJClass outer) {
     ImportContext result = new ImportContext(this);
+    result._onDemandClasses = copy(_onDemandClasses);
     result._onDemandClasses.add(outer);
     return result;
   }    
@@ -124,6 +135,7 @@ public class ImportContext extends DelegatingContext {
   /** Import on demand all static members of the given class */
   @Override public TypeContext importStaticMembers(DJClass c) {
     ImportContext result = new ImportContext(this);
+    result._staticOnDemandClasses = copy(_staticOnDemandClasses);
     result._staticOnDemandClasses.add(c);
     return result;
   }
@@ -133,7 +145,11 @@ public class ImportContext extends DelegatingContext {
     ImportContext result = new ImportContext(this);
     String name = c.declaredName();
     // Under strict circumstances, a duplicate import for a name is illegal, but DynamicJava allows it
-    result._importedMemberClasses.remove(name);
+    if (_importedMemberClasses.containsKey(name)) {
+      result._importedMemberClasses = copy(_importedMemberClasses);
+      result._importedMemberClasses.remove(name);
+    }
+    result._importedTopLevelClasses = copy(_importedTopLevelClasses);
     result._importedTopLevelClasses.put(name, c);
     return result;
   }
@@ -142,7 +158,11 @@ public class ImportContext extends DelegatingContext {
   @Override public TypeContext importMemberClass(DJClass outer, String name) {
     ImportContext result = new ImportContext(this);
     // Under strict circumstances, a duplicate import for a name is illegal, but DynamicJava allows it
-    result._importedTopLevelClasses.remove(name);
+    if (_importedTopLevelClasses.containsKey(name)) {
+      result._importedTopLevelClasses = copy(_importedTopLevelClasses);
+      result._importedTopLevelClasses.remove(name);
+    }
+    result._importedMemberClasses = copy(_importedMemberClasses);
     result._importedMemberClasses.put(name, outer);
     return result;
   }
@@ -151,6 +171,7 @@ public class ImportContext extends DelegatingContext {
   @Override public TypeContext importField(DJClass c, String name) {
     ImportContext result = new ImportContext(this);
     // Under strict circumstances, a duplicate import for a name is illegal, but DynamicJava allows it
+    result._importedFields = copy(_importedFields);
     result._importedFields.put(name, c);
     return result;
   }
@@ -158,6 +179,8 @@ public class ImportContext extends DelegatingContext {
   /** Import the method(s) of {@code c} with the given name */
   @Override public TypeContext importMethod(DJClass c, String name) {
     ImportContext result = new ImportContext(this);
+    result._importedMethods = new IndexedRelation<String, DJClass>(false);
+    result._importedMethods.addAll(_importedMethods);
     result._importedMethods.add(name, c); // overloads with any others already imported
     return result;
   }
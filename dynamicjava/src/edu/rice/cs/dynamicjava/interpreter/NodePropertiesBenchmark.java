@@ -0,0 +1,52 @@
+package edu.rice.cs.dynamicjava.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import koala.dynamicjava.interpreter.NodeProperties;
+import koala.dynamicjava.tree.IntegerLiteral;
+import koala.dynamicjava.tree.Node;
+
+import edu.rice.cs.dynamicjava.Options;
+
+/**
+ * Measures the cost of node properties: the time of many short interactions (which create and
+ * annotate many nodes), the time of one long-running loop (which mostly reads properties), and
+ * the heap used by a literal with three properties.  This is a timing benchmark, not a unit test;
+ * run its main method and compare the output before and after a change.
+ */
+public class NodePropertiesBenchmark {
+  
+  public static void main(String... args) throws Exception {
+    Interpreter in = new Interpreter(Options.DEFAULT);
+    in.interpret("int s = 0;");
+    String loop = "for (int i = 0; i < 200000; i++) { s += i % 7; if (s > 1000000) s -= 1000000; }";
+    for (int r = 0; r < 6; r++) {
+      long t0 = System.nanoTime();
+      in.interpret(loop);
+      System.out.println("200000-iteration loop: " + (System.nanoTime() - t0) / 1000000 + " ms");
+    }
+    for (int r = 0; r < 6; r++) {
+      long t0 = System.nanoTime();
+      for (int k = 0; k < 2000; k++) { in.interpret("s = (s * 31 + " + k + ") % 1000003;"); }
+      System.out.println("2000 interactions: " + (System.nanoTime() - t0) / 1000000 + " ms");
+    }
+    
+    int n = 200000;
+    Runtime rt = Runtime.getRuntime();
+    System.gc(); Thread.sleep(100); System.gc();
+    long m0 = rt.totalMemory() - rt.freeMemory();
+    List<Node> nodes = new ArrayList<Node>(n);
+    for (int i = 0; i < n; i++) {
+      Node x = new IntegerLiteral("1");
+      NodeProperties.setType(x, null);
+      NodeProperties.setValue(x, i);
+      NodeProperties.setErasedType(x, null);
+      nodes.add(x);
+    }
+    System.gc(); Thread.sleep(100); System.gc();
+    long m1 = rt.totalMemory() - rt.freeMemory();
+    System.out.println("bytes per literal with 3 properties: " + (m1 - m0) / nodes.size());
+  }
+  
+}
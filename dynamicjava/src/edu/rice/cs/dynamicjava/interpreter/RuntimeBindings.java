@@ -1,8 +1,8 @@
 package edu.rice.cs.dynamicjava.interpreter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Collections;
 import edu.rice.cs.plt.tuple.Pair;
 import edu.rice.cs.plt.iter.IterUtil;
 
@@ -16,72 +16,107 @@ import edu.rice.cs.dynamicjava.symbol.type.VariableType;
   * the calling context.  Without this flexibility, it would have to be determined at what point
   * (if any) in the calling context's chain of environments the function declaration and the calling
   * context share a common lexical scope.
+  * 
+  * Each instance is a frame holding only the bindings it adds, as key/value pairs in small arrays,
+  * and shares everything else with its parent.  Extending an environment with a variable therefore
+  * allocates a frame and one array.  Local variables are compared by identity, as they were when
+  * hashed; classes and type variables use {@code equals}.
   */
 public class RuntimeBindings {
   
+  private static final Object[] NO_BINDINGS = new Object[0];
+  
   public static final RuntimeBindings EMPTY = new RuntimeBindings();
   
   private final RuntimeBindings _parent;
-  private final Map<LocalVariable, Object> _vars;
-  private final Map<VariableType, Type> _tvars; // might be useful someday...
-  private final Map<DJClass, Object> _thisVals;
+  /** Alternating LocalVariable keys and their values */
+  private final Object[] _vars;
+  /** Alternating VariableType keys and their Types */
+  private final Object[] _tvars; // might be useful someday...
+  /** Alternating DJClass keys and their "this" values */
+  private final Object[] _thisVals;
   
   public RuntimeBindings(RuntimeBindings parent, Map<LocalVariable, Object> vars,
                          Map<VariableType, Type> tvars, Map<DJClass, Object> thisVals) {
+    this(parent, toArray(vars), toArray(tvars), toArray(thisVals));
+  }
+  
+  private RuntimeBindings(RuntimeBindings parent, Object[] vars, Object[] tvars, Object[] thisVals) {
     _parent = parent;
-    _vars = new HashMap<LocalVariable, Object>(vars);
-    _tvars = new HashMap<VariableType, Type>(tvars);
-    _thisVals = new HashMap<DJClass, Object>(thisVals);
+    _vars = vars;
+    _tvars = tvars;
+    _thisVals = thisVals;
   }
   
   private RuntimeBindings() {
-    this(null, Collections.<LocalVariable, Object>emptyMap(),
-         Collections.<VariableType, Type>emptyMap(), Collections.<DJClass, Object>emptyMap());
+    this(null, NO_BINDINGS, NO_BINDINGS, NO_BINDINGS);
   }
   
   public RuntimeBindings(RuntimeBindings parent, LocalVariable var, Object val) {
-    this(parent, Collections.singletonMap(var, val), Collections.<VariableType, Type>emptyMap(),
-         Collections.<DJClass, Object>emptyMap());
+    this(parent, new Object[]{ var, val }, NO_BINDINGS, NO_BINDINGS);
   }
   
   public RuntimeBindings(RuntimeBindings parent, Iterable<LocalVariable> vars, Iterable<Object> vals) {
-    this(parent, makeMap(vars, vals), Collections.<VariableType, Type>emptyMap(),
-         Collections.<DJClass, Object>emptyMap());
+    this(parent, makeArray(vars, vals), NO_BINDINGS, NO_BINDINGS);
   }
   
-  private static <K, V> Map<K, V> makeMap(Iterable<? extends K> keys, Iterable<? extends V> vals) {
-    Map<K, V> result = new HashMap<K, V>();
-    for (Pair<K, V> entry : IterUtil.zip(keys, vals)) { result.put(entry.first(), entry.second()); }
+  private static Object[] toArray(Map<?, ?> map) {
+    if (map.isEmpty()) { return NO_BINDINGS; }
+    Object[] result = new Object[map.size() * 2];
+    int i = 0;
+    for (Map.Entry<?, ?> entry : map.entrySet()) { result[i++] = entry.getKey(); result[i++] = entry.getValue(); }
     return result;
   }
   
+  private static Object[] makeArray(Iterable<?> keys, Iterable<?> vals) {
+    ArrayList<Object> result = new ArrayList<Object>();
+    for (Pair<?, ?> entry : IterUtil.zip(keys, vals)) {
+      int i = indexOf(result, entry.first());
+      if (i >= 0) { result.set(i + 1, entry.second()); } // a later binding replaces an earlier one
+      else { result.add(entry.first()); result.add(entry.second()); }
+    }
+    return result.isEmpty() ? NO_BINDINGS : result.toArray();
+  }
+  
+  private static int indexOf(List<Object> bindings, Object key) {
+    for (int i = 0; i < bindings.size(); i += 2) { if (bindings.get(i) == key) { return i; } }
+    return -1;
+  }
+  
   public RuntimeBindings(RuntimeBindings parent, DJClass thisClass, Object thisObj) {
-      this(parent, Collections.<LocalVariable, Object>emptyMap(),
-           Collections.<VariableType, Type>emptyMap(), Collections.singletonMap(thisClass, thisObj));
+      this(parent, NO_BINDINGS, NO_BINDINGS, new Object[]{ thisClass, thisObj });
   }
   
   public Object get(LocalVariable v) {
-    if (_vars.containsKey(v)) { return _vars.get(v); }
-    else if (_parent != null) { return _parent.get(v); }
-    else { throw new IllegalArgumentException("Variable " + v + " is undefined"); }
+    for (RuntimeBindings b = this; b != null; b = b._parent) {
+      Object[] vars = b._vars;
+      for (int i = 0; i < vars.length; i += 2) { if (vars[i] == v) { return vars[i+1]; } }
+    }
+    throw new IllegalArgumentException("Variable " + v + " is undefined");
   }
   
   public void set(LocalVariable v, Object val) {
-    if (_vars.containsKey(v)) { _vars.put(v, val); }
-    else if (_parent != null) { _parent.set(v, val); }
-    else { throw new IllegalArgumentException("Variable " + v + " is undefined"); }
+    for (RuntimeBindings b = this; b != null; b = b._parent) {
+      Object[] vars = b._vars;
+      for (int i = 0; i < vars.length; i += 2) { if (vars[i] == v) { vars[i+1] = val; return; } }
+    }
+    throw new IllegalArgumentException("Variable " + v + " is undefined");
   }
 
   public Type get(VariableType v) {
-    if (_tvars.containsKey(v)) { return _tvars.get(v); }
-    else if (_parent != null) { return _parent.get(v); }
-    else { throw new IllegalArgumentException("Type variable " + v + " is undefined"); }
+    for (RuntimeBindings b = this; b != null; b = b._parent) {
+      Object[] tvars = b._tvars;
+      for (int i = 0; i < tvars.length; i += 2) { if (v.equals(tvars[i])) { return (Type) tvars[i+1]; } }
+    }
+    throw new IllegalArgumentException("Type variable " + v + " is undefined");
   }
   
   public Object getThis(DJClass c) {
-    if (_thisVals.containsKey(c)) { return _thisVals.get(c); }
-    else if (_parent != null) { return _parent.getThis(c); }
-    else { throw new IllegalArgumentException("This value " + c + " is undefined"); }
+    for (RuntimeBindings b = this; b != null; b = b._parent) {
+      Object[] thisVals = b._thisVals;
+      for (int i = 0; i < thisVals.length; i += 2) { if (c.equals(thisVals[i])) { return thisVals[i+1]; } }
+    }
+    throw new IllegalArgumentException("This value " + c + " is undefined");
   }
 
 }
@@ -1,7 +1,7 @@
 package edu.rice.cs.dynamicjava.interpreter;
 
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import edu.rice.cs.dynamicjava.Options;
 import edu.rice.cs.dynamicjava.symbol.TreeClass;
 import edu.rice.cs.plt.reflect.AbstractClassLoader;
@@ -11,7 +11,8 @@ import edu.rice.cs.plt.iter.IterUtil;
 
 /**
  * A class loader with the additional ability of loading classes from their (type-checked)
- * AST representations.
+ * AST representations.  Trees may be registered and loaded from multiple threads (the
+ * SourceChecker checks class bodies concurrently).
  */
 public class TreeClassLoader extends AbstractClassLoader {
   
@@ -21,14 +22,14 @@ public class TreeClassLoader extends AbstractClassLoader {
   private final Map<String, TreeCompiler.EvaluationAdapter> _adapters;
   
   public TreeClassLoader(ClassLoader parent, Options opt) {
-    this(parent, opt, new HashMap<String, TreeClass>());
+    this(parent, opt, new ConcurrentHashMap<String, TreeClass>());
   }
   
   private TreeClassLoader(ClassLoader parent, Options opt, Map<String, TreeClass> registeredTrees) {
     super(makeParent(parent, registeredTrees.keySet()));
     _opt = opt;
     _registeredTrees = registeredTrees;
-    _adapters = new HashMap<String, TreeCompiler.EvaluationAdapter>();
+    _adapters = new ConcurrentHashMap<String, TreeCompiler.EvaluationAdapter>();
   }
   
   private static ClassLoader makeParent(ClassLoader p, Iterable<String> registeredNames) {
@@ -17,6 +17,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import koala.dynamicjava.interpreter.NodeProperties;
 import koala.dynamicjava.interpreter.error.ExecutionError;
@@ -54,14 +58,32 @@ public class SourceChecker {
 
   private final Options _opt;
   private final boolean _quiet;
+  private final int _threads;
   private int _statusCount;
   private Iterable<CompilationUnit> _processed;
+  /** Runs the steps of independent phases during {@link #check}; {@code null} if checking is sequential. */
+  private ExecutorService _executor;
   
   public SourceChecker(Options opt, boolean quiet) {
+    this(opt, quiet, 1);
+  }
+  
+  /**
+   * Create a checker that uses up to {@code threads} threads.  Parsing, import resolution, and
+   * checking of method bodies are performed concurrently (one compilation unit or top-level class
+   * at a time); class and member signatures, along with the initializers of {@code static final}
+   * fields, are still checked sequentially, because those phases fill in the symbol data and
+   * constant values that the other classes share.  Errors are reported in source order regardless
+   * of the number of threads.
+   */
+  public SourceChecker(Options opt, boolean quiet, int threads) {
+    if (threads < 1) { throw new IllegalArgumentException("threads < 1"); }
     _opt = opt;
     _quiet = quiet;
+    _threads = threads;
     _statusCount = 0;
     _processed = IterUtil.empty();
+    _executor = null;
   }
   
   public Iterable<CompilationUnit> processed() { return _processed; }
@@ -76,33 +98,38 @@ public class SourceChecker {
   
   public void check(Iterable<? extends File> sources, Iterable<? extends File> classPath)
                       throws InterpreterException {
-    Iterable<CompilationUnit> tree = parse(sources);
-    _processed = IterUtil.compose(_processed, tree);
-    TypeContext context = makeContext(tree, classPath);
-    Relation<TypeDeclaration, ClassChecker> decls = extractDeclarations(tree, context);
-    initializeClassSignatures(decls);
-    checkSignatures(decls);
-    checkBodies(decls);
+    if (_threads > 1) { _executor = Executors.newFixedThreadPool(_threads); }
+    try {
+      Iterable<CompilationUnit> tree = parse(sources);
+      _processed = IterUtil.compose(_processed, tree);
+      TypeContext context = makeContext(tree, classPath);
+      Relation<TypeDeclaration, ClassChecker> decls = extractDeclarations(tree, context);
+      initializeClassSignatures(decls);
+      checkSignatures(decls);
+      checkConstantInitializers(decls);
+      checkBodies(decls);
+    }
+    finally {
+      if (_executor != null) { _executor.shutdownNow(); _executor = null; }
+    }
   }
   
   private Iterable<CompilationUnit> parse(Iterable<? extends File> sources) throws InterpreterException {
-    final List<CompilationUnit> result = new ArrayList<CompilationUnit>();
     Iterable<File> files = IterUtil.collapse(IterUtil.map(sources, new Lambda<File, Iterable<File>>() {
       private final FileFilter _filter = IOUtil.extensionFilePredicate("java");
       public Iterable<File> value(File f) { return IOUtil.listFilesRecursively(f, _filter); }
     }));
-    new Phase<File>("Parsing") {
-      protected void step(File source) throws InterpreterException {
+    return new Phase<File, CompilationUnit>("Parsing") {
+      protected CompilationUnit step(File source) throws InterpreterException {
         try {
           JavaCCParser parser = new JavaCCParser(new FileReader(source), source, _opt);
-          result.add(parser.parseCompilationUnit());
+          return parser.parseCompilationUnit();
         }
         catch (ParseError e) { throw new ParserException(e); }
         catch (FileNotFoundException e) { throw new SourceException(e); }
       }
       protected SourceInfo location(File f) { return SourceInfo.point(f, 0, 0); }
     }.run(files);
-    return result;
   }
   
   private TypeContext makeContext(Iterable<CompilationUnit> sources, Iterable<? extends File> cp) {
@@ -118,30 +145,38 @@ public class SourceChecker {
                                                                        throws InterpreterException {
     final CompilationUnitChecker unitChecker = new CompilationUnitChecker(context, _opt);
     final Relation<TypeDeclaration, ClassChecker> checkers = UnindexedRelation.makeLinkedHashBased();
-    new Phase<CompilationUnit>("Resolving imports") {
-      protected void step(CompilationUnit u) throws InterpreterException {
-        checkers.addAll(unitChecker.extractDeclarations(u));
+    List<Relation<TypeDeclaration, ClassChecker>> results =
+      new Phase<CompilationUnit, Relation<TypeDeclaration, ClassChecker>>("Resolving imports") {
+      protected Relation<TypeDeclaration, ClassChecker> step(CompilationUnit u) throws InterpreterException {
+        return unitChecker.extractDeclarations(u);
       }
       protected SourceInfo location(CompilationUnit arg) { return arg.getSourceInfo(); }
     }.run(sources);
+    for (Relation<TypeDeclaration, ClassChecker> r : results) { checkers.addAll(r); }
     return checkers;
   }
 
   private void initializeClassSignatures(Relation<TypeDeclaration, ClassChecker> decls) throws InterpreterException {
-    new ClassCheckerPhase("Checking class signatures") {
+    new ClassCheckerPhase("Checking class signatures", false) {
       protected void step(TypeDeclaration ast, ClassChecker checker) { checker.initializeClassSignatures(ast); } 
     }.run(decls);
   }
   
   private void checkSignatures(Relation<TypeDeclaration, ClassChecker> decls) throws InterpreterException {
-    new ClassCheckerPhase("Checking class member signatures") {
+    new ClassCheckerPhase("Checking class member signatures", false) {
       protected void step(TypeDeclaration ast, ClassChecker checker) { checker.checkSignatures(ast); } 
     }.run(decls);
   }
   
+  private void checkConstantInitializers(Relation<TypeDeclaration, ClassChecker> decls) throws InterpreterException {
+    new ClassCheckerPhase("Checking constant initializers", false) {
+      protected void step(TypeDeclaration ast, ClassChecker checker) { checker.checkConstantInitializers(ast); } 
+    }.run(decls);
+  }
+  
   private void checkBodies(Relation<TypeDeclaration, ClassChecker> decls) throws InterpreterException {
-    new ClassCheckerPhase("Checking class member bodies") {
-      protected void step(TypeDeclaration ast, ClassChecker checker) { checker.checkBodies(ast); } 
+    new ClassCheckerPhase("Checking class member bodies", true) {
+      protected void step(TypeDeclaration ast, ClassChecker checker) { checker.checkBodies(ast, true); } 
     }.run(decls);
   }
   
@@ -155,7 +190,7 @@ public class SourceChecker {
     }
   }
   
-  private void incrementStatus() {
+  private synchronized void incrementStatus() {
     _statusCount++;
     // arbitrarily chose 10 as the interval for status printouts
     if (!_quiet && (_statusCount % 10 == 0)) { System.out.print('*'); System.out.flush(); }
@@ -166,35 +201,79 @@ public class SourceChecker {
   }
   
   
-  private abstract class Phase<T> {
+  /**
+   * A pass over a list of arguments.  If the checker has an executor and the phase is parallel,
+   * the steps run concurrently; in either case, results and errors are reported in argument order.
+   */
+  private abstract class Phase<T, R> {
     private final String _description;
-    protected Phase(String description) { _description = description; }
+    private final boolean _parallel;
+    protected Phase(String description) { this(description, true); }
+    protected Phase(String description, boolean parallel) { _description = description; _parallel = parallel; }
     
-    protected abstract void step(T arg) throws InterpreterException;
+    protected abstract R step(T arg) throws InterpreterException;
     protected abstract SourceInfo location(T arg);
     
-    public void run(Iterable<? extends T> args) throws InterpreterException {
-      List<InterpreterException> errors = new ArrayList<InterpreterException>();
+    /** Run all steps, returning their results in argument order. */
+    public List<R> run(Iterable<? extends T> args) throws InterpreterException {
+      final List<T> argList = CollectUtil.makeArrayList(args);
+      final List<R> results = new ArrayList<R>(argList.size());
+      final List<InterpreterException> errors = new ArrayList<InterpreterException>(argList.size());
+      for (int i = 0; i < argList.size(); i++) { results.add(null); errors.add(null); }
       debug.logStart(_description);
       startStatus(_description);
-      for (T arg : args) {
-        debug.logStart("location", location(arg));
-        try { step(arg); }
-        catch (InterpreterException e) { errors.add(e); }
-        catch (RuntimeException e) { errors.add(new InternalException(e, location(arg))); }
-        incrementStatus();
-        debug.logEnd();
+      if (_executor == null || !_parallel) {
+        for (int i = 0; i < argList.size(); i++) { runStep(argList.get(i), i, results, errors); }
+      }
+      else {
+        List<Future<?>> futures = new ArrayList<Future<?>>(argList.size());
+        for (int i = 0; i < argList.size(); i++) {
+          final int index = i;
+          futures.add(_executor.submit(new Runnable() {
+            public void run() { runStep(argList.get(index), index, results, errors); }
+          }));
+        }
+        for (Future<?> f : futures) { await(f); }
       }
       endStatus();
       debug.logEnd(_description);
-      if (!errors.isEmpty()) { throw CompositeException.make(errors); }
+      List<InterpreterException> allErrors = CollectUtil.makeArrayList(IterUtil.filter(errors, LambdaUtil.NOT_NULL));
+      if (!allErrors.isEmpty()) { throw CompositeException.make(allErrors); }
+      return results;
+    }
+    
+    /** Record the result or error of the given step in slot {@code i} (distinct threads use distinct slots). */
+    private void runStep(T arg, int i, List<R> results, List<InterpreterException> errors) {
+      debug.logStart("location", location(arg));
+      try { results.set(i, step(arg)); }
+      catch (InterpreterException e) { errors.set(i, e); }
+      catch (RuntimeException e) { errors.set(i, new InternalException(e, location(arg))); }
+      incrementStatus();
+      debug.logEnd();
+    }
+    
+    /** Wait for the given step to complete; steps never throw checked exceptions, so only Errors propagate. */
+    private void await(Future<?> f) {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try { f.get(); break; }
+          catch (InterruptedException e) { interrupted = true; }
+          catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) { throw (Error) cause; }
+            else { throw new RuntimeException(cause); }
+          }
+        }
+      }
+      finally { if (interrupted) { Thread.currentThread().interrupt(); } }
     }
   }
   
-  private abstract class ClassCheckerPhase extends Phase<Pair<TypeDeclaration, ClassChecker>> {
-    protected ClassCheckerPhase(String description) { super(description); }
-    protected final void step(Pair<TypeDeclaration, ClassChecker> arg) throws InterpreterException {
-      try { step(arg.first(), arg.second()); }
+  private abstract class ClassCheckerPhase extends Phase<Pair<TypeDeclaration, ClassChecker>, Void> {
+    protected ClassCheckerPhase(String description, boolean parallel) { super(description, parallel); }
+    protected final Void step(Pair<TypeDeclaration, ClassChecker> arg) throws InterpreterException {
+      try { step(arg.first(), arg.second()); return null; }
       catch (ExecutionError e) { throw extractErrors(arg.first()); }
     }
     protected final SourceInfo location(Pair<TypeDeclaration, ClassChecker> arg) {
@@ -265,16 +344,22 @@ public class SourceChecker {
     argParser.supportAlias("cp", "classpath");
     argParser.supportOption("opt", 1);
     argParser.supportOption("verbose");
+    argParser.supportOption("threads", 1);
     argParser.requireParams(1);
     final ArgumentParser.Result parsedArgs = argParser.parse(args);
     Iterable<File> cp = IOUtil.parsePath(parsedArgs.getUnaryOption("classpath"));
     Iterable<File> sources = IterUtil.map(parsedArgs.params(), IOUtil.FILE_FACTORY);
     boolean verbose = parsedArgs.hasOption("verbose");
+    int threads = 1;
+    if (parsedArgs.hasOption("threads")) {
+      try { threads = Math.max(1, Integer.parseInt(parsedArgs.getUnaryOption("threads"))); }
+      catch (NumberFormatException e) { System.out.println("Invalid thread count: " + parsedArgs.getUnaryOption("threads")); }
+    }
     
     if (parsedArgs.hasOption("opt")) {
       Options opt = _options.get(parsedArgs.getUnaryOption("opt"));
       if (opt == null) { System.out.println("Unrecognized options name: " + parsedArgs.getUnaryOption("opt")); }
-      else { processFiles(sources, cp, opt); }
+      else { processFiles(sources, cp, opt, threads); }
     }
       
     else {
@@ -282,7 +367,7 @@ public class SourceChecker {
       Map<String, Iterable<CompilationUnit>> results = new LinkedHashMap<String, Iterable<CompilationUnit>>();
       for (String n : _options.keySet()) {
         System.out.println("============ Checking with type system " + n + " ============");
-        results.put(n, processFiles(sources, cp, _options.get(n)));
+        results.put(n, processFiles(sources, cp, _options.get(n), threads));
       }
       for (Map.Entry<String, Iterable<CompilationUnit>> e : results.entrySet()) {
         if (e.getKey().equals(canonical)) continue;
@@ -310,8 +395,9 @@ public class SourceChecker {
   }
   
   
-  private static Iterable<CompilationUnit> processFiles(Iterable<File> sources, Iterable<File> cp, Options opt) {
-    SourceChecker checker = new SourceChecker(opt, false);
+  private static Iterable<CompilationUnit> processFiles(Iterable<File> sources, Iterable<File> cp, Options opt,
+                                                       int threads) {
+    SourceChecker checker = new SourceChecker(opt, false, threads);
     try {
       checker.check(sources, cp);
       System.out.println("Completed checking successfully.");
@@ -0,0 +1,127 @@
+package edu.rice.cs.dynamicjava.sourcechecker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import koala.dynamicjava.interpreter.NodeProperties;
+import koala.dynamicjava.tree.AnonymousAllocation;
+import koala.dynamicjava.tree.ClassDeclaration;
+import koala.dynamicjava.tree.CompilationUnit;
+import koala.dynamicjava.tree.visitor.DepthFirstVisitor;
+
+import edu.rice.cs.dynamicjava.Options;
+import edu.rice.cs.dynamicjava.interpreter.InterpreterException;
+import edu.rice.cs.plt.io.IOUtil;
+
+/** Tests that a SourceChecker with several threads produces the same results as a sequential one. */
+public class SourceCheckerTest extends TestCase {
+
+  private static final int CLASSES = 12;
+
+  private File _dir;
+
+  public void setUp() throws IOException {
+    _dir = IOUtil.createAndMarkTempDirectory("sourcechecker", "");
+    for (int i = 0; i < CLASSES; i++) {
+      // every class declares anonymous and local classes in its bodies, and refers to its neighbor
+      String next = "C" + ((i + 1) % CLASSES);
+      IOUtil.writeStringToFile(new File(_dir, "C" + i + ".java"),
+        "public class C" + i + " {\n" +
+        "  public Runnable r = new Runnable() { public void run() { new " + next + "().f(); } };\n" +
+        "  public int f() {\n" +
+        "    class Local { int g() { return " + i + "; } }\n" +
+        "    Object o = new Object() { public String toString() { return \"C" + i + "\"; } };\n" +
+        "    return new Local().g() + o.hashCode();\n" +
+        "  }\n" +
+        "  public Runnable h() {\n" +
+        "    return new Runnable() { public void run() { new Object() { int x = " + i + "; }; } };\n" +
+        "  }\n" +
+        "}\n");
+    }
+  }
+
+  public void tearDown() { IOUtil.deleteRecursively(_dir); }
+
+  /** Check the files in _dir, returning the reported errors or, if there are none, the anonymous class names. */
+  private List<String> _check(int threads) {
+    SourceChecker checker = new SourceChecker(Options.DEFAULT, true, threads);
+    final List<String> result = new ArrayList<String>();
+    try { checker.check(_dir); }
+    catch (InterpreterException e) {
+      StringWriter out = new StringWriter();
+      e.printUserMessage(new PrintWriter(out));
+      result.add(out.toString());
+      return result;
+    }
+    DepthFirstVisitor v = new DepthFirstVisitor() {
+      @Override public Void visit(AnonymousAllocation node) {
+        result.add(NodeProperties.getDJClass(node).fullName());
+        return super.visit(node);
+      }
+      @Override public Void visit(ClassDeclaration node) {
+        result.add(NodeProperties.getDJClass(node).fullName());
+        return super.visit(node);
+      }
+    };
+    for (CompilationUnit u : checker.processed()) { v.run(u); }
+    return result;
+  }
+
+  public void testParallelMatchesSequential() {
+    List<String> expected = _check(1);
+    assertEquals("classes and anonymous classes found", 6 * CLASSES, expected.size());
+    for (int i = 0; i < 5; i++) { assertEquals(expected, _check(4)); }
+  }
+
+  public void testParallelErrorsMatchSequential() throws IOException {
+    IOUtil.writeStringToFile(new File(_dir, "C3.java"),
+      "public class C3 {\n" +
+      "  public Runnable r = new Runnable() { public void run() { int x = \"s\"; } };\n" +
+      "  public int f() { return new Object() { int g() { return undefined; } }.g(); }\n" +
+      "}\n");
+    IOUtil.writeStringToFile(new File(_dir, "C7.java"),
+      "public class C7 {\n" +
+      "  public void f() { new Runnable() { public void run() { C3 c = new C3(); c.missing(); } }; }\n" +
+      "}\n");
+    List<String> expected = _check(1);
+    assertEquals(1, expected.size());
+    assertTrue("errors reported", expected.get(0).length() > 0);
+    for (int i = 0; i < 5; i++) { assertEquals(expected, _check(4)); }
+  }
+
+  public void testParallelConstantsMatchSequential() throws IOException {
+    // the labels are only constants if K's initializers have been checked: none of them are literals
+    IOUtil.writeStringToFile(new File(_dir, "K.java"),
+      "public class K {\n" +
+      "  public static final int A = 1 + 0;\n" +
+      "  public static final int B = A + 1;\n" +
+      "  public static final int C = L.X * 3;\n" +
+      "  public interface I { int D = B * 10; }\n" +
+      "}\n");
+    IOUtil.writeStringToFile(new File(_dir, "L.java"), "public class L { public static final int X = 7; }\n");
+    for (int i = 0; i < CLASSES; i++) {
+      IOUtil.writeStringToFile(new File(_dir, "S" + i + ".java"),
+        "public class S" + i + " {\n" +
+        "  public int f(int x) {\n" +
+        "    switch (x) {\n" +
+        "      case K.A: return 1;\n" +
+        "      case K.B: return 2;\n" +
+        "      case K.C: return 3;\n" +
+        "      case K.I.D: return 4;\n" +
+        "      case " + (100 + i) + ": return 5;\n" +
+        "      default: return 0;\n" +
+        "    }\n" +
+        "  }\n" +
+        "}\n");
+    }
+    List<String> expected = _check(1);
+    assertEquals("classes and anonymous classes found", 7 * CLASSES + 2, expected.size());
+    for (int i = 0; i < 5; i++) { assertEquals(expected, _check(4)); }
+  }
+
+}
@@ -30,6 +30,7 @@ package koala.dynamicjava.interpreter;
 
 import koala.dynamicjava.interpreter.error.ExecutionError;
 import koala.dynamicjava.tree.Node;
+import koala.dynamicjava.tree.PropertyKey;
 import koala.dynamicjava.tree.Expression;
 import edu.rice.cs.dynamicjava.interpreter.TypeContext;
 import edu.rice.cs.dynamicjava.symbol.*;
@@ -51,16 +52,16 @@ public class NodeProperties {
     public final static String TYPE = "type";
 
     public static Type getType(Node n) {
-        return (Type)n.getProperty(TYPE);
+        return (Type)n.getAttribute(PropertyKey.TYPE);
     }
     
     public static Type setType(Node n, Type t) {
-      n.setProperty(TYPE, t);
+      n.setAttribute(PropertyKey.TYPE, t);
       return t;
     }
     
     public static boolean hasType(Node n) {
-      return n.hasProperty(TYPE);
+      return n.hasAttribute(PropertyKey.TYPE);
     }
     
     public static final Lambda<Node, Type> NODE_TYPE = new Lambda<Node, Type>() {
@@ -72,16 +73,16 @@ public class NodeProperties {
     public final static String VARIABLE_TYPE = "variableType";
 
     public static Type getVariableType(Node n) {
-        return (Type)n.getProperty(VARIABLE_TYPE);
+        return (Type)n.getAttribute(PropertyKey.VARIABLE_TYPE);
     }
     
     public static Type setVariableType(Node n, Type t) {
-      n.setProperty(VARIABLE_TYPE, t);
+      n.setAttribute(PropertyKey.VARIABLE_TYPE, t);
       return t;
     }
     
     public static boolean hasVariableType(Node n) {
-      return n.hasProperty(VARIABLE_TYPE);
+      return n.hasAttribute(PropertyKey.VARIABLE_TYPE);
     }
     
 
@@ -92,16 +93,16 @@ public class NodeProperties {
     public final static String SUPER_TYPE = "superType";
 
     public static Type getSuperType(Node n) {
-        return (Type)n.getProperty(SUPER_TYPE);
+        return (Type)n.getAttribute(PropertyKey.SUPER_TYPE);
     }
     
     public static Type setSuperType(Node n, Type t) {
-      n.setProperty(SUPER_TYPE, t);
+      n.setAttribute(PropertyKey.SUPER_TYPE, t);
       return t;
     }
     
     public static boolean hasSuperType(Node n) {
-      return n.hasProperty(SUPER_TYPE);
+      return n.hasAttribute(PropertyKey.SUPER_TYPE);
     }
     
 
@@ -110,16 +111,16 @@ public class NodeProperties {
 
     @SuppressWarnings("unchecked")
     public static Thunk<Class<?>> getConvertedType(Node n) {
-        return (Thunk<Class<?>>) n.getProperty(CONVERTED_TYPE);
+        return (Thunk<Class<?>>) n.getAttribute(PropertyKey.CONVERTED_TYPE);
     }
     
     public static Thunk<Class<?>> setConvertedType(Node n, Thunk<Class<?>> c) {
-      n.setProperty(CONVERTED_TYPE, c);
+      n.setAttribute(PropertyKey.CONVERTED_TYPE, c);
       return c;
     }
     
     public static boolean hasConvertedType(Node n) {
-      return n.hasProperty(CONVERTED_TYPE);
+      return n.hasAttribute(PropertyKey.CONVERTED_TYPE);
     }
     
 
@@ -128,16 +129,16 @@ public class NodeProperties {
 
     @SuppressWarnings("unchecked")
     public static Thunk<Class<?>> getAssertedType(Node n) {
-        return (Thunk<Class<?>>) n.getProperty(ASSERTED_TYPE);
+        return (Thunk<Class<?>>) n.getAttribute(PropertyKey.ASSERTED_TYPE);
     }
     
     public static Thunk<Class<?>> setAssertedType(Node n, Thunk<Class<?>> c) {
-      n.setProperty(ASSERTED_TYPE, c);
+      n.setAttribute(PropertyKey.ASSERTED_TYPE, c);
       return c;
     }
     
     public static boolean hasAssertedType(Node n) {
-      return n.hasProperty(ASSERTED_TYPE);
+      return n.hasAttribute(PropertyKey.ASSERTED_TYPE);
     }
     
 
@@ -146,16 +147,16 @@ public class NodeProperties {
 
     @SuppressWarnings("unchecked")
     public static Thunk<Class<?>> getCheckedType(Node n) {
-        return (Thunk<Class<?>>) n.getProperty(CHECKED_TYPE);
+        return (Thunk<Class<?>>) n.getAttribute(PropertyKey.CHECKED_TYPE);
     }
     
     public static Thunk<Class<?>> setCheckedType(Node n, Thunk<Class<?>> c) {
-      n.setProperty(CHECKED_TYPE, c);
+      n.setAttribute(PropertyKey.CHECKED_TYPE, c);
       return c;
     }
     
     public static boolean hasCheckedType(Node n) {
-      return n.hasProperty(CHECKED_TYPE);
+      return n.hasAttribute(PropertyKey.CHECKED_TYPE);
     }
     
 
@@ -164,16 +165,16 @@ public class NodeProperties {
 
     @SuppressWarnings("unchecked")
     public static Thunk<Class<?>> getErasedType(Node n) {
-        return (Thunk<Class<?>>) n.getProperty(ERASED_TYPE);
+        return (Thunk<Class<?>>) n.getAttribute(PropertyKey.ERASED_TYPE);
     }
     
     public static Thunk<Class<?>> setErasedType(Node n, Thunk<Class<?>> c) {
-      n.setProperty(ERASED_TYPE, c);
+      n.setAttribute(PropertyKey.ERASED_TYPE, c);
       return c;
     }
     
     public static boolean hasErasedType(Node n) {
-      return n.hasProperty(ERASED_TYPE);
+      return n.hasAttribute(PropertyKey.ERASED_TYPE);
     }
     
 
@@ -185,16 +186,16 @@ public class NodeProperties {
     public final static String LEFT_EXPRESSION = "leftExpression";
 
     public static Expression getLeftExpression(Node n) {
-        return (Expression) n.getProperty(LEFT_EXPRESSION);
+        return (Expression) n.getAttribute(PropertyKey.LEFT_EXPRESSION);
     }
     
     public static Expression setLeftExpression(Node n, Expression exp) {
-      n.setProperty(LEFT_EXPRESSION, exp);
+      n.setAttribute(PropertyKey.LEFT_EXPRESSION, exp);
       return exp;
     }
     
     public static boolean hasLeftExpression(Node n) {
-      return n.hasProperty(LEFT_EXPRESSION);
+      return n.hasAttribute(PropertyKey.LEFT_EXPRESSION);
     }
     
 
@@ -204,16 +205,16 @@ public class NodeProperties {
     public final static String TRANSLATION = "translation";
 
     public static Expression getTranslation(Node n) {
-        return (Expression) n.getProperty(TRANSLATION);
+        return (Expression) n.getAttribute(PropertyKey.TRANSLATION);
     }
     
     public static Expression setTranslation(Node n, Expression exp) {
-      n.setProperty(TRANSLATION, exp);
+      n.setAttribute(PropertyKey.TRANSLATION, exp);
       return exp;
     }
     
     public static boolean hasTranslation(Node n) {
-      return n.hasProperty(TRANSLATION);
+      return n.hasAttribute(PropertyKey.TRANSLATION);
     }
     
     /**
@@ -222,16 +223,16 @@ public class NodeProperties {
     public final static String STATEMENT_TRANSLATION = "statementTranslation";
 
     public static Node getStatementTranslation(Node n) {
-        return (Node) n.getProperty(STATEMENT_TRANSLATION);
+        return (Node) n.getAttribute(PropertyKey.STATEMENT_TRANSLATION);
     }
     
     public static Node setStatementTranslation(Node n, Node s) {
-      n.setProperty(STATEMENT_TRANSLATION, s);
+      n.setAttribute(PropertyKey.STATEMENT_TRANSLATION, s);
       return s;
     }
     
     public static boolean hasStatementTranslation(Node n) {
-      return n.hasProperty(STATEMENT_TRANSLATION);
+      return n.hasAttribute(PropertyKey.STATEMENT_TRANSLATION);
     }
     
 
@@ -239,16 +240,16 @@ public class NodeProperties {
     public final static String VALUE = "value";
 
     public static Object getValue(Node n) {
-        return n.getProperty(VALUE);
+        return n.getAttribute(PropertyKey.VALUE);
     }
     
     public static Object setValue(Node n, Object o) {
-      n.setProperty(VALUE, o);
+      n.setAttribute(PropertyKey.VALUE, o);
       return o;
     }
     
     public static boolean hasValue(Node n) {
-      return n.hasProperty(VALUE);
+      return n.hasAttribute(PropertyKey.VALUE);
     }
     
 
@@ -258,16 +259,16 @@ public class NodeProperties {
     public final static String ERROR_STRINGS = "errorStrings";
 
     public static String[] getErrorStrings(Node n) {
-      return (String[]) n.getProperty(ERROR_STRINGS);
+      return (String[]) n.getAttribute(PropertyKey.ERROR_STRINGS);
     }
     
     public static String[] setErrorStrings(Node n, String... strings) {
-      n.setProperty(ERROR_STRINGS, strings);
+      n.setAttribute(PropertyKey.ERROR_STRINGS, strings);
       return strings;
     }
     
     public static boolean hasErrorStrings(Node n) {
-      return n.hasProperty(ERROR_STRINGS);
+      return n.hasAttribute(PropertyKey.ERROR_STRINGS);
     }
 
 
@@ -275,16 +276,16 @@ public class NodeProperties {
     public final static String VARIABLE = "variable";
     
     public static LocalVariable getVariable(Node n) {
-      return (LocalVariable) n.getProperty(VARIABLE);
+      return (LocalVariable) n.getAttribute(PropertyKey.VARIABLE);
     }
     
     public static LocalVariable setVariable(Node n, LocalVariable v) {
-      n.setProperty(VARIABLE, v);
+      n.setAttribute(PropertyKey.VARIABLE, v);
       return v;
     }
     
     public static boolean hasVariable(Node n) {
-      return n.hasProperty(VARIABLE);
+      return n.hasAttribute(PropertyKey.VARIABLE);
     }
     
     public static final Lambda<Node, LocalVariable> NODE_VARIABLE = new Lambda<Node, LocalVariable>() {
@@ -296,16 +297,16 @@ public class NodeProperties {
     public final static String CONSTRUCTOR = "constructor";
 
     public static DJConstructor getConstructor(Node n) {
-      return (DJConstructor) n.getProperty(CONSTRUCTOR);
+      return (DJConstructor) n.getAttribute(PropertyKey.CONSTRUCTOR);
     }
     
     public static DJConstructor setConstructor(Node n, DJConstructor c) {
-      n.setProperty(CONSTRUCTOR, c);
+      n.setAttribute(PropertyKey.CONSTRUCTOR, c);
       return c;
     }
     
     public static boolean hasConstructor(Node n) {
-      return n.hasProperty(CONSTRUCTOR);
+      return n.hasAttribute(PropertyKey.CONSTRUCTOR);
     }
 
 
@@ -313,32 +314,32 @@ public class NodeProperties {
     public final static String FIELD = "field";
 
     public static DJField getField(Node n) {
-      return (DJField) n.getProperty(FIELD);
+      return (DJField) n.getAttribute(PropertyKey.FIELD);
     }
     
     public static DJField setField(Node n, DJField f) {
-      n.setProperty(FIELD, f);
+      n.setAttribute(PropertyKey.FIELD, f);
       return f;
     }
     
     public static boolean hasField(Node n) {
-      return n.hasProperty(FIELD);
+      return n.hasAttribute(PropertyKey.FIELD);
     }
 
     /** Method used by a method invocation or declared by a method declaration */
     public final static String METHOD = "method";
     
     public static DJMethod getMethod(Node n) {
-      return (DJMethod) n.getProperty(METHOD);
+      return (DJMethod) n.getAttribute(PropertyKey.METHOD);
     }
     
     public static DJMethod setMethod(Node n, DJMethod m) {
-      n.setProperty(METHOD, m);
+      n.setAttribute(PropertyKey.METHOD, m);
       return m;
     }
     
     public static boolean hasMethod(Node n) {
-      return n.hasProperty(METHOD);
+      return n.hasAttribute(PropertyKey.METHOD);
     }
 
 
@@ -346,16 +347,16 @@ public class NodeProperties {
     public final static String DJCLASS = "djclass";
     
     public static DJClass getDJClass(Node n) {
-      return (DJClass) n.getProperty(DJCLASS);
+      return (DJClass) n.getAttribute(PropertyKey.DJCLASS);
     }
     
     public static DJClass setDJClass(Node n, DJClass c) {
-      n.setProperty(DJCLASS, c);
+      n.setAttribute(PropertyKey.DJCLASS, c);
       return c;
     }
     
     public static boolean hasDJClass(Node n) {
-      return n.hasProperty(DJCLASS);
+      return n.hasAttribute(PropertyKey.DJCLASS);
     }
 
 
@@ -363,16 +364,16 @@ public class NodeProperties {
     public final static String ENCLOSING_THIS = "enclosingThis";
     
     public static DJClass getEnclosingThis(Node n) {
-      return (DJClass) n.getProperty(ENCLOSING_THIS);
+      return (DJClass) n.getAttribute(PropertyKey.ENCLOSING_THIS);
     }
     
     public static DJClass setEnclosingThis(Node n, DJClass c) {
-      n.setProperty(ENCLOSING_THIS, c);
+      n.setAttribute(PropertyKey.ENCLOSING_THIS, c);
       return c;
     }
     
     public static boolean hasEnclosingThis(Node n) {
-      return n.hasProperty(ENCLOSING_THIS);
+      return n.hasAttribute(PropertyKey.ENCLOSING_THIS);
     }
 
 
@@ -380,16 +381,16 @@ public class NodeProperties {
     public final static String TYPE_VARIABLE = "typeVariable";
 
     public static VariableType getTypeVariable(Node n) {
-      return (VariableType) n.getProperty(TYPE_VARIABLE);
+      return (VariableType) n.getAttribute(PropertyKey.TYPE_VARIABLE);
     }
     
     public static VariableType setTypeVariable(Node n, VariableType v) {
-      n.setProperty(TYPE_VARIABLE, v);
+      n.setAttribute(PropertyKey.TYPE_VARIABLE, v);
       return v;
     }
     
     public static boolean hasTypeVariable(Node n) {
-      return n.hasProperty(TYPE_VARIABLE);
+      return n.hasAttribute(PropertyKey.TYPE_VARIABLE);
     }
 
     public static final Lambda<Node, VariableType> NODE_TYPE_VARIABLE = new Lambda<Node, VariableType>() {
@@ -401,32 +402,32 @@ public class NodeProperties {
     public final static String ERROR = "error";
 
     public static ExecutionError getError(Node n) {
-      return (ExecutionError) n.getProperty(ERROR);
+      return (ExecutionError) n.getAttribute(PropertyKey.ERROR);
     }
     
     public static ExecutionError setError(Node n, ExecutionError e) {
-      n.setProperty(ERROR, e);
+      n.setAttribute(PropertyKey.ERROR, e);
       return e;
     }
     
     public static boolean hasError(Node n) {
-      return n.hasProperty(ERROR);
+      return n.hasAttribute(PropertyKey.ERROR);
     }
 
     /** The new context that would have been the result had there not been an error. */
     public final static String ERROR_CONTEXT = "errorContext";
 
     public static TypeContext getErrorContext(Node n) {
-      return (TypeContext) n.getProperty(ERROR_CONTEXT);
+      return (TypeContext) n.getAttribute(PropertyKey.ERROR_CONTEXT);
     }
     
     public static TypeContext setErrorContext(Node n, TypeContext c) {
-      n.setProperty(ERROR_CONTEXT, c);
+      n.setAttribute(PropertyKey.ERROR_CONTEXT, c);
       return c;
     }
     
     public static boolean hasErrorContext(Node n) {
-      return n.hasProperty(ERROR_CONTEXT);
+      return n.hasAttribute(PropertyKey.ERROR_CONTEXT);
     }
 
     /**
@@ -437,17 +438,17 @@ public class NodeProperties {
 
     @SuppressWarnings("unchecked")
     public static Lambda2<Object, Object, Object> getOperation(Node n) {
-      return (Lambda2<Object, Object, Object>) n.getProperty(OPERATION);
+      return (Lambda2<Object, Object, Object>) n.getAttribute(PropertyKey.OPERATION);
     }
     
     public static Lambda2<Object, Object, Object> setOperation(Node n, 
                                                                Lambda2<Object, Object, Object> f) {
-      n.setProperty(OPERATION, f);
+      n.setAttribute(PropertyKey.OPERATION, f);
       return f;
     }
     
     public static boolean hasOperation(Node n) {
-      return n.hasProperty(OPERATION);
+      return n.hasAttribute(PropertyKey.OPERATION);
     }
 
     /**
@@ -76,14 +76,18 @@ import koala.dynamicjava.tree.visitor.*;
  */
 
 public abstract class Node implements SourceInfo.Wrapper {
-  private final Map<String,Object> properties;
+  /** Bit i is set if the attribute with key ordinal i has a value. */
+  private long attributeMask;
+  /** The values of the attributes in attributeMask, in key order; null until an attribute is set. */
+  private Object[] attributes;
+  /** Properties that are not attributes, or null until such a property is set. */
+  private Map<String,Object> properties;
   private SourceInfo sourceInfo;
   
   
   protected Node(SourceInfo si) {
     assert si != null;
     sourceInfo = si;
-    properties = new HashMap<String, Object>();
   } 
   
   /** Returns the sourceInfo. */
@@ -101,6 +105,49 @@ public abstract class Node implements SourceInfo.Wrapper {
   
   
   
+  // Attributes support //////////////////////////////////////////////////
+  
+  /**
+   * Sets the value of an attribute
+   * @param key   the attribute key
+   * @param value the new value to set
+   */
+  public void setAttribute(PropertyKey key, Object value) {
+    long bit = 1L << key.ordinal();
+    int index = Long.bitCount(attributeMask & (bit - 1));
+    if ((attributeMask & bit) != 0) { attributes[index] = value; return; }
+    int size = Long.bitCount(attributeMask);
+    Object[] newAttributes = new Object[size + 1];
+    if (size > 0) {
+      System.arraycopy(attributes, 0, newAttributes, 0, index);
+      System.arraycopy(attributes, index, newAttributes, index + 1, size - index);
+    }
+    newAttributes[index] = value;
+    attributes = newAttributes;
+    attributeMask |= bit;
+  }
+  
+  /**
+   * Returns the value of an attribute
+   * @param key the attribute key
+   * @throws IllegalStateException if the attribute was not previously set
+   */
+  public Object getAttribute(PropertyKey key) {
+    long bit = 1L << key.ordinal();
+    if ((attributeMask & bit) == 0) {
+      throw new IllegalStateException("Property '" + key.propertyName() + "' is not initialized");
+    }
+    return attributes[Long.bitCount(attributeMask & (bit - 1))];
+  }
+  
+  /**
+   * Returns true if an attribute is defined for this node
+   * @param key the attribute key
+   */
+  public boolean hasAttribute(PropertyKey key) {
+    return (attributeMask & (1L << key.ordinal())) != 0;
+  }
+  
   // Properties support //////////////////////////////////////////////////
   
   /**
@@ -109,7 +156,12 @@ public abstract class Node implements SourceInfo.Wrapper {
    * @param value the new value to set
    */
   public void setProperty(String name, Object value) {
-    properties.put(name, value);
+    PropertyKey key = PropertyKey.forName(name);
+    if (key != null) { setAttribute(key, value); }
+    else {
+      if (properties == null) { properties = new HashMap<String, Object>(4); }
+      properties.put(name, value);
+    }
   }
   
   /**
@@ -118,18 +170,25 @@ public abstract class Node implements SourceInfo.Wrapper {
    * @return null if the property was not previously set
    */
   public Object getProperty(String name) {
-    if (!properties.containsKey(name)) { 
+    PropertyKey key = PropertyKey.forName(name);
+    if (key != null) { return getAttribute(key); }
+    if (properties == null || !properties.containsKey(name)) { 
       throw new IllegalStateException("Property '" + name + "' is not initialized");
     }
     return properties.get(name);
   }
   
   /**
-   * Returns the defined properties for this node.
+   * Returns the defined properties for this node, attributes first.
    * @return a set of string
    */
   public Set<String> getProperties() {
-    return properties.keySet();
+    Set<String> result = new LinkedHashSet<String>();
+    for (PropertyKey key : PropertyKey.values()) {
+      if (hasAttribute(key)) { result.add(key.propertyName()); }
+    }
+    if (properties != null) { result.addAll(properties.keySet()); }
+    return result;
   }
   
   /**
@@ -137,15 +196,19 @@ public abstract class Node implements SourceInfo.Wrapper {
    * @param name the name of the property
    */
   public boolean hasProperty(String name) {
-    return properties.containsKey(name);
+    PropertyKey key = PropertyKey.forName(name);
+    if (key != null) { return hasAttribute(key); }
+    return properties != null && properties.containsKey(name);
   }
   
   /** Change the names of all properties by prefixing each name with the given string. */
   public void archiveProperties(String prefix) {
-    Map<String, Object> newProps = new HashMap<String, Object>();
-    for (Map.Entry<String, Object> e : properties.entrySet()) { newProps.put(prefix + e.getKey(), e.getValue()); }
-    properties.clear();
-    properties.putAll(newProps);
+    Map<String, Object> oldProps = new LinkedHashMap<String, Object>();
+    for (String name : getProperties()) { oldProps.put(name, getProperty(name)); }
+    attributeMask = 0;
+    attributes = null;
+    properties = null;
+    for (Map.Entry<String, Object> e : oldProps.entrySet()) { setProperty(prefix + e.getKey(), e.getValue()); }
   }
   
   /**
@@ -0,0 +1,108 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2010, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package koala.dynamicjava.tree;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+import junit.framework.TestCase;
+import koala.dynamicjava.interpreter.NodeProperties;
+
+/**
+ * JUnit tests for the attributes and properties of koala.dynamicjava.tree.Node.
+ */
+public class NodeTest extends TestCase {
+  
+  public void testAttributes() {
+    Node n = new IntegerLiteral("1");
+    assertFalse(n.hasAttribute(PropertyKey.VALUE));
+    try {
+      n.getAttribute(PropertyKey.VALUE);
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) { /* expected */ }
+    
+    // set in an order different from the key order
+    NodeProperties.setValue(n, 3);
+    NodeProperties.setType(n, null);
+    NodeProperties.setOperation(n, null);
+    NodeProperties.setErasedType(n, null);
+    assertTrue(NodeProperties.hasType(n));
+    assertNull(NodeProperties.getType(n));
+    assertEquals(3, NodeProperties.getValue(n));
+    assertFalse(NodeProperties.hasTranslation(n));
+    
+    NodeProperties.setValue(n, 4);
+    assertEquals(4, NodeProperties.getValue(n));
+    assertEquals(4, n.getProperty(NodeProperties.VALUE));
+    assertTrue(n.hasProperty(NodeProperties.ERASED_TYPE));
+    assertEquals(new LinkedHashSet<String>(Arrays.asList("type", "erasedType", "value", "operation")),
+                 n.getProperties());
+  }
+  
+  public void testProperties() {
+    Node n = new IntegerLiteral("1");
+    n.setProperty("custom", "x");
+    n.setProperty(NodeProperties.TYPE, null);
+    assertTrue(n.hasProperty("custom"));
+    assertEquals("x", n.getProperty("custom"));
+    assertTrue(NodeProperties.hasType(n));
+    assertFalse(n.hasProperty("other"));
+    try {
+      n.getProperty("other");
+      fail("Expected IllegalStateException");
+    }
+    catch (IllegalStateException e) { /* expected */ }
+    
+    n.archiveProperties("old.");
+    assertFalse(NodeProperties.hasType(n));
+    assertFalse(n.hasProperty("custom"));
+    assertEquals("x", n.getProperty("old.custom"));
+    assertTrue(n.hasProperty("old.type"));
+    assertEquals(new LinkedHashSet<String>(Arrays.asList("old.type", "old.custom")), n.getProperties());
+  }
+  
+  public void testKeyNames() throws Exception {
+    // each key has the name of the NodeProperties constant of the same name
+    for (PropertyKey k : PropertyKey.values()) {
+      assertEquals(k.name(), NodeProperties.class.getField(k.name()).get(null), k.propertyName());
+      assertSame(k, PropertyKey.forName(k.propertyName()));
+    }
+    assertNull(PropertyKey.forName("custom"));
+  }
+  
+}
@@ -0,0 +1,50 @@
+package koala.dynamicjava.tree;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keys of the node properties that the interpreter defines (see
+ * {@link koala.dynamicjava.interpreter.NodeProperties}).  Their values are stored in slots of
+ * the node rather than in a map of property names, so that lookups do not hash strings.
+ */
+public enum PropertyKey {
+  TYPE("type"),
+  VARIABLE_TYPE("variableType"),
+  SUPER_TYPE("superType"),
+  CONVERTED_TYPE("convertedType"),
+  ASSERTED_TYPE("assertedType"),
+  CHECKED_TYPE("checkedType"),
+  ERASED_TYPE("erasedType"),
+  LEFT_EXPRESSION("leftExpression"),
+  TRANSLATION("translation"),
+  STATEMENT_TRANSLATION("statementTranslation"),
+  VALUE("value"),
+  ERROR_STRINGS("errorStrings"),
+  VARIABLE("variable"),
+  CONSTRUCTOR("constructor"),
+  FIELD("field"),
+  METHOD("method"),
+  DJCLASS("djclass"),
+  ENCLOSING_THIS("enclosingThis"),
+  TYPE_VARIABLE("typeVariable"),
+  ERROR("error"),
+  ERROR_CONTEXT("errorContext"),
+  OPERATION("operation");
+
+  private static final Map<String, PropertyKey> BY_NAME = new HashMap<String, PropertyKey>();
+  static {
+    for (PropertyKey k : values()) { BY_NAME.put(k.propertyName, k); }
+    assert values().length <= 64 : "Node stores the attributes that are set in a long";
+  }
+
+  private final String propertyName;
+
+  private PropertyKey(String propertyName) { this.propertyName = propertyName; }
+
+  /** The name of the property, as used by {@link Node#getProperty}. */
+  public String propertyName() { return propertyName; }
+
+  /** Returns the key of the named property, or null if it is not one of the keyed properties. */
+  public static PropertyKey forName(String name) { return BY_NAME.get(name); }
+}
@@ -350,7 +350,7 @@ public class SymbolData extends TypeData {
   private TypeParameter[] _typeParameters;
   
   /**List of methods defined in this class*/
-  private LinkedList<MethodData> _methods;
+  private MethodList _methods;
   
   /**The SymbolData corresponding to this class's super class. */
   private SymbolData _superClass;
@@ -379,6 +379,62 @@ public class SymbolData extends TypeData {
   /* The number of anonymous inner classes, used in naming them. */
   private int _anonymousInnerClassNum;
   
+  /** Incremented whenever the superclass, interfaces, or name of any SymbolData changes, which invalidates every
+    * cached supertype set.  This is coarse: a change to any one class discards the caches of all classes in the
+    * program, not just its subtypes.  It is also not synchronized, so SymbolDatas must not be mutated and queried
+    * concurrently (as elsewhere in the type checker, which runs on a single thread). */
+  private static int _hierarchyVersion = 0;
+  
+  /** The value of _hierarchyVersion when _superClasses and _allSupertypes were computed. */
+  private int _supertypesVersion = -1;
+  
+  /** This class and its superclasses, transitively.  Hashed on name, so lookups still use equals. */
+  private HashSet<SymbolData> _superClasses;
+  
+  /** This class and all of its supertypes: superclasses, interfaces, and their supertypes, transitively. */
+  private HashSet<SymbolData> _allSupertypes;
+  
+  /** The methods of _indexedMethods grouped by name; rebuilt when _methods is replaced or modified. */
+  private HashMap<String, ArrayList<MethodData>> _methodsByName;
+  
+  /** The list that _methodsByName indexes, and its version at the time. */
+  private MethodList _indexedMethods;
+  private int _indexedMethodsVersion;
+  
+  /** The list of methods of a SymbolData.  Callers modify it directly through getMethods(), so it counts its own
+    * modifications (including replacements, which LinkedList does not count) to let getMethodsNamed detect a stale
+    * index however the list was changed: through its own methods, its iterators, or its sublists.
+    */
+  private static class MethodList extends LinkedList<MethodData> {
+    private int _replacements = 0;
+    
+    public MethodList() { }
+    public MethodList(Collection<? extends MethodData> methods) { super(methods); }
+    
+    /** @return a number that changes whenever the contents of this list change */
+    public int version() { return modCount + _replacements; }
+    
+    public MethodData set(int index, MethodData md) {
+      _replacements++;
+      return super.set(index, md);
+    }
+    
+    public ListIterator<MethodData> listIterator(int index) {
+      final ListIterator<MethodData> iter = super.listIterator(index);
+      return new ListIterator<MethodData>() {
+        public boolean hasNext() { return iter.hasNext(); }
+        public MethodData next() { return iter.next(); }
+        public boolean hasPrevious() { return iter.hasPrevious(); }
+        public MethodData previous() { return iter.previous(); }
+        public int nextIndex() { return iter.nextIndex(); }
+        public int previousIndex() { return iter.previousIndex(); }
+        public void remove() { iter.remove(); }
+        public void set(MethodData md) { _replacements++; iter.set(md); }
+        public void add(MethodData md) { iter.add(md); }
+      };
+    }
+  }
+  
   /** Constructors */
   
   /** Constructor for SymbolData
@@ -395,7 +451,7 @@ public class SymbolData extends TypeData {
     _name = name;
     _modifiersAndVisibility = modifiersAndVisibility;
     _typeParameters = typeParameters;
-    _methods = new LinkedList<MethodData>();
+    _methods = new MethodList();
     _superClass = superClass;
     _interfaces = interfaces;
     
@@ -454,7 +510,7 @@ public class SymbolData extends TypeData {
     _name = name;
     _modifiersAndVisibility = new ModifiersAndVisibility(si, new String[0]);
     _typeParameters = new TypeParameter[0];
-    _methods = new LinkedList<MethodData>();
+    _methods = new MethodList();
     _superClass = null;
     _interfaces = new ArrayList<SymbolData>();
     _innerClasses = new LinkedList<SymbolData>();
@@ -596,22 +652,43 @@ public class SymbolData extends TypeData {
    }
 
 
-   /** Depth-first traversal of the tree of enclosing data checking to see if sd is above this SymbolData 
-     * in the class hierarchy.
+   /** Checks to see if sd is above this SymbolData in the class hierarchy: among its superclasses, or, if sd is an
+     * interface, among all of its supertypes.  The supertype sets are cached until some class hierarchy changes.
      */
    public boolean isSubClassOf(SymbolData sd) {
     if (sd == null || sd.isPrimitiveType() || this.isPrimitiveType()) return false;
-    if (this.equals(sd)) return true;
-    if (sd.isInterface()) {
-      for (SymbolData i: _interfaces) {
-        if (i == null) continue;
-        if (i.equals(sd)) return true;
-        if (i.isSubClassOf(sd)) return true;
+    _updateSupertypes();
+    if (sd.isInterface()) return _allSupertypes.contains(sd);
+    else return _superClasses.contains(sd);
+  }
+  
+  /** Recompute _superClasses and _allSupertypes if the hierarchy has changed since they were computed. */
+  private void _updateSupertypes() {
+    if (_supertypesVersion == _hierarchyVersion) return;
+    HashSet<SymbolData> superClasses = new HashSet<SymbolData>();
+    for (SymbolData sd = this; sd != null && superClasses.add(sd); sd = sd._superClass) { }
+    HashSet<SymbolData> allSupertypes = new HashSet<SymbolData>();
+    LinkedList<SymbolData> toVisit = new LinkedList<SymbolData>();
+    toVisit.add(this);
+    while (! toVisit.isEmpty()) {
+      SymbolData sd = toVisit.removeFirst();
+      if (sd != null && allSupertypes.add(sd)) {
+        toVisit.add(sd._superClass);
+        toVisit.addAll(sd._interfaces);
       }
     }
-
-    if (_superClass != null) return _superClass.isSubClassOf(sd);
-    return false;
+    _superClasses = superClasses;
+    _allSupertypes = allSupertypes;
+    _supertypesVersion = _hierarchyVersion;
+  }
+  
+  /** Record that some SymbolData's superclass, interfaces, or name has changed. */
+  private static void _hierarchyChanged() { _hierarchyVersion++; }
+  
+  /** Overridden to invalidate the cached supertype sets, which are hashed on name. */
+  void setName(String name) {
+    super.setName(name);
+    _hierarchyChanged();
   }
   
    /** Checks to see if this SymbolData is an inner class of outerClass (that is, that outerClass appears
@@ -880,12 +957,29 @@ public class SymbolData extends TypeData {
     * @param name  The name of the method to return
     * @return  true if a MethodData is found or false otherwise.
     */
-  public boolean hasMethod(String name) {
-    for (int i = 0; i < _methods.size(); i++) {
-      MethodData currMd = _methods.get(i);
-      if (currMd.getName().equals(name)) return true;
+  public boolean hasMethod(String name) { return ! getMethodsNamed(name).isEmpty(); }
+  
+  /** Returns the methods defined in this SymbolData with the given name, in the order of getMethods().
+    * The result must not be modified.
+    * @param name  The name of the methods to return
+    * @return  The list of matching MethodDatas, which is empty if there are none.
+    */
+  public List<MethodData> getMethodsNamed(String name) {
+    if (_methodsByName == null || _indexedMethods != _methods || _indexedMethodsVersion != _methods.version()) {
+      _methodsByName = new HashMap<String, ArrayList<MethodData>>();
+      for (MethodData md: _methods) {
+        ArrayList<MethodData> named = _methodsByName.get(md.getName());
+        if (named == null) {
+          named = new ArrayList<MethodData>(1);
+          _methodsByName.put(md.getName(), named);
+        }
+        named.add(md);
+      }
+      _indexedMethods = _methods;
+      _indexedMethodsVersion = _methods.version();
     }
-    return false;
+    List<MethodData> result = _methodsByName.get(name);
+    return (result == null) ? Collections.<MethodData>emptyList() : result;
   }
   
   /** Returns the method with the given name and param types.
@@ -894,28 +988,27 @@ public class SymbolData extends TypeData {
     * @return  The matched MethodData or null if it is not found
     */
   public MethodData getMethod(String name, TypeData[] paramTypes) {
-    for (MethodData currMd: _methods) {
-      if (currMd.getName().equals(name)) {
-        if (paramTypes.length == currMd.getParams().length) {
-          boolean match = true;
-          for (int j = 0; j < paramTypes.length; j++) {  // TODO; clean up this coding!
-            if (paramTypes[j] == null || paramTypes[j].getSymbolData() == null || currMd.getParams()[j].getType() == null)
-              continue;  // prevents a null pointer exception
-            if (! paramTypes[j].getSymbolData().equals(currMd.getParams()[j].getType().getSymbolData())) { 
-              match = false; 
-              break; 
-            }
+    for (MethodData currMd: getMethodsNamed(name)) {
+      if (paramTypes.length == currMd.getParams().length) {
+        boolean match = true;
+        for (int j = 0; j < paramTypes.length; j++) {  // TODO; clean up this coding!
+          if (paramTypes[j] == null || paramTypes[j].getSymbolData() == null || currMd.getParams()[j].getType() == null)
+            continue;  // prevents a null pointer exception
+          if (! paramTypes[j].getSymbolData().equals(currMd.getParams()[j].getType().getSymbolData())) { 
+            match = false; 
+            break; 
           }
-          if (match) return currMd;
         }
+        if (match) return currMd;
       }
     }
     return null;
   }
+
   
-  /**Sets the list of methods to the specified one*/
+  /**Sets the list of methods to a copy of the specified one*/
   public void setMethods(LinkedList<MethodData> methods) {
-    _methods = methods;
+    _methods = new MethodList(methods);
   }
   
   /**Calls repeatedSignature with fromClassFile set to false by default.*/
@@ -1198,13 +1291,17 @@ public class SymbolData extends TypeData {
     return _superClass;
   }
   
-  public void clearSuperClass() { _superClass = null; }
+  public void clearSuperClass() {
+    _superClass = null;
+    _hierarchyChanged();
+  }
   
   /** Set the super class to the specified value. */
   public void setSuperClass(SymbolData superClass) {
     assert superClass != null;
     _superClass = superClass;
     addEnclosingData(superClass);
+    _hierarchyChanged();
   }
   
   /**@return the interfaces of this symbol data*/
@@ -1215,6 +1312,7 @@ public class SymbolData extends TypeData {
     if (interphace != null) {
       _interfaces.add(interphace);
       addEnclosingData(interphace);
+      _hierarchyChanged();
     }
   }
   
@@ -1223,6 +1321,7 @@ public class SymbolData extends TypeData {
     assert interfaces != null;
     _interfaces = interfaces;
     for (SymbolData sd: interfaces) { if (sd != null) addEnclosingData(sd); }
+    _hierarchyChanged();
   }
   
   /**Add one to the number of constructors for this symbol data*/
@@ -2117,7 +2216,7 @@ public class SymbolData extends TypeData {
     public void testIsSubclassOf() {
       _sd = new SymbolData("subClass");
       SymbolData superC = new SymbolData("superC");
-      _sd._superClass = superC;
+      _sd.setSuperClass(superC);
       
       //not subclass
       assertFalse("subClass, int, and boolean are not related", _sd.isSubClassOf(SymbolData.BOOLEAN_TYPE));
@@ -2129,7 +2228,7 @@ public class SymbolData extends TypeData {
       assertTrue("subClass is a subclass of its super class", _sd.isSubClassOf(superC));
       
       //subclass of subclass of provided data
-      superC._superClass = _objectSymbol;
+      superC.setSuperClass(_objectSymbol);
       assertTrue("subClass is a subclass of its super class's super class", _sd.isSubClassOf(_objectSymbol));
       
       //Interface
@@ -2140,6 +2239,54 @@ public class SymbolData extends TypeData {
       myData.addInterface(yourData);
       yourData.setIsContinuation(false);
       assertTrue("Should be assignable", myData.isSubClassOf(yourData));
+      
+      //the cached supertypes follow changes to the hierarchy
+      SymbolData otherInterface = new SymbolData("otherInterface");
+      otherInterface.setInterface(true);
+      assertFalse("Not yet a super interface", myData.isSubClassOf(otherInterface));
+      yourData.addInterface(otherInterface);
+      assertTrue("Inherited through yourData", myData.isSubClassOf(otherInterface));
+      SymbolData otherSuperC = new SymbolData("otherSuperC");
+      _sd.setSuperClass(otherSuperC);
+      assertTrue("subClass is a subclass of its new super class", _sd.isSubClassOf(otherSuperC));
+      assertFalse("subClass is no longer a subclass of its old super class", _sd.isSubClassOf(superC));
+    }
+    
+    public void testGetMethodsNamed() {
+      SymbolData sd = new SymbolData("Watson");
+      VariableData[] noVars = new VariableData[0];
+      MethodData md1 = new MethodData("deduce", noVars);
+      MethodData md2 = new MethodData("observe", noVars);
+      MethodData md3 = new MethodData("deduce", new VariableData[] { new VariableData(SymbolData.INT_TYPE) });
+      sd.addMethod(md1);
+      sd.addMethod(md2);
+      assertEquals("One method named deduce", Arrays.asList(md1), sd.getMethodsNamed("deduce"));
+      assertTrue("No method named play", sd.getMethodsNamed("play").isEmpty());
+      assertFalse("hasMethod agrees", sd.hasMethod("play"));
+      
+      // The index is rebuilt when the methods change
+      sd.getMethods().addLast(md3);
+      assertEquals("Both methods named deduce, in order", Arrays.asList(md1, md3), sd.getMethodsNamed("deduce"));
+      assertEquals("getMethod uses the parameter types", md3,
+                   sd.getMethod("deduce", new TypeData[] { SymbolData.INT_TYPE }));
+      
+      // Changes that keep the size of the list also invalidate the index
+      MethodData md4 = new MethodData("play", noVars);
+      sd.getMethods().set(0, md4);
+      assertEquals("Replaced with set", Arrays.asList(md3), sd.getMethodsNamed("deduce"));
+      assertEquals(Arrays.asList(md4), sd.getMethodsNamed("play"));
+      sd.getMethods().remove(md2);
+      sd.getMethods().addLast(md1);
+      assertEquals("Removed one and added another", Arrays.asList(md3, md1), sd.getMethodsNamed("deduce"));
+      assertTrue("observe was removed", sd.getMethodsNamed("observe").isEmpty());
+      ListIterator<MethodData> iter = sd.getMethods().listIterator();
+      iter.next();
+      iter.set(md2);
+      assertTrue("Replaced through an iterator", sd.getMethodsNamed("play").isEmpty());
+      assertEquals(Arrays.asList(md2), sd.getMethodsNamed("observe"));
+      
+      sd.setMethods(new LinkedList<MethodData>());
+      assertFalse("No methods after setMethods", sd.hasMethod("deduce"));
     }
 
     public void testIsInnerClassOf() {
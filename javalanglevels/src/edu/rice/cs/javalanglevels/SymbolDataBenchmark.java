@@ -0,0 +1,142 @@
+/*BEGIN_COPYRIGHT_BLOCK
+ *
+ * Copyright (c) 2001-2010, JavaPLT group at Rice University (drjava@rice.edu)
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *    * Redistributions of source code must retain the above copyright
+ *      notice, this list of conditions and the following disclaimer.
+ *    * Redistributions in binary form must reproduce the above copyright
+ *      notice, this list of conditions and the following disclaimer in the
+ *      documentation and/or other materials provided with the distribution.
+ *    * Neither the names of DrJava, the JavaPLT group, Rice University, nor the
+ *      names of its contributors may be used to endorse or promote products
+ *      derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * This software is Open Source Initiative approved Open Source Software.
+ * Open Source Initative Approved is a trademark of the Open Source Initiative.
+ * 
+ * This file is part of DrJava.  Download the current version of this project
+ * from http://www.drjava.org/ or http://sourceforge.net/projects/drjava/
+ * 
+ * END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.javalanglevels;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.rice.cs.plt.debug.Stopwatch;
+import edu.rice.cs.plt.iter.IterUtil;
+import edu.rice.cs.plt.reflect.JavaVersion;
+
+/** Reports the time spent converting the ElementaryLevelTest and IntermediateLevelTest corpora, and the time of
+  * subtype and method lookups in a deep class hierarchy, which SymbolData caches.  This is a timing benchmark, not
+  * a unit test; run it from the javalanglevels directory, for example
+  * {@code java edu.rice.cs.javalanglevels.SymbolDataBenchmark}.  The augmented .java files written next to the
+  * sources are deleted afterwards.
+  */
+public class SymbolDataBenchmark {
+  
+  private static final int ROUNDS = 3;
+  
+  public static void main(String... args) {
+    List<File> corpus = new ArrayList<File>();
+    corpus.addAll(_filesEndingWith(new File("testFiles/forElementaryLevelTest"), ".dj0"));
+    corpus.addAll(_filesEndingWith(new File("testFiles/forIntermediateLevelTest"), ".dj1"));
+    if (corpus.isEmpty()) {
+      System.out.println("No test files found; run from the javalanglevels directory");
+      return;
+    }
+    Options opts = new Options(JavaVersion.JAVA_8, IterUtil.make(new File("lib/buildlib/junit.jar")));
+    List<File> generated = new ArrayList<File>();
+    for (File f : corpus) {
+      String name = f.getName();
+      File out = new File(f.getParentFile(), name.substring(0, name.lastIndexOf('.')) + ".java");
+      if (! out.exists()) { generated.add(out); }
+    }
+    try {
+      for (int r = 0; r < ROUNDS; r++) {
+        Stopwatch watch = new Stopwatch(true);
+        for (File f : corpus) { new LanguageLevelConverter().convert(new File[]{ f }, opts); }
+        System.out.println("corpus: " + corpus.size() + " files in " + watch.stop() + " ms");
+      }
+    }
+    finally {
+      for (File f : generated) { f.delete(); }
+    }
+    
+    // a chain of 8 classes, each implementing 2 interfaces with 2 super-interfaces each, and declaring 30 methods
+    List<SymbolData> interfaces = new ArrayList<SymbolData>();
+    SymbolData leaf = _makeClass("C0");
+    for (int i = 1; i < 8; i++) {
+      SymbolData c = _makeClass("C" + i);
+      c.setSuperClass(leaf);
+      for (int j = 0; j < 2; j++) {
+        SymbolData in = _makeInterface("I" + i + "_" + j);
+        for (int k = 0; k < 2; k++) {
+          SymbolData superIn = _makeInterface("J" + i + "_" + j + "_" + k);
+          in.addInterface(superIn);
+          interfaces.add(superIn);
+        }
+        c.addInterface(in);
+        interfaces.add(in);
+      }
+      for (int m = 0; m < 30; m++) { c.addMethod(new MethodData("m" + m, new VariableData[0])); }
+      leaf = c;
+    }
+    SymbolData unrelated = _makeClass("Other");
+    TypeData[] noParams = new TypeData[0];
+    for (int r = 0; r < ROUNDS; r++) {
+      int hits = 0;
+      Stopwatch watch = new Stopwatch(true);
+      for (int n = 0; n < 20000; n++) {
+        for (SymbolData in : interfaces) { if (leaf.isAssignableTo(in)) hits++; }
+        if (leaf.isSubClassOf(unrelated)) hits++;
+      }
+      long subtypeTime = watch.stop();
+      watch.start();
+      for (int n = 0; n < 200000; n++) { if (leaf.getMethod("m" + (n % 30), noParams) != null) hits++; }
+      long methodTime = watch.stop();
+      System.out.println("subtype checks: " + subtypeTime + " ms, method lookups: " + methodTime + " ms (" +
+                         hits + " hits)");
+    }
+  }
+  
+  private static List<File> _filesEndingWith(File dir, final String suffix) {
+    File[] files = dir.listFiles(new FileFilter() {
+      public boolean accept(File f) { return f.getName().endsWith(suffix); }
+    });
+    List<File> result = new ArrayList<File>();
+    if (files != null) { for (File f : files) { result.add(f); } }
+    return result;
+  }
+  
+  private static SymbolData _makeClass(String name) {
+    SymbolData result = new SymbolData(name);
+    result.setIsContinuation(false);
+    return result;
+  }
+  
+  private static SymbolData _makeInterface(String name) {
+    SymbolData result = _makeClass(name);
+    result.setInterface(true);
+    return result;
+  }
+  
+}
@@ -333,16 +333,15 @@ public class TypeChecker extends JExpressionIFDepthFirstVisitor<TypeData> implem
   protected Pair<LinkedList<MethodData>, LinkedList<MethodData>> 
     _getMatchingMethods(String methodName, SymbolData enclosingSD, InstanceData[] arguments, JExpression jexpr, 
                         boolean isConstructor, SymbolData thisSD) {
-    LinkedList<MethodData> mds = enclosingSD.getMethods();
-    Iterator<MethodData> iter = mds.iterator();
+    Iterator<MethodData> iter = enclosingSD.getMethodsNamed(methodName).iterator();
     LinkedList<MethodData> matching = new LinkedList<MethodData>();
     LinkedList<MethodData> matchingWithAutoboxing = new LinkedList<MethodData>();
 
     while (iter.hasNext()) {
       MethodData md = iter.next();
       
-      // Check that the names match.
-      if (md.getName().equals(methodName) && md.getParams().length == arguments.length) {
+      // The names match; check the number of arguments.
+      if (md.getParams().length == arguments.length) {
         VariableData[] vds = md.getParams();
         int i;
         boolean matches = true;
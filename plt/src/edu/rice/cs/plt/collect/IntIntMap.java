@@ -0,0 +1,213 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code int} keys to {@code int} values.  Keys and values are stored unboxed in parallel
+ * arrays using open addressing with linear probing, so lookups allocate nothing.  Since there is no
+ * {@code null} to signal a missing mapping, {@link #get} takes the value to return when the key is absent.
+ * Bulk operations ({@link #putAll}, {@link #keys}) work directly on the backing arrays.  Not thread-safe.
+ */
+public class IntIntMap implements Serializable {
+  
+  private static final int MIN_CAPACITY = 8;
+  
+  private int[] _keys;
+  private int[] _vals;
+  private boolean[] _used;
+  private int _size;
+  
+  /** Create an empty map. */
+  public IntIntMap() { this(MIN_CAPACITY / 2); }
+  
+  /** Create an empty map that can hold {@code expectedSize} mappings without rehashing. */
+  public IntIntMap(int expectedSize) {
+    if (expectedSize < 0) { throw new IllegalArgumentException("Negative size: " + expectedSize); }
+    allocate(tableSize(expectedSize));
+  }
+  
+  public int size() { return _size; }
+  public boolean isEmpty() { return _size == 0; }
+  
+  public boolean containsKey(int key) { return _used[find(key)]; }
+  
+  /** The value mapped to {@code key}, or {@code ifAbsent} if there is no such mapping. */
+  public int get(int key, int ifAbsent) {
+    int i = find(key);
+    return _used[i] ? _vals[i] : ifAbsent;
+  }
+  
+  /** Map {@code key} to {@code val}, replacing any previous mapping. */
+  public void put(int key, int val) {
+    int i = find(key);
+    if (!_used[i]) {
+      if (2 * (_size + 1) > _keys.length) {
+        rehash(_keys.length * 2);
+        i = find(key);
+      }
+      _used[i] = true;
+      _keys[i] = key;
+      _size++;
+    }
+    _vals[i] = val;
+  }
+  
+  /** Add all of the mappings in {@code m}, replacing any previous mappings for the same keys. */
+  public void putAll(IntIntMap m) {
+    if (m == this) { return; }
+    int needed = tableSize(_size + m._size);
+    if (needed > _keys.length) { rehash(needed); }
+    for (int i = 0; i < m._keys.length; i++) {
+      if (m._used[i]) { put(m._keys[i], m._vals[i]); }
+    }
+  }
+  
+  /** Remove the mapping for {@code key}, if any.  @return {@code true} if a mapping was removed. */
+  public boolean remove(int key) {
+    int i = find(key);
+    if (!_used[i]) { return false; }
+    // Shift later entries of the probe sequence back, so that no lookup stops at the new hole early
+    int mask = _keys.length - 1;
+    int hole = i;
+    int j = (i + 1) & mask;
+    while (_used[j]) {
+      int home = hash(_keys[j]) & mask;
+      // the entry at j may fill the hole iff its home slot is not cyclically in (hole, j]
+      if (((j - home) & mask) >= ((j - hole) & mask)) {
+        _keys[hole] = _keys[j];
+        _vals[hole] = _vals[j];
+        hole = j;
+      }
+      j = (j + 1) & mask;
+    }
+    _used[hole] = false;
+    _size--;
+    return true;
+  }
+  
+  public void clear() {
+    Arrays.fill(_used, false);
+    _size = 0;
+  }
+  
+  /** The keys of the map, in no particular order. */
+  public int[] keys() {
+    int[] result = new int[_size];
+    int j = 0;
+    for (int i = 0; i < _keys.length; i++) { if (_used[i]) { result[j++] = _keys[i]; } }
+    return result;
+  }
+  
+  /** The index of the slot holding {@code key}, or of the empty slot where it would be placed. */
+  private int find(int key) {
+    int mask = _keys.length - 1;
+    int i = hash(key) & mask;
+    while (_used[i] && _keys[i] != key) { i = (i + 1) & mask; }
+    return i;
+  }
+  
+  /** Spread the bits of {@code key}, since keys are typically small and consecutive. */
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+  
+  /** The smallest power-of-two table size that keeps the load factor at or below 1/2. */
+  private static int tableSize(int size) {
+    int result = MIN_CAPACITY;
+    while (result < 2 * size) { result <<= 1; }
+    return result;
+  }
+  
+  private void allocate(int capacity) {
+    _keys = new int[capacity];
+    _vals = new int[capacity];
+    _used = new boolean[capacity];
+  }
+  
+  private void rehash(int capacity) {
+    int[] oldKeys = _keys;
+    int[] oldVals = _vals;
+    boolean[] oldUsed = _used;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        int j = find(oldKeys[i]);
+        _used[j] = true;
+        _keys[j] = oldKeys[i];
+        _vals[j] = oldVals[i];
+      }
+    }
+  }
+  
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    boolean first = true;
+    for (int i = 0; i < _keys.length; i++) {
+      if (_used[i]) {
+        if (first) { first = false; }
+        else { result.append(", "); }
+        result.append(_keys[i]).append("=").append(_vals[i]);
+      }
+    }
+    return result.append("}").toString();
+  }
+  
+  public boolean equals(Object obj) {
+    if (this == obj) { return true; }
+    else if (!(obj instanceof IntIntMap)) { return false; }
+    else {
+      IntIntMap m = (IntIntMap) obj;
+      if (_size != m._size) { return false; }
+      for (int i = 0; i < _keys.length; i++) {
+        if (_used[i]) {
+          int j = m.find(_keys[i]);
+          if (!m._used[j] || m._vals[j] != _vals[i]) { return false; }
+        }
+      }
+      return true;
+    }
+  }
+  
+  public int hashCode() {
+    int result = 0;
+    for (int i = 0; i < _keys.length; i++) { if (_used[i]) { result += _keys[i] ^ _vals[i]; } }
+    return result;
+  }
+  
+}
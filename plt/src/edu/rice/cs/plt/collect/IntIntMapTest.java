@@ -0,0 +1,97 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+public class IntIntMapTest extends TestCase {
+  
+  public void testBasicOperations() {
+    IntIntMap m = new IntIntMap();
+    assertTrue(m.isEmpty());
+    assertFalse(m.containsKey(0));
+    assertEquals(-1, m.get(0, -1));
+    
+    m.put(0, 10);
+    m.put(5, 50);
+    m.put(-3, 30);
+    assertEquals(3, m.size());
+    assertEquals(10, m.get(0, -1));
+    assertEquals(50, m.get(5, -1));
+    assertEquals(30, m.get(-3, -1));
+    assertEquals(-1, m.get(4, -1));
+    
+    m.put(5, 55);
+    assertEquals(3, m.size());
+    assertEquals(55, m.get(5, -1));
+    
+    assertTrue(m.remove(0));
+    assertFalse(m.remove(0));
+    assertEquals(2, m.size());
+    assertFalse(m.containsKey(0));
+    
+    IntIntMap copy = new IntIntMap();
+    copy.putAll(m);
+    assertEquals(m, copy);
+    assertEquals(m.hashCode(), copy.hashCode());
+    
+    m.clear();
+    assertTrue(m.isEmpty());
+    assertEquals(-1, m.get(5, -1));
+  }
+  
+  /** Compare against a HashMap under a random mix of puts and removes, forcing collisions and rehashes. */
+  public void testAgainstHashMap() {
+    Random r = new Random(46);
+    IntIntMap m = new IntIntMap();
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    for (int i = 0; i < 20000; i++) {
+      int key = r.nextInt(500);
+      if (r.nextInt(3) == 0) { assertEquals(expected.remove(key) != null, m.remove(key)); }
+      else { int val = r.nextInt(); expected.put(key, val); m.put(key, val); }
+    }
+    assertEquals(expected.size(), m.size());
+    assertEquals(expected.size(), m.keys().length);
+    for (int key = 0; key < 500; key++) {
+      Integer val = expected.get(key);
+      assertEquals(val != null, m.containsKey(key));
+      if (val != null) { assertEquals(val.intValue(), m.get(key, 0)); }
+    }
+  }
+  
+}
@@ -0,0 +1,177 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A growable list of {@code int} values, backed by an {@code int[]}.  Unlike a {@code List<Integer>},
+ * elements are never boxed, and bulk operations ({@link #addAll(int[])}, {@link #fill}, {@link #truncate},
+ * {@link #toArray}) work directly on the backing array without an iterator.  Not thread-safe.
+ */
+public class IntList implements Serializable {
+  
+  private static final int[] EMPTY = new int[0];
+  
+  private int[] _elts;
+  private int _size;
+  
+  /** Create an empty list. */
+  public IntList() { _elts = EMPTY; _size = 0; }
+  
+  /** Create an empty list with room for {@code capacity} elements before growing. */
+  public IntList(int capacity) {
+    if (capacity < 0) { throw new IllegalArgumentException("Negative capacity: " + capacity); }
+    _elts = (capacity == 0) ? EMPTY : new int[capacity];
+    _size = 0;
+  }
+  
+  /** Create a list containing a copy of {@code vals}. */
+  public static IntList make(int... vals) {
+    IntList result = new IntList(vals.length);
+    result.addAll(vals);
+    return result;
+  }
+  
+  public int size() { return _size; }
+  public boolean isEmpty() { return _size == 0; }
+  
+  /** Get the element at index {@code i}. */
+  public int get(int i) {
+    checkIndex(i);
+    return _elts[i];
+  }
+  
+  /** Set the element at index {@code i}, returning the previous value. */
+  public int set(int i, int val) {
+    checkIndex(i);
+    int result = _elts[i];
+    _elts[i] = val;
+    return result;
+  }
+  
+  /** Append {@code val} to the end of the list. */
+  public void add(int val) {
+    ensureCapacity(_size + 1);
+    _elts[_size++] = val;
+  }
+  
+  /** Append all of {@code vals} to the end of the list. */
+  public void addAll(int... vals) {
+    ensureCapacity(_size + vals.length);
+    System.arraycopy(vals, 0, _elts, _size, vals.length);
+    _size += vals.length;
+  }
+  
+  /** Append all of the elements of {@code l} to the end of the list. */
+  public void addAll(IntList l) {
+    int n = l._size; // l may be this
+    ensureCapacity(_size + n);
+    System.arraycopy(l._elts, 0, _elts, _size, n);
+    _size += n;
+  }
+  
+  /** Append {@code count} copies of {@code val} to the end of the list. */
+  public void fill(int val, int count) {
+    if (count < 0) { throw new IllegalArgumentException("Negative count: " + count); }
+    ensureCapacity(_size + count);
+    Arrays.fill(_elts, _size, _size + count, val);
+    _size += count;
+  }
+  
+  /** The index of the first occurrence of {@code val}, or {@code -1} if it does not occur. */
+  public int indexOf(int val) {
+    for (int i = 0; i < _size; i++) { if (_elts[i] == val) { return i; } }
+    return -1;
+  }
+  
+  public boolean contains(int val) { return indexOf(val) >= 0; }
+  
+  /** Remove all elements at index {@code newSize} and beyond. */
+  public void truncate(int newSize) {
+    if (newSize < 0 || newSize > _size) { throw new IndexOutOfBoundsException("Size: " + newSize); }
+    _size = newSize;
+  }
+  
+  public void clear() { _size = 0; }
+  
+  /** Make sure the backing array can hold at least {@code capacity} elements without growing. */
+  public void ensureCapacity(int capacity) {
+    if (capacity > _elts.length) {
+      int newCapacity = Math.max(capacity, _elts.length + (_elts.length >> 1) + 4);
+      _elts = Arrays.copyOf(_elts, newCapacity);
+    }
+  }
+  
+  /** Shrink the backing array to the current size. */
+  public void trimToSize() {
+    if (_elts.length > _size) { _elts = (_size == 0) ? EMPTY : Arrays.copyOf(_elts, _size); }
+  }
+  
+  /** A copy of the list's contents. */
+  public int[] toArray() { return (_size == 0) ? EMPTY : Arrays.copyOf(_elts, _size); }
+  
+  private void checkIndex(int i) {
+    if (i < 0 || i >= _size) { throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + _size); }
+  }
+  
+  public String toString() {
+    StringBuilder result = new StringBuilder("[");
+    for (int i = 0; i < _size; i++) {
+      if (i > 0) { result.append(", "); }
+      result.append(_elts[i]);
+    }
+    return result.append("]").toString();
+  }
+  
+  public boolean equals(Object obj) {
+    if (this == obj) { return true; }
+    else if (!(obj instanceof IntList)) { return false; }
+    else {
+      IntList l = (IntList) obj;
+      if (_size != l._size) { return false; }
+      for (int i = 0; i < _size; i++) { if (_elts[i] != l._elts[i]) { return false; } }
+      return true;
+    }
+  }
+  
+  public int hashCode() {
+    int result = 1;
+    for (int i = 0; i < _size; i++) { result = 31*result + _elts[i]; }
+    return result;
+  }
+  
+}
@@ -0,0 +1,152 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class IntListTest extends TestCase {
+  
+  private static void assertContents(IntList l, int... expected) {
+    assertEquals(expected.length, l.size());
+    assertTrue(Arrays.equals(expected, l.toArray()));
+  }
+  
+  public void testAdd() {
+    IntList l = new IntList();
+    assertTrue(l.isEmpty());
+    assertContents(l);
+    for (int i = 0; i < 100; i++) { l.add(i * 3); }
+    assertEquals(100, l.size());
+    assertFalse(l.isEmpty());
+    for (int i = 0; i < 100; i++) { assertEquals(i * 3, l.get(i)); }
+    assertEquals(33, l.indexOf(99));
+    assertEquals(-1, l.indexOf(1));
+    assertTrue(l.contains(297));
+    
+    assertEquals(0, l.set(0, -1));
+    assertEquals(-1, l.get(0));
+    try { l.get(100); fail("expected IndexOutOfBoundsException"); }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+    try { l.set(-1, 0); fail("expected IndexOutOfBoundsException"); }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+  }
+  
+  public void testAddAll() {
+    IntList l = IntList.make(1, 2, 3);
+    l.addAll(4, 5);
+    assertContents(l, 1, 2, 3, 4, 5);
+    l.addAll(IntList.make(6));
+    assertContents(l, 1, 2, 3, 4, 5, 6);
+    l.addAll(new IntList());
+    assertContents(l, 1, 2, 3, 4, 5, 6);
+  }
+  
+  public void testAddAllSelf() {
+    IntList l = IntList.make(1, 2, 3);
+    l.trimToSize(); // force the backing array to grow while l is copied into itself
+    l.addAll(l);
+    assertContents(l, 1, 2, 3, 1, 2, 3);
+    l.addAll(l);
+    assertContents(l, 1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3);
+  }
+  
+  public void testFill() {
+    IntList l = IntList.make(7);
+    l.fill(0, 3);
+    assertContents(l, 7, 0, 0, 0);
+    l.fill(9, 0);
+    assertContents(l, 7, 0, 0, 0);
+    l.truncate(1);
+    l.fill(5, 2); // must overwrite the values left behind by truncate
+    assertContents(l, 7, 5, 5);
+    try { l.fill(1, -1); fail("expected IllegalArgumentException"); }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+  
+  public void testTruncate() {
+    IntList l = IntList.make(1, 2, 3, 4);
+    l.truncate(4);
+    assertContents(l, 1, 2, 3, 4);
+    l.truncate(2);
+    assertContents(l, 1, 2);
+    try { l.get(2); fail("expected IndexOutOfBoundsException"); }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+    l.add(8);
+    assertContents(l, 1, 2, 8);
+    try { l.truncate(4); fail("expected IndexOutOfBoundsException"); }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+    try { l.truncate(-1); fail("expected IndexOutOfBoundsException"); }
+    catch (IndexOutOfBoundsException e) { /* expected */ }
+    l.truncate(0);
+    assertTrue(l.isEmpty());
+  }
+  
+  public void testEnsureCapacity() {
+    IntList l = new IntList(0);
+    l.ensureCapacity(0);
+    assertContents(l);
+    l.ensureCapacity(1000);
+    assertContents(l);
+    for (int i = 0; i < 1000; i++) { l.add(i); }
+    assertEquals(999, l.get(999));
+    l.ensureCapacity(10); // never shrinks
+    assertEquals(1000, l.size());
+    l.trimToSize();
+    assertEquals(1000, l.size());
+    l.add(1000);
+    assertEquals(1000, l.get(1000));
+    try { new IntList(-1); fail("expected IllegalArgumentException"); }
+    catch (IllegalArgumentException e) { /* expected */ }
+  }
+  
+  public void testEquals() {
+    IntList l1 = IntList.make(1, 2, 3);
+    IntList l2 = new IntList(10);
+    l2.addAll(1, 2, 3, 4);
+    assertFalse(l1.equals(l2));
+    l2.truncate(3); // elements beyond the size must be ignored
+    assertEquals(l1, l2);
+    assertEquals(l1.hashCode(), l2.hashCode());
+    assertEquals(l1.toString(), l2.toString());
+    assertEquals("[1, 2, 3]", l1.toString());
+    l2.set(2, 4);
+    assertFalse(l1.equals(l2));
+    assertFalse(l1.equals(Arrays.asList(1, 2, 3)));
+    assertFalse(l1.equals(null));
+    assertEquals(new IntList(), new IntList(5));
+  }
+  
+}
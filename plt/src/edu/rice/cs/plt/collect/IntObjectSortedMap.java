@@ -0,0 +1,197 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from {@code int} keys to objects, kept sorted by key.  Keys are stored unboxed in a sorted
+ * {@code int[]} parallel to an array of values; lookups are binary searches, and insertions at the end
+ * (the common case when keys are produced in increasing order) take amortized constant time.  Entries are
+ * addressed by their position in key order, so callers can scan or truncate ranges of the map without an
+ * iterator or a copy of the key set:
+ * <pre>
+ * for (int i = m.ceilingIndex(from); i &lt; m.size(); i++) { process(m.valueAt(i)); }
+ * m.removeFrom(from);
+ * </pre>
+ * Not thread-safe.
+ */
+public class IntObjectSortedMap<V> implements Serializable {
+  
+  private static final int[] EMPTY_KEYS = new int[0];
+  private static final Object[] EMPTY_VALS = new Object[0];
+  
+  private int[] _keys;
+  private Object[] _vals;
+  private int _size;
+  
+  /** Create an empty map. */
+  public IntObjectSortedMap() { _keys = EMPTY_KEYS; _vals = EMPTY_VALS; _size = 0; }
+  
+  public int size() { return _size; }
+  public boolean isEmpty() { return _size == 0; }
+  
+  /** The key at position {@code i} in key order. */
+  public int keyAt(int i) {
+    checkIndex(i);
+    return _keys[i];
+  }
+  
+  /** The value at position {@code i} in key order. */
+  @SuppressWarnings("unchecked") public V valueAt(int i) {
+    checkIndex(i);
+    return (V) _vals[i];
+  }
+  
+  /** The position of {@code key}, or a negative number if there is no such key. */
+  public int indexOfKey(int key) {
+    int i = search(key);
+    return (i < _size && _keys[i] == key) ? i : -1;
+  }
+  
+  /** The position of the smallest key {@code >= key}; {@link #size} if all keys are smaller. */
+  public int ceilingIndex(int key) { return search(key); }
+  
+  public boolean containsKey(int key) { return indexOfKey(key) >= 0; }
+  
+  /** The value mapped to {@code key}, or {@code null} if there is no such mapping. */
+  @SuppressWarnings("unchecked") public V get(int key) {
+    int i = indexOfKey(key);
+    return (i >= 0) ? (V) _vals[i] : null;
+  }
+  
+  /** Map {@code key} to {@code val}.  @return The previous value for {@code key}, or {@code null}. */
+  @SuppressWarnings("unchecked") public V put(int key, V val) {
+    int i = search(key);
+    if (i < _size && _keys[i] == key) {
+      V result = (V) _vals[i];
+      _vals[i] = val;
+      return result;
+    }
+    else {
+      if (_size == _keys.length) {
+        int newCapacity = _keys.length + (_keys.length >> 1) + 4;
+        _keys = Arrays.copyOf(_keys, newCapacity);
+        _vals = Arrays.copyOf(_vals, newCapacity);
+      }
+      if (i < _size) {
+        System.arraycopy(_keys, i, _keys, i+1, _size - i);
+        System.arraycopy(_vals, i, _vals, i+1, _size - i);
+      }
+      _keys[i] = key;
+      _vals[i] = val;
+      _size++;
+      return null;
+    }
+  }
+  
+  /** Remove the mapping for {@code key}.  @return The removed value, or {@code null}. */
+  @SuppressWarnings("unchecked") public V remove(int key) {
+    int i = indexOfKey(key);
+    if (i < 0) { return null; }
+    V result = (V) _vals[i];
+    System.arraycopy(_keys, i+1, _keys, i, _size - i - 1);
+    System.arraycopy(_vals, i+1, _vals, i, _size - i - 1);
+    _size--;
+    _vals[_size] = null;
+    return result;
+  }
+  
+  /** Remove all mappings with keys {@code >= key}.  @return The number of mappings removed. */
+  public int removeFrom(int key) {
+    int i = search(key);
+    int result = _size - i;
+    Arrays.fill(_vals, i, _size, null);
+    _size = i;
+    return result;
+  }
+  
+  public void clear() {
+    Arrays.fill(_vals, 0, _size, null);
+    _size = 0;
+  }
+  
+  /** The keys of the map, in increasing order. */
+  public int[] keys() { return Arrays.copyOf(_keys, _size); }
+  
+  /** The position of {@code key}, or of the first larger key if {@code key} is absent. */
+  private int search(int key) {
+    // fast path for in-order insertion
+    if (_size == 0 || _keys[_size-1] < key) { return _size; }
+    int lo = 0;
+    int hi = _size;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (_keys[mid] < key) { lo = mid + 1; }
+      else { hi = mid; }
+    }
+    return lo;
+  }
+  
+  private void checkIndex(int i) {
+    if (i < 0 || i >= _size) { throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + _size); }
+  }
+  
+  public String toString() {
+    StringBuilder result = new StringBuilder("{");
+    for (int i = 0; i < _size; i++) {
+      if (i > 0) { result.append(", "); }
+      result.append(_keys[i]).append("=").append(_vals[i]);
+    }
+    return result.append("}").toString();
+  }
+  
+  public boolean equals(Object obj) {
+    if (this == obj) { return true; }
+    else if (!(obj instanceof IntObjectSortedMap<?>)) { return false; }
+    else {
+      IntObjectSortedMap<?> m = (IntObjectSortedMap<?>) obj;
+      if (_size != m._size) { return false; }
+      for (int i = 0; i < _size; i++) {
+        if (_keys[i] != m._keys[i]) { return false; }
+        if (_vals[i] == null ? m._vals[i] != null : !_vals[i].equals(m._vals[i])) { return false; }
+      }
+      return true;
+    }
+  }
+  
+  public int hashCode() {
+    int result = 0;
+    for (int i = 0; i < _size; i++) { result += _keys[i] ^ (_vals[i] == null ? 0 : _vals[i].hashCode()); }
+    return result;
+  }
+  
+}
@@ -0,0 +1,86 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.collect;
+
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class IntObjectSortedMapTest extends TestCase {
+  
+  public void testPutAndGet() {
+    IntObjectSortedMap<String> m = new IntObjectSortedMap<String>();
+    assertTrue(m.isEmpty());
+    assertNull(m.get(1));
+    
+    assertNull(m.put(5, "five"));
+    assertNull(m.put(1, "one"));
+    assertNull(m.put(9, "nine"));
+    assertNull(m.put(3, "three"));
+    assertEquals("three", m.put(3, "THREE"));
+    assertEquals(4, m.size());
+    assertTrue(Arrays.equals(new int[]{ 1, 3, 5, 9 }, m.keys()));
+    assertEquals("THREE", m.get(3));
+    assertNull(m.get(4));
+    assertEquals(2, m.indexOfKey(5));
+    assertEquals(-1, m.indexOfKey(4));
+    assertEquals(9, m.keyAt(3));
+    assertEquals("nine", m.valueAt(3));
+    
+    assertEquals("one", m.remove(1));
+    assertNull(m.remove(1));
+    assertTrue(Arrays.equals(new int[]{ 3, 5, 9 }, m.keys()));
+  }
+  
+  public void testRanges() {
+    IntObjectSortedMap<Integer> m = new IntObjectSortedMap<Integer>();
+    for (int i = 0; i < 100; i += 10) { m.put(i, i); }
+    assertEquals(0, m.ceilingIndex(-5));
+    assertEquals(3, m.ceilingIndex(30));
+    assertEquals(4, m.ceilingIndex(31));
+    assertEquals(10, m.ceilingIndex(91));
+    
+    assertEquals(0, m.removeFrom(91));
+    assertEquals(10, m.size());
+    assertEquals(6, m.removeFrom(35));
+    assertTrue(Arrays.equals(new int[]{ 0, 10, 20, 30 }, m.keys()));
+    assertNull(m.get(40));
+    
+    m.put(25, 25);
+    assertTrue(Arrays.equals(new int[]{ 0, 10, 20, 25, 30 }, m.keys()));
+    m.clear();
+    assertTrue(m.isEmpty());
+  }
+  
+}
@@ -78,9 +78,11 @@ public class AsynchronousLogSink implements LogSink {
   public void logStack(StackMessage m) { handle(m); }
   
   private void handle(Message m) {
-    boolean wasEmpty = _queue.isEmpty();
     _queue.offer(m);
-    if (wasEmpty) {
+    // The dequeue thread resets _nonemptyNotifier before it last checks for an empty queue, so if it is still
+    // set here, the thread will see m.  (Testing for an empty queue before the offer would miss m if the thread
+    // emptied the queue in between.)
+    if (!_nonemptyNotifier.isSignaled()) {
       synchronized (this) {
         if (!_queue.isEmpty()) { // verify state after we have a lock
           _emptyNotifier.reset();
@@ -101,10 +103,9 @@ public class AsynchronousLogSink implements LogSink {
           _queue.remove().send(_delegate);
         }
         synchronized (AsynchronousLogSink.this) {
-          if (_queue.isEmpty()) { // verify state after we have a lock
-            _nonemptyNotifier.reset();
-            _emptyNotifier.signal();
-          }
+          _nonemptyNotifier.reset();
+          if (_queue.isEmpty()) { _emptyNotifier.signal(); } // verify state after we have a lock
+          else { _nonemptyNotifier.signal(); }
         }
       }
     }
@@ -35,12 +35,17 @@ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package edu.rice.cs.plt.iter;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import edu.rice.cs.plt.object.Composite;
 import edu.rice.cs.plt.object.ObjectUtil;
 
 /**
  * Defines an iterable by composing two other iterables (or a value with an iterable).
- * Subsequent changes to the input lists will be reflected.
+ * Subsequent changes to the input lists will be reflected.  Compositions are often built incrementally,
+ * producing deeply nested trees (for example, by invoking {@link IterUtil#compose} in a loop).  To keep
+ * traversal of such trees linear, iteration and the size-related operations walk the tree with an explicit
+ * stack, treating all nested {@code ComposedIterable}s as a single n-ary composition, rather than recurring
+ * through each level.
  */
 public class ComposedIterable<T> extends AbstractIterable<T> 
   implements SizedIterable<T>, OptimizedLastIterable<T>, Composite, Serializable {
@@ -50,6 +55,8 @@ public class ComposedIterable<T> extends AbstractIterable<T>
   private final Iterable<? extends T> _i2;
   private final int _i2Size; // negative implies dynamic size
   private final boolean _isStatic;
+  private final int _compositeHeight;
+  private final int _compositeSize;
   
   /** The result contains {@code i1}'s elements followed by {@code i2}'s elements. */
   public ComposedIterable(Iterable<? extends T> i1, Iterable<? extends T> i2) {
@@ -60,6 +67,9 @@ public class ComposedIterable<T> extends AbstractIterable<T>
     if (IterUtil.hasFixedSize(_i2)) { _i2Size = IterUtil.sizeOf(_i2); }
     else { _i2Size = -1; }
     _isStatic = IterUtil.isStatic(_i1) && IterUtil.isStatic(_i2);
+    // nested ComposedIterables have already cached their values, so these are constant-time
+    _compositeHeight = ObjectUtil.compositeHeight(_i1, _i2) + 1;
+    _compositeSize = ObjectUtil.compositeSize(_i1, _i2) + 1;
   }
     
   /** The result contains {@code v1} followed by {@code i2}'s elements */
@@ -73,34 +83,74 @@ public class ComposedIterable<T> extends AbstractIterable<T>
   }
   
   public ComposedIterator<T> iterator() { 
-    return new ComposedIterator<T>(_i1.iterator(), _i2.iterator());
+    return new ComposedIterator<T>(this);
   }
   
-  public int compositeHeight() { return ObjectUtil.compositeHeight(_i1, _i2) + 1; }
-  public int compositeSize() { return ObjectUtil.compositeSize(_i1, _i2) + 1; }
+  public int compositeHeight() { return _compositeHeight; }
+  public int compositeSize() { return _compositeSize; }
   
   public boolean isEmpty() {
-    return (_i1Size < 0 ? IterUtil.isEmpty(_i1) : _i1Size == 0) &&
-           (_i2Size < 0 ? IterUtil.isEmpty(_i2) : _i2Size == 0);
+    if (_i1Size >= 0 && _i2Size >= 0) { return _i1Size == 0 && _i2Size == 0; }
+    ArrayList<ComposedIterable<?>> stack = new ArrayList<ComposedIterable<?>>();
+    stack.add(this);
+    while (!stack.isEmpty()) {
+      ComposedIterable<?> c = stack.remove(stack.size()-1);
+      if (c._i1Size > 0 || c._i2Size > 0) { return false; }
+      if (c._i1Size < 0) {
+        if (c._i1 instanceof ComposedIterable<?>) { stack.add((ComposedIterable<?>) c._i1); }
+        else if (!IterUtil.isEmpty(c._i1)) { return false; }
+      }
+      if (c._i2Size < 0) {
+        if (c._i2 instanceof ComposedIterable<?>) { stack.add((ComposedIterable<?>) c._i2); }
+        else if (!IterUtil.isEmpty(c._i2)) { return false; }
+      }
+    }
+    return true;
   }
   
-  public int size() {
-    int result = (_i1Size < 0 ? IterUtil.sizeOf(_i1) : _i1Size) +
-                 (_i2Size < 0 ? IterUtil.sizeOf(_i2) : _i2Size);
-    if (result < 0) { result = Integer.MAX_VALUE; } // overflow
+  public int size() { return size(Integer.MAX_VALUE); }
+  
+  public int size(int bound) {
+    if (_i1Size >= 0 && _i2Size >= 0) {
+      long result = (long) _i1Size + _i2Size;
+      return (result < bound) ? (int) result : bound;
+    }
+    // the order in which parts are counted doesn't matter -- the result is min(size, bound)
+    int result = 0;
+    ArrayList<ComposedIterable<?>> stack = new ArrayList<ComposedIterable<?>>();
+    stack.add(this);
+    while (!stack.isEmpty() && result < bound) {
+      ComposedIterable<?> c = stack.remove(stack.size()-1);
+      result += partSize(c._i1, c._i1Size, bound-result, stack);
+      result += partSize(c._i2, c._i2Size, bound-result, stack);
+    }
     return result;
   }
   
-  public int size(int bound) {
-    int size1 = (_i1Size < 0) ? IterUtil.sizeOf(_i1, bound) :
-                                (bound < _i1Size) ? bound : _i1Size;
-    int bound2 = bound-size1;
-    int size2 = (_i2Size < 0) ? IterUtil.sizeOf(_i2, bound2) :
-                                (bound2 < _i2Size) ? bound2 : _i2Size;
-    return size1+size2;
+  /**
+   * The size of {@code part}, up to {@code bound}; nested compositions with a dynamic size are instead
+   * pushed onto {@code stack} (and 0 is returned).
+   */
+  private static int partSize(Iterable<?> part, int fixedSize, int bound, ArrayList<ComposedIterable<?>> stack) {
+    if (fixedSize >= 0) { return (fixedSize < bound) ? fixedSize : bound; }
+    else if (part instanceof ComposedIterable<?>) { stack.add((ComposedIterable<?>) part); return 0; }
+    else { return IterUtil.sizeOf(part, bound); }
   }
   
-  public boolean isInfinite() { return IterUtil.isInfinite(_i1) || IterUtil.isInfinite(_i2); }
+  public boolean isInfinite() {
+    ArrayList<Iterable<?>> stack = new ArrayList<Iterable<?>>();
+    stack.add(this);
+    while (!stack.isEmpty()) {
+      Iterable<?> i = stack.remove(stack.size()-1);
+      if (i instanceof ComposedIterable<?>) {
+        ComposedIterable<?> c = (ComposedIterable<?>) i;
+        stack.add(c._i1);
+        stack.add(c._i2);
+      }
+      else if (IterUtil.isInfinite(i)) { return true; }
+    }
+    return false;
+  }
   
   public boolean hasFixedSize() { return _i1Size >= 0 && _i2Size >= 0; }
   
@@ -129,6 +179,21 @@ public class ComposedIterable<T> extends AbstractIterable<T>
     return IterUtil.last(lastIterable);
   }
   
+  /**
+   * Push {@code i} onto {@code stack}, in reverse order, as the sequence of iterables it is composed of.
+   * Nested compositions are left on the stack to be expanded when they are popped.
+   */
+  static <T> void pushParts(Iterable<? extends T> i, ArrayList<Iterable<? extends T>> stack) {
+    if (i instanceof ComposedIterable<?>) {
+      // javac 6 doesn't like this -- ComposedIterable<? extends T> </: Iterable<capture extends T>
+      @SuppressWarnings("unchecked")
+      ComposedIterable<? extends T> cast = (ComposedIterable<? extends T>) i;
+      stack.add(cast._i2);
+      stack.add(cast._i1);
+    }
+    else { stack.add(i); }
+  }
+  
   /** Call the constructor (allows {@code T} to be inferred) */
   public static <T> ComposedIterable<T> make(Iterable<? extends T> i1, Iterable<? extends T> i2) {
     return new ComposedIterable<T>(i1, i2);
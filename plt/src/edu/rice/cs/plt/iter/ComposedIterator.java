@@ -34,35 +34,94 @@ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package edu.rice.cs.plt.iter;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import edu.rice.cs.plt.object.Composite;
 import edu.rice.cs.plt.object.ObjectUtil;
 
 /**
- * Defines an iterator by composing two other iterators.  Supports {@link #remove()}.
+ * Defines an iterator by composing two other iterators.  Supports remove().  An iterator created for
+ * a {@link ComposedIterable} instead traverses that iterable's parts as a single n-ary composition:
+ * nested {@code ComposedIterable}s are expanded as they are reached, so no iterator is nested for
+ * each level of composition.
  */
 public class ComposedIterator<T> implements Iterator<T>, Composite {
   
   private Iterator<? extends T> _i;
   private Iterator<? extends T> _rest;
+  /** The iterator that produced the last element (the target of {@code remove()}) */
+  private Iterator<? extends T> _last;
+  /**
+   * Iterables to be traversed after {@code _i} (and {@code _rest}), in reverse order; {@code null} if
+   * there are none.  Nested {@link ComposedIterable}s are expanded as they are reached.
+   */
+  private final ArrayList<Iterable<? extends T>> _pending;
+  /** The iterable being traversed in the n-ary mode; {@code null} if this composes two iterators. */
+  private final ComposedIterable<? extends T> _composedIterable;
   
   /** The result traverses {@code i1}, then {@code i2} */
   public ComposedIterator(Iterator<? extends T> i1, Iterator<? extends T> i2) {
     _i = i1;
     _rest = i2;
+    _last = i1;
+    _pending = null;
+    _composedIterable = null;
   }
   
-  public int compositeHeight() { return ObjectUtil.compositeHeight(_i, _rest) + 1; }
-  public int compositeSize() { return ObjectUtil.compositeSize(_i, _rest) + 1; }
+  /** Traverse the parts of {@code i} in sequence, without nesting an iterator for each level of composition. */
+  ComposedIterator(ComposedIterable<? extends T> i) {
+    _pending = new ArrayList<Iterable<? extends T>>();
+    ComposedIterable.pushParts(i, _pending);
+    _i = nextPart();
+    _rest = null;
+    _last = _i;
+    _composedIterable = i;
+  }
+  
+  /**
+   * In the n-ary mode, the composite height and size are those of the traversed {@code ComposedIterable},
+   * matching the structure that would result from nesting an iterator for each of its levels.
+   */
+  public int compositeHeight() {
+    if (_composedIterable == null) { return ObjectUtil.compositeHeight(_i, _rest) + 1; }
+    else { return _composedIterable.compositeHeight(); }
+  }
+  
+  public int compositeSize() {
+    if (_composedIterable == null) { return ObjectUtil.compositeSize(_i, _rest) + 1; }
+    else { return _composedIterable.compositeSize(); }
+  }
   
-  public boolean hasNext() { return _i.hasNext() || (_rest != null && _rest.hasNext()); }
+  public boolean hasNext() {
+    if (_pending == null) { return _i.hasNext() || (_rest != null && _rest.hasNext()); }
+    else { advance(); return _i.hasNext(); }
+  }
   
   public T next() {
-    if (_rest != null && !_i.hasNext()) { _i = _rest; _rest = null; }
+    if (_pending == null) {
+      if (_rest != null && !_i.hasNext()) { _i = _rest; _rest = null; }
+    }
+    else { advance(); }
+    _last = _i;
     return _i.next();
   }
   
-  public void remove() { _i.remove(); }
+  public void remove() { _last.remove(); }
+  
+  /** Move past any exhausted parts; afterwards, {@code _i} has a next element or all parts are exhausted. */
+  private void advance() {
+    while (!_i.hasNext() && !_pending.isEmpty()) { _i = nextPart(); }
+  }
+  
+  /** Pop the next non-composed part off {@code _pending} and get its iterator. */
+  private Iterator<? extends T> nextPart() {
+    Iterable<? extends T> part = _pending.remove(_pending.size()-1);
+    while (part instanceof ComposedIterable<?>) {
+      ComposedIterable.pushParts(part, _pending);
+      part = _pending.remove(_pending.size()-1);
+    }
+    return part.iterator();
+  }
   
   /** Call the constructor (allows {@code T} to be inferred) */
   public static <T> ComposedIterator<T> make(Iterator<? extends T> i1, Iterator<? extends T> i2) {
@@ -39,7 +39,9 @@ import junit.framework.TestCase;
 import java.io.*;
 import java.util.*;
 
+import edu.rice.cs.plt.collect.CollectUtil;
 import edu.rice.cs.plt.lambda.Lambda;
+import edu.rice.cs.plt.lambda.LambdaUtil;
 import static edu.rice.cs.plt.iter.IterUtil.*;
 
 /**
@@ -164,4 +166,59 @@ public class IterUtilTest extends TestCase {
     assertTrue(Arrays.deepEquals(expected, result));
   }
   
+  public void testCompose() {
+    List<Integer> empty = new ArrayList<Integer>();
+    List<Integer> dynamic = new ArrayList<Integer>();
+    dynamic.add(3);
+    Iterable<Integer> composed = compose(compose(empty, compose(1, empty)), compose(compose(2, dynamic), empty));
+    assertIterator(composed.iterator(), 1, 2, 3);
+    assertIteratorUnchecked(composed.iterator(), 1, 2, 3);
+    assertEquals(3, sizeOf(composed));
+    assertEquals(2, sizeOf(composed, 2));
+    assertFalse(isEmpty(composed));
+    assertFalse(isInfinite(composed));
+    assertTrue(isEmpty(compose(compose(empty, empty), dynamic.subList(0, 0))));
+    assertTrue(isInfinite(compose(compose(1, empty), new SequenceIterable<Integer>(1, LambdaUtil.INCREMENT_INT))));
+    
+    dynamic.add(4);
+    assertIterator(composed.iterator(), 1, 2, 3, 4);
+    assertEquals(4, sizeOf(composed));
+    
+    Iterator<Integer> iter = composed.iterator();
+    assertEquals((Integer) 1, iter.next());
+    assertEquals((Integer) 2, iter.next());
+    assertEquals((Integer) 3, iter.next());
+    iter.remove();
+    assertEquals(Arrays.asList(4), dynamic);
+  }
+  
+  public void testDeepCompose() {
+    int depth = 20000;
+    Iterable<Integer> left = empty();
+    Iterable<Integer> right = empty();
+    List<Integer> expected = new ArrayList<Integer>();
+    for (int i = 0; i < depth; i++) {
+      left = compose(left, i);
+      right = compose(depth - 1 - i, right);
+      expected.add(i);
+    }
+    // iteration, size, and emptiness checks must not recur once per level
+    assertEquals(expected, CollectUtil.makeArrayList(left));
+    assertEquals(expected, CollectUtil.makeArrayList(right));
+    assertEquals(depth, sizeOf(left));
+    assertEquals(depth, sizeOf(right));
+    assertFalse(isEmpty(left));
+    assertEquals(depth, ((ComposedIterable<Integer>) left).compositeHeight());
+    assertEquals(depth, ((ComposedIterator<Integer>) left.iterator()).compositeHeight());
+    
+    List<Integer> dynamic = new ArrayList<Integer>();
+    Iterable<Integer> dynamicLeft = dynamic;
+    for (int i = 0; i < depth; i++) { dynamicLeft = compose(dynamicLeft, dynamic); }
+    assertTrue(isEmpty(dynamicLeft));
+    assertFalse(isInfinite(dynamicLeft));
+    dynamic.add(1);
+    assertEquals(depth + 1, sizeOf(dynamicLeft));
+    assertEquals(10, sizeOf(dynamicLeft, 10));
+  }
+  
 }
@@ -38,11 +38,21 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.MalformedURLException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 import edu.rice.cs.plt.io.IOUtil;
 import edu.rice.cs.plt.iter.IterUtil;
@@ -64,7 +74,7 @@ import static edu.rice.cs.plt.debug.DebugUtil.debug;
   */
 public class PathClassLoader extends AbstractClassLoader {
   
-  private static final Log _log = new Log("PathClassLoader.txt", true);
+  private static final Log _log = new Log("PathClassLoader.txt", false);
   
   /** Locate a resource in the given path.  Returns {@code null} if the resource is not found.
     * If multiple queries will be performed on the same path, a PathClassLoader instance
@@ -98,9 +108,102 @@ public class PathClassLoader extends AbstractClassLoader {
     return new PathClassLoader(EmptyClassLoader.INSTANCE, path).getResourceAsStream(name);
   }
 
+  /** An open jar file, along with the timestamp and length used to detect that the file has been rebuilt.
+    * Readers are counted so that a jar that is closed by one thread is not closed while another thread reads it.
+    */
+  private static final class CachedJar {
+    private final File _file;
+    private final JarFile _jar;
+    private final long _lastModified;
+    private final long _length;
+    /** Whether the manifest declares a {@code Class-Path}, which only the URL loader knows how to follow. */
+    private final boolean _hasManifestClassPath;
+    /** The number of callers that have acquired but not released this jar.  Guarded by {@code this}. */
+    private int _readers;
+    /** Whether this jar has been removed from its loader, and should be closed once it has no readers. */
+    private boolean _retired;
+    
+    public CachedJar(File f) throws IOException {
+      _file = f;
+      _lastModified = f.lastModified();
+      _length = f.length();
+      _jar = new JarFile(f, false);
+      Manifest m = _jar.getManifest();
+      _hasManifestClassPath = (m != null) && (m.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null);
+      _readers = 0;
+      _retired = false;
+    }
+    
+    public boolean isCurrent() { return _file.lastModified() == _lastModified && _file.length() == _length; }
+    
+    public boolean hasManifestClassPath() { return _hasManifestClassPath; }
+    
+    /** Read the given entry, or return {@code null} if there is no such entry. */
+    public byte[] read(String name) throws IOException {
+      ZipEntry entry = _jar.getEntry(name);
+      if (entry == null || entry.isDirectory()) { return null; }
+      InputStream in = _jar.getInputStream(entry);
+      try { return readFully(in, entry.getSize()); }
+      finally { in.close(); }
+    }
+    
+    public synchronized void acquire() { _readers++; }
+    
+    public synchronized void release() {
+      _readers--;
+      if (_retired && _readers == 0) { close(); }
+    }
+    
+    /** Mark this jar as no longer cached, closing it immediately unless it is being read. */
+    public synchronized void retire() {
+      _retired = true;
+      if (_readers == 0) { close(); }
+    }
+    
+    private void close() {
+      try { _jar.close(); }
+      catch (IOException e) { error.log(e); }
+    }
+  }
+  
+  /** Read {@code size} bytes from the stream into an array of exactly that size, rather than into an expanding
+    * buffer that must then be trimmed.  If the size is unknown (negative), falls back to an expanding buffer.
+    */
+  private static byte[] readFully(InputStream in, long size) throws IOException {
+    if (size < 0 || size > Integer.MAX_VALUE) { return IOUtil.toByteArray(in); }
+    byte[] bytes = new byte[(int) size];
+    int offset = 0;
+    while (offset < bytes.length) {
+      int read = in.read(bytes, offset, bytes.length - offset);
+      if (read < 0) { throw new IOException("Unexpected end of stream"); }
+      offset += read;
+    }
+    return bytes;
+  }
+  
+  /** Read the given class file into an array of exactly the file's size.  (The file is not mapped: mappings of
+    * small files are more expensive to set up than a read, and on some platforms a mapped file cannot be overwritten
+    * by the compiler until the mapping is collected.)
+    */
+  private static byte[] readFile(File f) throws IOException {
+    FileInputStream in = new FileInputStream(f);
+    try { return readFully(in, f.length()); }
+    finally { in.close(); }
+  }
+
   private final Iterable<? extends File> _path;
   private URLClassLoader _urlLoader;
   private Iterable<File> _urlLoaderPath;
+  /** Whether classes in {@code _urlLoaderPath} can be read directly, rather than through {@code _urlLoader}.  Cleared
+    * on reaching a jar whose manifest declares a {@code Class-Path}, which only the URL loader knows how to follow.
+    */
+  private volatile boolean _directLoading;
+  /** The jar files on the path that this loader has opened, keyed by absolute file.  Guarded by itself.  A jar is
+    * opened the first time a class is looked up in it, and closed when it leaves the path or {@link #closeJars} is 
+    * called.  The jars of a discarded loader are closed when it is garbage collected, as JarFile closes itself when
+    * finalized.
+    */
+  private final Map<File, CachedJar> _jars = new HashMap<File, CachedJar>();
 
   /** Create a path class loader with the default parent ({@link ClassLoader#getSystemClassLoader})
     * and the specified path.
@@ -125,19 +228,66 @@ public class PathClassLoader extends AbstractClassLoader {
     super(parent);
     _path = path;
     updateURLLoader();
-    _log.log("Constructing PathClassLoader with parent " + parent + " and path '" + path + "'");
+    if (_log.isEnabled()) {
+      _log.log("Constructing PathClassLoader with parent " + parent + " and path '" + path + "'");
+    }
   }
 
   private void updateURLLoader() {
     _urlLoaderPath = IterUtil.snapshot(_path);
     List<URL> urls = new LinkedList<URL>();
+    Set<File> files = new HashSet<File>();
     for (File f : _urlLoaderPath) {
+      files.add(IOUtil.attemptAbsoluteFile(f));
       try { urls.add(f.toURI().toURL()); }
       catch (IllegalArgumentException e) { error.log(e); }
       catch (MalformedURLException e) { error.log(e); }
       // just skip the path element if there's an error
     }
     _urlLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]), EmptyClassLoader.INSTANCE);
+    _directLoading = true;
+    synchronized(_jars) {
+      Iterator<Map.Entry<File, CachedJar>> i = _jars.entrySet().iterator();
+      while (i.hasNext()) {
+        Map.Entry<File, CachedJar> e = i.next();
+        if (!files.contains(e.getKey())) { e.getValue().retire(); i.remove(); }
+      }
+    }
+  }
+  
+  /** Close all jar files held open by this loader.  Subsequent lookups transparently reopen them.  This can be used
+    * to release file handles (and, on Windows, file locks) as soon as the loader is no longer needed, rather than
+    * when it is garbage collected.  A jar that is being read when this is called is closed as soon as the read
+    * completes.
+    */
+  public void closeJars() {
+    synchronized(_jars) {
+      for (CachedJar j : _jars.values()) { j.retire(); }
+      _jars.clear();
+    }
+  }
+  
+  /** @return the number of jar files this loader holds open */
+  int openJarCount() {
+    synchronized(_jars) { return _jars.size(); }
+  }
+  
+  /** Get an open jar file for {@code f}, reusing this loader's copy if the file has not changed since it was opened.
+    * The result has been acquired for the caller, who must {@link CachedJar#release release} it when done.
+    */
+  private CachedJar acquireJar(File f) throws IOException {
+    f = IOUtil.attemptAbsoluteFile(f);
+    synchronized(_jars) {
+      CachedJar result = _jars.get(f);
+      if (result == null || !result.isCurrent()) {
+        if (result != null) { result.retire(); }
+        result = new CachedJar(f);
+        _jars.put(f, result);
+      }
+      // jars are only retired while _jars is locked, so a cached jar is still open here
+      result.acquire();
+      return result;
+    }
   }
   
 //  /** This override is defined solely to trace calls to this method; it immediately invokes the
@@ -151,8 +301,23 @@ public class PathClassLoader extends AbstractClassLoader {
   
   @Override 
   protected Class<?> findClass(String name) throws ClassNotFoundException {
-    _log.log("PathClassLoader.findClass(" + name + ") called");
-    URL resource = findResource(name.replace('.', '/') + ".class");
+    if (_log.isEnabled()) _log.log("PathClassLoader.findClass(" + name + ") called");
+    String resourceName = name.replace('.', '/') + ".class";
+    if (!IterUtil.isEqual(_path, _urlLoaderPath)) { updateURLLoader(); }
+    if (_directLoading) {
+      byte[] bytes;
+      try { bytes = readFromPath(resourceName); }
+      catch (IOException e) { throw new ClassNotFoundException("Can't access class file", e); }
+      if (bytes != null) {
+        Class<?> result = defineClass(name, bytes, 0, bytes.length);
+        definePackageForClass(name);
+        return result;
+      }
+      if (_directLoading) { throw new ClassNotFoundException(); }
+      // otherwise, readFromPath reached a jar with a manifest Class-Path: search again with the URL loader
+    }
+    
+    URL resource = findResource(resourceName);
     if (resource == null) { throw new ClassNotFoundException(); }
     else {
       try {
@@ -169,16 +334,42 @@ public class PathClassLoader extends AbstractClassLoader {
     }
   }
   
+  /** Read the named resource from the first directory or jar in the path that contains it, bypassing URL
+    * resolution.  Returns {@code null} if the resource is not found, or if the search reaches a jar whose manifest
+    * declares a {@code Class-Path} (in which case {@code _directLoading} is cleared).  Jars are opened on demand and
+    * kept open by this loader, so a jar is only opened and indexed once.
+    */
+  private byte[] readFromPath(String name) throws IOException {
+    for (File f : _urlLoaderPath) {
+      if (IOUtil.attemptIsDirectory(f)) {
+        File classFile = new File(f, name);
+        if (IOUtil.attemptIsFile(classFile)) { return readFile(classFile); }
+      }
+      else if (IOUtil.attemptIsFile(f)) {
+        CachedJar jar;
+        try { jar = acquireJar(f); }
+        catch (IOException e) { continue; } // not a readable jar; skip it, as the URL loader would
+        try {
+          if (jar.hasManifestClassPath()) { _directLoading = false; return null; }
+          byte[] result = jar.read(name);
+          if (result != null) { return result; }
+        }
+        finally { jar.release(); }
+      }
+    }
+    return null;
+  }
+  
   @Override 
   protected URL findResource(String name) {
-    _log.log("findResource(" + name + ") called; _path is " + _path);
+    if (_log.isEnabled()) _log.log("findResource(" + name + ") called; _path is " + _path);
     if (!IterUtil.isEqual(_path, _urlLoaderPath)) { updateURLLoader(); }
     return _urlLoader.findResource(name);
   }
   
   @Override 
   protected Enumeration<URL> findResources(String name) throws IOException {
-    _log.log("findResources(" + name + ") called _path is " + _path);
+    if (_log.isEnabled()) _log.log("findResources(" + name + ") called _path is " + _path);
     if (!IterUtil.isEqual(_path, _urlLoaderPath)) { updateURLLoader(); }
     return _urlLoader.findResources(name);
   }
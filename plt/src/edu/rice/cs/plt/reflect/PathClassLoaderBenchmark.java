@@ -0,0 +1,99 @@
+/*BEGIN_COPYRIGHT_BLOCK*
+
+PLT Utilities BSD License
+
+Copyright (c) 2007-2010 JavaPLT group at Rice University
+All rights reserved.
+
+Developed by:   Java Programming Languages Team
+                Rice University
+                http://www.cs.rice.edu/~javaplt/
+
+Redistribution and use in source and binary forms, with or without modification, are permitted 
+provided that the following conditions are met:
+
+    - Redistributions of source code must retain the above copyright notice, this list of conditions 
+      and the following disclaimer.
+    - Redistributions in binary form must reproduce the above copyright notice, this list of 
+      conditions and the following disclaimer in the documentation and/or other materials provided 
+      with the distribution.
+    - Neither the name of the JavaPLT group, Rice University, nor the names of the library's 
+      contributors may be used to endorse or promote products derived from this software without 
+      specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR 
+IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND 
+FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS AND 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, 
+DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER 
+IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT 
+OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*END_COPYRIGHT_BLOCK*/
+
+package edu.rice.cs.plt.reflect;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import edu.rice.cs.plt.debug.Stopwatch;
+
+/**
+ * Reports the throughput of loading every class in a jar with a PathClassLoader, compared to a standard
+ * URLClassLoader.  This is a timing benchmark, not a unit test; run it with the jar as its argument,
+ * for example {@code java edu.rice.cs.plt.reflect.PathClassLoaderBenchmark lib/buildlib/junit.jar}.
+ */
+public class PathClassLoaderBenchmark {
+  
+  public static void main(String... args) throws IOException {
+    if (args.length != 1) {
+      System.out.println("Usage: java edu.rice.cs.plt.reflect.PathClassLoaderBenchmark <jar file>");
+      return;
+    }
+    File jar = new File(args[0]);
+    List<String> names = new ArrayList<String>();
+    JarFile j = new JarFile(jar);
+    try {
+      Enumeration<JarEntry> entries = j.entries();
+      while (entries.hasMoreElements()) {
+        String n = entries.nextElement().getName();
+        if (n.endsWith(".class")) { names.add(n.substring(0, n.length() - 6).replace('/', '.')); }
+      }
+    }
+    finally { j.close(); }
+    ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+    
+    for (int i = 0; i < 3; i++) {
+      Stopwatch pathWatch = new Stopwatch(true);
+      PathClassLoader pathLoader = new PathClassLoader(parent, jar);
+      int pathLoaded = loadAll(pathLoader, names);
+      long pathTime = pathWatch.stop();
+      Stopwatch urlWatch = new Stopwatch(true);
+      int urlLoaded = loadAll(new URLClassLoader(new URL[]{ jar.toURI().toURL() }, parent), names);
+      long urlTime = urlWatch.stop();
+      System.out.println("classes: " + pathLoaded + "/" + urlLoaded +
+                         ", PathClassLoader classes/sec: " + (pathLoaded * 1000.0 / Math.max(pathTime, 1)) +
+                         ", URLClassLoader classes/sec: " + (urlLoaded * 1000.0 / Math.max(urlTime, 1)));
+      pathLoader.closeJars();
+    }
+  }
+  
+  private static int loadAll(ClassLoader l, Iterable<String> names) {
+    int result = 0;
+    for (String n : names) {
+      try { l.loadClass(n); result++; }
+      catch (ClassNotFoundException e) { /* skip */ }
+      catch (LinkageError e) { /* skip classes with missing dependencies */ }
+    }
+    return result;
+  }
+  
+}
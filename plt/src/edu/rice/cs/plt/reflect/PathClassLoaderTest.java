@@ -35,6 +35,17 @@ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package edu.rice.cs.plt.reflect;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import edu.rice.cs.plt.io.IOUtil;
 
 public class PathClassLoaderTest extends ClassLoaderTestCase {
   
@@ -121,6 +132,100 @@ public class PathClassLoaderTest extends ClassLoaderTestCase {
     assertCannotGet(lC, "D");
   }
   
+  public void testLoadsJar() throws Exception {
+    File tempDir = IOUtil.createAndMarkTempDirectory("plt", "");
+    File jar = new File(tempDir, "a.jar");
+    makeJar(jar, A_DIR, "pkg/A.class");
+    PathClassLoader l = new PathClassLoader(BASE_LOADER, INTBOX_DIR, jar);
+    assertLoadsClassAsLoader(l, "pkg.A");
+    assertCanGet(l, "pkg.A", 1);
+    assertDoesNotLoadClass(l, "pkg.C");
+    
+    // a jar that has been rebuilt should not be read from the stale open copy
+    assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+    makeJar(jar, C_DIR, "pkg/C.class");
+    assertCanGet(l, "pkg.C", 3);
+    l.closeJars();
+    assertEquals(0, l.openJarCount());
+  }
+  
+  /** Jars are opened when a lookup reaches them, and closed when they leave the path. */
+  public void testJarsOpenedOnDemand() throws Exception {
+    File tempDir = IOUtil.createAndMarkTempDirectory("plt", "");
+    File jar = new File(tempDir, "c.jar");
+    makeJar(jar, C_DIR, "pkg/C.class");
+    List<File> path = new ArrayList<File>(Arrays.asList(INTBOX_DIR, A_DIR, jar));
+    PathClassLoader l = new PathClassLoader(BASE_LOADER, path);
+    assertEquals(0, l.openJarCount());
+    assertCanGet(l, "pkg.A", 1);
+    assertEquals("found before reaching the jar", 0, l.openJarCount());
+    assertCanGet(l, "pkg.C", 3);
+    assertEquals(1, l.openJarCount());
+    
+    path.remove(jar);
+    path.add(B_DIR);
+    assertLoadsClassAsLoader(l, "bpkg.B");
+    assertEquals("jar closed when removed from the path", 0, l.openJarCount());
+  }
+  
+  /** A jar whose manifest has a Class-Path is only handled by the URL loader, which follows the Class-Path. */
+  public void testManifestClassPath() throws Exception {
+    File tempDir = IOUtil.createAndMarkTempDirectory("plt", "");
+    makeJar(new File(tempDir, "c.jar"), C_DIR, "pkg/C.class");
+    File jar = new File(tempDir, "refers.jar");
+    Manifest m = new Manifest();
+    m.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    m.getMainAttributes().put(Attributes.Name.CLASS_PATH, "c.jar");
+    new JarOutputStream(new FileOutputStream(jar), m).close();
+    PathClassLoader l = new PathClassLoader(BASE_LOADER, INTBOX_DIR, A_DIR, jar);
+    assertCanGet(l, "pkg.A", 1);
+    assertCanGet(l, "pkg.C", 3);
+    l.closeJars();
+  }
+  
+  /** Closing a loader's jars while other threads read from them must not make their loads fail. */
+  public void testCloseJarsDuringLoads() throws Exception {
+    File tempDir = IOUtil.createAndMarkTempDirectory("plt", "");
+    final File jar = new File(tempDir, "a.jar");
+    makeJar(jar, A_DIR, "pkg/A.class");
+    final PathClassLoader[] current = { null };
+    final boolean[] done = { false };
+    Thread closer = new Thread() {
+      public void run() {
+        while (true) {
+          PathClassLoader l;
+          synchronized(done) { if (done[0]) { return; } l = current[0]; }
+          if (l != null) { l.closeJars(); }
+        }
+      }
+    };
+    closer.start();
+    try {
+      for (int i = 0; i < 500; i++) {
+        PathClassLoader l = new PathClassLoader(BASE_LOADER, INTBOX_DIR, jar);
+        synchronized(done) { current[0] = l; }
+        assertCanGet(l, "pkg.A", 1);
+        l.closeJars();
+      }
+    }
+    finally {
+      synchronized(done) { done[0] = true; }
+      closer.join();
+    }
+  }
+  
+  private static void makeJar(File jar, File root, String... entries) throws IOException {
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+    try {
+      for (String e : entries) {
+        out.putNextEntry(new JarEntry(e));
+        out.write(IOUtil.toByteArray(new File(root, e)));
+        out.closeEntry();
+      }
+    }
+    finally { out.close(); }
+  }
+  
   private void assertCanGet(ClassLoader l, String className, int value) throws Exception {
     Class<?> c = l.loadClass(className);
     Object instance = c.newInstance();